@@ -16,6 +16,16 @@ java {
     }
 }
 
+// JMH micro-benchmarks live in src/jmh/java and run against the main output
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+configurations["jmhImplementation"].extendsFrom(configurations.implementation.get())
+
 dependencies {
     // JUnit 5
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
@@ -35,6 +45,10 @@ dependencies {
 
     // CLI
     implementation("info.picocli:picocli:4.7.5")
+
+    // JMH
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 application {
@@ -45,6 +59,24 @@ tasks.test {
     useJUnitPlatform()
 }
 
+// Run all benchmarks:      ./gradlew jmh
+// Run a subset by regex:   ./gradlew jmh -Pjmh.includes=TemplateEngine
+// Add JMH profilers:       ./gradlew jmh -Pjmh.includes=ArchiveWrite -Pjmh.profilers=gc
+// Results are written as JSON to build/reports/jmh/results.json (override with -Pjmh.results=<file>)
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs the JMH micro-benchmarks in src/jmh/java"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val results = file(project.findProperty("jmh.results")?.toString() ?: "${layout.buildDirectory.get()}/reports/jmh/results.json")
+    outputs.file(results)
+    outputs.upToDateWhen { false }
+    doFirst { results.parentFile.mkdirs() }
+    args(project.findProperty("jmh.includes")?.toString() ?: ".*")
+    args("-rf", "json", "-rff", results.absolutePath)
+    project.findProperty("jmh.profilers")?.toString()?.split(",")?.forEach { args("-prof", it.trim()) }
+}
+
 tasks.processResources {
     filesMatching("rest-api-generator.properties") {
         expand("appVersion" to project.version.toString())
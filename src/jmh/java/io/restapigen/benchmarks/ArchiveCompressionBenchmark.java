@@ -0,0 +1,62 @@
+package io.restapigen.benchmarks;
+
+import io.restapigen.core.config.GenerationConfig;
+import io.restapigen.core.orchestrator.GenerationOrchestrator;
+import io.restapigen.core.validator.SpecValidator;
+import io.restapigen.domain.ApiSpecification;
+import io.restapigen.plugins.BuiltInPlugins;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@code generateZip} under each archive compression setting. Parallel modes use
+ * one worker per CPU, so they only differ from their sequential counterparts on multi-core
+ * machines.
+ *
+ * <pre>./gradlew jmh -Pjmh.includes=ArchiveCompressionBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArchiveCompressionBenchmark {
+
+    @Param({"500"})
+    public int entities;
+
+    @Param({"default", "fast", "best", "stored", "default-parallel", "fast-parallel"})
+    public String compression;
+
+    private ApiSpecification spec;
+    private GenerationConfig config;
+    private GenerationOrchestrator orchestrator;
+
+    @Setup
+    public void setUp() {
+        spec = BenchmarkSpecs.spec(entities);
+        boolean parallel = compression.endsWith("-parallel");
+        config = GenerationConfig.defaults().withArchive(
+                new GenerationConfig.ArchiveConfig(compression.replace("-parallel", ""), null, parallel));
+        orchestrator = new GenerationOrchestrator(new SpecValidator(), BuiltInPlugins.all());
+    }
+
+    @Benchmark
+    public void generateZip() throws IOException {
+        orchestrator.generateZip(spec, config, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,87 @@
+package io.restapigen.benchmarks;
+
+import io.restapigen.core.config.GenerationConfig;
+import io.restapigen.core.orchestrator.GenerationOrchestrator;
+import io.restapigen.core.plugin.GeneratedFile;
+import io.restapigen.core.validator.SpecValidator;
+import io.restapigen.domain.ApiSpecification;
+import io.restapigen.plugins.BuiltInPlugins;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * ZIP writing for generated projects: encoding every file to a full {@code byte[]} first
+ * (the previous writer) against chunked encoding straight into the deflater input. Run with
+ * the GC profiler to compare {@code gc.alloc.rate.norm}:
+ *
+ * <pre>./gradlew jmh -Pjmh.includes=ArchiveWriteBenchmark -Pjmh.profilers=gc</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArchiveWriteBenchmark {
+
+    @Param({"40", "500"})
+    public int entities;
+
+    private ApiSpecification spec;
+    private GenerationConfig config;
+    private GenerationOrchestrator orchestrator;
+    private List<GeneratedFile> files;
+
+    @Setup
+    public void setUp() {
+        spec = BenchmarkSpecs.spec(entities);
+        config = GenerationConfig.defaults();
+        orchestrator = new GenerationOrchestrator(new SpecValidator(), BuiltInPlugins.all());
+        files = orchestrator.generate(spec, config);
+    }
+
+    @Benchmark
+    public void encodeWholeFiles() throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(OutputStream.nullOutputStream());
+        for (GeneratedFile file : files) {
+            zip.putNextEntry(new ZipEntry(file.path()));
+            zip.write(file.content().getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        zip.finish();
+    }
+
+    @Benchmark
+    public void encodeIntoDeflater() throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(OutputStream.nullOutputStream());
+        byte[] buffer = new byte[8 * 1024];
+        for (GeneratedFile file : files) {
+            zip.putNextEntry(new ZipEntry(file.path()));
+            file.writeTo(zip, buffer);
+            zip.closeEntry();
+        }
+        zip.finish();
+    }
+
+    @Benchmark
+    public void generateZip() throws IOException {
+        orchestrator.generateZip(spec, config, OutputStream.nullOutputStream());
+    }
+}
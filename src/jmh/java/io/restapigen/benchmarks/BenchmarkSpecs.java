@@ -0,0 +1,49 @@
+package io.restapigen.benchmarks;
+
+import io.restapigen.core.config.GenerationConfig;
+import io.restapigen.core.parser.NaturalLanguagePromptParser;
+import io.restapigen.domain.ApiSpecification;
+
+/**
+ * Synthetic prompts and specifications of a given entity count, shared by the benchmarks.
+ * Every entity has a mix of field types, an enum and (after the first) a relationship to
+ * its predecessor, so all per-entity plugins have real work to do.
+ */
+final class BenchmarkSpecs {
+
+    private BenchmarkSpecs() {
+    }
+
+    static String prompt(int entities) {
+        StringBuilder prompt = new StringBuilder(entities * 200);
+        for (int i = 0; i < entities; i++) {
+            prompt.append("Create an API for ").append(entityName(i)).append(" with:\n")
+                    .append("- name (string, required)\n")
+                    .append("- price (decimal, required, min 0)\n")
+                    .append("- quantity (integer, min 0, max 1000)\n")
+                    .append("- contactEmail (email, unique)\n")
+                    .append("- status (enum: DRAFT, ACTIVE, ARCHIVED)\n")
+                    .append("- createdOn (date)\n");
+            if (i > 0) {
+                prompt.append("- belongs to ").append(entityName(i - 1)).append('\n');
+            }
+            prompt.append('\n');
+        }
+        return prompt.toString();
+    }
+
+    static ApiSpecification spec(int entities) {
+        return new NaturalLanguagePromptParser().parse(prompt(entities), GenerationConfig.defaults());
+    }
+
+    /** Letters only, since the prompt grammar treats digits as part of the surrounding text. */
+    static String entityName(int index) {
+        StringBuilder suffix = new StringBuilder();
+        int remaining = index;
+        do {
+            suffix.append((char) ('a' + remaining % 26));
+            remaining /= 26;
+        } while (remaining > 0);
+        return "Item" + Character.toUpperCase(suffix.charAt(0)) + suffix.substring(1);
+    }
+}
@@ -0,0 +1,63 @@
+package io.restapigen.benchmarks;
+
+import io.restapigen.core.config.GenerationConfig;
+import io.restapigen.core.orchestrator.GenerationOrchestrator;
+import io.restapigen.core.plugin.GeneratedFile;
+import io.restapigen.core.validator.SpecValidator;
+import io.restapigen.domain.ApiSpecification;
+import io.restapigen.plugins.BuiltInPlugins;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full project generation with the built-in plugins and default config, as files and as a
+ * ZIP written to a discarding stream.
+ *
+ * <pre>./gradlew jmh -Pjmh.includes=GenerationBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerationBenchmark {
+
+    @Param({"1", "20", "500"})
+    public int entities;
+
+    private ApiSpecification spec;
+    private GenerationConfig config;
+    private GenerationOrchestrator orchestrator;
+
+    @Setup
+    public void setUp() {
+        spec = BenchmarkSpecs.spec(entities);
+        config = GenerationConfig.defaults();
+        orchestrator = new GenerationOrchestrator(new SpecValidator(), BuiltInPlugins.all());
+    }
+
+    @Benchmark
+    public List<GeneratedFile> generate() {
+        return orchestrator.generate(spec, config);
+    }
+
+    @Benchmark
+    public void generateZip() throws IOException {
+        orchestrator.generateZip(spec, config, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,45 @@
+package io.restapigen.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Copy of the pre-compilation {@code TemplateEngine}, minus the template-pack fallback:
+ * reads the template from the classpath on every call, runs one {@link String#replace}
+ * pass per value and finishes with a regex scan for unresolved placeholders. Kept only
+ * as the baseline for {@link TemplateEngineBenchmark}.
+ */
+final class LegacyTemplateEngine {
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\$\\{([A-Za-z0-9_]+)}");
+
+    String render(String templatePath, Map<String, String> values) {
+        String template = readTemplate(templatePath);
+        String rendered = template;
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            rendered = rendered.replace("${" + entry.getKey() + "}", entry.getValue() == null ? "" : entry.getValue());
+        }
+        Matcher unresolved = PLACEHOLDER_PATTERN.matcher(rendered);
+        if (unresolved.find()) {
+            throw new IllegalStateException(
+                    "Unresolved template placeholder '" + unresolved.group(0) + "' in " + templatePath
+            );
+        }
+        return rendered;
+    }
+
+    private String readTemplate(String templatePath) {
+        InputStream stream = LegacyTemplateEngine.class.getClassLoader().getResourceAsStream(templatePath);
+        if (stream == null) {
+            throw new IllegalArgumentException("Template not found: " + templatePath);
+        }
+        try (InputStream in = stream) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read template: " + templatePath, e);
+        }
+    }
+}
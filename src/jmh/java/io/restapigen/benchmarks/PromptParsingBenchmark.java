@@ -0,0 +1,72 @@
+package io.restapigen.benchmarks;
+
+import io.restapigen.domain.ApiSpecification;
+import io.restapigen.generator.NaturalLanguageSpecGenerator;
+import io.restapigen.generator.text.RequestParsing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The deterministic prompt parser: the whole {@link NaturalLanguageSpecGenerator} pipeline,
+ * and the {@link RequestParsing} field and entity-name extraction it runs on every
+ * per-entity segment of the prompt.
+ *
+ * <pre>./gradlew jmh -Pjmh.includes=PromptParsingBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptParsingBenchmark {
+
+    @Param({"1", "20", "500"})
+    public int entities;
+
+    private String prompt;
+    private List<String> segments;
+    private NaturalLanguageSpecGenerator generator;
+
+    @Setup
+    public void setUp() {
+        prompt = BenchmarkSpecs.prompt(entities);
+        segments = RequestParsing.splitIntoEntitySegments(prompt);
+        generator = new NaturalLanguageSpecGenerator();
+        if (generator.generate(prompt).entities.size() != entities) {
+            throw new IllegalStateException("Benchmark prompt did not parse into " + entities + " entities");
+        }
+    }
+
+    @Benchmark
+    public ApiSpecification generateSpec() {
+        return generator.generate(prompt);
+    }
+
+    @Benchmark
+    public void extractFields(Blackhole blackhole) {
+        for (String segment : segments) {
+            blackhole.consume(RequestParsing.extractFields(segment));
+        }
+    }
+
+    @Benchmark
+    public void extractEntityName(Blackhole blackhole) {
+        for (String segment : segments) {
+            blackhole.consume(RequestParsing.extractEntityName(segment));
+        }
+    }
+}
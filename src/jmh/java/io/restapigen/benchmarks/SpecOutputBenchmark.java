@@ -0,0 +1,63 @@
+package io.restapigen.benchmarks;
+
+import io.restapigen.core.config.GenerationConfig;
+import io.restapigen.core.validator.SpecDiagnosticsValidator;
+import io.restapigen.domain.ApiSpecification;
+import io.restapigen.output.json.JsonSpecificationWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work done on a parsed spec before any code is generated: writing it as JSON (the CLI's
+ * {@code generate} output) and the diagnostics behind the server's confidence checks.
+ *
+ * <pre>./gradlew jmh -Pjmh.includes=SpecOutputBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecOutputBenchmark {
+
+    @Param({"1", "20", "500"})
+    public int entities;
+
+    private ApiSpecification spec;
+    private GenerationConfig config;
+    private SpecDiagnosticsValidator validator;
+
+    @Setup
+    public void setUp() {
+        spec = BenchmarkSpecs.spec(entities);
+        config = GenerationConfig.defaults();
+        validator = new SpecDiagnosticsValidator();
+    }
+
+    @Benchmark
+    public String writeCompactJson() {
+        return JsonSpecificationWriter.writeApiSpecification(spec, false);
+    }
+
+    @Benchmark
+    public String writePrettyJson() {
+        return JsonSpecificationWriter.writeApiSpecification(spec, true);
+    }
+
+    @Benchmark
+    public SpecDiagnosticsValidator.ValidationReport validate() {
+        return validator.validate(spec, config);
+    }
+}
@@ -0,0 +1,68 @@
+package io.restapigen.benchmarks;
+
+import io.restapigen.core.template.TemplateEngine;
+import io.restapigen.core.template.TemplatePack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the compiled, cached {@link TemplateEngine} against the original
+ * read-replace-scan implementation on real template files.
+ *
+ * <pre>./gradlew jmh -Pjmh.includes=TemplateEngineBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateEngineBenchmark {
+
+    @Param({"mapper.java.tpl", "controller.java.tpl", "service.java.tpl"})
+    public String template;
+
+    private String templatePath;
+    private Map<String, String> values;
+    private TemplateEngine compiled;
+    private LegacyTemplateEngine legacy;
+
+    @Setup
+    public void setUp() {
+        templatePath = TemplatePack.springBootStandard().templatePath(template);
+        compiled = new TemplateEngine();
+        legacy = new LegacyTemplateEngine();
+        values = new LinkedHashMap<>();
+        for (String name : compiled.compile(templatePath).placeholderNames()) {
+            values.put(name, name.endsWith("Block") || name.startsWith("relation")
+                    ? "    // " + name + "\n    private String " + name + "Value;\n\n"
+                    : "Sample" + Character.toUpperCase(name.charAt(0)) + name.substring(1));
+        }
+        if (!compiled.render(templatePath, values).equals(legacy.render(templatePath, values))) {
+            throw new IllegalStateException("Compiled and legacy engines disagree on " + templatePath);
+        }
+    }
+
+    @Benchmark
+    public String compiledEngine() {
+        return compiled.render(templatePath, values);
+    }
+
+    @Benchmark
+    public String legacyEngine() {
+        return legacy.render(templatePath, values);
+    }
+}
@@ -18,11 +18,17 @@ import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Spec;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 
@@ -42,6 +48,8 @@ import java.util.concurrent.CountDownLatch;
         })
 public final class Main implements Callable<Integer> {
 
+    private static final int ZIP_WRITE_BUFFER = 64 * 1024;
+
     // ── Legacy top-level flags kept for backward compatibility ────────────────
 
     @Option(names = "--generate-zip", hidden = true)
@@ -123,9 +131,8 @@ public final class Main implements Callable<Integer> {
             ApiSpecification apiSpec = new NaturalLanguagePromptParser().parse(request, config);
 
             if (legacyGenerateZip) {
-                byte[] zip = new CodeGenerator().generateZip(apiSpec, config);
                 Path output = outputZipPath != null ? outputZipPath : Path.of("scaffold.zip");
-                Files.write(output, zip);
+                writeZip(apiSpec, config, output);
                 err.println("Generated ZIP: " + output.toAbsolutePath());
                 return 0;
             }
@@ -151,6 +158,25 @@ public final class Main implements Callable<Integer> {
         System.exit(exitCode);
     }
 
+    /**
+     * Streams the generated archive to disk through a {@link FileChannel} instead of
+     * materialising it in memory. Writes go to a sibling temp file that replaces
+     * {@code output} only once the archive is complete.
+     */
+    static void writeZip(ApiSpecification apiSpec, GenerationConfig config, Path output) throws IOException {
+        Path target = output.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".part");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), ZIP_WRITE_BUFFER)) {
+                new CodeGenerator().generateZip(apiSpec, config, out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
     // ── Shared mixins ─────────────────────────────────────────────────────────
 
     static final class ConfigMixin {
@@ -237,8 +263,7 @@ public final class Main implements Callable<Integer> {
             GenerationConfig cfg = config.load();
             ApiSpecification apiSpec = new NaturalLanguagePromptParser()
                     .parse(SpecInputExtractor.extractUserRequestOrWholeInput(input.read()), cfg);
-            byte[] zip = new CodeGenerator().generateZip(apiSpec, cfg);
-            Files.write(outputZip, zip);
+            writeZip(apiSpec, cfg, outputZip);
             spec.commandLine().getErr().println("Generated ZIP: " + outputZip.toAbsolutePath());
             return 0;
         }
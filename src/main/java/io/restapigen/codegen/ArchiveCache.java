@@ -0,0 +1,268 @@
+package io.restapigen.codegen;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Finished ZIP archives keyed by {@link CodeGenerator#fingerprint}.
+ *
+ * <p>The in-memory tier is an LRU bounded by total archive bytes. The optional disk tier
+ * stores one {@code <key>.zip} file per archive in a directory, is bounded by its own byte
+ * budget, and is re-indexed from the directory on startup so hits survive restarts. A
+ * memory miss that hits on disk promotes the archive back into memory.
+ */
+public final class ArchiveCache {
+    private static final Logger LOG = Logger.getLogger(ArchiveCache.class.getName());
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{16,128}");
+    private static final String SUFFIX = ".zip";
+
+    private final long maxBytes;
+    private final Path directory;
+    private final long maxDiskBytes;
+
+    // Access-ordered: iteration starts at the least recently used archive.
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder diskEvictions = new LongAdder();
+
+    public ArchiveCache(long maxBytes) {
+        this(maxBytes, null, 0);
+    }
+
+    /** @param directory disk tier location, or {@code null} for memory only */
+    public ArchiveCache(long maxBytes, Path directory, long maxDiskBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.directory = directory;
+        this.maxDiskBytes = directory == null ? 0 : Math.max(0, maxDiskBytes);
+        if (directory != null) {
+            indexDisk();
+        }
+    }
+
+    /** Largest archive either tier will hold; callers can stop buffering past this size. */
+    public long maxEntryBytes() {
+        return Math.max(maxBytes, maxDiskBytes);
+    }
+
+    /** Returns the cached archive for {@code key}, or {@code null}. The array must not be modified. */
+    public byte[] get(String key) {
+        synchronized (memory) {
+            byte[] archive = memory.get(key);
+            if (archive != null) {
+                hits.increment();
+                return archive;
+            }
+        }
+        byte[] archive = readFromDisk(key);
+        if (archive == null) {
+            misses.increment();
+            return null;
+        }
+        diskHits.increment();
+        putInMemory(key, archive);
+        return archive;
+    }
+
+    /**
+     * Stores {@code archive} under {@code key}; the cache takes ownership of the array.
+     * Returns whether either tier kept it, which it does not when it is larger than the tier
+     * allows or the disk write failed.
+     */
+    public boolean put(String key, byte[] archive) {
+        if (!KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid archive cache key: " + key);
+        }
+        boolean inMemory = putInMemory(key, archive);
+        return writeToDisk(key, archive) || inMemory;
+    }
+
+    public Stats stats() {
+        int entries;
+        long bytes;
+        synchronized (memory) {
+            entries = memory.size();
+            bytes = memoryBytes;
+        }
+        long onDisk;
+        synchronized (disk) {
+            onDisk = diskBytes;
+        }
+        return new Stats(hits.sum(), diskHits.sum(), misses.sum(), evictions.sum(), diskEvictions.sum(),
+                entries, bytes, onDisk);
+    }
+
+    private boolean putInMemory(String key, byte[] archive) {
+        if (archive.length > maxBytes) {
+            return false;
+        }
+        synchronized (memory) {
+            byte[] previous = memory.put(key, archive);
+            memoryBytes += archive.length - (previous == null ? 0 : previous.length);
+            Iterator<byte[]> eldest = memory.values().iterator();
+            while (memoryBytes > maxBytes && eldest.hasNext()) {
+                memoryBytes -= eldest.next().length;
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+        return true;
+    }
+
+    private byte[] readFromDisk(String key) {
+        if (directory == null || !KEY.matcher(key).matches()) {
+            return null;
+        }
+        synchronized (disk) {
+            // Touch for LRU order; a miss in the index means there is nothing to read.
+            if (disk.get(key) == null) {
+                return null;
+            }
+        }
+        Path file = directory.resolve(key + SUFFIX);
+        try {
+            byte[] archive = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return archive;
+        } catch (IOException e) {
+            // Removed behind our back; forget it.
+            synchronized (disk) {
+                Long size = disk.remove(key);
+                if (size != null) {
+                    diskBytes -= size;
+                }
+            }
+            return null;
+        }
+    }
+
+    private boolean writeToDisk(String key, byte[] archive) {
+        if (directory == null || archive.length > maxDiskBytes) {
+            return false;
+        }
+        synchronized (disk) {
+            if (disk.containsKey(key)) {
+                return true;
+            }
+        }
+        Path target = directory.resolve(key + SUFFIX);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, key, ".part");
+            Files.write(temp, archive);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warning("Cannot write cached archive " + target + ": " + e.getMessage());
+            return false;
+        } finally {
+            deleteQuietly(temp);
+        }
+        List<String> evicted = new ArrayList<>();
+        synchronized (disk) {
+            Long previous = disk.put(key, (long) archive.length);
+            diskBytes += archive.length - (previous == null ? 0 : previous);
+            Iterator<Map.Entry<String, Long>> eldest = disk.entrySet().iterator();
+            while (diskBytes > maxDiskBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                diskBytes -= entry.getValue();
+                evicted.add(entry.getKey());
+                eldest.remove();
+                diskEvictions.increment();
+            }
+        }
+        for (String old : evicted) {
+            deleteQuietly(directory.resolve(old + SUFFIX));
+        }
+        return true;
+    }
+
+    /** Rebuilds the disk index oldest-first, dropping leftovers of interrupted writes. */
+    private void indexDisk() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.toList();
+            }
+            files.stream()
+                    .filter(file -> file.getFileName().toString().endsWith(".part"))
+                    .forEach(ArchiveCache::deleteQuietly);
+            files.stream()
+                    .filter(file -> isArchive(file.getFileName().toString()))
+                    .sorted(Comparator.comparing(ArchiveCache::lastModified))
+                    .forEach(file -> {
+                        String name = file.getFileName().toString();
+                        long size = size(file);
+                        disk.put(name.substring(0, name.length() - SUFFIX.length()), size);
+                        diskBytes += size;
+                    });
+        } catch (IOException e) {
+            LOG.warning("Cannot index archive cache directory " + directory + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean isArchive(String name) {
+        return name.endsWith(SUFFIX) && KEY.matcher(name.substring(0, name.length() - SUFFIX.length())).matches();
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Cache counters. {@code hits} are served from memory, {@code diskHits} from the disk tier;
+     * {@code entries} and {@code bytes} describe the memory tier.
+     */
+    public record Stats(
+            long hits,
+            long diskHits,
+            long misses,
+            long evictions,
+            long diskEvictions,
+            int entries,
+            long bytes,
+            long diskBytes
+    ) {
+    }
+}
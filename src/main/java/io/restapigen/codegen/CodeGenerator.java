@@ -1,20 +1,37 @@
 package io.restapigen.codegen;
 
 import io.restapigen.core.config.GenerationConfig;
+import io.restapigen.core.orchestrator.GenerationDelta;
+import io.restapigen.core.orchestrator.GenerationListener;
 import io.restapigen.core.orchestrator.GenerationOrchestrator;
-import io.restapigen.core.plugin.PluginLoader;
+import io.restapigen.core.plugin.GeneratedFile;
+import io.restapigen.core.plugin.PluginRegistry;
 import io.restapigen.core.validator.SpecValidator;
 import io.restapigen.domain.ApiSpecification;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.Supplier;
 
 public final class CodeGenerator {
     private final SpecValidator validator;
-    private final PluginLoader pluginLoader;
+    private final PluginRegistry pluginRegistry;
+    private final GenerationListener listener;
 
     public CodeGenerator() {
+        this(new PluginRegistry());
+    }
+
+    /** Uses a shared, long-lived registry so plugins are loaded once rather than per archive. */
+    public CodeGenerator(PluginRegistry pluginRegistry) {
+        this(pluginRegistry, GenerationListener.NONE);
+    }
+
+    public CodeGenerator(PluginRegistry pluginRegistry, GenerationListener listener) {
         this.validator = new SpecValidator();
-        this.pluginLoader = new PluginLoader();
+        this.pluginRegistry = pluginRegistry;
+        this.listener = listener;
     }
 
     public byte[] generateZip(ApiSpecification spec) throws IOException {
@@ -23,7 +40,83 @@ public final class CodeGenerator {
 
     public byte[] generateZip(ApiSpecification spec, GenerationConfig config) throws IOException {
         GenerationConfig effective = config == null ? GenerationConfig.defaults() : config;
-        GenerationOrchestrator orchestrator = new GenerationOrchestrator(validator, pluginLoader.load(effective));
-        return orchestrator.generateZip(spec, effective);
+        try (PluginRegistry.Lease plugins = pluginRegistry.acquire(effective)) {
+            return orchestrator(plugins).generateZip(spec, effective);
+        }
+    }
+
+    /** The files {@link #generateZip} would archive, for callers that lay out their own archive. */
+    public List<GeneratedFile> generateFiles(ApiSpecification spec, GenerationConfig config) {
+        GenerationConfig effective = config == null ? GenerationConfig.defaults() : config;
+        try (PluginRegistry.Lease plugins = pluginRegistry.acquire(effective)) {
+            return orchestrator(plugins).generate(spec, effective);
+        }
+    }
+
+    /** Streams the ZIP archive to {@code out} without buffering it; the stream is left open. */
+    public void generateZip(ApiSpecification spec, GenerationConfig config, OutputStream out) throws IOException {
+        generateZip(spec, config, out, GenerationListener.NONE);
+    }
+
+    /** As above, also reporting this archive's phases and plugin times to {@code request}. */
+    public void generateZip(ApiSpecification spec, GenerationConfig config, OutputStream out, GenerationListener request)
+            throws IOException {
+        generateZip(spec, config, out, request, null);
+    }
+
+    /** As above, ending the archive with the entry {@code last} supplies once everything else is written. */
+    public void generateZip(ApiSpecification spec, GenerationConfig config, OutputStream out, GenerationListener request,
+                            Supplier<GeneratedFile> last) throws IOException {
+        GenerationConfig effective = config == null ? GenerationConfig.defaults() : config;
+        try (PluginRegistry.Lease plugins = pluginRegistry.acquire(effective)) {
+            orchestrator(plugins, request).generateZip(spec, effective, out, last);
+        }
+    }
+
+    /**
+     * Streams a ZIP with only the files that differ from what {@code previousSpec} produced,
+     * plus a manifest of added, changed and removed paths; the stream is left open.
+     */
+    public GenerationDelta generateDeltaZip(
+            ApiSpecification previousSpec,
+            GenerationConfig previousConfig,
+            ApiSpecification spec,
+            GenerationConfig config,
+            OutputStream out
+    ) throws IOException {
+        return generateDeltaZip(previousSpec, previousConfig, spec, config, out, GenerationListener.NONE);
+    }
+
+    /** As above, also reporting this delta's phases and plugin times to {@code request}. */
+    public GenerationDelta generateDeltaZip(
+            ApiSpecification previousSpec,
+            GenerationConfig previousConfig,
+            ApiSpecification spec,
+            GenerationConfig config,
+            OutputStream out,
+            GenerationListener request
+    ) throws IOException {
+        GenerationConfig effective = config == null ? GenerationConfig.defaults() : config;
+        GenerationConfig previousEffective = previousConfig == null ? effective : previousConfig;
+        try (PluginRegistry.Lease plugins = pluginRegistry.acquire(effective)) {
+            return orchestrator(plugins, request).generateDeltaZip(previousSpec, previousEffective, spec, effective, out);
+        }
+    }
+
+    /** Content address of the archive {@link #generateZip} would produce for these inputs. */
+    public String fingerprint(ApiSpecification spec, GenerationConfig config) {
+        GenerationConfig effective = config == null ? GenerationConfig.defaults() : config;
+        try (PluginRegistry.Lease plugins = pluginRegistry.acquire(effective)) {
+            return orchestrator(plugins).fingerprint(spec, effective);
+        }
+    }
+
+    private GenerationOrchestrator orchestrator(PluginRegistry.Lease plugins) {
+        return orchestrator(plugins, GenerationListener.NONE);
+    }
+
+    private GenerationOrchestrator orchestrator(PluginRegistry.Lease plugins, GenerationListener request) {
+        return new GenerationOrchestrator(validator, plugins.plugins(),
+                request == GenerationListener.NONE ? listener : listener.andThen(request));
     }
 }
@@ -3,6 +3,7 @@ package io.restapigen.core.config;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -10,17 +11,29 @@ public record GenerationConfig(
         ProjectConfig project,
         StandardsConfig standards,
         FeaturesConfig features,
-        PluginsConfig plugins
+        PluginsConfig plugins,
+        ExecutionConfig execution,
+        ArchiveConfig archive
 ) {
     public GenerationConfig {
         project = project == null ? ProjectConfig.defaults() : project;
         standards = standards == null ? StandardsConfig.defaults() : standards;
         features = features == null ? FeaturesConfig.defaults() : features;
         plugins = plugins == null ? PluginsConfig.defaults() : plugins;
+        execution = execution == null ? ExecutionConfig.defaults() : execution;
+        archive = archive == null ? ArchiveConfig.defaults() : archive;
+    }
+
+    public GenerationConfig(ProjectConfig project, StandardsConfig standards, FeaturesConfig features, PluginsConfig plugins) {
+        this(project, standards, features, plugins, null, null);
+    }
+
+    public GenerationConfig(ProjectConfig project, StandardsConfig standards, FeaturesConfig features, PluginsConfig plugins, ExecutionConfig execution) {
+        this(project, standards, features, plugins, execution, null);
     }
 
     public static GenerationConfig defaults() {
-        return new GenerationConfig(ProjectConfig.defaults(), StandardsConfig.defaults(), FeaturesConfig.defaults(), PluginsConfig.defaults());
+        return new GenerationConfig(ProjectConfig.defaults(), StandardsConfig.defaults(), FeaturesConfig.defaults(), PluginsConfig.defaults(), ExecutionConfig.defaults(), ArchiveConfig.defaults());
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
@@ -257,6 +270,72 @@ public record GenerationConfig(
         }
     }
 
+    /**
+     * How the orchestrator runs plugins. Plugins whose dependencies have completed run
+     * concurrently on up to {@code parallelism} workers (0 = one per available processor);
+     * {@code sequential: true} restores the one-after-another behaviour.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ExecutionConfig(boolean sequential, int parallelism) {
+        public ExecutionConfig {
+            parallelism = Math.max(0, parallelism);
+        }
+
+        static ExecutionConfig defaults() {
+            return new ExecutionConfig(false, 0);
+        }
+
+        public int effectiveParallelism() {
+            if (sequential) {
+                return 1;
+            }
+            return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    /**
+     * How generated ZIP archives are compressed. {@code compression} is a preset
+     * ({@code default}, {@code fast}, {@code best} or {@code stored}); {@code level} (0-9)
+     * overrides the preset's deflate level. With {@code parallel}, entries are deflated
+     * concurrently on the execution workers and assembled in order afterwards.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ArchiveConfig(String compression, Integer level, boolean parallel) {
+        private static final List<String> PRESETS = List.of("default", "fast", "best", "stored");
+
+        public ArchiveConfig {
+            compression = normalize(compression, "default").trim().toLowerCase(Locale.ROOT);
+            if (!PRESETS.contains(compression)) {
+                throw new IllegalArgumentException("Unknown archive compression '" + compression + "' (expected one of " + PRESETS + ")");
+            }
+            if (level != null && (level < 0 || level > 9)) {
+                throw new IllegalArgumentException("Archive compression level must be between 0 and 9, got " + level);
+            }
+        }
+
+        static ArchiveConfig defaults() {
+            return new ArchiveConfig("default", null, false);
+        }
+
+        /** Entries are written uncompressed (ZIP method STORED). */
+        public boolean stored() {
+            return "stored".equals(compression);
+        }
+
+        /** The {@link java.util.zip.Deflater} level for deflated entries; -1 is zlib's default. */
+        public int deflateLevel() {
+            if (level != null) {
+                return level;
+            }
+            return switch (compression) {
+                case "fast" -> 1;
+                case "best" -> 9;
+                case "stored" -> 0;
+                default -> -1;
+            };
+        }
+    }
+
     private static String normalize(String value, String fallback) {
         if (value == null || value.isBlank()) {
             return fallback;
@@ -272,7 +351,7 @@ public record GenerationConfig(
                 project.javaVersion(),
                 templatePack
         );
-        return new GenerationConfig(updatedProject, standards, features, plugins);
+        return new GenerationConfig(updatedProject, standards, features, plugins, execution, archive);
     }
 
     public boolean hasExplicitProjectName() {
@@ -291,6 +370,10 @@ public record GenerationConfig(
                 project.javaVersion(),
                 project.templatePack()
         );
-        return new GenerationConfig(updatedProject, standards, features, plugins);
+        return new GenerationConfig(updatedProject, standards, features, plugins, execution, archive);
+    }
+
+    public GenerationConfig withArchive(ArchiveConfig archive) {
+        return new GenerationConfig(project, standards, features, plugins, execution, archive);
     }
 }
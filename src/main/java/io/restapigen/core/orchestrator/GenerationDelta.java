@@ -0,0 +1,55 @@
+package io.restapigen.core.orchestrator;
+
+import io.restapigen.core.plugin.GeneratedFile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Difference between the files generated for a previous and a current specification.
+ * {@code added} and {@code changed} carry the current content; {@code removed} lists
+ * paths that only the previous specification produced.
+ */
+public record GenerationDelta(
+        String baseFingerprint,
+        String fingerprint,
+        List<GeneratedFile> added,
+        List<GeneratedFile> changed,
+        List<String> removed
+) {
+    /** Archive entry holding the {@link Manifest} in delta ZIPs. */
+    public static final String MANIFEST_PATH = "delta-manifest.json";
+
+    public GenerationDelta {
+        added = List.copyOf(added);
+        changed = List.copyOf(changed);
+        removed = List.copyOf(removed);
+    }
+
+    /** Added files followed by changed files, in generation order. */
+    public List<GeneratedFile> files() {
+        List<GeneratedFile> files = new ArrayList<>(added.size() + changed.size());
+        files.addAll(added);
+        files.addAll(changed);
+        return files;
+    }
+
+    public Manifest manifest() {
+        return new Manifest(
+                baseFingerprint,
+                fingerprint,
+                added.stream().map(GeneratedFile::path).toList(),
+                changed.stream().map(GeneratedFile::path).toList(),
+                removed
+        );
+    }
+
+    public record Manifest(
+            String baseFingerprint,
+            String fingerprint,
+            List<String> added,
+            List<String> changed,
+            List<String> removed
+    ) {
+    }
+}
@@ -0,0 +1,94 @@
+package io.restapigen.core.orchestrator;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.restapigen.core.config.GenerationConfig;
+import io.restapigen.core.plugin.GeneratorPlugin;
+import io.restapigen.domain.ApiSpecification;
+import io.restapigen.domain.EntityDefinition;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * SHA-256 over a canonical JSON rendering of everything that determines an archive's
+ * contents: the effective specification, the effective configuration and the name and
+ * version of each plugin that runs. Properties and map keys are written in sorted order
+ * so equal inputs always hash equally. Execution settings are left out because they
+ * change how fast the archive is produced, not what is in it. Archive compression is
+ * included (as the resulting entry method and level) because it changes the archive's
+ * bytes, though not the files in it, so it is left out of {@link #ofSetup}. Whether it runs
+ * in parallel is not: both archive writers lay out equal entries byte for byte alike.
+ */
+final class GenerationFingerprint {
+    private static final ObjectMapper CANONICAL = JsonMapper.builder()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private GenerationFingerprint() {
+    }
+
+    static String of(ApiSpecification specification, GenerationConfig config, List<GeneratorPlugin> plugins) {
+        GenerationConfig.ArchiveConfig archive = config.archive();
+        ArchiveFormat format = new ArchiveFormat(archive.stored(), archive.stored() ? 0 : archive.deflateLevel());
+        return digest(new Inputs(specification, contentConfig(config), format, pluginVersions(plugins)));
+    }
+
+    /** Everything except the specification: equal setups render equal entities identically. */
+    static String ofSetup(GenerationConfig config, List<GeneratorPlugin> plugins) {
+        return digest(new Setup(contentConfig(config), pluginVersions(plugins)));
+    }
+
+    static String ofEntity(EntityDefinition definition) {
+        return digest(definition);
+    }
+
+    private static String digest(Object value) {
+        MessageDigest digest = sha256();
+        try (OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+            CANONICAL.writeValue(out, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot fingerprint specification", e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /** The settings that affect generated file contents. */
+    private static GenerationConfig contentConfig(GenerationConfig config) {
+        return new GenerationConfig(config.project(), config.standards(), config.features(), config.plugins());
+    }
+
+    private static List<String> pluginVersions(List<GeneratorPlugin> plugins) {
+        return plugins.stream()
+                .map(plugin -> plugin.getName() + "@" + plugin.getVersion())
+                .toList();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record Inputs(ApiSpecification specification, GenerationConfig config, ArchiveFormat archive, List<String> plugins) {
+    }
+
+    private record ArchiveFormat(boolean stored, int level) {
+    }
+
+    private record Setup(GenerationConfig config, List<String> plugins) {
+    }
+}
@@ -0,0 +1,61 @@
+package io.restapigen.core.orchestrator;
+
+import java.util.List;
+
+/**
+ * Observes generation, for metrics and per-request traces. Plugins may run on worker threads,
+ * so implementations must be cheap and thread-safe.
+ */
+@FunctionalInterface
+public interface GenerationListener {
+    GenerationListener NONE = (plugin, nanos) -> {
+    };
+
+    /** {@link GenerationOrchestrator#generate} is about to run these plugins, in this order. */
+    default void pluginsPlanned(List<String> plugins) {
+    }
+
+    /** {@code plugin} started its share of one generation. */
+    default void pluginStarted(String plugin) {
+    }
+
+    /** {@code plugin} finished its share of one generation after {@code nanos}, successfully or not. */
+    void pluginFinished(String plugin, long nanos);
+
+    /**
+     * A phase of one generation finished after {@code nanos} of wall-clock time: {@code validate},
+     * {@code generate} (all plugins, however many ran in parallel) or {@code zip}.
+     */
+    default void phaseFinished(String phase, long nanos) {
+    }
+
+    /** Notifies this listener, then {@code next}. */
+    default GenerationListener andThen(GenerationListener next) {
+        GenerationListener first = this;
+        return new GenerationListener() {
+            @Override
+            public void pluginsPlanned(List<String> plugins) {
+                first.pluginsPlanned(plugins);
+                next.pluginsPlanned(plugins);
+            }
+
+            @Override
+            public void pluginStarted(String plugin) {
+                first.pluginStarted(plugin);
+                next.pluginStarted(plugin);
+            }
+
+            @Override
+            public void pluginFinished(String plugin, long nanos) {
+                first.pluginFinished(plugin, nanos);
+                next.pluginFinished(plugin, nanos);
+            }
+
+            @Override
+            public void phaseFinished(String phase, long nanos) {
+                first.phaseFinished(phase, nanos);
+                next.phaseFinished(phase, nanos);
+            }
+        };
+    }
+}
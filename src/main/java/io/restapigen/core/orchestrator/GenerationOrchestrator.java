@@ -1,5 +1,7 @@
 package io.restapigen.core.orchestrator;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.restapigen.core.config.GenerationConfig;
 import io.restapigen.core.plugin.GeneratedFile;
 import io.restapigen.core.plugin.GeneratorPlugin;
@@ -8,26 +10,40 @@ import io.restapigen.core.template.TemplateEngine;
 import io.restapigen.core.template.TemplatePack;
 import io.restapigen.core.validator.SpecValidator;
 import io.restapigen.domain.ApiSpecification;
+import io.restapigen.domain.EntityDefinition;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
 
 public final class GenerationOrchestrator {
+    private static final ObjectMapper MANIFEST_WRITER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
     private final SpecValidator validator;
     private final Map<String, GeneratorPlugin> plugins;
+    private final GenerationListener listener;
 
     public GenerationOrchestrator(SpecValidator validator, List<GeneratorPlugin> pluginList) {
+        this(validator, pluginList, GenerationListener.NONE);
+    }
+
+    public GenerationOrchestrator(SpecValidator validator, List<GeneratorPlugin> pluginList, GenerationListener listener) {
         this.validator = validator;
+        this.listener = listener;
         this.plugins = new LinkedHashMap<>();
         for (GeneratorPlugin plugin : pluginList) {
             this.plugins.put(plugin.getName(), plugin);
@@ -37,28 +53,255 @@ public final class GenerationOrchestrator {
     public List<GeneratedFile> generate(ApiSpecification specification, GenerationConfig config) {
         GenerationConfig effectiveConfig = effectiveConfig(specification, config);
         ApiSpecification effectiveSpecification = effectiveSpecification(specification, effectiveConfig);
+        long started = System.nanoTime();
         validator.validate(effectiveSpecification);
-        PluginContext context = new PluginContext(
+        listener.phaseFinished("validate", System.nanoTime() - started);
+        PluginContext context = context(effectiveConfig);
+
+        List<GeneratorPlugin> ordered = enabledPlugins(effectiveConfig);
+        listener.pluginsPlanned(ordered.stream().map(GeneratorPlugin::getName).toList());
+
+        int parallelism = effectiveConfig.execution().effectiveParallelism();
+        started = System.nanoTime();
+        try {
+            if (parallelism <= 1) {
+                List<GeneratedFile> generated = new ArrayList<>();
+                for (GeneratorPlugin plugin : ordered) {
+                    generated.addAll(runPlugin(plugin, effectiveSpecification, context, null));
+                }
+                return generated;
+            }
+            return generateConcurrently(ordered, effectiveSpecification, context, GenerationPools.forParallelism(parallelism));
+        } finally {
+            listener.phaseFinished("generate", System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Content address of the files {@link #generate} produces for these inputs: a hex SHA-256
+     * over the effective specification, the effective configuration and the enabled plugins'
+     * names and versions. Equal fingerprints mean equal generated files.
+     */
+    public String fingerprint(ApiSpecification specification, GenerationConfig config) {
+        GenerationConfig effectiveConfig = effectiveConfig(specification, config);
+        return GenerationFingerprint.of(
+                effectiveSpecification(specification, effectiveConfig),
+                effectiveConfig,
+                enabledPlugins(effectiveConfig)
+        );
+    }
+
+    /**
+     * Generates only what differs between two specifications. Per-entity output of plugins
+     * that support {@link GeneratorPlugin#supportsEntityFanOut() fan-out} depends on nothing
+     * but the entity and the setup (effective config and plugin versions), so when the setup
+     * is unchanged, entities whose definitions are identical are not regenerated; on the new side
+     * only their {@link GeneratorPlugin#pathsForEntity paths} are asked for, so a file they share
+     * with changed output is not reported as removed. Every other file is regenerated for both specifications and
+     * compared by content.
+     */
+    public GenerationDelta generateDelta(
+            ApiSpecification previousSpecification,
+            GenerationConfig previousConfig,
+            ApiSpecification specification,
+            GenerationConfig config
+    ) {
+        GenerationConfig previousEffectiveConfig = effectiveConfig(previousSpecification, previousConfig);
+        ApiSpecification previousEffective = effectiveSpecification(previousSpecification, previousEffectiveConfig);
+        GenerationConfig effectiveConfig = effectiveConfig(specification, config);
+        ApiSpecification effective = effectiveSpecification(specification, effectiveConfig);
+        long started = System.nanoTime();
+        validator.validate(effective);
+        listener.phaseFinished("validate", System.nanoTime() - started);
+        started = System.nanoTime();
+
+        List<GeneratorPlugin> previousPlugins = enabledPlugins(previousEffectiveConfig);
+        List<GeneratorPlugin> currentPlugins = enabledPlugins(effectiveConfig);
+        Set<String> unchangedEntities = new HashSet<>();
+        if (GenerationFingerprint.ofSetup(previousEffectiveConfig, previousPlugins)
+                .equals(GenerationFingerprint.ofSetup(effectiveConfig, currentPlugins))) {
+            Map<String, String> previousDigests = new HashMap<>();
+            for (EntityDefinition definition : previousEffective.entities) {
+                previousDigests.put(definition.entity.name, GenerationFingerprint.ofEntity(definition));
+            }
+            for (EntityDefinition definition : effective.entities) {
+                if (GenerationFingerprint.ofEntity(definition).equals(previousDigests.get(definition.entity.name))) {
+                    unchangedEntities.add(definition.entity.name);
+                }
+            }
+        }
+
+        Map<String, GeneratedFile> before = new HashMap<>();
+        for (GeneratedFile file : generateAffected(previousEffective, previousEffectiveConfig, previousPlugins, unchangedEntities, null)) {
+            before.put(file.path(), file);
+        }
+        List<GeneratedFile> added = new ArrayList<>();
+        List<GeneratedFile> changed = new ArrayList<>();
+        Set<String> currentPaths = new HashSet<>();
+        for (GeneratedFile file : generateAffected(effective, effectiveConfig, currentPlugins, unchangedEntities, currentPaths)) {
+            currentPaths.add(file.path());
+            GeneratedFile previousFile = before.get(file.path());
+            if (previousFile == null) {
+                added.add(file);
+            } else if (!previousFile.equals(file)) {
+                changed.add(file);
+            }
+        }
+        List<String> removed = before.keySet().stream()
+                .filter(path -> !currentPaths.contains(path))
+                .sorted()
+                .toList();
+        listener.phaseFinished("generate", System.nanoTime() - started);
+
+        return new GenerationDelta(
+                GenerationFingerprint.of(previousEffective, previousEffectiveConfig, previousPlugins),
+                GenerationFingerprint.of(effective, effectiveConfig, currentPlugins),
+                added,
+                changed,
+                removed
+        );
+    }
+
+    /**
+     * Files of all global plugins plus per-entity files of the entities not in {@code skippedEntities}.
+     * With {@code skippedPaths}, the paths the skipped entities produce are collected there, without rendering them.
+     */
+    private List<GeneratedFile> generateAffected(
+            ApiSpecification specification,
+            GenerationConfig config,
+            List<GeneratorPlugin> ordered,
+            Set<String> skippedEntities,
+            Set<String> skippedPaths
+    ) {
+        PluginContext context = context(config);
+        List<GeneratedFile> files = new ArrayList<>();
+        for (GeneratorPlugin plugin : ordered) {
+            listener.pluginStarted(plugin.getName());
+            long started = System.nanoTime();
+            try {
+                plugin.initialize(context);
+                plugin.validate(specification);
+                if (!plugin.supportsEntityFanOut()) {
+                    files.addAll(plugin.generate(specification, context));
+                    continue;
+                }
+                for (EntityDefinition definition : specification.entities) {
+                    if (!skippedEntities.contains(definition.entity.name)) {
+                        files.addAll(plugin.generateForEntity(definition, specification, context));
+                    } else if (skippedPaths != null) {
+                        skippedPaths.addAll(plugin.pathsForEntity(definition, specification, context));
+                    }
+                }
+            } finally {
+                listener.pluginFinished(plugin.getName(), System.nanoTime() - started);
+            }
+        }
+        return files;
+    }
+
+    private static PluginContext context(GenerationConfig effectiveConfig) {
+        return new PluginContext(
                 effectiveConfig,
                 effectiveConfig.project().basePackage().replace('.', '/'),
                 new TemplateEngine(),
                 TemplatePack.fromName(effectiveConfig.project().templatePack())
         );
+    }
 
-        List<GeneratorPlugin> ordered = orderPlugins(plugins.values().stream()
+    private List<GeneratorPlugin> enabledPlugins(GenerationConfig effectiveConfig) {
+        return orderPlugins(plugins.values().stream()
                 .filter(plugin -> effectiveConfig.plugins().isEnabled(plugin.getName()))
                 .sorted(Comparator.comparing(GeneratorPlugin::getName))
                 .toList());
+    }
 
-        List<GeneratedFile> generated = new ArrayList<>();
+    /**
+     * Starts each plugin as soon as all of its dependencies have completed. Results are
+     * concatenated in topological order, so the file list is identical to sequential mode.
+     * When plugins fail, the failure of the earliest plugin in that order is rethrown.
+     */
+    private List<GeneratedFile> generateConcurrently(
+            List<GeneratorPlugin> ordered,
+            ApiSpecification specification,
+            PluginContext context,
+            ForkJoinPool pool
+    ) {
+        Map<String, CompletableFuture<List<GeneratedFile>>> byName = new HashMap<>();
+        List<CompletableFuture<List<GeneratedFile>>> futures = new ArrayList<>(ordered.size());
         for (GeneratorPlugin plugin : ordered) {
-            plugin.initialize(context);
-            plugin.validate(effectiveSpecification);
-            generated.addAll(plugin.generate(effectiveSpecification, context));
+            CompletableFuture<?>[] dependencies = plugin.getDependencies().stream()
+                    .map(byName::get)
+                    .toArray(CompletableFuture<?>[]::new);
+            CompletableFuture<List<GeneratedFile>> future = CompletableFuture.allOf(dependencies)
+                    .thenApplyAsync(ignored -> runPlugin(plugin, specification, context, pool), pool);
+            byName.put(plugin.getName(), future);
+            futures.add(future);
+        }
+
+        List<GeneratedFile> generated = new ArrayList<>();
+        RuntimeException failure = null;
+        for (CompletableFuture<List<GeneratedFile>> future : futures) {
+            try {
+                generated.addAll(future.join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = unwrap(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
         }
         return generated;
     }
 
+    /** Runs one plugin; with a pool, per-entity plugins are fanned out across its workers. */
+    private List<GeneratedFile> runPlugin(
+            GeneratorPlugin plugin,
+            ApiSpecification specification,
+            PluginContext context,
+            ForkJoinPool pool
+    ) {
+        listener.pluginStarted(plugin.getName());
+        long started = System.nanoTime();
+        try {
+            plugin.initialize(context);
+            plugin.validate(specification);
+            if (pool != null && plugin.supportsEntityFanOut() && specification.entities.size() > 1) {
+                return generatePerEntity(plugin, specification, context, pool);
+            }
+            return plugin.generate(specification, context);
+        } finally {
+            listener.pluginFinished(plugin.getName(), System.nanoTime() - started);
+        }
+    }
+
+    private static List<GeneratedFile> generatePerEntity(
+            GeneratorPlugin plugin,
+            ApiSpecification specification,
+            PluginContext context,
+            ForkJoinPool pool
+    ) {
+        int threshold = Math.max(1, specification.entities.size() / (pool.getParallelism() * 4));
+        EntityFanOutTask task = new EntityFanOutTask(plugin, specification, context, 0, specification.entities.size(), threshold);
+        EntityChunk result = ForkJoinTask.getPool() == pool ? task.invoke() : pool.invoke(task);
+        if (result.failure() != null) {
+            throw result.failure();
+        }
+        return result.files();
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return e;
+    }
+
     private List<GeneratorPlugin> orderPlugins(List<GeneratorPlugin> selected) {
         Map<String, GeneratorPlugin> byName = new HashMap<>();
         for (GeneratorPlugin plugin : selected) {
@@ -99,18 +342,130 @@ public final class GenerationOrchestrator {
         ordered.add(plugin);
     }
 
+    /**
+     * Files for a contiguous range of entities, or the failure of the earliest entity in it.
+     * Failures are carried as values so the original exception reaches the caller as-is.
+     */
+    private record EntityChunk(List<GeneratedFile> files, RuntimeException failure) {
+    }
+
+    /**
+     * Halves an entity range until it holds at most {@code threshold} entities, which are then
+     * generated serially. Left results always precede right ones, so the merged list keeps
+     * specification order.
+     */
+    private static final class EntityFanOutTask extends RecursiveTask<EntityChunk> {
+        private final GeneratorPlugin plugin;
+        private final ApiSpecification specification;
+        private final PluginContext context;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        EntityFanOutTask(GeneratorPlugin plugin, ApiSpecification specification, PluginContext context,
+                         int from, int to, int threshold) {
+            this.plugin = plugin;
+            this.specification = specification;
+            this.context = context;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected EntityChunk compute() {
+            if (to - from <= threshold) {
+                List<GeneratedFile> files = new ArrayList<>();
+                try {
+                    for (int i = from; i < to; i++) {
+                        files.addAll(plugin.generateForEntity(specification.entities.get(i), specification, context));
+                    }
+                } catch (RuntimeException e) {
+                    return new EntityChunk(List.of(), e);
+                }
+                return new EntityChunk(files, null);
+            }
+            int middle = (from + to) >>> 1;
+            EntityFanOutTask left = new EntityFanOutTask(plugin, specification, context, from, middle, threshold);
+            left.fork();
+            EntityChunk right = new EntityFanOutTask(plugin, specification, context, middle, to, threshold).compute();
+            EntityChunk leftResult = left.join();
+            if (leftResult.failure() != null) {
+                return leftResult;
+            }
+            if (right.failure() != null) {
+                return right;
+            }
+            List<GeneratedFile> merged = new ArrayList<>(leftResult.files().size() + right.files().size());
+            merged.addAll(leftResult.files());
+            merged.addAll(right.files());
+            return new EntityChunk(merged, null);
+        }
+    }
+
     public byte[] generateZip(ApiSpecification specification, GenerationConfig config) throws IOException {
-        List<GeneratedFile> files = generate(specification, config);
-        try (ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-             ZipOutputStream zip = new ZipOutputStream(buffer)) {
-            for (GeneratedFile file : files) {
-                ZipEntry entry = new ZipEntry(file.path());
-                zip.putNextEntry(entry);
-                zip.write(file.content().getBytes(StandardCharsets.UTF_8));
-                zip.closeEntry();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        generateZip(specification, config, buffer);
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Generates the project and writes it as a ZIP archive to {@code out}.
+     * Nothing is written until every plugin has finished, so validation and plugin
+     * failures surface before the first byte. The stream is flushed but not closed.
+     */
+    public void generateZip(ApiSpecification specification, GenerationConfig config, OutputStream out) throws IOException {
+        generateZip(specification, config, out, null);
+    }
+
+    /**
+     * As above, ending the archive with the entry {@code last} supplies. It is asked for once
+     * every generated file has been written and the {@code zip} phase reported, so it can
+     * describe the whole run.
+     */
+    public void generateZip(ApiSpecification specification, GenerationConfig config, OutputStream out,
+                            Supplier<GeneratedFile> last) throws IOException {
+        writeZip(generate(specification, config), config, out, last);
+    }
+
+    /**
+     * Writes the added and changed files of {@link #generateDelta} as a ZIP archive, followed
+     * by a {@link GenerationDelta#MANIFEST_PATH} entry listing added, changed and removed paths.
+     * Like {@link #generateZip(ApiSpecification, GenerationConfig, OutputStream)}, nothing is
+     * written before generation succeeds and the stream is left open.
+     */
+    public GenerationDelta generateDeltaZip(
+            ApiSpecification previousSpecification,
+            GenerationConfig previousConfig,
+            ApiSpecification specification,
+            GenerationConfig config,
+            OutputStream out
+    ) throws IOException {
+        GenerationDelta delta = generateDelta(previousSpecification, previousConfig, specification, config);
+        List<GeneratedFile> files = delta.files();
+        files.add(new GeneratedFile(GenerationDelta.MANIFEST_PATH, MANIFEST_WRITER.writeValueAsString(delta.manifest())));
+        writeZip(files, config, out, null);
+        return delta;
+    }
+
+    /** Compressed as configured; parallel deflate shares the generation pool of the same size. */
+    private void writeZip(List<GeneratedFile> files, GenerationConfig config, OutputStream out,
+                          Supplier<GeneratedFile> last) throws IOException {
+        int parallelism = config.execution().effectiveParallelism();
+        ForkJoinPool pool = config.archive().parallel() && parallelism > 1 ? GenerationPools.forParallelism(parallelism) : null;
+        long started = System.nanoTime();
+        boolean[] reported = new boolean[1];
+        Supplier<GeneratedFile> timedLast = last == null ? null : () -> {
+            reported[0] = true;
+            listener.phaseFinished("zip", System.nanoTime() - started);
+            return last.get();
+        };
+        try {
+            ZipArchiveWriter.write(files, config.archive(), pool, out, timedLast);
+        } finally {
+            if (!reported[0]) {
+                listener.phaseFinished("zip", System.nanoTime() - started);
             }
-            zip.finish();
-            return buffer.toByteArray();
         }
     }
 
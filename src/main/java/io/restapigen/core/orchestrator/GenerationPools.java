@@ -0,0 +1,32 @@
+package io.restapigen.core.orchestrator;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Shared worker pools for plugin execution, one per configured parallelism level.
+ * Pools are created lazily and live for the lifetime of the JVM; their daemon worker
+ * threads never block shutdown.
+ */
+final class GenerationPools {
+    private static final ConcurrentMap<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    private GenerationPools() {
+    }
+
+    static ForkJoinPool forParallelism(int parallelism) {
+        return POOLS.computeIfAbsent(Math.max(1, parallelism), GenerationPools::create);
+    }
+
+    private static ForkJoinPool create(int parallelism) {
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("generation-" + parallelism + "-worker-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ForkJoinPool(parallelism, factory, null, false);
+    }
+}
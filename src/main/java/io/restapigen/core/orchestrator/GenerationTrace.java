@@ -0,0 +1,71 @@
+package io.restapigen.core.orchestrator;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Wall-clock time spent in each phase of one request, in the order phases first finished.
+ * The caller records its own phases (reading the body, decoding, parsing) with {@link #since};
+ * passed to the orchestrator as a {@link GenerationListener}, the trace also collects
+ * validation, generation and zip time and each plugin's share. A phase recorded more than
+ * once accumulates.
+ *
+ * <p>Recording is a map update under an uncontended lock; a request thread and at most a few
+ * plugin workers ever touch one trace.
+ */
+public final class GenerationTrace implements GenerationListener {
+    private final long started = System.nanoTime();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Map<String, Long> plugins = new LinkedHashMap<>();
+
+    /** Records {@code phase} as having run from {@code startedNanos} until now. */
+    public void since(String phase, long startedNanos) {
+        phaseFinished(phase, System.nanoTime() - startedNanos);
+    }
+
+    @Override
+    public synchronized void phaseFinished(String phase, long nanos) {
+        phases.merge(phase, nanos, Long::sum);
+    }
+
+    @Override
+    public synchronized void pluginFinished(String plugin, long nanos) {
+        plugins.merge(plugin, nanos, Long::sum);
+    }
+
+    public synchronized Map<String, Double> phaseMillis() {
+        return millis(phases);
+    }
+
+    public synchronized Map<String, Double> pluginMillis() {
+        return millis(plugins);
+    }
+
+    /** Time since the trace was created. */
+    public double totalMillis() {
+        return round((System.nanoTime() - started) / 1e6);
+    }
+
+    /**
+     * The phases as a {@code Server-Timing} header value, e.g.
+     * {@code read;dur=0.041, decode;dur=1.203, total;dur=1.9}.
+     */
+    public String serverTiming() {
+        StringJoiner header = new StringJoiner(", ");
+        phaseMillis().forEach((phase, millis) -> header.add(String.format(Locale.ROOT, "%s;dur=%.3f", phase, millis)));
+        header.add(String.format(Locale.ROOT, "total;dur=%.3f", totalMillis()));
+        return header.toString();
+    }
+
+    private static Map<String, Double> millis(Map<String, Long> nanos) {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        nanos.forEach((name, value) -> millis.put(name, round(value / 1e6)));
+        return millis;
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,270 @@
+package io.restapigen.core.orchestrator;
+
+import io.restapigen.core.config.GenerationConfig;
+import io.restapigen.core.plugin.GeneratedFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes generated files as a ZIP archive according to {@link GenerationConfig.ArchiveConfig}.
+ *
+ * <p>Sequentially, deflated entries go through {@link ZipOutputStream}, each file encoded through
+ * one small buffer that the deflater reads from directly. Stored entries need their CRC-32 and
+ * size in the local header, so each file is encoded once before its entry is opened.
+ *
+ * <p>In parallel mode every entry is deflated independently on the worker pool into its own
+ * buffer, together with its CRC-32 and sizes. Entries are then written strictly in order,
+ * laid out exactly as {@link ZipOutputStream} lays them out (sizes in a data descriptor after
+ * the data), and the offsets for the central directory are counted as they go. Only a small
+ * window of entries is in flight at once, so memory is bounded by a few compressed files
+ * rather than the whole archive.
+ *
+ * <p>Every entry carries the same fixed timestamp, so equal files give byte-identical archives
+ * whenever and however they are written; the server relies on that for its strong {@code ETag}
+ * and its archive cache, whose keys leave out whether compression ran in parallel.
+ */
+final class ZipArchiveWriter {
+    private static final int ENCODE_BUFFER_SIZE = 8 * 1024;
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int DATA_DESCRIPTOR = 0x08074b50;
+    private static final int VERSION_DEFLATED = 20;
+    /** As ZipOutputStream sets them on deflated entries: UTF-8 names, sizes in a data descriptor. */
+    private static final int FLAGS = 0x0800 | 0x0008;
+    private static final long MAX_UINT32 = 0xFFFFFFFFL;
+    private static final int MAX_ENTRIES = 0xFFFF;
+    /** Modification time of every entry; early February 1980 stays in the DOS range in any time zone. */
+    static final LocalDateTime ENTRY_TIME = LocalDateTime.of(1980, 2, 1, 0, 0);
+
+    private ZipArchiveWriter() {
+    }
+
+    /**
+     * Writes {@code files} to {@code out}, which is flushed but not closed. With a {@code pool},
+     * deflated entries are compressed concurrently; stored archives are always written inline.
+     * A {@code last} entry, if any, is asked for only once every other entry has been written.
+     */
+    static void write(List<GeneratedFile> files, GenerationConfig.ArchiveConfig archive, ForkJoinPool pool,
+                      OutputStream out, Supplier<GeneratedFile> last) throws IOException {
+        if (pool != null && !archive.stored() && files.size() > 1 && files.size() < MAX_ENTRIES - 1) {
+            writeParallel(files, archive.deflateLevel(), pool, out, last);
+        } else {
+            writeSequential(files, archive, out, last);
+        }
+    }
+
+    private static void writeSequential(List<GeneratedFile> files, GenerationConfig.ArchiveConfig archive,
+                                        OutputStream out, Supplier<GeneratedFile> last) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        byte[] buffer = new byte[ENCODE_BUFFER_SIZE];
+        if (archive.stored()) {
+            zip.setMethod(ZipOutputStream.STORED);
+        } else {
+            zip.setLevel(archive.deflateLevel());
+        }
+        int entries = files.size() + (last == null ? 0 : 1);
+        for (int i = 0; i < entries; i++) {
+            GeneratedFile file = i < files.size() ? files.get(i) : last.get();
+            ZipEntry entry = new ZipEntry(file.path());
+            entry.setTimeLocal(ENTRY_TIME);
+            if (archive.stored()) {
+                byte[] content = file.bytes();
+                CRC32 crc = new CRC32();
+                crc.update(content);
+                entry.setSize(content.length);
+                entry.setCompressedSize(content.length);
+                entry.setCrc(crc.getValue());
+                zip.putNextEntry(entry);
+                zip.write(content);
+            } else {
+                zip.putNextEntry(entry);
+                file.writeTo(zip, buffer);
+            }
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    private static void writeParallel(List<GeneratedFile> files, int level, ForkJoinPool pool, OutputStream out,
+                                      Supplier<GeneratedFile> last) throws IOException {
+        // ZipOutputStream refuses a repeated name; checked up front here, before any entry is written.
+        Set<String> names = new HashSet<>();
+        for (GeneratedFile file : files) {
+            if (!names.add(file.path())) {
+                throw new ZipException("duplicate entry: " + file.path());
+            }
+        }
+        int entries = files.size() + (last == null ? 0 : 1);
+        int window = pool.getParallelism() * 4;
+        ArrayDeque<ForkJoinTask<DeflatedEntry>> pending = new ArrayDeque<>(window);
+        ExposedByteArrayOutputStream central = new ExposedByteArrayOutputStream();
+        byte[] header = new byte[46];
+        int dosDateTime = dosDateTime(ENTRY_TIME);
+        long offset = 0;
+        int submitted = 0;
+        try {
+            for (int i = 0; i < entries; i++) {
+                while (submitted < files.size() && submitted - i < window) {
+                    GeneratedFile file = files.get(submitted++);
+                    pending.add(pool.submit(() -> deflate(file, level)));
+                }
+                DeflatedEntry entry = i < files.size() ? join(pending.poll()) : deflateLast(last.get(), level, names);
+                byte[] name = entry.path().getBytes(StandardCharsets.UTF_8);
+                if (offset > MAX_UINT32 || entry.size() > MAX_UINT32) {
+                    throw new ZipException("Archive needs ZIP64, which parallel compression does not write; "
+                            + "disable archive.parallel for outputs this large");
+                }
+
+                putInt(header, 0, LOCAL_HEADER);
+                putShort(header, 4, VERSION_DEFLATED);
+                putShort(header, 6, FLAGS);
+                putShort(header, 8, ZipEntry.DEFLATED);
+                putInt(header, 10, dosDateTime);
+                putInt(header, 14, 0);
+                putInt(header, 18, 0);
+                putInt(header, 22, 0);
+                putShort(header, 26, name.length);
+                putShort(header, 28, 0);
+                out.write(header, 0, 30);
+                out.write(name);
+                out.write(entry.data(), 0, entry.compressedSize());
+                putInt(header, 0, DATA_DESCRIPTOR);
+                putInt(header, 4, (int) entry.crc());
+                putInt(header, 8, entry.compressedSize());
+                putInt(header, 12, (int) entry.size());
+                out.write(header, 0, 16);
+
+                putInt(header, 0, CENTRAL_HEADER);
+                putShort(header, 4, VERSION_DEFLATED);
+                putShort(header, 6, VERSION_DEFLATED);
+                putShort(header, 8, FLAGS);
+                putShort(header, 10, ZipEntry.DEFLATED);
+                putInt(header, 12, dosDateTime);
+                putInt(header, 16, (int) entry.crc());
+                putInt(header, 20, entry.compressedSize());
+                putInt(header, 24, (int) entry.size());
+                putShort(header, 28, name.length);
+                putShort(header, 30, 0);
+                putShort(header, 32, 0);
+                putShort(header, 34, 0);
+                putShort(header, 36, 0);
+                putInt(header, 38, 0);
+                putInt(header, 42, (int) offset);
+                central.write(header, 0, 46);
+                central.write(name);
+
+                offset += 30 + name.length + entry.compressedSize() + 16;
+            }
+        } finally {
+            for (ForkJoinTask<DeflatedEntry> task : pending) {
+                task.cancel(true);
+            }
+        }
+        if (offset > MAX_UINT32) {
+            throw new ZipException("Archive needs ZIP64, which parallel compression does not write; "
+                    + "disable archive.parallel for outputs this large");
+        }
+        out.write(central.buffer(), 0, central.size());
+
+        putInt(header, 0, END_OF_CENTRAL_DIRECTORY);
+        putShort(header, 4, 0);
+        putShort(header, 6, 0);
+        putShort(header, 8, entries);
+        putShort(header, 10, entries);
+        putInt(header, 12, central.size());
+        putInt(header, 16, (int) offset);
+        putShort(header, 20, 0);
+        out.write(header, 0, 22);
+        out.flush();
+    }
+
+    /** Deflates one file into its own raw DEFLATE stream, as stored in a ZIP entry. */
+    private static DeflatedEntry deflate(GeneratedFile file, int level) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            CRC32 crc = new CRC32();
+            ExposedByteArrayOutputStream compressed = new ExposedByteArrayOutputStream();
+            try (OutputStream out = new CheckedOutputStream(new DeflaterOutputStream(compressed, deflater, ENCODE_BUFFER_SIZE), crc)) {
+                file.writeTo(out, new byte[ENCODE_BUFFER_SIZE]);
+            }
+            return new DeflatedEntry(file.path(), crc.getValue(), deflater.getBytesRead(), compressed.buffer(), compressed.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot compress " + file.path(), e);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static DeflatedEntry deflateLast(GeneratedFile file, int level, Set<String> names) throws IOException {
+        if (!names.add(file.path())) {
+            throw new ZipException("duplicate entry: " + file.path());
+        }
+        try {
+            return deflate(file, level);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static DeflatedEntry join(ForkJoinTask<DeflatedEntry> task) throws IOException {
+        try {
+            return task.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** MS-DOS date and time as stored in ZIP headers: date in the high half, two-second resolution. */
+    private static int dosDateTime(LocalDateTime time) {
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (time.getYear() - 1980) << 25
+                | time.getMonthValue() << 21
+                | time.getDayOfMonth() << 16
+                | time.getHour() << 11
+                | time.getMinute() << 5
+                | time.getSecond() >> 1;
+    }
+
+    private static void putShort(byte[] target, int index, int value) {
+        target[index] = (byte) value;
+        target[index + 1] = (byte) (value >>> 8);
+    }
+
+    private static void putInt(byte[] target, int index, int value) {
+        putShort(target, index, value);
+        putShort(target, index + 2, value >>> 16);
+    }
+
+    private record DeflatedEntry(String path, long crc, long size, byte[] data, int compressedSize) {
+    }
+
+    /** Hands out its internal array so compressed entries are written without another copy. */
+    private static final class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
@@ -15,6 +15,9 @@ import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
@@ -33,13 +36,25 @@ import java.util.logging.Logger;
  * (rate-limit exceeded), the parser automatically tries the next model in
  * {@link #GROQ_FREE_MODELS}. The working model index is remembered so
  * subsequent requests start from the last-known working model.
- * If all models are exhausted the call returns {@code null} and the caller
+ * If all models are exhausted the call fails as rate-limited and the caller
  * falls back to {@link NaturalLanguagePromptParser}.
  *
  * <p>Falls back to {@link NaturalLanguagePromptParser} automatically when
  * the API is unreachable, the key is invalid, or a timeout occurs.
+ *
+ * <p>Each model in the chain has an {@link LlmCircuitBreaker} circuit. A model whose circuit is
+ * open is skipped without a request, like a rate-limited one; when every circuit is open the
+ * prompt is parsed deterministically at once instead of waiting out {@value #TIMEOUT_SECONDS}s.
+ *
+ * <p>Calls are made with {@link HttpClient#sendAsync}; {@link #parseAsync} never blocks the
+ * caller. At most {@value LlmCallLimiter#ENV_MAX_IN_FLIGHT} requests are in flight at once,
+ * counting a whole model rotation as one; beyond that, parsing fails fast with
+ * {@link LlmOverloadedException} so the server can answer 503.
+ *
+ * <p>Successful LLM output is kept in a {@link PromptCache}, so repeated prompts do not spend
+ * quota; a hit skips the call and the rate-limit bookkeeping entirely.
  */
-public final class CloudLlmPromptParser implements PromptParser {
+public final class CloudLlmPromptParser implements LlmPromptParser {
 
     private static final Logger LOG = Logger.getLogger(CloudLlmPromptParser.class.getName());
 
@@ -47,6 +62,8 @@ public final class CloudLlmPromptParser implements PromptParser {
     public static final String ENV_LLM_BASE_URL = "LLM_BASE_URL";
     public static final String ENV_LLM_MODEL    = "LLM_MODEL";
 
+    private static final String PROVIDER = "cloud-llm";
+
     private static final String DEFAULT_BASE_URL = "https://api.groq.com/openai/v1";
     private static final String DEFAULT_MODEL    = "llama-3.3-70b-versatile";
     private static final int    TIMEOUT_SECONDS  = 30;
@@ -90,6 +107,7 @@ public final class CloudLlmPromptParser implements PromptParser {
             Allowed types: string, integer, decimal, boolean, date, timestamp, email.
             Output ONLY the structured prompt. No explanation, no markdown, no extra text.
             """;
+    private static final String SYSTEM_PROMPT_VERSION = PromptCache.version(SYSTEM_PROMPT);
 
     private final String       apiKey;
     private final String       baseUrl;
@@ -97,20 +115,47 @@ public final class CloudLlmPromptParser implements PromptParser {
     private final AtomicInteger modelIndex;  // index into modelChain, rotates on 429
     private final NaturalLanguagePromptParser fallback;
     private final HttpClient   http;
+    private final LlmCallLimiter limiter;
+    private final PromptCache  cache;
+    private final LlmCallListener listener;
+    private final LlmCircuitBreaker breaker;
 
     public CloudLlmPromptParser() {
+        this(PromptCache.disabled(), LlmCallListener.NONE);
+    }
+
+    public CloudLlmPromptParser(PromptCache cache, LlmCallListener listener) {
         this(
             System.getenv(ENV_LLM_API_KEY),
             envOrDefault(ENV_LLM_BASE_URL, DEFAULT_BASE_URL),
-            envOrDefault(ENV_LLM_MODEL,    DEFAULT_MODEL)
+            envOrDefault(ENV_LLM_MODEL,    DEFAULT_MODEL),
+            LlmCallLimiter.fromEnvironment(PROVIDER),
+            cache,
+            listener
         );
     }
 
     public CloudLlmPromptParser(String apiKey, String baseUrl, String primaryModel) {
+        this(apiKey, baseUrl, primaryModel, LlmCallLimiter.fromEnvironment(PROVIDER), PromptCache.disabled(),
+                LlmCallListener.NONE);
+    }
+
+    CloudLlmPromptParser(String apiKey, String baseUrl, String primaryModel, LlmCallLimiter limiter, PromptCache cache,
+                         LlmCallListener listener) {
+        this(apiKey, baseUrl, primaryModel, limiter, cache, listener,
+                LlmCircuitBreaker.Settings.fromEnvironment(TIMEOUT_SECONDS * 500L));
+    }
+
+    CloudLlmPromptParser(String apiKey, String baseUrl, String primaryModel, LlmCallLimiter limiter, PromptCache cache,
+                         LlmCallListener listener, LlmCircuitBreaker.Settings breakerSettings) {
+        this.limiter   = limiter;
+        this.cache     = cache;
+        this.listener  = listener;
         this.apiKey    = apiKey;
         this.baseUrl   = baseUrl.replaceAll("/+$", "");
         this.modelChain = buildModelChain(primaryModel);
         this.modelIndex = new AtomicInteger(0);
+        this.breaker    = new LlmCircuitBreaker(PROVIDER, this.modelChain, breakerSettings, listener);
         this.fallback   = new NaturalLanguagePromptParser();
         this.http       = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(5))
@@ -120,27 +165,68 @@ public final class CloudLlmPromptParser implements PromptParser {
 
     @Override
     public ApiSpecification parse(String prompt, GenerationConfig config) {
-        try {
-            String structured = callApiWithFallback(prompt);
-            if (structured != null && !structured.isBlank()) {
-                LOG.info("[CloudLlmPromptParser] LLM-structured prompt length=" + structured.length()
-                        + " via model=" + activeModel());
-                ApiSpecification structuredSpec = fallback.parse(structured, config);
-                return NaturalLanguagePromptParser.applyProjectIdentity(prompt, structuredSpec, config);
+        return LlmResults.join(parseAsync(prompt, config));
+    }
+
+    @Override
+    public CompletableFuture<ApiSpecification> parseAsync(String prompt, GenerationConfig config) {
+        return parseWithLlm(prompt, config).handle((spec, error) -> {
+            if (error == null) {
+                return spec;
+            }
+            if (!(LlmResults.unwrap(error) instanceof LlmUnavailableException unavailable)) {
+                throw LlmResults.rethrow(LlmResults.unwrap(error));
             }
-        } catch (Exception e) {
             LOG.warning("[CloudLlmPromptParser] All models exhausted or error, using deterministic. Reason: "
-                    + e.getMessage());
+                    + unavailable.getMessage());
+            listener.fallback(PROVIDER, unavailable.reason());
+            return fallback.parse(prompt, config);
+        });
+    }
+
+    @Override
+    public CompletableFuture<ApiSpecification> parseWithLlm(String prompt, GenerationConfig config) {
+        // Keyed by the primary model: a rotated answer is still the answer for this configuration.
+        String cacheKey = PromptCache.key(getModel(), SYSTEM_PROMPT_VERSION, prompt);
+        String cached = cache.get(cacheKey);
+        if (cached != null) {
+            try {
+                return CompletableFuture.completedFuture(parseStructured(prompt, cached, config));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
         }
-        return fallback.parse(prompt, config);
+        CompletableFuture<String> call = limiter.submit(() -> callApiWithFallback(prompt));
+        return LlmResults.cancelling(call.handle((structured, error) -> {
+            if (error != null) {
+                Throwable cause = LlmResults.unwrap(error);
+                if (cause instanceof LlmOverloadedException || cause instanceof CancellationException) {
+                    throw LlmResults.rethrow(cause);
+                }
+                throw new LlmUnavailableException(failureReason(cause), cause.getMessage(), cause);
+            }
+            if (structured == null || structured.isBlank()) {
+                throw new LlmUnavailableException("empty_response", "the API returned no content", null);
+            }
+            LOG.info("[CloudLlmPromptParser] LLM-structured prompt length=" + structured.length()
+                    + " via model=" + activeModel());
+            ApiSpecification structuredSpec = parseStructured(prompt, structured, config);
+            cache.put(cacheKey, structured);
+            return structuredSpec;
+        }), call);
     }
 
     /**
      * Returns {@code true} if the API key is set and the models endpoint responds.
-     * Used by the /about endpoint to show real-time availability.
+     * Blocks for up to five seconds; the server probes with {@link #probeAvailability()} instead.
      */
     public boolean isAvailable() {
-        if (apiKey == null || apiKey.isBlank()) return false;
+        return probeAvailability().join();
+    }
+
+    /** The availability check without blocking: completes with {@code true} if the models endpoint answered 200. */
+    public CompletableFuture<Boolean> probeAvailability() {
+        if (apiKey == null || apiKey.isBlank()) return CompletableFuture.completedFuture(false);
         try {
             HttpRequest req = HttpRequest.newBuilder()
                     .uri(URI.create(baseUrl + "/models"))
@@ -148,10 +234,10 @@ public final class CloudLlmPromptParser implements PromptParser {
                     .GET()
                     .timeout(Duration.ofSeconds(5))
                     .build();
-            HttpResponse<Void> res = http.send(req, HttpResponse.BodyHandlers.discarding());
-            return res.statusCode() == 200;
-        } catch (Exception e) {
-            return false;
+            return http.sendAsync(req, HttpResponse.BodyHandlers.discarding())
+                    .handle((res, error) -> error == null && res.statusCode() == 200);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(false);
         }
     }
 
@@ -163,63 +249,116 @@ public final class CloudLlmPromptParser implements PromptParser {
     /** Returns the currently active model (may differ from primary if rotated). */
     public String activeModel() { return modelChain.get(modelIndex.get() % modelChain.size()); }
 
+    @Override
+    public String provider() { return PROVIDER; }
+    public LlmCallLimiter.Stats callStats() { return limiter.stats(); }
+    public LlmCircuitBreaker circuitBreaker() { return breaker; }
+
     // ── private ───────────────────────────────────────────────────────────────
 
+    private ApiSpecification parseStructured(String prompt, String structured, GenerationConfig config) {
+        ApiSpecification structuredSpec = fallback.parse(structured, config);
+        return NaturalLanguagePromptParser.applyProjectIdentity(prompt, structuredSpec, config);
+    }
+
     /**
      * Tries each model in the chain starting from the last-known working index.
      * On HTTP 429 it advances to the next model; on any other error it gives up
      * immediately (wrong key, server error, timeout — retrying won't help).
+     * A model whose circuit is open is passed over without moving the index, so the
+     * chain returns to it once a trial call through its half-open circuit succeeds.
      *
-     * @return structured prompt text, or {@code null} if every model is rate-limited
+     * @return structured prompt text; fails with {@code RateLimitException} if every model is rate-limited,
+     *         or {@link LlmCircuitBreaker.OpenException} if every circuit is open
      */
-    private String callApiWithFallback(String userPrompt) throws IOException, InterruptedException {
+    private CompletableFuture<String> callApiWithFallback(String userPrompt) {
         if (apiKey == null || apiKey.isBlank()) {
-            throw new IOException("LLM_API_KEY is not set");
+            return CompletableFuture.failedFuture(new IOException("LLM_API_KEY is not set"));
         }
-        int size       = modelChain.size();
-        int startIndex = modelIndex.get() % size;
-
-        for (int i = 0; i < size; i++) {
-            int    idx   = (startIndex + i) % size;
-            String model = modelChain.get(idx);
-            try {
-                String result = callApiWithModel(model, userPrompt);
-                // Success — remember this index for the next request
-                modelIndex.set(idx);
-                return result;
-            } catch (RateLimitException e) {
-                int nextIdx = (idx + 1) % size;
-                LOG.warning("[CloudLlmPromptParser] 429 on model=" + model
-                        + " — rotating to " + modelChain.get(nextIdx));
-                // Advance index so next request also skips the exhausted model
-                modelIndex.compareAndSet(idx, nextIdx);
-                // continue loop to try the next model in this request
+        Rotation rotation = new Rotation();
+        CompletableFuture<String> result = callFromModel(userPrompt, modelIndex.get() % modelChain.size(), 0, 0, rotation);
+        result.whenComplete((content, error) -> {
+            if (result.isCancelled()) {
+                rotation.cancel();
             }
-            // Any other IOException / InterruptedException propagates immediately
+        });
+        return result;
+    }
+
+    private CompletableFuture<String> callFromModel(String userPrompt, int startIndex, int attempt, int open,
+                                                    Rotation rotation) {
+        int size = modelChain.size();
+        if (attempt == size) {
+            return CompletableFuture.failedFuture(open == size
+                    ? new LlmCircuitBreaker.OpenException("circuit open for all " + size + " models")
+                    : new RateLimitException("all " + (size - open) + " available models rate-limited"));
         }
-        LOG.warning("[CloudLlmPromptParser] All " + size + " models rate-limited — using deterministic fallback");
-        return null;
+        int    idx   = (startIndex + attempt) % size;
+        String model = modelChain.get(idx);
+        return rotation.track(callApiWithModel(model, userPrompt))
+                .thenApply(result -> {
+                    // Success — remember this index for the next request
+                    modelIndex.set(idx);
+                    return result;
+                })
+                .exceptionallyCompose(error -> {
+                    Throwable cause = LlmResults.unwrap(error);
+                    if (cause instanceof LlmCircuitBreaker.OpenException) {
+                        return callFromModel(userPrompt, startIndex, attempt + 1, open + 1, rotation);
+                    }
+                    if (!(cause instanceof RateLimitException)) {
+                        // Any other failure propagates immediately
+                        return CompletableFuture.failedFuture(error);
+                    }
+                    int nextIdx = (idx + 1) % size;
+                    LOG.warning("[CloudLlmPromptParser] 429 on model=" + model
+                            + " — rotating to " + modelChain.get(nextIdx));
+                    // Advance index so next request also skips the exhausted model
+                    modelIndex.compareAndSet(idx, nextIdx);
+                    return callFromModel(userPrompt, startIndex, attempt + 1, open, rotation);
+                });
     }
 
-    private String callApiWithModel(String model, String userPrompt)
-            throws IOException, InterruptedException, RateLimitException {
-        String body = buildRequestBody(model, userPrompt);
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + "/chat/completions"))
-                .header("Content-Type",  "application/json")
-                .header("Authorization", "Bearer " + apiKey)
-                .POST(HttpRequest.BodyPublishers.ofString(body))
-                .timeout(Duration.ofSeconds(TIMEOUT_SECONDS))
-                .build();
-        HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString());
-        if (res.statusCode() == 429) {
-            throw new RateLimitException("rate-limited on model=" + model);
+    private CompletableFuture<String> callApiWithModel(String model, String userPrompt) {
+        HttpRequest req;
+        try {
+            req = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/chat/completions"))
+                    .header("Content-Type",  "application/json")
+                    .header("Authorization", "Bearer " + apiKey)
+                    .POST(HttpRequest.BodyPublishers.ofString(buildRequestBody(model, userPrompt)))
+                    .timeout(Duration.ofSeconds(TIMEOUT_SECONDS))
+                    .build();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
         }
-        if (res.statusCode() != 200) {
-            String preview = res.body().substring(0, Math.min(200, res.body().length()));
-            throw new IOException("API returned HTTP " + res.statusCode() + ": " + preview);
+        if (!breaker.tryAcquire(model)) {
+            return CompletableFuture.failedFuture(new LlmCircuitBreaker.OpenException("circuit open for model=" + model));
         }
-        return extractContent(res.body());
+        long started = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> sent = http.sendAsync(req, HttpResponse.BodyHandlers.ofString());
+        return LlmResults.cancelling(sent.thenApply(res -> {
+            try {
+                if (res.statusCode() == 429) {
+                    throw new RateLimitException("rate-limited on model=" + model);
+                }
+                if (res.statusCode() != 200) {
+                    String preview = res.body().substring(0, Math.min(200, res.body().length()));
+                    throw new IOException("API returned HTTP " + res.statusCode() + ": " + preview);
+                }
+                return extractContent(res.body());
+            } catch (IOException | RateLimitException e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((content, error) -> {
+            long nanos = System.nanoTime() - started;
+            if (error != null && LlmResults.unwrap(error) instanceof CancellationException) {
+                breaker.release(model);
+            } else {
+                breaker.record(model, nanos, error != null);
+            }
+            listener.callCompleted(PROVIDER, model, nanos, error == null ? null : failureReason(LlmResults.unwrap(error)));
+        }), sent);
     }
 
     private String buildRequestBody(String model, String userPrompt) throws IOException {
@@ -264,11 +403,39 @@ public final class CloudLlmPromptParser implements PromptParser {
         return content.asText();
     }
 
+    private static String failureReason(Throwable cause) {
+        return cause instanceof RateLimitException ? "rate_limited" : LlmResults.failureReason(cause);
+    }
+
     private static String envOrDefault(String key, String fallback) {
         String v = System.getenv(key);
         return (v != null && !v.isBlank()) ? v.trim() : fallback;
     }
 
+    /**
+     * The call in progress for one prompt as it rotates through the chain, so that cancelling
+     * the prompt cancels whichever model is being asked, and no further model is tried.
+     */
+    private static final class Rotation {
+        private CompletableFuture<String> current;
+        private boolean cancelled;
+
+        synchronized CompletableFuture<String> track(CompletableFuture<String> call) {
+            current = call;
+            if (cancelled) {
+                call.cancel(true);
+            }
+            return call;
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (current != null) {
+                current.cancel(true);
+            }
+        }
+    }
+
     /** Thrown when the API returns HTTP 429 (rate limit exceeded). */
     private static final class RateLimitException extends Exception {
         RateLimitException(String message) { super(message); }
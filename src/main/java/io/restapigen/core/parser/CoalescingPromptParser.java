@@ -0,0 +1,99 @@
+package io.restapigen.core.parser;
+
+import io.restapigen.core.config.GenerationConfig;
+import io.restapigen.domain.ApiSpecification;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Single-flight wrapper around an LLM-backed parser: while a prompt is being parsed, identical
+ * requests join that call instead of starting their own, and all of them receive the same
+ * result or the same failure. Nothing is kept once the call completes; the next request for
+ * the prompt goes upstream again.
+ *
+ * <p>Requests are identical when their normalised prompt, the model and the configuration are
+ * equal. Normalisation unifies line endings and collapses runs of spaces and tabs, so prompts
+ * that differ only in incidental whitespace share a call, while line structure (which the
+ * deterministic fallback relies on) is kept.
+ */
+public final class CoalescingPromptParser implements PromptParser {
+    private static final Pattern HORIZONTAL_WHITESPACE = Pattern.compile("[ \\t\\x0B\\f]+");
+    private static final Pattern LINE_BREAK = Pattern.compile("\\r\\n?");
+    private static final Pattern SPACE_AROUND_NEWLINE = Pattern.compile(" ?\\n ?");
+
+    private final PromptParser delegate;
+    private final String model;
+    private final ConcurrentMap<Key, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public CoalescingPromptParser(PromptParser delegate, String model) {
+        this.delegate = delegate;
+        this.model = model;
+    }
+
+    @Override
+    public ApiSpecification parse(String prompt, GenerationConfig config) {
+        return LlmResults.join(parseAsync(prompt, config));
+    }
+
+    @Override
+    public CompletableFuture<ApiSpecification> parseAsync(String prompt, GenerationConfig config) {
+        return share(prompt, config, "", () -> delegate.parseAsync(prompt, config));
+    }
+
+    /**
+     * Shares another kind of call about a prompt the same way, such as a parse that also
+     * reports where its result came from. Calls share only when their {@code variant} is
+     * equal as well, so it must capture everything else the result depends on.
+     */
+    public <T> CompletableFuture<T> share(String prompt, GenerationConfig config, String variant,
+                                          Supplier<CompletableFuture<T>> start) {
+        Key key = new Key(normalize(prompt), model, config, variant);
+        CompletableFuture<T> call = new CompletableFuture<>();
+        @SuppressWarnings("unchecked") // a key's variant determines the result type
+        CompletableFuture<T> existing = (CompletableFuture<T>) inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.copy();
+        }
+        calls.increment();
+        CompletableFuture<T> upstream;
+        try {
+            upstream = start.get();
+        } catch (RuntimeException e) {
+            upstream = CompletableFuture.failedFuture(e);
+        }
+        upstream.whenComplete((value, error) -> {
+            inFlight.remove(key, call);
+            if (error != null) {
+                call.completeExceptionally(LlmResults.unwrap(error));
+            } else {
+                call.complete(value);
+            }
+        });
+        return call.copy();
+    }
+
+    public Stats stats() {
+        return new Stats(calls.sum(), coalesced.sum(), inFlight.size());
+    }
+
+    static String normalize(String prompt) {
+        String text = LINE_BREAK.matcher(prompt).replaceAll("\n");
+        text = HORIZONTAL_WHITESPACE.matcher(text).replaceAll(" ");
+        return SPACE_AROUND_NEWLINE.matcher(text).replaceAll("\n").strip();
+    }
+
+    private record Key(String prompt, String model, GenerationConfig config, String variant) {
+    }
+
+    /** {@code calls} went upstream; {@code coalesced} joined a call already in flight. */
+    public record Stats(long calls, long coalesced, int inFlight) {
+    }
+}
@@ -0,0 +1,332 @@
+package io.restapigen.core.parser;
+
+import io.restapigen.core.config.GenerationConfig;
+import io.restapigen.domain.ApiSpecification;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Puts a latency budget on an {@link LlmPromptParser}, and optionally hedges it with a second
+ * provider. With a budget, the deterministic parse runs while the LLM call is in flight, and
+ * is the answer if the LLM has not produced one when the budget runs out. With a hedge, the
+ * second provider is asked once the primary has been slower than its recent 95th-percentile
+ * latency, or at once if the primary fails. The first LLM answer wins and the other call is
+ * cancelled. A primary call that misses the budget is left to finish in the background, so
+ * its answer still reaches the provider's prompt cache and the next identical prompt is a hit.
+ *
+ * <p>Providers whose last health check failed are routed around: no hedge is sent to one, and
+ * while the primary is down a prompt goes to the hedge first, with the primary as its hedge.
+ *
+ * <p>If no LLM gives usable output, the deterministic result is used as the providers' own
+ * fallback would be. {@link Result#parsedBy()} tells the two apart from LLM answers.
+ */
+public final class HedgedPromptParser implements PromptParser {
+    private static final Logger LOG = Logger.getLogger(HedgedPromptParser.class.getName());
+
+    /** {@link Result#parsedBy()} for a specification from {@link NaturalLanguagePromptParser}. */
+    public static final String DETERMINISTIC = "deterministic";
+
+    static final int LATENCY_SAMPLES = 100;
+    static final int MIN_SAMPLES_TO_HEDGE = 20;
+
+    private final LlmPromptParser primary;
+    private final LlmPromptParser hedge;
+    private final long budgetMillis;
+    private final LlmCallListener listener;
+    private final Predicate<String> down;
+    private final NaturalLanguagePromptParser deterministic = new NaturalLanguagePromptParser();
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int samples;
+    private int nextSample;
+    private final LongAdder primaryAnswers = new LongAdder();
+    private final LongAdder hedgeAnswers = new LongAdder();
+    private final LongAdder hedgesSent = new LongAdder();
+    private final LongAdder hedgesSkipped = new LongAdder();
+    private final LongAdder reroutes = new LongAdder();
+    private final LongAdder budgetFallbacks = new LongAdder();
+    private final LongAdder failureFallbacks = new LongAdder();
+
+    /**
+     * @param hedge        the second provider, or {@code null} for none
+     * @param budgetMillis the default budget; 0 waits for the LLM however long it takes
+     */
+    public HedgedPromptParser(LlmPromptParser primary, LlmPromptParser hedge, long budgetMillis, LlmCallListener listener) {
+        this(primary, hedge, budgetMillis, listener, provider -> false);
+    }
+
+    /**
+     * @param down whether a provider's last health check failed; asked once per prompt
+     */
+    public HedgedPromptParser(LlmPromptParser primary, LlmPromptParser hedge, long budgetMillis, LlmCallListener listener,
+                              Predicate<String> down) {
+        this.primary = primary;
+        this.hedge = hedge;
+        this.budgetMillis = Math.max(0, budgetMillis);
+        this.listener = listener;
+        this.down = down;
+    }
+
+    @Override
+    public ApiSpecification parse(String prompt, GenerationConfig config) {
+        return LlmResults.join(parseAsync(prompt, config));
+    }
+
+    @Override
+    public CompletableFuture<ApiSpecification> parseAsync(String prompt, GenerationConfig config) {
+        CompletableFuture<Result> hedged = parseHedged(prompt, config, budgetMillis);
+        return LlmResults.cancelling(hedged.thenApply(Result::spec), hedged);
+    }
+
+    /** Parses within {@code budgetMillis} (0 for no budget), saying which parser produced the result. */
+    public CompletableFuture<Result> parseHedged(String prompt, GenerationConfig config, long budgetMillis) {
+        LlmPromptParser first = primary;
+        LlmPromptParser second = hedge;
+        if (hedge != null && down.test(hedge.provider())) {
+            second = null;
+            hedgesSkipped.increment();
+        } else if (hedge != null && down.test(primary.provider())) {
+            first = hedge;
+            second = primary;
+            reroutes.increment();
+        }
+        Race race = new Race(prompt, config, second);
+        race.start(first);
+        if (race.result.isDone()) {
+            return race.result;
+        }
+        if (budgetMillis > 0) {
+            race.speculate();
+            CompletableFuture.delayedExecutor(budgetMillis, TimeUnit.MILLISECONDS).execute(race::budgetExpired);
+        }
+        long hedgeDelay = hedgeDelayMillis();
+        if (hedgeDelay >= 0 && second != null) {
+            CompletableFuture.delayedExecutor(hedgeDelay, TimeUnit.MILLISECONDS).execute(race::hedge);
+        }
+        return race.result;
+    }
+
+    /** The budget {@link #parseAsync} applies; 0 for none. */
+    public long budgetMillis() {
+        return budgetMillis;
+    }
+
+    public Stats stats() {
+        long delay = hedgeDelayMillis();
+        return new Stats(budgetMillis, hedge == null ? null : hedge.provider(), delay < 0 ? null : delay,
+                primaryAnswers.sum(), hedgeAnswers.sum(), hedgesSent.sum(), hedgesSkipped.sum(), reroutes.sum(),
+                budgetFallbacks.sum(), failureFallbacks.sum());
+    }
+
+    /** The primary's 95th-percentile latency, or -1 while there is no hedge or too little history. */
+    synchronized long hedgeDelayMillis() {
+        if (hedge == null || samples < MIN_SAMPLES_TO_HEDGE) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(samples * 0.95) - 1];
+    }
+
+    private synchronized void recordLatency(long millis) {
+        latencies[nextSample] = millis;
+        nextSample = (nextSample + 1) % latencies.length;
+        samples = Math.min(samples + 1, latencies.length);
+    }
+
+    /**
+     * One prompt's calls. The result completes once; completing it cancels whatever is still
+     * running, except a primary call overtaken by the budget.
+     */
+    private final class Race {
+        private final String prompt;
+        private final GenerationConfig config;
+        private final LlmPromptParser second;
+        private final long started = System.nanoTime();
+        private final CompletableFuture<Result> result = new CompletableFuture<>();
+        private final AtomicBoolean decided = new AtomicBoolean();
+        private final List<CompletableFuture<ApiSpecification>> calls = new ArrayList<>(2);
+        private CompletableFuture<ApiSpecification> primaryCall;
+        private volatile boolean primaryKept;
+        private int pending;
+        private boolean hedged;
+        private LlmUnavailableException unavailable;
+        private Throwable failure;
+        private volatile ApiSpecification speculative;
+
+        /** @param second the provider to hedge with, or {@code null} for none */
+        Race(String prompt, GenerationConfig config, LlmPromptParser second) {
+            this.prompt = prompt;
+            this.config = config;
+            this.second = second;
+            result.whenComplete((outcome, error) -> cancelCalls());
+        }
+
+        void start(LlmPromptParser parser) {
+            CompletableFuture<ApiSpecification> call;
+            try {
+                call = parser.parseWithLlm(prompt, config);
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            // Already done means a cache hit or a refusal, neither of which says how fast the provider is.
+            boolean immediate = call.isDone();
+            synchronized (this) {
+                calls.add(call);
+                pending++;
+                if (parser == primary) {
+                    primaryCall = call;
+                }
+            }
+            if (result.isDone()) {
+                call.cancel(true);
+            }
+            call.whenComplete((spec, error) -> finished(parser, spec, error, immediate));
+        }
+
+        /** Parses deterministically now, while the LLM call is in flight, so the budget can be met. */
+        void speculate() {
+            try {
+                speculative = deterministic.parse(prompt, config);
+            } catch (RuntimeException e) {
+                LOG.fine(() -> "[HedgedPromptParser] Deterministic parse failed, waiting for the LLM: " + e.getMessage());
+            }
+        }
+
+        void budgetExpired() {
+            ApiSpecification spec = speculative;
+            if (spec != null) {
+                settle(new Result(spec, DETERMINISTIC, "latency_budget"), () -> {
+                    primaryKept = true;
+                    budgetFallbacks.increment();
+                    LOG.info("[HedgedPromptParser] LLM missed the latency budget, answering deterministically");
+                    listener.fallback(primary.provider(), "latency_budget");
+                });
+            }
+        }
+
+        void hedge() {
+            synchronized (this) {
+                if (hedged || result.isDone()) {
+                    return;
+                }
+                hedged = true;
+            }
+            hedgesSent.increment();
+            start(second);
+        }
+
+        private void finished(LlmPromptParser parser, ApiSpecification spec, Throwable error, boolean immediate) {
+            if (error == null) {
+                if (parser == primary && !immediate) {
+                    recordLatency((System.nanoTime() - started) / 1_000_000);
+                }
+                settle(new Result(spec, parser.provider(), null),
+                        () -> (parser == primary ? primaryAnswers : hedgeAnswers).increment());
+                return;
+            }
+            Throwable cause = LlmResults.unwrap(error);
+            boolean hedgeNow = false;
+            boolean exhausted;
+            synchronized (this) {
+                pending--;
+                if (cause instanceof LlmUnavailableException noOutput) {
+                    unavailable = unavailable == null ? noOutput : unavailable;
+                } else if (!(cause instanceof CancellationException)) {
+                    failure = failure == null ? cause : failure;
+                }
+                if (second != null && parser != second && !hedged && !result.isDone()
+                        && !(cause instanceof CancellationException)) {
+                    hedged = hedgeNow = true;
+                }
+                exhausted = pending == 0 && !hedgeNow;
+            }
+            if (hedgeNow) {
+                hedgesSent.increment();
+                start(second);
+            } else if (exhausted && !result.isDone()) {
+                giveUp();
+            }
+        }
+
+        /** Every call failed: deterministic if any provider merely had no output, otherwise the failure. */
+        private void giveUp() {
+            LlmUnavailableException noOutput;
+            Throwable error;
+            synchronized (this) {
+                noOutput = unavailable;
+                error = failure;
+            }
+            if (noOutput == null) {
+                fail(error != null ? error : new CancellationException());
+                return;
+            }
+            ApiSpecification spec = speculative;
+            if (spec == null) {
+                try {
+                    spec = deterministic.parse(prompt, config);
+                } catch (RuntimeException e) {
+                    fail(e);
+                    return;
+                }
+            }
+            settle(new Result(spec, DETERMINISTIC, noOutput.reason()), () -> {
+                failureFallbacks.increment();
+                LOG.warning("[HedgedPromptParser] No LLM output, using deterministic parser. Reason: " + noOutput.getMessage());
+                listener.fallback(primary.provider(), noOutput.reason());
+            });
+        }
+
+        /** Completes the result with {@code outcome} unless it is decided already, reporting first. */
+        private void settle(Result outcome, Runnable report) {
+            if (result.isDone() || !decided.compareAndSet(false, true)) {
+                return;
+            }
+            report.run();
+            result.complete(outcome);
+        }
+
+        private void fail(Throwable error) {
+            if (decided.compareAndSet(false, true)) {
+                result.completeExceptionally(error);
+            }
+        }
+
+        /** Cancels the calls still running; a primary kept past the budget only if the caller gave up. */
+        private void cancelCalls() {
+            List<CompletableFuture<ApiSpecification>> running;
+            CompletableFuture<ApiSpecification> kept;
+            synchronized (this) {
+                running = List.copyOf(calls);
+                kept = primaryKept && !result.isCancelled() ? primaryCall : null;
+            }
+            running.stream().filter(call -> call != kept).forEach(call -> call.cancel(true));
+        }
+    }
+
+    /**
+     * A parsed specification and where it came from: the provider that answered, or
+     * {@value #DETERMINISTIC} with the reason the LLM output was not used.
+     */
+    public record Result(ApiSpecification spec, String parsedBy, String fallbackReason) {
+    }
+
+    /**
+     * Counters since startup. {@code hedgeDelayMillis} is {@code null} until the primary has
+     * answered often enough to have a 95th percentile, and always without a hedge provider.
+     * {@code hedgesSkipped} counts prompts that had no hedge because its provider was down,
+     * {@code reroutes} those sent to the hedge first because the primary was.
+     */
+    public record Stats(long budgetMillis, String hedgeProvider, Long hedgeDelayMillis, long primaryAnswers,
+                        long hedgeAnswers, long hedgesSent, long hedgesSkipped, long reroutes, long budgetFallbacks,
+                        long failureFallbacks) {
+    }
+}
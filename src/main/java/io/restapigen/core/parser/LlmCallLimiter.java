@@ -0,0 +1,89 @@
+package io.restapigen.core.parser;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the LLM calls one provider has in flight. A call over the limit fails immediately
+ * with {@link LlmOverloadedException} instead of waiting, so a slow provider sheds load at the
+ * edge rather than piling up requests behind it. The suggested retry delay is the mean
+ * duration of recent calls, since that is roughly when the next slot frees up.
+ */
+public final class LlmCallLimiter {
+    /** Maximum concurrent calls per provider (default {@value #DEFAULT_MAX_IN_FLIGHT}). */
+    public static final String ENV_MAX_IN_FLIGHT = "LLM_MAX_CONCURRENCY";
+    static final int DEFAULT_MAX_IN_FLIGHT = 16;
+    private static final int MAX_RETRY_AFTER_SECONDS = 60;
+
+    private final String provider;
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public LlmCallLimiter(String provider, int maxInFlight) {
+        this.provider = provider;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.permits = new Semaphore(this.maxInFlight);
+    }
+
+    /** A limiter sized by {@value #ENV_MAX_IN_FLIGHT}. */
+    static LlmCallLimiter fromEnvironment(String provider) {
+        String value = System.getenv(ENV_MAX_IN_FLIGHT);
+        int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        if (value != null && !value.isBlank()) {
+            try {
+                maxInFlight = Integer.parseInt(value.trim());
+            } catch (NumberFormatException ignored) {
+                // keep the default
+            }
+        }
+        return new LlmCallLimiter(provider, maxInFlight);
+    }
+
+    /**
+     * Starts {@code call} if a slot is free and releases the slot when its future completes;
+     * otherwise returns a future already failed with {@link LlmOverloadedException}. Cancelling
+     * the returned future cancels the call's.
+     */
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call) {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new LlmOverloadedException(provider, maxInFlight, retryAfterSeconds()));
+        }
+        long started = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return LlmResults.cancelling(future.whenComplete((result, error) -> {
+            totalNanos.add(System.nanoTime() - started);
+            completed.increment();
+            permits.release();
+        }), future);
+    }
+
+    public Stats stats() {
+        return new Stats(provider, maxInFlight, maxInFlight - permits.availablePermits(),
+                completed.sum(), rejected.sum(), meanMillis());
+    }
+
+    private int retryAfterSeconds() {
+        long seconds = (long) Math.ceil(meanMillis() / 1000.0);
+        return (int) Math.max(1, Math.min(MAX_RETRY_AFTER_SECONDS, seconds));
+    }
+
+    private double meanMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / count;
+    }
+
+    /** Call counters for one provider; {@code meanMillis} covers every completed call. */
+    public record Stats(String provider, int maxInFlight, int inFlight, long completed, long rejected, double meanMillis) {
+    }
+}
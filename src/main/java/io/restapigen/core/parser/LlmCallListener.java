@@ -0,0 +1,33 @@
+package io.restapigen.core.parser;
+
+/**
+ * Observes the LLM-backed parsers, for metrics. Callbacks run on HTTP client threads and
+ * must be cheap and thread-safe.
+ */
+public interface LlmCallListener {
+    LlmCallListener NONE = new LlmCallListener() {
+    };
+
+    /**
+     * One request to {@code model} finished after {@code nanos}. {@code failure} is {@code null}
+     * on success, otherwise one of {@code timeout}, {@code unreachable}, {@code rate_limited} or
+     * {@code error}, or {@code cancelled} when the caller abandoned the call.
+     */
+    default void callCompleted(String provider, String model, long nanos, String failure) {
+    }
+
+    /**
+     * The deterministic parser was used instead of LLM output, for one of the {@code failure}
+     * reasons above, {@code empty_response}, {@code circuit_open} when no call was made, or
+     * {@code latency_budget} when the LLM had not answered in time.
+     */
+    default void fallback(String provider, String reason) {
+    }
+
+    /**
+     * The {@link LlmCircuitBreaker} circuit for {@code model} moved between {@code closed},
+     * {@code open} and {@code half_open}.
+     */
+    default void circuitTransition(String provider, String model, String from, String to) {
+    }
+}
@@ -0,0 +1,307 @@
+package io.restapigen.core.parser;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Stops calling a provider's model while it is failing or too slow, so prompts fall back to the
+ * deterministic parser at once instead of each one waiting out the timeout. Each model has its
+ * own circuit. Closed, it keeps the outcome of the last {@code window} calls and opens once at
+ * least {@code minCalls} of them show a failure rate or slow-call rate at its threshold. Open, it
+ * refuses calls for {@code openMillis}; then it is half-open and lets {@code halfOpenCalls} trial
+ * calls through. It closes when they all succeed in time and reopens on the first one that does not.
+ */
+public final class LlmCircuitBreaker {
+    private static final Logger LOG = Logger.getLogger(LlmCircuitBreaker.class.getName());
+
+    /** Calls remembered per model (default {@value #DEFAULT_WINDOW}); 0 disables the breaker. */
+    public static final String ENV_WINDOW = "LLM_BREAKER_WINDOW";
+    /** Calls needed in the window before the rates are judged (default {@value #DEFAULT_MIN_CALLS}). */
+    public static final String ENV_MIN_CALLS = "LLM_BREAKER_MIN_CALLS";
+    /** Share of failed calls that opens the circuit (default {@value #DEFAULT_FAILURE_RATE}). */
+    public static final String ENV_FAILURE_RATE = "LLM_BREAKER_FAILURE_RATE";
+    /** A call taking at least this long is slow (default: half the provider's timeout). */
+    public static final String ENV_SLOW_CALL_SECONDS = "LLM_BREAKER_SLOW_CALL_SECONDS";
+    /** Share of slow calls that opens the circuit (default {@value #DEFAULT_SLOW_CALL_RATE}). */
+    public static final String ENV_SLOW_CALL_RATE = "LLM_BREAKER_SLOW_CALL_RATE";
+    /** How long an open circuit refuses calls (default {@value #DEFAULT_OPEN_SECONDS}). */
+    public static final String ENV_OPEN_SECONDS = "LLM_BREAKER_OPEN_SECONDS";
+    /** Trial calls a half-open circuit lets through (default {@value #DEFAULT_HALF_OPEN_CALLS}). */
+    public static final String ENV_HALF_OPEN_CALLS = "LLM_BREAKER_HALF_OPEN_CALLS";
+
+    static final int DEFAULT_WINDOW = 20;
+    static final int DEFAULT_MIN_CALLS = 5;
+    static final double DEFAULT_FAILURE_RATE = 0.5;
+    static final double DEFAULT_SLOW_CALL_RATE = 0.8;
+    static final int DEFAULT_OPEN_SECONDS = 30;
+    static final int DEFAULT_HALF_OPEN_CALLS = 2;
+
+    /** Circuit states, named as they appear in {@code /about} and metrics. */
+    public enum State {
+        CLOSED("closed"), OPEN("open"), HALF_OPEN("half_open");
+
+        private final String label;
+
+        State(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    private final String provider;
+    private final Settings settings;
+    private final LlmCallListener listener;
+    private final LongSupplier nanoTime;
+    private final Map<String, Circuit> circuits = new LinkedHashMap<>();
+
+    public LlmCircuitBreaker(String provider, List<String> models, Settings settings, LlmCallListener listener) {
+        this(provider, models, settings, listener, System::nanoTime);
+    }
+
+    LlmCircuitBreaker(String provider, List<String> models, Settings settings, LlmCallListener listener,
+                      LongSupplier nanoTime) {
+        this.provider = provider;
+        this.settings = settings;
+        this.listener = listener;
+        this.nanoTime = nanoTime;
+        for (String model : models) {
+            circuits.put(model, new Circuit(model));
+        }
+    }
+
+    /**
+     * Whether a call to {@code model} may start. Every call allowed here must be reported to
+     * {@link #record}, or a half-open circuit keeps waiting for it.
+     */
+    boolean tryAcquire(String model) {
+        return !settings.enabled() || circuit(model).tryAcquire();
+    }
+
+    /** Reports how a call allowed by {@link #tryAcquire} went. */
+    void record(String model, long nanos, boolean failed) {
+        if (settings.enabled()) {
+            circuit(model).record(failed, nanos >= settings.slowCallMillis() * 1_000_000L);
+        }
+    }
+
+    /** Gives back a call allowed by {@link #tryAcquire} that was abandoned before it had an outcome. */
+    void release(String model) {
+        if (settings.enabled()) {
+            circuit(model).release();
+        }
+    }
+
+    public State state(String model) {
+        return circuit(model).state();
+    }
+
+    /** One entry per model, in the order they were given. */
+    public List<Stats> stats() {
+        List<Stats> stats = new ArrayList<>(circuits.size());
+        for (Circuit circuit : circuits.values()) {
+            stats.add(circuit.stats());
+        }
+        return stats;
+    }
+
+    private Circuit circuit(String model) {
+        Circuit circuit = circuits.get(model);
+        if (circuit == null) {
+            throw new IllegalArgumentException("No circuit for " + provider + " model " + model);
+        }
+        return circuit;
+    }
+
+    private final class Circuit {
+        private final String model;
+        private final boolean[] failed = new boolean[Math.max(1, settings.window())];
+        private final boolean[] slow = new boolean[failed.length];
+        private int next;
+        private int calls;
+        private int failures;
+        private int slowCalls;
+        private State state = State.CLOSED;
+        private long openedAt;
+        private int trialsStarted;
+        private int trialsPassed;
+        private long transitions;
+        private long shortCircuited;
+        private String since;
+
+        Circuit(String model) {
+            this.model = model;
+        }
+
+        boolean tryAcquire() {
+            State from = null;
+            boolean allowed;
+            synchronized (this) {
+                if (state == State.OPEN && nanoTime.getAsLong() - openedAt >= settings.openMillis() * 1_000_000L) {
+                    from = moveTo(State.HALF_OPEN);
+                }
+                allowed = state == State.CLOSED || state == State.HALF_OPEN && trialsStarted < settings.halfOpenCalls();
+                if (!allowed) {
+                    shortCircuited++;
+                } else if (state == State.HALF_OPEN) {
+                    trialsStarted++;
+                }
+            }
+            notifyTransition(from, State.HALF_OPEN);
+            return allowed;
+        }
+
+        void record(boolean failedCall, boolean slowCall) {
+            State from = null;
+            State to;
+            synchronized (this) {
+                if (state == State.HALF_OPEN) {
+                    if (failedCall || slowCall) {
+                        from = moveTo(State.OPEN);
+                    } else if (++trialsPassed >= settings.halfOpenCalls()) {
+                        from = moveTo(State.CLOSED);
+                    }
+                } else if (state == State.CLOSED) {
+                    add(failedCall, slowCall);
+                    if (calls >= settings.minCalls() && (tripped(failures, settings.failureRate())
+                            || tripped(slowCalls, settings.slowCallRate()))) {
+                        from = moveTo(State.OPEN);
+                    }
+                }
+                // Open: the call started before the circuit opened and says nothing about the cooldown.
+                to = state;
+            }
+            notifyTransition(from, to);
+        }
+
+        synchronized void release() {
+            if (state == State.HALF_OPEN && trialsStarted > trialsPassed) {
+                trialsStarted--;
+            }
+        }
+
+        synchronized State state() {
+            return state;
+        }
+
+        synchronized Stats stats() {
+            return new Stats(provider, model, state.label(), calls, rate(failures), rate(slowCalls), transitions,
+                    shortCircuited, since);
+        }
+
+        private void add(boolean failedCall, boolean slowCall) {
+            if (calls == failed.length) {
+                failures -= failed[next] ? 1 : 0;
+                slowCalls -= slow[next] ? 1 : 0;
+            } else {
+                calls++;
+            }
+            failed[next] = failedCall;
+            slow[next] = slowCall;
+            failures += failedCall ? 1 : 0;
+            slowCalls += slowCall ? 1 : 0;
+            next = (next + 1) % failed.length;
+        }
+
+        /** Changes state under the lock and returns the old one; every state starts with a clean slate. */
+        private State moveTo(State to) {
+            State from = state;
+            state = to;
+            next = calls = failures = slowCalls = 0;
+            trialsStarted = trialsPassed = 0;
+            openedAt = nanoTime.getAsLong();
+            transitions++;
+            since = Instant.now().toString();
+            return from;
+        }
+
+        /** A threshold of 0 or less never trips. */
+        private boolean tripped(int count, double threshold) {
+            return threshold > 0 && count >= threshold * calls;
+        }
+
+        private double rate(int count) {
+            return calls == 0 ? 0 : Math.round(count * 1000.0 / calls) / 1000.0;
+        }
+
+        private void notifyTransition(State from, State to) {
+            if (from == null) {
+                return;
+            }
+            LOG.warning("[LlmCircuitBreaker] " + provider + " model=" + model + " circuit " + from.label()
+                    + " -> " + to.label());
+            listener.circuitTransition(provider, model, from.label(), to.label());
+        }
+    }
+
+    /**
+     * Breaker thresholds. A {@code window} of 0 turns the breaker off: every call is allowed
+     * and nothing is recorded.
+     */
+    public record Settings(int window, int minCalls, double failureRate, long slowCallMillis, double slowCallRate,
+                           long openMillis, int halfOpenCalls) {
+        public Settings {
+            window = Math.max(0, window);
+            minCalls = Math.max(1, Math.min(minCalls, Math.max(1, window)));
+            halfOpenCalls = Math.max(1, halfOpenCalls);
+        }
+
+        /** The defaults, with calls counted as slow from {@code slowCallMillis}. */
+        public static Settings defaults(long slowCallMillis) {
+            return new Settings(DEFAULT_WINDOW, DEFAULT_MIN_CALLS, DEFAULT_FAILURE_RATE, slowCallMillis,
+                    DEFAULT_SLOW_CALL_RATE, DEFAULT_OPEN_SECONDS * 1000L, DEFAULT_HALF_OPEN_CALLS);
+        }
+
+        /** Settings from the {@code LLM_BREAKER_*} variables; {@code slowCallMillis} applies when none is set. */
+        static Settings fromEnvironment(long slowCallMillis) {
+            return new Settings(
+                    (int) env(ENV_WINDOW, DEFAULT_WINDOW),
+                    (int) env(ENV_MIN_CALLS, DEFAULT_MIN_CALLS),
+                    env(ENV_FAILURE_RATE, DEFAULT_FAILURE_RATE),
+                    Math.round(env(ENV_SLOW_CALL_SECONDS, slowCallMillis / 1000.0) * 1000),
+                    env(ENV_SLOW_CALL_RATE, DEFAULT_SLOW_CALL_RATE),
+                    Math.round(env(ENV_OPEN_SECONDS, DEFAULT_OPEN_SECONDS) * 1000),
+                    (int) env(ENV_HALF_OPEN_CALLS, DEFAULT_HALF_OPEN_CALLS));
+        }
+
+        boolean enabled() {
+            return window > 0;
+        }
+
+        private static double env(String name, double defaultValue) {
+            String value = System.getenv(name);
+            if (value != null && !value.isBlank()) {
+                try {
+                    return Double.parseDouble(value.trim());
+                } catch (NumberFormatException ignored) {
+                    // keep the default
+                }
+            }
+            return defaultValue;
+        }
+    }
+
+    /**
+     * One model's circuit. {@code calls} and the rates cover the window since the last
+     * transition; {@code shortCircuited} counts calls refused while open; {@code since} is
+     * when the current state began, or {@code null} if the circuit has never moved.
+     */
+    public record Stats(String provider, String model, String state, int calls, double failureRate,
+                        double slowCallRate, long transitions, long shortCircuited, String since) {
+    }
+
+    /** Fails a call the circuit refused; the parsers fall back with reason {@code circuit_open}. */
+    static final class OpenException extends IOException {
+        OpenException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package io.restapigen.core.parser;
+
+/**
+ * Thrown (or used to fail a future) when an LLM provider already has as many calls in flight
+ * as it is allowed. Callers should ask the client to retry after {@link #retryAfterSeconds()}
+ * rather than queue the request.
+ */
+public final class LlmOverloadedException extends RuntimeException {
+    private final String provider;
+    private final int retryAfterSeconds;
+
+    public LlmOverloadedException(String provider, int maxInFlight, int retryAfterSeconds) {
+        super(provider + " already has " + maxInFlight + " requests in flight");
+        this.provider = provider;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String provider() {
+        return provider;
+    }
+
+    public int retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,24 @@
+package io.restapigen.core.parser;
+
+import io.restapigen.core.config.GenerationConfig;
+import io.restapigen.domain.ApiSpecification;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A parser that has an LLM structure the prompt first. {@link #parseAsync} falls back to the
+ * deterministic parser when the LLM gives no usable output; {@link #parseWithLlm} fails
+ * instead, so a caller racing providers can pick its own fallback.
+ */
+public interface LlmPromptParser extends PromptParser {
+
+    /** The provider name reported to {@link LlmCallListener}, e.g. {@code ollama}. */
+    String provider();
+
+    /**
+     * Parses the LLM's output only. Fails with {@link LlmUnavailableException} when there is
+     * none, or with {@link LlmOverloadedException} at the in-flight limit. Cancelling the
+     * returned future abandons the HTTP call.
+     */
+    CompletableFuture<ApiSpecification> parseWithLlm(String prompt, GenerationConfig config);
+}
@@ -0,0 +1,83 @@
+package io.restapigen.core.parser;
+
+import java.net.ConnectException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+/** Future plumbing shared by the LLM-backed parsers. */
+final class LlmResults {
+
+    private LlmResults() {
+    }
+
+    /** Waits for {@code future}, rethrowing its failure as it was raised rather than wrapped. */
+    static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Cancels {@code upstream} when {@code downstream} is cancelled. A dependent future does not
+     * pass cancellation back to the one it was derived from, so without this an abandoned parse
+     * would keep its HTTP call running.
+     */
+    static <T> CompletableFuture<T> cancelling(CompletableFuture<T> downstream, Future<?> upstream) {
+        downstream.whenComplete((result, error) -> {
+            if (downstream.isCancelled()) {
+                upstream.cancel(true);
+            }
+        });
+        return downstream;
+    }
+
+    /** Rethrows {@code cause} from inside a future stage, wrapping it only if it is checked. */
+    static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        throw new CompletionException(cause);
+    }
+
+    /** The {@link LlmCallListener} reason for a failed call. */
+    static String failureReason(Throwable cause) {
+        if (cause instanceof CancellationException) {
+            return "cancelled";
+        }
+        if (cause instanceof HttpTimeoutException || cause instanceof TimeoutException) {
+            return "timeout";
+        }
+        if (cause instanceof ConnectException) {
+            return "unreachable";
+        }
+        if (cause instanceof LlmCircuitBreaker.OpenException) {
+            return "circuit_open";
+        }
+        return "error";
+    }
+
+    static Throwable unwrap(Throwable error) {
+        Throwable current = error;
+        while ((current instanceof CompletionException || current instanceof ExecutionException) && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+}
@@ -0,0 +1,18 @@
+package io.restapigen.core.parser;
+
+/**
+ * Fails {@link LlmPromptParser#parseWithLlm} when the provider gave no usable output. The
+ * {@link #reason()} is one of the {@link LlmCallListener#fallback} reasons.
+ */
+public final class LlmUnavailableException extends RuntimeException {
+    private final String reason;
+
+    public LlmUnavailableException(String reason, String message, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+    }
+
+    public String reason() {
+        return reason;
+    }
+}
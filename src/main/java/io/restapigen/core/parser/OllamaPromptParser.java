@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.restapigen.core.config.GenerationConfig;
 import io.restapigen.domain.ApiSpecification;
+import io.restapigen.domain.EntityDefinition;
 
 import java.io.IOException;
 import java.net.URI;
@@ -12,7 +13,18 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Prompt parser that calls a running Ollama instance to normalise free-form
@@ -29,8 +41,22 @@ import java.util.logging.Logger;
  * <p>Configure via environment variable {@code OLLAMA_URL} (default:
  * {@code http://localhost:11434}).  The model is controlled by
  * {@code OLLAMA_MODEL} (default: {@code llama3.2}).
+ *
+ * <p>Calls are made with {@link HttpClient#sendAsync}; {@link #parseAsync} never blocks the
+ * caller. At most {@value LlmCallLimiter#ENV_MAX_IN_FLIGHT} calls are in flight at once;
+ * beyond that, parsing fails fast with {@link LlmOverloadedException} rather than falling
+ * back, so the server can answer 503.
+ *
+ * <p>Successful LLM output is kept in a {@link PromptCache} keyed by prompt, model and system
+ * prompt version; a hit skips the call entirely.
+ *
+ * <p>An {@link LlmCircuitBreaker} watches the model's failures and latency; while its circuit is
+ * open, prompts go straight to the deterministic parser without waiting on Ollama.
+ *
+ * <p>{@link #parseStreaming} asks Ollama to stream its output and parses each
+ * {@code Create an API for X} block deterministically as soon as the next one starts.
  */
-public final class OllamaPromptParser implements PromptParser {
+public final class OllamaPromptParser implements LlmPromptParser {
 
     private static final Logger LOG = Logger.getLogger(OllamaPromptParser.class.getName());
 
@@ -38,6 +64,8 @@ public final class OllamaPromptParser implements PromptParser {
     public static final String ENV_OLLAMA_MODEL = "OLLAMA_MODEL";
     public static final String ENV_OLLAMA_TIMEOUT_SECONDS = "OLLAMA_TIMEOUT_SECONDS";
 
+    private static final String PROVIDER = "ollama";
+
     private static final String DEFAULT_URL             = "http://localhost:11434";
     private static final String DEFAULT_MODEL           = "llama3.2";
     private static final int    DEFAULT_TIMEOUT_SECONDS = 90;
@@ -94,6 +122,8 @@ public final class OllamaPromptParser implements PromptParser {
 
             Now convert the following user description using the same rules:
             """;
+    private static final String SYSTEM_PROMPT_VERSION = PromptCache.version(SYSTEM_PROMPT);
+    private static final Pattern BLOCK_ENTITY = Pattern.compile("(?i)create an api for\\s+([\\p{L}_][\\p{L}\\p{N}_]*)");
 
 
     private final String baseUrl;
@@ -101,12 +131,23 @@ public final class OllamaPromptParser implements PromptParser {
     private final int timeoutSeconds;
     private final NaturalLanguagePromptParser fallback;
     private final HttpClient http;
+    private final LlmCallLimiter limiter;
+    private final PromptCache cache;
+    private final LlmCallListener listener;
+    private final LlmCircuitBreaker breaker;
 
     public OllamaPromptParser() {
+        this(PromptCache.disabled(), LlmCallListener.NONE);
+    }
+
+    public OllamaPromptParser(PromptCache cache, LlmCallListener listener) {
         this(
             envOrDefault(ENV_OLLAMA_URL,   DEFAULT_URL),
             envOrDefault(ENV_OLLAMA_MODEL, DEFAULT_MODEL),
-            envIntOrDefault(ENV_OLLAMA_TIMEOUT_SECONDS, DEFAULT_TIMEOUT_SECONDS)
+            envIntOrDefault(ENV_OLLAMA_TIMEOUT_SECONDS, DEFAULT_TIMEOUT_SECONDS),
+            LlmCallLimiter.fromEnvironment(PROVIDER),
+            cache,
+            listener
         );
     }
 
@@ -115,9 +156,29 @@ public final class OllamaPromptParser implements PromptParser {
     }
 
     public OllamaPromptParser(String baseUrl, String model, int timeoutSeconds) {
+        this(baseUrl, model, timeoutSeconds, LlmCallLimiter.fromEnvironment(PROVIDER), PromptCache.disabled());
+    }
+
+    OllamaPromptParser(String baseUrl, String model, int timeoutSeconds, LlmCallLimiter limiter, PromptCache cache) {
+        this(baseUrl, model, timeoutSeconds, limiter, cache, LlmCallListener.NONE);
+    }
+
+    OllamaPromptParser(String baseUrl, String model, int timeoutSeconds, LlmCallLimiter limiter, PromptCache cache,
+                       LlmCallListener listener) {
+        // Calls taking half the timeout count as slow unless LLM_BREAKER_SLOW_CALL_SECONDS says otherwise.
+        this(baseUrl, model, timeoutSeconds, limiter, cache, listener,
+                LlmCircuitBreaker.Settings.fromEnvironment(Math.max(5, timeoutSeconds) * 500L));
+    }
+
+    OllamaPromptParser(String baseUrl, String model, int timeoutSeconds, LlmCallLimiter limiter, PromptCache cache,
+                       LlmCallListener listener, LlmCircuitBreaker.Settings breakerSettings) {
+        this.limiter  = limiter;
+        this.cache    = cache;
+        this.listener = listener;
         this.baseUrl  = baseUrl.replaceAll("/+$", "");
         this.model    = model;
         this.timeoutSeconds = Math.max(5, timeoutSeconds);
+        this.breaker  = new LlmCircuitBreaker(PROVIDER, List.of(model), breakerSettings, listener);
         this.fallback = new NaturalLanguagePromptParser();
         this.http     = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(5))
@@ -126,60 +187,232 @@ public final class OllamaPromptParser implements PromptParser {
 
     @Override
     public ApiSpecification parse(String prompt, GenerationConfig config) {
+        return LlmResults.join(parseAsync(prompt, config));
+    }
+
+    @Override
+    public CompletableFuture<ApiSpecification> parseAsync(String prompt, GenerationConfig config) {
+        return withFallback(prompt, config, parseWithLlm(prompt, config));
+    }
+
+    @Override
+    public CompletableFuture<ApiSpecification> parseWithLlm(String prompt, GenerationConfig config) {
+        String cacheKey = PromptCache.key(model, SYSTEM_PROMPT_VERSION, prompt);
+        String cached = cache.get(cacheKey);
+        if (cached != null) {
+            return fromCache(prompt, cached, config);
+        }
+        return structure(prompt, config, cacheKey, limiter.submit(() -> callOllama(prompt)));
+    }
+
+    /**
+     * Streams the Ollama call and reports each entity once its block is complete. A cache hit
+     * reports all entities at once; a deterministic fallback reports nothing more, and
+     * entities already reported from a stream that then failed are superseded by its result.
+     */
+    @Override
+    public CompletableFuture<ApiSpecification> parseStreaming(String prompt, GenerationConfig config,
+                                                              Consumer<EntityDefinition> onEntity) {
+        String cacheKey = PromptCache.key(model, SYSTEM_PROMPT_VERSION, prompt);
+        String cached = cache.get(cacheKey);
+        if (cached != null) {
+            return fromCache(prompt, cached, config).thenApply(spec -> {
+                spec.entities.forEach(onEntity);
+                return spec;
+            });
+        }
+        Consumer<String> onBlock = block -> reportBlock(block, config, onEntity);
+        return withFallback(prompt, config,
+                structure(prompt, config, cacheKey, limiter.submit(() -> callOllamaStreaming(prompt, onBlock))));
+    }
+
+    private CompletableFuture<ApiSpecification> fromCache(String prompt, String cached, GenerationConfig config) {
         try {
-            String structured = callOllama(prompt);
-            if (structured != null && !structured.isBlank()) {
-                LOG.info("[OllamaPromptParser] LLM-structured prompt length=" + structured.length());
-                ApiSpecification structuredSpec = fallback.parse(structured, config);
-                return NaturalLanguagePromptParser.applyProjectIdentity(prompt, structuredSpec, config);
-            }
-        } catch (Exception e) {
-            LOG.warning("[OllamaPromptParser] Ollama unavailable, using deterministic parser. Reason: " + e.getMessage());
+            return CompletableFuture.completedFuture(parseStructured(prompt, cached, config));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
         }
-        return fallback.parse(prompt, config);
+    }
+
+    /** Parses Ollama's output; a failed call or empty output fails with {@link LlmUnavailableException}. */
+    private CompletableFuture<ApiSpecification> structure(String prompt, GenerationConfig config, String cacheKey,
+                                                          CompletableFuture<String> call) {
+        return LlmResults.cancelling(call.handle((structured, error) -> {
+            if (error != null) {
+                Throwable cause = LlmResults.unwrap(error);
+                if (cause instanceof LlmOverloadedException || cause instanceof CancellationException) {
+                    throw LlmResults.rethrow(cause);
+                }
+                throw new LlmUnavailableException(LlmResults.failureReason(cause), cause.getMessage(), cause);
+            }
+            if (structured == null || structured.isBlank()) {
+                throw new LlmUnavailableException("empty_response", "Ollama returned no output", null);
+            }
+            LOG.info("[OllamaPromptParser] LLM-structured prompt length=" + structured.length());
+            ApiSpecification structuredSpec = parseStructured(prompt, structured, config);
+            cache.put(cacheKey, structured);
+            return structuredSpec;
+        }), call);
+    }
+
+    private CompletableFuture<ApiSpecification> withFallback(String prompt, GenerationConfig config,
+                                                             CompletableFuture<ApiSpecification> parsed) {
+        return parsed.handle((spec, error) -> {
+            if (error == null) {
+                return spec;
+            }
+            if (!(LlmResults.unwrap(error) instanceof LlmUnavailableException unavailable)) {
+                throw LlmResults.rethrow(LlmResults.unwrap(error));
+            }
+            LOG.warning("[OllamaPromptParser] Ollama unavailable, using deterministic parser. Reason: " + unavailable.getMessage());
+            listener.fallback(PROVIDER, unavailable.reason());
+            return fallback.parse(prompt, config);
+        });
     }
 
     /** Returns {@code true} if Ollama responds to a quick health ping. */
     public boolean isAvailable() {
+        return probeAvailability().join();
+    }
+
+    /** The health ping without blocking: completes with {@code true} if Ollama answered 200. */
+    public CompletableFuture<Boolean> probeAvailability() {
         try {
             HttpRequest req = HttpRequest.newBuilder()
                     .uri(URI.create(baseUrl + "/api/tags"))
                     .GET()
                     .timeout(Duration.ofSeconds(3))
                     .build();
-            HttpResponse<Void> res = http.send(req, HttpResponse.BodyHandlers.discarding());
-            return res.statusCode() == 200;
-        } catch (Exception e) {
-            return false;
+            return http.sendAsync(req, HttpResponse.BodyHandlers.discarding())
+                    .handle((res, error) -> error == null && res.statusCode() == 200);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(false);
         }
     }
 
     public String getBaseUrl() { return baseUrl; }
     public String getModel()   { return model; }
+    @Override
+    public String provider()   { return PROVIDER; }
+    public LlmCallLimiter.Stats callStats() { return limiter.stats(); }
+    public LlmCircuitBreaker circuitBreaker() { return breaker; }
 
     // ── private ───────────────────────────────────────────────────────────────
 
-    private String callOllama(String userPrompt) throws IOException, InterruptedException {
-        String body = buildRequestBody(userPrompt);
-        HttpRequest req = HttpRequest.newBuilder()
+    private ApiSpecification parseStructured(String prompt, String structured, GenerationConfig config) {
+        ApiSpecification structuredSpec = fallback.parse(structured, config);
+        return NaturalLanguagePromptParser.applyProjectIdentity(prompt, structuredSpec, config);
+    }
+
+    /** Parses one streamed block on its own and reports the entity it declares. */
+    private void reportBlock(String block, GenerationConfig config, Consumer<EntityDefinition> onEntity) {
+        try {
+            ApiSpecification partial = fallback.parse(block, config);
+            Matcher header = BLOCK_ENTITY.matcher(block);
+            String name = header.find() ? header.group(1).toLowerCase(Locale.ROOT) : null;
+            partial.entities.stream()
+                    .filter(definition -> name == null || definition.entity.name.toLowerCase(Locale.ROOT).equals(name))
+                    .findFirst()
+                    .or(() -> partial.entities.stream().findFirst())
+                    .ifPresent(onEntity);
+        } catch (RuntimeException e) {
+            LOG.fine(() -> "[OllamaPromptParser] Skipping unparseable streamed block: " + e.getMessage());
+        }
+    }
+
+    private CompletableFuture<String> callOllama(String userPrompt) {
+        HttpRequest req;
+        try {
+            req = generateRequest(userPrompt, false);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (!breaker.tryAcquire(model)) {
+            return CompletableFuture.failedFuture(new LlmCircuitBreaker.OpenException("circuit open for model=" + model));
+        }
+        long started = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> sent = http.sendAsync(req, HttpResponse.BodyHandlers.ofString());
+        return LlmResults.cancelling(sent.thenApply(res -> {
+            try {
+                if (res.statusCode() != 200) {
+                    throw new IOException("Ollama returned HTTP " + res.statusCode());
+                }
+                return extractResponse(res.body());
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((structured, error) -> completed(System.nanoTime() - started, error)), sent);
+    }
+
+    /**
+     * With {@code stream=true} Ollama sends one JSON object per line as tokens are produced.
+     * The request timeout only covers the response headers, so the whole call is also bounded
+     * by {@code timeoutSeconds}: past it the subscription and the exchange are cancelled, and
+     * only then does the call fail, so the limiter's slot is held until the stream has stopped.
+     */
+    private CompletableFuture<String> callOllamaStreaming(String userPrompt, Consumer<String> onBlock) {
+        HttpRequest req;
+        try {
+            req = generateRequest(userPrompt, true);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (!breaker.tryAcquire(model)) {
+            return CompletableFuture.failedFuture(new LlmCircuitBreaker.OpenException("circuit open for model=" + model));
+        }
+        long started = System.nanoTime();
+        StreamedResponse stream = new StreamedResponse(onBlock);
+        CompletableFuture<HttpResponse<StreamedResponse>> sent =
+                http.sendAsync(req, HttpResponse.BodyHandlers.fromLineSubscriber(stream, body -> body, null));
+        CompletableFuture.delayedExecutor(timeoutSeconds, TimeUnit.SECONDS).execute(() -> {
+            if (!sent.isDone()) {
+                stream.cancel(true);
+                sent.cancel(true);
+            }
+        });
+        return LlmResults.cancelling(sent.handle((res, error) -> {
+            if (stream.timedOut()) {
+                throw new CompletionException(new TimeoutException("Ollama stream took longer than " + timeoutSeconds + " s"));
+            }
+            if (error != null) {
+                stream.cancel(false);
+                throw LlmResults.rethrow(LlmResults.unwrap(error));
+            }
+            try {
+                if (res.statusCode() != 200) {
+                    throw new IOException("Ollama returned HTTP " + res.statusCode());
+                }
+                return res.body().result();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((structured, error) -> completed(System.nanoTime() - started, error)), sent);
+    }
+
+    private void completed(long nanos, Throwable error) {
+        if (error != null && LlmResults.unwrap(error) instanceof CancellationException) {
+            breaker.release(model);
+        } else {
+            breaker.record(model, nanos, error != null);
+        }
+        listener.callCompleted(PROVIDER, model, nanos, error == null ? null : LlmResults.failureReason(LlmResults.unwrap(error)));
+    }
+
+    private HttpRequest generateRequest(String userPrompt, boolean stream) throws IOException {
+        return HttpRequest.newBuilder()
                 .uri(URI.create(baseUrl + "/api/generate"))
                 .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .POST(HttpRequest.BodyPublishers.ofString(buildRequestBody(userPrompt, stream)))
                 .timeout(Duration.ofSeconds(timeoutSeconds))
                 .build();
-        HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString());
-        if (res.statusCode() != 200) {
-            throw new IOException("Ollama returned HTTP " + res.statusCode());
-        }
-        return extractResponse(res.body());
     }
 
-    private String buildRequestBody(String userPrompt) throws IOException {
+    private String buildRequestBody(String userPrompt, boolean stream) throws IOException {
         ObjectNode root = JSON.createObjectNode()
                 .put("model", model)
                 .put("system", SYSTEM_PROMPT)
                 .put("prompt", userPrompt)
-                .put("stream", false);
+                .put("stream", stream);
         root.putObject("options")
                 .put("temperature", 0.05)
                 .put("num_predict", 2048);
@@ -200,6 +433,83 @@ public final class OllamaPromptParser implements PromptParser {
         return response.asText();
     }
 
+    /**
+     * Feeds each streamed token to a {@link StructuredBlockSplitter}; remembers the first error.
+     * Once cancelled, lines still in flight are dropped rather than reported as blocks; a
+     * cancel waits for a block being reported to finish.
+     */
+    private static final class StreamedResponse implements Flow.Subscriber<String> {
+        private final StructuredBlockSplitter blocks;
+        private IOException failure;
+        private Flow.Subscription subscription;
+        private boolean cancelled;
+        private boolean timedOut;
+
+        StreamedResponse(Consumer<String> onBlock) {
+            this.blocks = new StructuredBlockSplitter(onBlock);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            synchronized (this) {
+                this.subscription = subscription;
+                if (cancelled) {
+                    subscription.cancel();
+                    return;
+                }
+            }
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public synchronized void onNext(String line) {
+            if (line.isBlank() || failure != null || cancelled) {
+                return;
+            }
+            try {
+                JsonNode chunk = JSON.readTree(line);
+                if (chunk.hasNonNull("error")) {
+                    failure = new IOException("Ollama error: " + chunk.get("error").asText());
+                    return;
+                }
+                blocks.append(chunk.path("response").asText(""));
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // sendAsync fails with the same error.
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            if (failure == null && !cancelled) {
+                blocks.finish();
+            }
+        }
+
+        synchronized void cancel(boolean timeout) {
+            timedOut |= timeout;
+            cancelled = true;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+
+        synchronized boolean timedOut() {
+            return timedOut;
+        }
+
+        synchronized String result() throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+            return blocks.text();
+        }
+    }
+
     private static String envOrDefault(String key, String fallback) {
         String v = System.getenv(key);
         return (v != null && !v.isBlank()) ? v.trim() : fallback;
@@ -0,0 +1,337 @@
+package io.restapigen.core.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Structured prompts returned by an LLM, keyed by {@link #key(String, String, String)}. The
+ * LLM's text is cached rather than the parsed specification: turning it into a specification
+ * is cheap and deterministic, and depends on the request's configuration.
+ *
+ * <p>The in-memory tier is an LRU bounded by entry count, and entries expire after a TTL. With
+ * a log file, every new entry is also appended to a memory-mapped, append-only log that is
+ * replayed on startup, so restarts do not cold-start the LLM quota. Each record carries a
+ * CRC-32; replay stops at the first torn or corrupt record, and later appends overwrite it.
+ * The log is compacted to its live entries on startup, and whenever it would outgrow its byte
+ * budget.
+ *
+ * <p>Log layout: a 4-byte magic number, then records of {@code [int length][long createdMillis]
+ * [int keyLength][key][int valueLength][value][int crc]}, where {@code length} counts the bytes
+ * between itself and the CRC. A zero length marks the end.
+ */
+public final class PromptCache implements Closeable {
+    private static final Logger LOG = Logger.getLogger(PromptCache.class.getName());
+    private static final int MAGIC = 0x52504331; // "RPC1"
+    private static final int HEADER_BYTES = 4;
+    private static final int RECORD_OVERHEAD = 4 + 8 + 4 + 4 + 4;
+    private static final long MIN_LOG_BYTES = 64 * 1024;
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Path logFile;
+    private final long maxLogBytes;
+    private final LongSupplier clock;
+
+    // Access-ordered: iteration starts at the least recently used prompt.
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private FileChannel channel;
+    private MappedByteBuffer log;
+    private int position;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** A cache that holds nothing. */
+    public static PromptCache disabled() {
+        return new PromptCache(0, 0);
+    }
+
+    /** @param ttlSeconds how long an entry is served; zero or less keeps entries until evicted */
+    public PromptCache(int maxEntries, long ttlSeconds) {
+        this(maxEntries, ttlSeconds, null, 0);
+    }
+
+    /** @param logFile append-only log to replay and extend, or {@code null} for memory only */
+    public PromptCache(int maxEntries, long ttlSeconds, Path logFile, long maxLogBytes) {
+        this(maxEntries, ttlSeconds, logFile, maxLogBytes, System::currentTimeMillis);
+    }
+
+    PromptCache(int maxEntries, long ttlSeconds, Path logFile, long maxLogBytes, LongSupplier clock) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.ttlMillis = Math.max(0, ttlSeconds) * 1000;
+        this.logFile = this.maxEntries == 0 ? null : logFile;
+        this.maxLogBytes = Math.min(Integer.MAX_VALUE, Math.max(MIN_LOG_BYTES, maxLogBytes));
+        this.clock = clock;
+        if (this.logFile != null) {
+            synchronized (this) {
+                openLog();
+            }
+        }
+    }
+
+    /**
+     * The cache key for {@code prompt} sent to {@code model} under the system prompt identified
+     * by {@code systemPromptVersion}. The prompt is normalised as for coalescing, so prompts
+     * that differ only in incidental whitespace share an entry.
+     */
+    public static String key(String model, String systemPromptVersion, String prompt) {
+        return model + '\u0000' + systemPromptVersion + '\u0000' + CoalescingPromptParser.normalize(prompt);
+    }
+
+    /** A short digest of {@code systemPrompt}; editing the prompt invalidates its entries. */
+    public static String version(String systemPrompt) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(systemPrompt.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /** Returns the cached structured prompt for {@code key}, or {@code null}. */
+    public synchronized String get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && expired(entry)) {
+            entries.remove(key);
+            expirations.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    public synchronized void put(String key, String value) {
+        if (maxEntries == 0) {
+            return;
+        }
+        Entry entry = new Entry(value, clock.getAsLong());
+        if (log != null) {
+            // Before remembering, so a compaction triggered by this append does not write it twice.
+            append(key, entry);
+        }
+        remember(key, entry);
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), expirations.sum(), evictions.sum(), entries.size(),
+                log == null ? 0 : position);
+    }
+
+    @Override
+    public synchronized void close() {
+        closeLog();
+    }
+
+    private boolean expired(Entry entry) {
+        return ttlMillis > 0 && clock.getAsLong() - entry.createdMillis() >= ttlMillis;
+    }
+
+    private void remember(String key, Entry entry) {
+        entries.put(key, entry);
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    // ── log ───────────────────────────────────────────────────────────────────
+
+    /** Maps the log, replays it into memory and compacts it if it holds anything stale. */
+    private void openLog() {
+        try {
+            Files.createDirectories(logFile.toAbsolutePath().getParent());
+            channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = channel.size();
+            map(Math.max(size, MIN_LOG_BYTES));
+            if (size == 0 || log.getInt(0) != MAGIC) {
+                if (size > 0) {
+                    LOG.warning("Prompt cache log " + logFile + " has an unknown format; starting empty");
+                }
+                log.putInt(0, MAGIC);
+                log.putInt(HEADER_BYTES, 0);
+                position = HEADER_BYTES;
+                return;
+            }
+            int records = replay();
+            if (records > entries.size() || position > maxLogBytes) {
+                compact();
+            }
+        } catch (IOException e) {
+            LOG.warning("Cannot open prompt cache log " + logFile + ", caching in memory only: " + e.getMessage());
+            closeLog();
+        }
+    }
+
+    /** Loads every intact record into memory and leaves {@code position} after the last one. */
+    private int replay() {
+        int records = 0;
+        int offset = HEADER_BYTES;
+        CRC32 crc = new CRC32();
+        while (offset + 4 <= log.capacity()) {
+            int length = log.getInt(offset);
+            if (length < RECORD_OVERHEAD - 8 || (long) offset + 8 + length > log.capacity()) {
+                break;
+            }
+            crc.reset();
+            crc.update(log.slice(offset + 4, length));
+            if ((int) crc.getValue() != log.getInt(offset + 4 + length)) {
+                LOG.warning("Prompt cache log " + logFile + " has a corrupt record at offset " + offset + "; ignoring the rest");
+                break;
+            }
+            ByteBuffer record = log.slice(offset + 4, length);
+            long createdMillis = record.getLong();
+            String key = readString(record);
+            String value = readString(record);
+            Entry entry = new Entry(value, createdMillis);
+            if (!expired(entry)) {
+                remember(key, entry);
+            }
+            records++;
+            offset += 8 + length;
+        }
+        position = offset;
+        return records;
+    }
+
+    private void append(String key, Entry entry) {
+        byte[] record = encode(key, entry);
+        try {
+            if (!ensureCapacity(record.length + 4)) {
+                LOG.warning("Prompt cache entry of " + record.length + " bytes does not fit the log budget; kept in memory only");
+                return;
+            }
+            // Terminator and body first, length last, so a torn append replays as the end of the log.
+            log.putInt(position + record.length, 0);
+            log.put(position + 4, record, 4, record.length - 4);
+            log.putInt(position, record.length - 8);
+            log.force(position, record.length + 4);
+            position += record.length;
+        } catch (IOException | RuntimeException e) {
+            LOG.warning("Cannot append to prompt cache log " + logFile + ", caching in memory only: " + e.getMessage());
+            closeLog();
+        }
+    }
+
+    /** Grows the mapping, or compacts when growing would exceed the budget. */
+    private boolean ensureCapacity(int bytes) throws IOException {
+        if ((long) position + bytes > maxLogBytes) {
+            compact();
+            if ((long) position + bytes > maxLogBytes) {
+                return false;
+            }
+        }
+        long required = (long) position + bytes;
+        if (required > log.capacity()) {
+            map(Math.min(maxLogBytes, Math.max(required, 2L * log.capacity())));
+        }
+        return true;
+    }
+
+    /** Rewrites the log with only the live entries, oldest first, and remaps it. */
+    private void compact() throws IOException {
+        Path temp = Files.createTempFile(logFile.toAbsolutePath().getParent(), logFile.getFileName().toString(), ".part");
+        try {
+            long size = HEADER_BYTES;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                out.write(ByteBuffer.allocate(HEADER_BYTES).putInt(0, MAGIC));
+                Iterator<Map.Entry<String, Entry>> live = entries.entrySet().iterator();
+                while (live.hasNext()) {
+                    Map.Entry<String, Entry> entry = live.next();
+                    if (expired(entry.getValue())) {
+                        live.remove();
+                        expirations.increment();
+                        continue;
+                    }
+                    byte[] record = encode(entry.getKey(), entry.getValue());
+                    if (size + record.length + 4 > maxLogBytes) {
+                        break;
+                    }
+                    out.write(ByteBuffer.wrap(record));
+                    size += record.length;
+                }
+            }
+            closeLog();
+            Files.move(temp, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            map(Math.max(size + 4, MIN_LOG_BYTES));
+            position = (int) size;
+            log.putInt(position, 0);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void map(long capacity) throws IOException {
+        log = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private void closeLog() {
+        if (log != null) {
+            log.force();
+            log = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+    }
+
+    private static byte[] encode(String key, Entry entry) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = entry.value().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + keyBytes.length + valueBytes.length);
+        record.putInt(record.capacity() - 8)
+                .putLong(entry.createdMillis())
+                .putInt(keyBytes.length).put(keyBytes)
+                .putInt(valueBytes.length).put(valueBytes);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 4, record.capacity() - 8);
+        record.putInt((int) crc.getValue());
+        return record.array();
+    }
+
+    private static String readString(ByteBuffer record) {
+        byte[] bytes = new byte[record.getInt()];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private record Entry(String value, long createdMillis) {
+    }
+
+    /**
+     * Cache counters. {@code expirations} counts entries dropped for age, {@code evictions}
+     * those dropped for space; {@code logBytes} is the replayable length of the log.
+     */
+    public record Stats(long hits, long misses, long expirations, long evictions, int entries, long logBytes) {
+    }
+}
@@ -2,7 +2,36 @@ package io.restapigen.core.parser;
 
 import io.restapigen.core.config.GenerationConfig;
 import io.restapigen.domain.ApiSpecification;
+import io.restapigen.domain.EntityDefinition;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface PromptParser {
     ApiSpecification parse(String prompt, GenerationConfig config);
+
+    /**
+     * Parses without holding the calling thread while waiting on I/O. The default runs
+     * {@link #parse} on the calling thread, which suits parsers that do no I/O.
+     */
+    default CompletableFuture<ApiSpecification> parseAsync(String prompt, GenerationConfig config) {
+        try {
+            return CompletableFuture.completedFuture(parse(prompt, config));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Like {@link #parseAsync}, also passing entities to {@code onEntity} as they become known,
+     * before the future completes. Reported entities are provisional; the returned specification
+     * is authoritative. The default reports the finished specification's entities in one go.
+     */
+    default CompletableFuture<ApiSpecification> parseStreaming(String prompt, GenerationConfig config,
+                                                               Consumer<EntityDefinition> onEntity) {
+        return parseAsync(prompt, config).thenApply(spec -> {
+            spec.entities.forEach(onEntity);
+            return spec;
+        });
+    }
 }
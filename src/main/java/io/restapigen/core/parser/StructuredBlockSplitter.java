@@ -0,0 +1,65 @@
+package io.restapigen.core.parser;
+
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Cuts streamed LLM output into {@code Create an API for X} blocks as they complete. A block
+ * ends where the next one starts, or at the end of the output; text before the first block
+ * header is ignored. Chunks may split lines anywhere.
+ */
+final class StructuredBlockSplitter {
+    private static final String HEADER = "create an api for";
+
+    private final StringBuilder text = new StringBuilder();
+    private final Consumer<String> onBlock;
+    private int scanned;
+    private int blockStart = -1;
+
+    StructuredBlockSplitter(Consumer<String> onBlock) {
+        this.onBlock = onBlock;
+    }
+
+    void append(String chunk) {
+        text.append(chunk);
+        int lineEnd;
+        while ((lineEnd = text.indexOf("\n", scanned)) >= 0) {
+            String line = text.substring(scanned, lineEnd).strip().toLowerCase(Locale.ROOT);
+            if (line.startsWith(HEADER)) {
+                if (blockStart >= 0) {
+                    emit(blockStart, scanned);
+                }
+                blockStart = scanned;
+            }
+            scanned = lineEnd + 1;
+        }
+    }
+
+    /** Emits the last block, whose end is only known once the output is complete. */
+    void finish() {
+        int end = text.length();
+        if (scanned < end && text.substring(scanned).strip().toLowerCase(Locale.ROOT).startsWith(HEADER)) {
+            if (blockStart >= 0) {
+                emit(blockStart, scanned);
+            }
+            blockStart = scanned;
+        }
+        if (blockStart >= 0) {
+            emit(blockStart, end);
+            blockStart = -1;
+        }
+        scanned = end;
+    }
+
+    /** Everything appended so far. */
+    String text() {
+        return text.toString();
+    }
+
+    private void emit(int start, int end) {
+        String block = text.substring(start, end).strip();
+        if (!block.isEmpty()) {
+            onBlock.accept(block);
+        }
+    }
+}
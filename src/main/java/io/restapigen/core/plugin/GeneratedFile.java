@@ -1,4 +1,140 @@
 package io.restapigen.core.plugin;
 
-public record GeneratedFile(String path, String content) {
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A file produced by a plugin. Content is either text ({@link CharSequence}, typically the
+ * {@link StringBuilder} a plugin rendered into) or pre-encoded UTF-8 bytes. Text is encoded
+ * lazily: {@link #writeTo} encodes it in small chunks straight into the target stream, so
+ * writing an archive never materialises a second full copy of each file.
+ *
+ * <p>Text content is captured by reference; plugins must not modify a builder after passing
+ * it in.
+ */
+public final class GeneratedFile {
+    private final String path;
+    private final CharSequence text;
+    private final byte[] utf8;
+
+    /**
+     * Kept from when this was a {@code record GeneratedFile(String path, String content)}, so
+     * plugin jars compiled against that constructor still link.
+     */
+    public GeneratedFile(String path, String content) {
+        this(path, (CharSequence) content);
+    }
+
+    public GeneratedFile(String path, CharSequence content) {
+        this.path = Objects.requireNonNull(path, "path");
+        this.text = Objects.requireNonNull(content, "content");
+        this.utf8 = null;
+    }
+
+    private GeneratedFile(String path, byte[] utf8) {
+        this.path = Objects.requireNonNull(path, "path");
+        this.text = null;
+        this.utf8 = Objects.requireNonNull(utf8, "utf8");
+    }
+
+    /** A file whose content is already UTF-8 encoded; the array is used as-is, not copied. */
+    public static GeneratedFile ofUtf8(String path, byte[] utf8) {
+        return new GeneratedFile(path, utf8);
+    }
+
+    public String path() {
+        return path;
+    }
+
+    /** The content as a {@code String}; allocates unless the file was created from one. */
+    public String content() {
+        if (text != null) {
+            return text.toString();
+        }
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /** The content as UTF-8; pre-encoded files return their array without copying. */
+    public byte[] bytes() {
+        if (utf8 != null) {
+            return utf8;
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the UTF-8 encoding of the content to {@code out}, using {@code buffer} (at least
+     * 4 bytes) as the only scratch space. Output is identical to {@code content().getBytes(UTF_8)},
+     * including {@code '?'} for unpaired surrogates.
+     */
+    public void writeTo(OutputStream out, byte[] buffer) throws IOException {
+        if (utf8 != null) {
+            out.write(utf8);
+            return;
+        }
+        int limit = buffer.length - 4;
+        int position = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            if (position > limit) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                char low = i + 1 < length ? text.charAt(i + 1) : 0;
+                if (Character.isHighSurrogate(c) && Character.isLowSurrogate(low)) {
+                    int codePoint = Character.toCodePoint(c, low);
+                    buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                    i++;
+                } else {
+                    buffer[position++] = '?';
+                }
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        out.write(buffer, 0, position);
+    }
+
+    /** Files are equal when their paths and decoded contents are equal, however they are stored. */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof GeneratedFile that) || !path.equals(that.path)) {
+            return false;
+        }
+        if (utf8 != null && that.utf8 != null) {
+            return Arrays.equals(utf8, that.utf8);
+        }
+        if (text != null && that.text != null) {
+            return CharSequence.compare(text, that.text) == 0;
+        }
+        return content().equals(that.content());
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * path.hashCode() + content().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "GeneratedFile[path=" + path + "]";
+    }
 }
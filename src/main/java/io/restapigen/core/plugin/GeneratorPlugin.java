@@ -1,7 +1,9 @@
 package io.restapigen.core.plugin;
 
 import io.restapigen.domain.ApiSpecification;
+import io.restapigen.domain.EntityDefinition;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public interface GeneratorPlugin {
@@ -13,6 +15,12 @@ public interface GeneratorPlugin {
         return List.of();
     }
 
+    /**
+     * Called once per generation run, before {@link #validate} and {@link #generate}. Through
+     * {@link PluginRegistry} every run gets a new instance, so the context may be kept in a
+     * field; a plugin class without a public no-arg constructor is shared between concurrent
+     * runs instead and must not keep per-run state.
+     */
     default void initialize(PluginContext context) {
     }
 
@@ -20,4 +28,39 @@ public interface GeneratorPlugin {
     }
 
     List<GeneratedFile> generate(ApiSpecification specification, PluginContext context);
+
+    /**
+     * Returns {@code true} when this plugin's whole output is the concatenation of
+     * {@link #generateForEntity} over the specification's entities, in order. The
+     * orchestrator may then split entities across worker threads instead of calling
+     * {@link #generate}, so {@code generateForEntity} must be thread-safe. Delta generation
+     * also skips entities whose definition did not change, so a file produced for one entity
+     * must depend only on that entity and the context, never on other entities.
+     */
+    default boolean supportsEntityFanOut() {
+        return false;
+    }
+
+    /** Files contributed by a single entity. Only called when {@link #supportsEntityFanOut()} is {@code true}. */
+    default List<GeneratedFile> generateForEntity(EntityDefinition definition, ApiSpecification specification, PluginContext context) {
+        throw new UnsupportedOperationException(getName() + " does not support per-entity generation");
+    }
+
+    /**
+     * Paths of the files {@link #generateForEntity} returns for this entity, in the same order,
+     * without rendering them; delta generation needs them for entities it does not regenerate.
+     * The default renders the files, so plugins that can name their output up front override it.
+     */
+    default List<String> pathsForEntity(EntityDefinition definition, ApiSpecification specification, PluginContext context) {
+        return generateForEntity(definition, specification, context).stream().map(GeneratedFile::path).toList();
+    }
+
+    /** Serial {@link #generate} for per-entity plugins: {@link #generateForEntity} for each entity in order. */
+    default List<GeneratedFile> generateForEachEntity(ApiSpecification specification, PluginContext context) {
+        List<GeneratedFile> out = new ArrayList<>();
+        for (EntityDefinition definition : specification.entities) {
+            out.addAll(generateForEntity(definition, specification, context));
+        }
+        return out;
+    }
 }
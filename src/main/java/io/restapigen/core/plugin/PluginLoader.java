@@ -17,8 +17,18 @@ import java.util.ServiceLoader;
 public final class PluginLoader {
 
     public List<GeneratorPlugin> load(GenerationConfig config) {
+        return loadTracked(config).plugins();
+    }
+
+    /**
+     * Like {@link #load} but also hands back the class loaders opened for
+     * {@code externalDirectories}, so a long-lived owner such as {@link PluginRegistry}
+     * can close them once the plugins are no longer in use.
+     */
+    LoadedPlugins loadTracked(GenerationConfig config) {
         GenerationConfig effective = config == null ? GenerationConfig.defaults() : config;
         Map<String, GeneratorPlugin> byName = new LinkedHashMap<>();
+        List<URLClassLoader> classLoaders = new ArrayList<>();
 
         for (GeneratorPlugin builtIn : BuiltInPlugins.all()) {
             byName.put(builtIn.getName(), builtIn);
@@ -28,7 +38,7 @@ public final class PluginLoader {
         loadFromServiceLoader(ServiceLoader.load(GeneratorPlugin.class), byName);
 
         for (String dir : effective.plugins().externalDirectories()) {
-            loadFromDirectory(dir, byName);
+            loadFromDirectory(dir, byName, classLoaders);
         }
 
         for (String className : effective.plugins().externalClassNames()) {
@@ -36,10 +46,10 @@ public final class PluginLoader {
             byName.put(plugin.getName(), plugin);
         }
 
-        return List.copyOf(byName.values());
+        return new LoadedPlugins(List.copyOf(byName.values()), List.copyOf(classLoaders));
     }
 
-    private void loadFromDirectory(String directory, Map<String, GeneratorPlugin> byName) {
+    private void loadFromDirectory(String directory, Map<String, GeneratorPlugin> byName, List<URLClassLoader> classLoaders) {
         if (directory == null || directory.isBlank()) {
             return;
         }
@@ -66,6 +76,7 @@ public final class PluginLoader {
         }
 
         URLClassLoader classLoader = new URLClassLoader(jarUrls.toArray(URL[]::new), PluginLoader.class.getClassLoader());
+        classLoaders.add(classLoader);
         loadFromServiceLoader(ServiceLoader.load(GeneratorPlugin.class, classLoader), byName);
     }
 
@@ -86,4 +97,7 @@ public final class PluginLoader {
             throw new IllegalArgumentException("Cannot load plugin class: " + className, e);
         }
     }
+
+    record LoadedPlugins(List<GeneratorPlugin> plugins, List<URLClassLoader> classLoaders) {
+    }
 }
@@ -0,0 +1,374 @@
+package io.restapigen.core.plugin;
+
+import io.restapigen.core.config.GenerationConfig;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.net.URLClassLoader;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Long-lived cache in front of {@link PluginLoader}.
+ *
+ * <p>Plugins are loaded once per distinct {@code externalDirectories} / {@code externalClassNames}
+ * combination of the {@code plugins} config section ({@code enabled} and {@code disabled} only
+ * filter the loaded set, so they do not affect caching). Every external directory is watched
+ * with a {@link WatchService}; when a {@code .jar} in it is added, replaced or removed, the
+ * affected entries are dropped and reloaded lazily on next use. A change while an entry is
+ * loading makes it stale at once, and an entry loaded while one of its directories did not
+ * exist is reloaded once the directory appears.
+ *
+ * <p>Callers hold a {@link Lease} for the duration of a generation run. A dropped entry's
+ * class loaders are closed only after its last lease is released, so in-flight runs can keep
+ * reading classes and templates from the old jars.
+ *
+ * <p>What is cached is the discovered plugin classes, not instances: each lease gets its own
+ * instances, so a plugin that keeps the context from {@link GeneratorPlugin#initialize} is
+ * never shared between concurrent runs. Only a plugin class without a public no-arg
+ * constructor is shared, as the instance the loader produced.
+ */
+public final class PluginRegistry implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(PluginRegistry.class.getName());
+
+    private final PluginLoader loader;
+    private final ConcurrentMap<LoadKey, Entry> entries = new ConcurrentHashMap<>();
+    private final Object watchLock = new Object();
+    private final Set<Path> watchedDirectories = new HashSet<>();
+    // Bumped on every jar change in a directory; an entry loaded across a bump is stale.
+    private final ConcurrentMap<Path, AtomicLong> generations = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    private volatile boolean closed;
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder classLoadersClosed = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+    private volatile long lastLoadNanos;
+
+    public PluginRegistry() {
+        this(new PluginLoader());
+    }
+
+    PluginRegistry(PluginLoader loader) {
+        this.loader = loader;
+    }
+
+    /** Returns the plugins for {@code config}, loading them only if no cached set matches. */
+    public Lease acquire(GenerationConfig config) {
+        GenerationConfig effective = config == null ? GenerationConfig.defaults() : config;
+        LoadKey key = LoadKey.of(effective.plugins());
+        while (true) {
+            if (closed) {
+                throw new IllegalStateException("Plugin registry is closed");
+            }
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                cacheHits.increment();
+            } else {
+                entry = entries.computeIfAbsent(key, ignored -> load(key, effective));
+            }
+            if (entry.stale()) {
+                if (entries.remove(key, entry)) {
+                    entry.retire();
+                    invalidations.increment();
+                }
+                continue;
+            }
+            if (entry.retain()) {
+                return new Lease(entry);
+            }
+            // Lost a race with a reload that already closed this entry; look again.
+            entries.remove(key, entry);
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(
+                loads.sum(),
+                cacheHits.sum(),
+                invalidations.sum(),
+                classLoadersClosed.sum(),
+                lastLoadNanos / 1_000_000.0,
+                totalLoadNanos.sum() / 1_000_000.0
+        );
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (watchLock) {
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException e) {
+                    LOG.warning("Failed to close plugin directory watcher: " + e.getMessage());
+                }
+            }
+        }
+        for (Entry entry : entries.values()) {
+            if (entries.remove(entry.key, entry)) {
+                entry.retire();
+            }
+        }
+    }
+
+    private Entry load(LoadKey key, GenerationConfig config) {
+        // Read the generations before watching and loading: a jar change from here on makes
+        // the result stale, whether the watcher sees it before or after the entry is stored.
+        long[] loadedGenerations = new long[key.directories().size()];
+        for (int i = 0; i < loadedGenerations.length; i++) {
+            loadedGenerations[i] = generation(key.directories().get(i)).get();
+        }
+        watch(key.directories());
+        List<Path> missing = key.directories().stream().filter(directory -> !Files.isDirectory(directory)).toList();
+        long started = System.nanoTime();
+        PluginLoader.LoadedPlugins loaded = loader.loadTracked(config);
+        long elapsed = System.nanoTime() - started;
+        loads.increment();
+        totalLoadNanos.add(elapsed);
+        lastLoadNanos = elapsed;
+        LOG.fine(() -> "Loaded " + loaded.plugins().size() + " plugins in " + elapsed / 1_000_000 + " ms");
+        return new Entry(key, loaded, loadedGenerations, missing);
+    }
+
+    private AtomicLong generation(Path directory) {
+        return generations.computeIfAbsent(directory, ignored -> new AtomicLong());
+    }
+
+    private void watch(List<Path> directories) {
+        if (directories.isEmpty()) {
+            return;
+        }
+        synchronized (watchLock) {
+            if (closed) {
+                return;
+            }
+            try {
+                if (watchService == null) {
+                    watchService = FileSystems.getDefault().newWatchService();
+                    WatchService service = watchService;
+                    Thread watcher = new Thread(() -> watchLoop(service), "plugin-registry-watcher");
+                    watcher.setDaemon(true);
+                    watcher.start();
+                }
+                for (Path directory : directories) {
+                    if (Files.isDirectory(directory) && watchedDirectories.add(directory)) {
+                        directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                    }
+                }
+            } catch (IOException e) {
+                LOG.warning("Cannot watch plugin directories " + directories + ": " + e.getMessage()
+                        + " (jar changes will not be picked up until restart)");
+            }
+        }
+    }
+
+    private void watchLoop(WatchService service) {
+        while (true) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = (Path) key.watchable();
+            boolean jarsChanged = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW
+                        || event.context() instanceof Path file && file.toString().endsWith(".jar")) {
+                    jarsChanged = true;
+                }
+            }
+            if (!key.reset()) {
+                // The directory itself is gone; re-register if it comes back on the next load.
+                synchronized (watchLock) {
+                    watchedDirectories.remove(directory);
+                }
+                jarsChanged = true;
+            }
+            if (jarsChanged) {
+                invalidate(directory);
+            }
+        }
+    }
+
+    private void invalidate(Path directory) {
+        generation(directory).incrementAndGet();
+        for (Entry entry : entries.values()) {
+            if (entry.key.directories().contains(directory) && entries.remove(entry.key, entry)) {
+                entry.retire();
+                invalidations.increment();
+                LOG.info("Plugin jars changed in " + directory + "; plugins will be reloaded on next use");
+            }
+        }
+    }
+
+    private void closeClassLoaders(List<URLClassLoader> classLoaders) {
+        for (URLClassLoader classLoader : classLoaders) {
+            try {
+                classLoader.close();
+                classLoadersClosed.increment();
+            } catch (IOException e) {
+                LOG.warning("Failed to close plugin class loader: " + e.getMessage());
+            }
+        }
+    }
+
+    /** New instances of {@code loaded}'s class, or {@code loaded} itself if the class cannot be constructed again. */
+    private static Supplier<GeneratorPlugin> factory(GeneratorPlugin loaded) {
+        Constructor<? extends GeneratorPlugin> constructor;
+        try {
+            constructor = loaded.getClass().getConstructor();
+        } catch (NoSuchMethodException e) {
+            return () -> loaded;
+        }
+        if (!Modifier.isPublic(loaded.getClass().getModifiers())) {
+            return () -> loaded;
+        }
+        return () -> {
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot instantiate plugin " + loaded.getName(), e);
+            }
+        };
+    }
+
+    /** The plugins of one cached entry, pinned until {@link #close()}. */
+    public static final class Lease implements AutoCloseable {
+        private final Entry entry;
+        private boolean released;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        private List<GeneratorPlugin> plugins;
+
+        /** This lease's own plugin instances, created on first call. */
+        public List<GeneratorPlugin> plugins() {
+            if (plugins == null) {
+                plugins = entry.factories.stream().map(Supplier::get).toList();
+            }
+            return plugins;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                entry.release();
+            }
+        }
+    }
+
+    /**
+     * Load counters. Times are in milliseconds; {@code cacheHits} counts acquisitions served
+     * without loading and {@code invalidations} counts entries dropped after a jar change.
+     */
+    public record Stats(
+            long loads,
+            long cacheHits,
+            long invalidations,
+            long classLoadersClosed,
+            double lastLoadMillis,
+            double totalLoadMillis
+    ) {
+    }
+
+    private record LoadKey(List<Path> directories, List<String> classNames) {
+        static LoadKey of(GenerationConfig.PluginsConfig plugins) {
+            List<Path> directories = plugins.externalDirectories().stream()
+                    .filter(directory -> directory != null && !directory.isBlank())
+                    .map(directory -> Path.of(directory).toAbsolutePath().normalize())
+                    .toList();
+            return new LoadKey(directories, List.copyOf(plugins.externalClassNames()));
+        }
+    }
+
+    private final class Entry {
+        private final LoadKey key;
+        private final List<Supplier<GeneratorPlugin>> factories;
+        private final List<URLClassLoader> classLoaders;
+        private final long[] loadedGenerations;
+        private final List<Path> missing;
+        // Active leases, or -1 once the class loaders have been closed.
+        private final AtomicInteger references = new AtomicInteger();
+        private volatile boolean retired;
+
+        private Entry(LoadKey key, PluginLoader.LoadedPlugins loaded, long[] loadedGenerations, List<Path> missing) {
+            this.key = key;
+            this.loadedGenerations = loadedGenerations;
+            this.missing = missing;
+            this.factories = loaded.plugins().stream().map(PluginRegistry::factory).toList();
+            this.classLoaders = loaded.classLoaders();
+        }
+
+        /** Whether jars changed since loading began, or a directory that was missing now exists. */
+        private boolean stale() {
+            for (int i = 0; i < loadedGenerations.length; i++) {
+                if (generation(key.directories().get(i)).get() != loadedGenerations[i]) {
+                    return true;
+                }
+            }
+            for (Path directory : missing) {
+                if (Files.isDirectory(directory)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean retain() {
+            while (true) {
+                int current = references.get();
+                if (current < 0) {
+                    return false;
+                }
+                if (references.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release() {
+            if (references.decrementAndGet() == 0 && retired) {
+                closeIfUnused();
+            }
+        }
+
+        private void retire() {
+            retired = true;
+            closeIfUnused();
+        }
+
+        private void closeIfUnused() {
+            if (references.compareAndSet(0, -1)) {
+                closeClassLoaders(classLoaders);
+            }
+        }
+    }
+}
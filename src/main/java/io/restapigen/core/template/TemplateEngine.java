@@ -3,26 +3,46 @@ package io.restapigen.core.template;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * Renders classpath {@code .tpl} files by substituting {@code ${name}} placeholders.
+ *
+ * <p>Each template is read and split into literal and placeholder segments once, then
+ * cached for the lifetime of the JVM (classpath resources do not change at runtime).
+ * Rendering is a single pass over the segments into an exactly pre-sized buffer.
+ * Values are inserted verbatim: a value that itself contains {@code ${...}} is not
+ * re-scanned.
+ */
 public final class TemplateEngine {
     private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\$\\{([A-Za-z0-9_]+)}");
 
+    private static final ConcurrentMap<String, CompiledTemplate> CACHE = new ConcurrentHashMap<>();
+
     public String render(String templatePath, Map<String, String> values) {
-        String template = readTemplate(templatePath);
-        String rendered = template;
-        for (Map.Entry<String, String> entry : values.entrySet()) {
-            rendered = rendered.replace("${" + entry.getKey() + "}", entry.getValue() == null ? "" : entry.getValue());
-        }
-        Matcher unresolved = PLACEHOLDER_PATTERN.matcher(rendered);
-        if (unresolved.find()) {
-            throw new IllegalStateException(
-                    "Unresolved template placeholder '" + unresolved.group(0) + "' in " + templatePath
-            );
-        }
-        return rendered;
+        return compile(templatePath).render(templatePath, values);
+    }
+
+    /**
+     * Like {@link #render} but returns the rendering buffer itself, skipping the final
+     * {@code String} copy. Suited to content that is only written out, such as a
+     * {@link io.restapigen.core.plugin.GeneratedFile}.
+     */
+    public CharSequence renderChars(String templatePath, Map<String, String> values) {
+        return compile(templatePath).renderChars(templatePath, values);
+    }
+
+    /** Returns the parsed form of {@code templatePath}, reading it from the classpath on first use. */
+    public CompiledTemplate compile(String templatePath) {
+        return CACHE.computeIfAbsent(templatePath, path -> CompiledTemplate.parse(readTemplate(path)));
     }
 
     private String readTemplate(String templatePath) {
@@ -40,4 +60,72 @@ public final class TemplateEngine {
             throw new IllegalStateException("Failed to read template: " + templatePath, e);
         }
     }
+
+    /**
+     * A template split into alternating literal text and placeholder names.
+     * {@code literals} always has exactly one more element than {@code placeholders}.
+     */
+    public static final class CompiledTemplate {
+        private final String[] literals;
+        private final String[] placeholders;
+        private final Set<String> placeholderNames;
+        private final int literalLength;
+
+        private CompiledTemplate(String[] literals, String[] placeholders) {
+            this.literals = literals;
+            this.placeholders = placeholders;
+            this.placeholderNames = Set.copyOf(new LinkedHashSet<>(List.of(placeholders)));
+            int length = 0;
+            for (String literal : literals) {
+                length += literal.length();
+            }
+            this.literalLength = length;
+        }
+
+        static CompiledTemplate parse(String template) {
+            List<String> literals = new ArrayList<>();
+            List<String> placeholders = new ArrayList<>();
+            Matcher matcher = PLACEHOLDER_PATTERN.matcher(template);
+            int cursor = 0;
+            while (matcher.find()) {
+                literals.add(template.substring(cursor, matcher.start()));
+                placeholders.add(matcher.group(1));
+                cursor = matcher.end();
+            }
+            literals.add(template.substring(cursor));
+            return new CompiledTemplate(literals.toArray(String[]::new), placeholders.toArray(String[]::new));
+        }
+
+        /** Names of every placeholder referenced by this template. */
+        public Set<String> placeholderNames() {
+            return placeholderNames;
+        }
+
+        String render(String templatePath, Map<String, String> values) {
+            return renderChars(templatePath, values).toString();
+        }
+
+        CharSequence renderChars(String templatePath, Map<String, String> values) {
+            int length = literalLength;
+            for (String name : placeholders) {
+                if (!values.containsKey(name)) {
+                    throw new IllegalStateException(
+                            "Unresolved template placeholder '${" + name + "}' in " + templatePath
+                    );
+                }
+                String value = values.get(name);
+                length += value == null ? 0 : value.length();
+            }
+            StringBuilder out = new StringBuilder(length);
+            for (int i = 0; i < placeholders.length; i++) {
+                out.append(literals[i]);
+                String value = values.get(placeholders[i]);
+                if (value != null) {
+                    out.append(value);
+                }
+            }
+            out.append(literals[literals.length - 1]);
+            return out;
+        }
+    }
 }
@@ -14,12 +14,18 @@ import java.util.stream.Collectors;
 public final class ControllerGeneratorPlugin implements GeneratorPlugin {
     @Override public String getName()    { return "controller-generator"; }
     @Override public String getVersion() { return "1.0.0"; }
+    @Override public boolean supportsEntityFanOut() { return true; }
     @Override public List<String> getDependencies() {
         return List.of("service-generator", "repository-generator");
     }
 
     @Override
     public List<GeneratedFile> generate(ApiSpecification specification, PluginContext context) {
+        return generateForEachEntity(specification, context);
+    }
+
+    @Override
+    public List<GeneratedFile> generateForEntity(EntityDefinition definition, ApiSpecification specification, PluginContext context) {
         List<GeneratedFile> out = new ArrayList<>();
         String basePackage       = context.config().project().basePackage();
         String javaBase          = "src/main/java/" + context.basePackagePath();
@@ -29,49 +35,53 @@ public final class ControllerGeneratorPlugin implements GeneratorPlugin {
         String dtoSuffix         = context.config().standards().naming().dtoSuffix();
         boolean useServiceLayer  = context.config().standards().layering().includeServiceLayer();
 
-        for (EntityDefinition definition : specification.entities) {
-            String entityName          = definition.entity.name;
-            String collaboratorClass   = entityName + (useServiceLayer ? serviceSuffix : repositorySuffix);
-            String collaboratorPackage = basePackage + (useServiceLayer ? ".service." : ".repository.") + collaboratorClass;
-            String className           = entityName + controllerSuffix;
-            String dtoClass            = entityName + dtoSuffix;
-
-            String createCall    = useServiceLayer ? "collaborator.create(dto)"         : "throw new UnsupportedOperationException(\"Service layer required\")";
-            String findByIdCall  = useServiceLayer ? "collaborator.findById(id)"        : "throw new UnsupportedOperationException(\"Service layer required\")";
-            String updateCall    = useServiceLayer ? "collaborator.update(id, dto)"     : "throw new UnsupportedOperationException(\"Service layer required\")";
-            String deleteCall    = useServiceLayer ? "collaborator.delete(id);"         : "throw new UnsupportedOperationException(\"Service layer required\");";
-
-            // Relationship-query endpoints  e.g. GET /api/orders/by-user/{userId}
-            String relationEndpoints = useServiceLayer
-                    ? buildRelationEndpoints(dtoClass, definition.relationships)
-                    : "";
-
-            // Custom endpoint stubs from "include login, logout, register" DSL
-            String customEndpointsBlock = buildCustomEndpoints(definition.api.customEndpoints);
-
-            String content = context.templates().render(
-                    context.templatePack().templatePath("controller.java.tpl"),
-                    Map.ofEntries(
-                            Map.entry("basePackage",           basePackage),
-                            Map.entry("entityName",            entityName),
-                            Map.entry("dtoClass",              dtoClass),
-                            Map.entry("className",             className),
-                            Map.entry("resourcePath",          definition.api.resourcePath),
-                            Map.entry("collaboratorImport",    collaboratorPackage),
-                            Map.entry("collaboratorClass",     collaboratorClass),
-                            Map.entry("createCall",            createCall),
-                            Map.entry("findByIdCall",          findByIdCall),
-                            Map.entry("updateCall",            updateCall),
-                            Map.entry("deleteCall",            deleteCall),
-                            Map.entry("relationEndpoints",     relationEndpoints),
-                            Map.entry("customEndpointsBlock",  customEndpointsBlock)
-                    )
-            );
-            out.add(new GeneratedFile(javaBase + "/controller/" + className + ".java", content));
-        }
+        String entityName          = definition.entity.name;
+        String collaboratorClass   = entityName + (useServiceLayer ? serviceSuffix : repositorySuffix);
+        String collaboratorPackage = basePackage + (useServiceLayer ? ".service." : ".repository.") + collaboratorClass;
+        String className           = entityName + controllerSuffix;
+        String dtoClass            = entityName + dtoSuffix;
+
+        String createCall    = useServiceLayer ? "collaborator.create(dto)"         : "throw new UnsupportedOperationException(\"Service layer required\")";
+        String findByIdCall  = useServiceLayer ? "collaborator.findById(id)"        : "throw new UnsupportedOperationException(\"Service layer required\")";
+        String updateCall    = useServiceLayer ? "collaborator.update(id, dto)"     : "throw new UnsupportedOperationException(\"Service layer required\")";
+        String deleteCall    = useServiceLayer ? "collaborator.delete(id);"         : "throw new UnsupportedOperationException(\"Service layer required\");";
+
+        // Relationship-query endpoints  e.g. GET /api/orders/by-user/{userId}
+        String relationEndpoints = useServiceLayer
+                ? buildRelationEndpoints(dtoClass, definition.relationships)
+                : "";
+
+        // Custom endpoint stubs from "include login, logout, register" DSL
+        String customEndpointsBlock = buildCustomEndpoints(definition.api.customEndpoints);
+
+        CharSequence content = context.templates().renderChars(
+                context.templatePack().templatePath("controller.java.tpl"),
+                Map.ofEntries(
+                        Map.entry("basePackage",           basePackage),
+                        Map.entry("entityName",            entityName),
+                        Map.entry("dtoClass",              dtoClass),
+                        Map.entry("className",             className),
+                        Map.entry("resourcePath",          definition.api.resourcePath),
+                        Map.entry("collaboratorImport",    collaboratorPackage),
+                        Map.entry("collaboratorClass",     collaboratorClass),
+                        Map.entry("createCall",            createCall),
+                        Map.entry("findByIdCall",          findByIdCall),
+                        Map.entry("updateCall",            updateCall),
+                        Map.entry("deleteCall",            deleteCall),
+                        Map.entry("relationEndpoints",     relationEndpoints),
+                        Map.entry("customEndpointsBlock",  customEndpointsBlock)
+                )
+        );
+        out.add(new GeneratedFile(javaBase + "/controller/" + className + ".java", content));
         return out;
     }
 
+    @Override
+    public List<String> pathsForEntity(EntityDefinition definition, ApiSpecification specification, PluginContext context) {
+        return List.of("src/main/java/" + context.basePackagePath() + "/controller/"
+                + definition.entity.name + context.config().standards().naming().controllerSuffix() + ".java");
+    }
+
     /**
      * Generates a GET endpoint per ManyToOne/OneToOne relationship, e.g.:
      *   GET /api/orders/by-user/{userId}     → List<OrderDTO>
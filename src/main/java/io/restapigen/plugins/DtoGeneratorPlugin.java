@@ -24,52 +24,66 @@ public final class DtoGeneratorPlugin implements GeneratorPlugin {
         return "1.0.0";
     }
 
+    @Override
+    public boolean supportsEntityFanOut() {
+        return true;
+    }
+
     @Override
     public List<GeneratedFile> generate(ApiSpecification specification, PluginContext context) {
+        return generateForEachEntity(specification, context);
+    }
+
+    @Override
+    public List<GeneratedFile> generateForEntity(EntityDefinition definition, ApiSpecification specification, PluginContext context) {
         List<GeneratedFile> out = new ArrayList<>();
         String basePackage = context.config().project().basePackage();
         String javaBase = "src/main/java/" + context.basePackagePath();
         String dtoSuffix = context.config().standards().naming().dtoSuffix();
         boolean lombokModels = context.config().features().lombokModels();
-        for (EntityDefinition definition : specification.entities) {
-            String className = definition.entity.name + dtoSuffix;
-            StringBuilder body = new StringBuilder();
-            Set<String> imports = TemplateSupport.collectImports(definition.entity.fields);
-            if (lombokModels) {
-                imports.add("lombok.AllArgsConstructor");
-                imports.add("lombok.Getter");
-                imports.add("lombok.NoArgsConstructor");
-                imports.add("lombok.Setter");
-            }
-            for (FieldSpec field : definition.entity.fields) {
-                for (String validation : field.validation) {
-                    body.append("    @").append(validationToAnnotation(validation)).append("\n");
-                }
-                body.append("    private ").append(field.type).append(" ").append(field.name).append(";\n\n");
-            }
-            if (!lombokModels) {
-                body.append(TemplateSupport.noArgConstructorBlock(className));
-                body.append(TemplateSupport.constructorBlock(className, definition.entity.fields));
-                body.append(TemplateSupport.gettersBlock(definition.entity.fields));
-                body.append(TemplateSupport.settersBlock(definition.entity.fields));
+        String className = definition.entity.name + dtoSuffix;
+        StringBuilder body = new StringBuilder();
+        Set<String> imports = TemplateSupport.collectImports(definition.entity.fields);
+        if (lombokModels) {
+            imports.add("lombok.AllArgsConstructor");
+            imports.add("lombok.Getter");
+            imports.add("lombok.NoArgsConstructor");
+            imports.add("lombok.Setter");
+        }
+        for (FieldSpec field : definition.entity.fields) {
+            for (String validation : field.validation) {
+                body.append("    @").append(validationToAnnotation(validation)).append("\n");
             }
-            String content = context.templates().render(
-                    context.templatePack().templatePath("dto.java.tpl"),
-                    Map.ofEntries(
-                            Map.entry("basePackage", basePackage),
-                            Map.entry("className", className),
-                            Map.entry("classAnnotations", lombokModels ? "@Getter\n@Setter\n@NoArgsConstructor\n@AllArgsConstructor\n" : ""),
-                            Map.entry("imports", imports.stream().map(it -> "import " + it + ";").collect(Collectors.joining("\n"))),
-                            Map.entry("fieldsBlock", body.toString()),
-                            Map.entry("constructorBlock", ""),
-                            Map.entry("gettersBlock", "")
-                    )
-            );
-            out.add(new GeneratedFile(javaBase + "/dto/" + className + ".java", content));
+            body.append("    private ").append(field.type).append(" ").append(field.name).append(";\n\n");
+        }
+        if (!lombokModels) {
+            body.append(TemplateSupport.noArgConstructorBlock(className));
+            body.append(TemplateSupport.constructorBlock(className, definition.entity.fields));
+            body.append(TemplateSupport.gettersBlock(definition.entity.fields));
+            body.append(TemplateSupport.settersBlock(definition.entity.fields));
         }
+        CharSequence content = context.templates().renderChars(
+                context.templatePack().templatePath("dto.java.tpl"),
+                Map.ofEntries(
+                        Map.entry("basePackage", basePackage),
+                        Map.entry("className", className),
+                        Map.entry("classAnnotations", lombokModels ? "@Getter\n@Setter\n@NoArgsConstructor\n@AllArgsConstructor\n" : ""),
+                        Map.entry("imports", imports.stream().map(it -> "import " + it + ";").collect(Collectors.joining("\n"))),
+                        Map.entry("fieldsBlock", body.toString()),
+                        Map.entry("constructorBlock", ""),
+                        Map.entry("gettersBlock", "")
+                )
+        );
+        out.add(new GeneratedFile(javaBase + "/dto/" + className + ".java", content));
         return out;
     }
 
+    @Override
+    public List<String> pathsForEntity(EntityDefinition definition, ApiSpecification specification, PluginContext context) {
+        return List.of("src/main/java/" + context.basePackagePath() + "/dto/"
+                + definition.entity.name + context.config().standards().naming().dtoSuffix() + ".java");
+    }
+
     private String validationToAnnotation(String token) {
         if (token.startsWith("Size:")) {
             String[] parts = token.split(":");
@@ -26,8 +26,18 @@ public final class MapperGeneratorPlugin implements GeneratorPlugin {
         return List.of("entity-generator", "dto-generator");
     }
 
+    @Override
+    public boolean supportsEntityFanOut() {
+        return true;
+    }
+
     @Override
     public List<GeneratedFile> generate(ApiSpecification specification, PluginContext context) {
+        return generateForEachEntity(specification, context);
+    }
+
+    @Override
+    public List<GeneratedFile> generateForEntity(EntityDefinition definition, ApiSpecification specification, PluginContext context) {
         if (!context.config().standards().layering().includeDtoMapper()) {
             return List.of();
         }
@@ -37,22 +47,28 @@ public final class MapperGeneratorPlugin implements GeneratorPlugin {
         String dtoSuffix = context.config().standards().naming().dtoSuffix();
         String entitySuffix = context.config().standards().naming().entitySuffix();
 
-        for (EntityDefinition definition : specification.entities) {
-            String entityName = definition.entity.name;
-            String entityClass = entityName + entitySuffix;
-            String className = entityName + "Mapper";
-            String dtoClass = entityName + dtoSuffix;
-            String content = context.templates().render(
-                    context.templatePack().templatePath("mapper.java.tpl"),
-                    Map.ofEntries(
-                            Map.entry("basePackage", basePackage),
-                            Map.entry("entityName", entityClass),
-                            Map.entry("className", className),
-                            Map.entry("dtoClass", dtoClass)
-                    )
-            );
-            out.add(new GeneratedFile(javaBase + "/mapper/" + className + ".java", content));
-        }
+        String entityName = definition.entity.name;
+        String entityClass = entityName + entitySuffix;
+        String className = entityName + "Mapper";
+        String dtoClass = entityName + dtoSuffix;
+        CharSequence content = context.templates().renderChars(
+                context.templatePack().templatePath("mapper.java.tpl"),
+                Map.ofEntries(
+                        Map.entry("basePackage", basePackage),
+                        Map.entry("entityName", entityClass),
+                        Map.entry("className", className),
+                        Map.entry("dtoClass", dtoClass)
+                )
+        );
+        out.add(new GeneratedFile(javaBase + "/mapper/" + className + ".java", content));
         return out;
     }
+
+    @Override
+    public List<String> pathsForEntity(EntityDefinition definition, ApiSpecification specification, PluginContext context) {
+        if (!context.config().standards().layering().includeDtoMapper()) {
+            return List.of();
+        }
+        return List.of("src/main/java/" + context.basePackagePath() + "/mapper/" + definition.entity.name + "Mapper.java");
+    }
 }
@@ -41,6 +41,6 @@ public final class ProjectReadmeGeneratorPlugin implements GeneratorPlugin {
             out.append("## Suggestions\n");
             specification.suggestions.forEach(s -> out.append("- ").append(s).append("\n"));
         }
-        return List.of(new GeneratedFile("README.md", out.toString()));
+        return List.of(new GeneratedFile("README.md", out));
     }
 }
@@ -15,39 +15,49 @@ import java.util.stream.Collectors;
 public final class RepositoryGeneratorPlugin implements GeneratorPlugin {
     @Override public String getName()    { return "repository-generator"; }
     @Override public String getVersion() { return "1.0.0"; }
+    @Override public boolean supportsEntityFanOut() { return true; }
 
     @Override
     public List<GeneratedFile> generate(ApiSpecification specification, PluginContext context) {
+        return generateForEachEntity(specification, context);
+    }
+
+    @Override
+    public List<GeneratedFile> generateForEntity(EntityDefinition definition, ApiSpecification specification, PluginContext context) {
         List<GeneratedFile> out = new ArrayList<>();
         String basePackage  = context.config().project().basePackage();
         String javaBase     = "src/main/java/" + context.basePackagePath();
         String suffix       = context.config().standards().naming().repositorySuffix();
         String entitySuffix = context.config().standards().naming().entitySuffix();
 
-        for (EntityDefinition definition : specification.entities) {
-            String entityName  = definition.entity.name;
-            String entityClass = entityName + entitySuffix;
-            String className   = entityName + suffix;
+        String entityName  = definition.entity.name;
+        String entityClass = entityName + entitySuffix;
+        String className   = entityName + suffix;
 
-            // Build extra imports and query methods for relationships
-            String relationImports  = buildRelationImports(basePackage, entitySuffix, definition.relationships);
-            String relationMethods  = buildRelationMethods(entityClass, entitySuffix, definition.relationships);
+        // Build extra imports and query methods for relationships
+        String relationImports  = buildRelationImports(basePackage, entitySuffix, definition.relationships);
+        String relationMethods  = buildRelationMethods(entityClass, entitySuffix, definition.relationships);
 
-            String content = context.templates().render(
-                    context.templatePack().templatePath("repository.java.tpl"),
-                    Map.ofEntries(
-                            Map.entry("basePackage",      basePackage),
-                            Map.entry("entityName",       entityClass),
-                            Map.entry("className",        className),
-                            Map.entry("relationImports",  relationImports),
-                            Map.entry("relationMethods",  relationMethods)
-                    )
-            );
-            out.add(new GeneratedFile(javaBase + "/repository/" + className + ".java", content));
-        }
+        CharSequence content = context.templates().renderChars(
+                context.templatePack().templatePath("repository.java.tpl"),
+                Map.ofEntries(
+                        Map.entry("basePackage",      basePackage),
+                        Map.entry("entityName",       entityClass),
+                        Map.entry("className",        className),
+                        Map.entry("relationImports",  relationImports),
+                        Map.entry("relationMethods",  relationMethods)
+                )
+        );
+        out.add(new GeneratedFile(javaBase + "/repository/" + className + ".java", content));
         return out;
     }
 
+    @Override
+    public List<String> pathsForEntity(EntityDefinition definition, ApiSpecification specification, PluginContext context) {
+        return List.of("src/main/java/" + context.basePackagePath() + "/repository/"
+                + definition.entity.name + context.config().standards().naming().repositorySuffix() + ".java");
+    }
+
     /**
      * Extra import lines for the related entity types used in query methods.
      * ManyToMany is excluded — those are navigated via the owning entity, not queried by FK.
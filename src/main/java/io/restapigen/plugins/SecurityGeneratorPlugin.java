@@ -26,7 +26,7 @@ public final class SecurityGeneratorPlugin implements GeneratorPlugin {
         }
         String basePackage = context.config().project().basePackage();
         String javaBase = "src/main/java/" + context.basePackagePath();
-        String content = context.templates().render(
+        CharSequence content = context.templates().renderChars(
                 context.templatePack().templatePath("security.java.tpl"),
                 Map.ofEntries(
                         Map.entry("basePackage", basePackage),
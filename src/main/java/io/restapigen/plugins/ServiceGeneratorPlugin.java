@@ -16,12 +16,18 @@ import java.util.stream.Collectors;
 public final class ServiceGeneratorPlugin implements GeneratorPlugin {
     @Override public String getName()    { return "service-generator"; }
     @Override public String getVersion() { return "1.0.0"; }
+    @Override public boolean supportsEntityFanOut() { return true; }
     @Override public List<String> getDependencies() {
         return List.of("repository-generator", "mapper-generator");
     }
 
     @Override
     public List<GeneratedFile> generate(ApiSpecification specification, PluginContext context) {
+        return generateForEachEntity(specification, context);
+    }
+
+    @Override
+    public List<GeneratedFile> generateForEntity(EntityDefinition definition, ApiSpecification specification, PluginContext context) {
         if (!context.config().standards().layering().includeServiceLayer()) {
             return List.of();
         }
@@ -33,38 +39,45 @@ public final class ServiceGeneratorPlugin implements GeneratorPlugin {
         String dtoSuffix        = context.config().standards().naming().dtoSuffix();
         String entitySuffix     = context.config().standards().naming().entitySuffix();
 
-        for (EntityDefinition definition : specification.entities) {
-            String entityName       = definition.entity.name;
-            String entityClass      = entityName + entitySuffix;
-            String className        = entityName + suffix;
-            String repositoryClass  = entityName + repositorySuffix;
-            String mapperClass      = entityName + "Mapper";
-            String dtoClass         = entityName + dtoSuffix;
+        String entityName       = definition.entity.name;
+        String entityClass      = entityName + entitySuffix;
+        String className        = entityName + suffix;
+        String repositoryClass  = entityName + repositorySuffix;
+        String mapperClass      = entityName + "Mapper";
+        String dtoClass         = entityName + dtoSuffix;
 
-            String filterPredicates       = buildFilterPredicates(definition.entity.fields);
-            String relationServiceImports = buildRelationServiceImports(basePackage, entitySuffix, definition.relationships);
-            String relationServiceMethods = buildRelationServiceMethods(entityClass, dtoClass, entitySuffix, definition.relationships);
+        String filterPredicates       = buildFilterPredicates(definition.entity.fields);
+        String relationServiceImports = buildRelationServiceImports(basePackage, entitySuffix, definition.relationships);
+        String relationServiceMethods = buildRelationServiceMethods(entityClass, dtoClass, entitySuffix, definition.relationships);
 
-            String content = context.templates().render(
-                    context.templatePack().templatePath("service.java.tpl"),
-                    Map.ofEntries(
-                            Map.entry("basePackage",             basePackage),
-                            Map.entry("entityName",              entityName),
-                            Map.entry("entityClass",             entityClass),
-                            Map.entry("className",               className),
-                            Map.entry("repositoryClass",         repositoryClass),
-                            Map.entry("mapperClass",             mapperClass),
-                            Map.entry("dtoClass",                dtoClass),
-                            Map.entry("filterPredicates",        filterPredicates),
-                            Map.entry("relationServiceImports",  relationServiceImports),
-                            Map.entry("relationServiceMethods",  relationServiceMethods)
-                    )
-            );
-            out.add(new GeneratedFile(javaBase + "/service/" + className + ".java", content));
-        }
+        CharSequence content = context.templates().renderChars(
+                context.templatePack().templatePath("service.java.tpl"),
+                Map.ofEntries(
+                        Map.entry("basePackage",             basePackage),
+                        Map.entry("entityName",              entityName),
+                        Map.entry("entityClass",             entityClass),
+                        Map.entry("className",               className),
+                        Map.entry("repositoryClass",         repositoryClass),
+                        Map.entry("mapperClass",             mapperClass),
+                        Map.entry("dtoClass",                dtoClass),
+                        Map.entry("filterPredicates",        filterPredicates),
+                        Map.entry("relationServiceImports",  relationServiceImports),
+                        Map.entry("relationServiceMethods",  relationServiceMethods)
+                )
+        );
+        out.add(new GeneratedFile(javaBase + "/service/" + className + ".java", content));
         return out;
     }
 
+    @Override
+    public List<String> pathsForEntity(EntityDefinition definition, ApiSpecification specification, PluginContext context) {
+        if (!context.config().standards().layering().includeServiceLayer()) {
+            return List.of();
+        }
+        return List.of("src/main/java/" + context.basePackagePath() + "/service/"
+                + definition.entity.name + context.config().standards().naming().serviceSuffix() + ".java");
+    }
+
     private static final java.util.Set<String> SENSITIVE_FIELDS = java.util.Set.of(
             "password", "secret", "token", "apiKey", "privateKey", "accessToken", "refreshToken"
     );
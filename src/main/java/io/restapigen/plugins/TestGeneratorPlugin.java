@@ -13,9 +13,15 @@ import java.util.Map;
 public final class TestGeneratorPlugin implements GeneratorPlugin {
     @Override public String getName()    { return "test-generator"; }
     @Override public String getVersion() { return "1.0.0"; }
+    @Override public boolean supportsEntityFanOut() { return true; }
 
     @Override
     public List<GeneratedFile> generate(ApiSpecification specification, PluginContext context) {
+        return generateForEachEntity(specification, context);
+    }
+
+    @Override
+    public List<GeneratedFile> generateForEntity(EntityDefinition definition, ApiSpecification specification, PluginContext context) {
         if (!context.config().standards().testing().includeUnitTests()) {
             return List.of();
         }
@@ -27,47 +33,57 @@ public final class TestGeneratorPlugin implements GeneratorPlugin {
         String dtoSuffix             = context.config().standards().naming().dtoSuffix();
         String entitySuffix          = context.config().standards().naming().entitySuffix();
 
-        for (EntityDefinition definition : specification.entities) {
-            String entityName      = definition.entity.name;
-            String entityClass     = entityName + entitySuffix;
-            String serviceClass    = entityName + serviceSuffix;
-            String repositoryClass = entityName + repositorySuffix;
-            String mapperClass     = entityName + "Mapper";
-            String dtoClass        = entityName + dtoSuffix;
-            String testClass       = serviceClass + "Test";
+        String entityName      = definition.entity.name;
+        String entityClass     = entityName + entitySuffix;
+        String serviceClass    = entityName + serviceSuffix;
+        String repositoryClass = entityName + repositorySuffix;
+        String mapperClass     = entityName + "Mapper";
+        String dtoClass        = entityName + dtoSuffix;
+        String testClass       = serviceClass + "Test";
 
-            // Unit test
-            String unitContent = context.templates().render(
-                    context.templatePack().templatePath("test.java.tpl"),
+        // Unit test
+        CharSequence unitContent = context.templates().renderChars(
+                context.templatePack().templatePath("test.java.tpl"),
+                Map.ofEntries(
+                        Map.entry("basePackage",     basePackage),
+                        Map.entry("className",       testClass),
+                        Map.entry("entityName",      entityName),
+                        Map.entry("entityClass",     entityClass),
+                        Map.entry("serviceClass",    serviceClass),
+                        Map.entry("repositoryClass", repositoryClass),
+                        Map.entry("mapperClass",     mapperClass),
+                        Map.entry("dtoClass",        dtoClass)
+                )
+        );
+        out.add(new GeneratedFile(testBase + "/service/" + testClass + ".java", unitContent));
+
+        // Integration test
+        if (context.config().standards().testing().includeIntegrationTests()) {
+            String integrationClass = entityName + "IntegrationTest";
+            CharSequence integrationContent = context.templates().renderChars(
+                    context.templatePack().templatePath("integration-test.java.tpl"),
                     Map.ofEntries(
-                            Map.entry("basePackage",     basePackage),
-                            Map.entry("className",       testClass),
-                            Map.entry("entityName",      entityName),
-                            Map.entry("entityClass",     entityClass),
-                            Map.entry("serviceClass",    serviceClass),
-                            Map.entry("repositoryClass", repositoryClass),
-                            Map.entry("mapperClass",     mapperClass),
-                            Map.entry("dtoClass",        dtoClass)
+                            Map.entry("basePackage",  basePackage),
+                            Map.entry("className",    integrationClass),
+                            Map.entry("entityName",   entityName),
+                            Map.entry("dtoClass",     dtoClass),
+                            Map.entry("resourcePath", definition.api.resourcePath)
                     )
             );
-            out.add(new GeneratedFile(testBase + "/service/" + testClass + ".java", unitContent));
-
-            // Integration test
-            if (context.config().standards().testing().includeIntegrationTests()) {
-                String integrationClass = entityName + "IntegrationTest";
-                String integrationContent = context.templates().render(
-                        context.templatePack().templatePath("integration-test.java.tpl"),
-                        Map.ofEntries(
-                                Map.entry("basePackage",  basePackage),
-                                Map.entry("className",    integrationClass),
-                                Map.entry("entityName",   entityName),
-                                Map.entry("dtoClass",     dtoClass),
-                                Map.entry("resourcePath", definition.api.resourcePath)
-                        )
-                );
-                out.add(new GeneratedFile(testBase + "/integration/" + integrationClass + ".java", integrationContent));
-            }
+            out.add(new GeneratedFile(testBase + "/integration/" + integrationClass + ".java", integrationContent));
         }
         return out;
     }
+
+    @Override
+    public List<String> pathsForEntity(EntityDefinition definition, ApiSpecification specification, PluginContext context) {
+        if (!context.config().standards().testing().includeUnitTests()) {
+            return List.of();
+        }
+        String testBase = "src/test/java/" + context.basePackagePath();
+        String unitTest = testBase + "/service/" + definition.entity.name + context.config().standards().naming().serviceSuffix() + "Test.java";
+        return context.config().standards().testing().includeIntegrationTests()
+                ? List.of(unitTest, testBase + "/integration/" + definition.entity.name + "IntegrationTest.java")
+                : List.of(unitTest);
+    }
 }
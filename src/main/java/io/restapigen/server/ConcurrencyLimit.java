@@ -0,0 +1,50 @@
+package io.restapigen.server;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps how many requests run one kind of work at the same time. Requests over the limit wait
+ * for a permit; on virtual threads waiting costs no platform thread, so a burst of slow LLM
+ * calls queues here instead of starving unrelated endpoints such as {@code /health}.
+ */
+final class ConcurrencyLimit {
+    private final int limit;
+    private final Semaphore permits;
+    private final LongAdder completed = new LongAdder();
+
+    ConcurrencyLimit(int limit) {
+        this.limit = Math.max(1, limit);
+        this.permits = new Semaphore(this.limit, true);
+    }
+
+    /** Blocks until a permit is free; close the returned permit to give it back. */
+    Permit acquire() {
+        permits.acquireUninterruptibly();
+        return new Permit();
+    }
+
+    Stats stats() {
+        return new Stats(limit, limit - permits.availablePermits(), permits.getQueueLength(), completed.sum());
+    }
+
+    /** {@code waiting} is an estimate, as reported by {@link Semaphore#getQueueLength()}. */
+    record Stats(int limit, int active, int waiting, long completed) {
+    }
+
+    final class Permit implements AutoCloseable {
+        private boolean released;
+
+        private Permit() {
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                completed.increment();
+                permits.release();
+            }
+        }
+    }
+}
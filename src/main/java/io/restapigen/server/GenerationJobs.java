@@ -0,0 +1,386 @@
+package io.restapigen.server;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.restapigen.core.orchestrator.GenerationListener;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Generation jobs that run off the request path. A job is queued on a fixed set of workers
+ * behind a bounded queue; a full queue rejects new jobs instead of letting them pile up. The
+ * archive is written to {@code <id>.part} in the spool directory and renamed to
+ * {@code <id>.zip} when complete, so a reader never sees a partial archive.
+ *
+ * <p>Finished jobs and their archives are kept for the TTL after they finish, then swept.
+ * The sweep also deletes spool files older than the TTL that no job of this instance owns,
+ * which are leftovers of an earlier run. Only files named like a job's archive are touched,
+ * so the spool directory may be shared with anything else.
+ */
+final class GenerationJobs implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(GenerationJobs.class.getName());
+    private static final String SUFFIX = ".zip";
+    private static final String PARTIAL_SUFFIX = ".part";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /** {@code <uuid>.zip} or {@code <uuid>.part}: the only names a job ever writes. */
+    private static final Pattern SPOOL_FILE = Pattern.compile(
+            "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}(\\.zip|\\.part)");
+
+    enum State {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    /** Writes one job's archive to {@code out}, reporting plugin progress to {@code progress}. */
+    @FunctionalInterface
+    interface Work {
+        Result run(GenerationListener progress, OutputStream out) throws Exception;
+    }
+
+    record Result(String projectName, String fingerprint) {
+    }
+
+    /** A failure reported to the client with its own code; anything else is a {@code GENERATION_ERROR}. */
+    static final class JobFailedException extends Exception {
+        private final String code;
+
+        JobFailedException(String code, String message) {
+            super(message);
+            this.code = code;
+        }
+
+        String code() {
+            return code;
+        }
+    }
+
+    private final Path spool;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService sweeper;
+    private final ConcurrentMap<String, Job> jobs = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    GenerationJobs(Path spool, int workers, int queueCapacity, long ttlSeconds) throws IOException {
+        this(spool, workers, queueCapacity, ttlSeconds, System::currentTimeMillis);
+    }
+
+    GenerationJobs(Path spool, int workers, int queueCapacity, long ttlSeconds, LongSupplier clock) throws IOException {
+        this.spool = Files.createDirectories(spool);
+        this.ttlMillis = Math.max(1, ttlSeconds) * 1000;
+        this.clock = clock;
+        int threads = Math.max(1, workers);
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), task -> {
+                    Thread thread = new Thread(task, "generation-job-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "generation-job-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.min(60_000, Math.max(1_000, ttlMillis / 4));
+        sweeper.scheduleWithFixedDelay(this::sweep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues {@code work} and returns its job at once.
+     *
+     * @throws RejectedExecutionException when the queue is full
+     */
+    Job submit(Work work) {
+        Job job = new Job(UUID.randomUUID().toString(), clock.getAsLong());
+        jobs.put(job.id(), job);
+        try {
+            workers.execute(() -> run(job, work));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id());
+            rejected.increment();
+            throw e;
+        }
+        return job;
+    }
+
+    /** The job with this id, or {@code null} when it is unknown or has expired. */
+    Job get(String id) {
+        return jobs.get(id);
+    }
+
+    /** The finished archive of {@code job}; it may be swept at any time after the job expires. */
+    Path archive(Job job) {
+        return spool.resolve(job.id() + SUFFIX);
+    }
+
+    Status status(Job job) {
+        return job.status(ttlMillis);
+    }
+
+    /** Forgets finished jobs older than the TTL and deletes their archives and stale leftovers. */
+    void sweep() {
+        long now = clock.getAsLong();
+        jobs.values().removeIf(job -> {
+            if (!job.expiredAt(now, ttlMillis)) {
+                return false;
+            }
+            deleteQuietly(archive(job));
+            expired.increment();
+            return true;
+        });
+        try (Stream<Path> listing = Files.list(spool)) {
+            listing.filter(file -> SPOOL_FILE.matcher(file.getFileName().toString()).matches())
+                    .filter(Files::isRegularFile)
+                    .filter(file -> !jobs.containsKey(jobId(file.getFileName().toString())))
+                    .filter(file -> lastModified(file) + ttlMillis <= now)
+                    .forEach(GenerationJobs::deleteQuietly);
+        } catch (IOException e) {
+            LOG.warning("Cannot sweep job spool directory " + spool + ": " + e.getMessage());
+        }
+    }
+
+    Stats stats() {
+        int queued = 0;
+        int running = 0;
+        int succeeded = 0;
+        int failed = 0;
+        long spoolBytes = 0;
+        for (Job job : jobs.values()) {
+            switch (job.state()) {
+                case QUEUED -> queued++;
+                case RUNNING -> running++;
+                case SUCCEEDED -> {
+                    succeeded++;
+                    spoolBytes += job.archiveBytes;
+                }
+                case FAILED -> failed++;
+            }
+        }
+        return new Stats(workers.getMaximumPoolSize(), workers.getQueue().remainingCapacity() + workers.getQueue().size(),
+                queued, running, succeeded, failed, rejected.sum(), expired.sum(), spoolBytes);
+    }
+
+    /** Stops the workers and deletes the archives of this instance's jobs; nobody can ask for them any more. */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+        sweeper.shutdownNow();
+        for (Job job : jobs.values()) {
+            deleteQuietly(archive(job));
+            deleteQuietly(spool.resolve(job.id() + PARTIAL_SUFFIX));
+        }
+        jobs.clear();
+    }
+
+    private void run(Job job, Work work) {
+        job.started(clock.getAsLong());
+        Path partial = spool.resolve(job.id() + PARTIAL_SUFFIX);
+        try {
+            Result result;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial), BUFFER_SIZE)) {
+                result = work.run(job, out);
+            }
+            Path target = archive(job);
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.succeeded(result, Files.size(target), clock.getAsLong());
+        } catch (JobFailedException e) {
+            job.failed(e.code(), e.getMessage(), clock.getAsLong());
+        } catch (Exception e) {
+            LOG.warning("Generation job " + job.id() + " failed: " + e);
+            job.failed("GENERATION_ERROR", "Code generation failed", clock.getAsLong());
+        } finally {
+            deleteQuietly(partial);
+        }
+    }
+
+    private static String jobId(String fileName) {
+        int dot = fileName.indexOf('.');
+        return dot < 0 ? fileName : fileName.substring(0, dot);
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return Long.MAX_VALUE / 2;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * One job and its progress. The job is the {@link GenerationListener} of its own
+     * generation: plugins are listed as {@code pending} once the orchestrator has planned
+     * them, then move to {@code running} and {@code done}.
+     */
+    static final class Job implements GenerationListener {
+        private final String id;
+        private final long createdAt;
+        private final Map<String, PluginProgress> plugins = new LinkedHashMap<>();
+        private final CompletableFuture<Job> completion = new CompletableFuture<>();
+        private volatile State state = State.QUEUED;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private volatile Result result;
+        private volatile long archiveBytes;
+        private volatile String code;
+        private volatile String message;
+
+        private Job(String id, long createdAt) {
+            this.id = id;
+            this.createdAt = createdAt;
+        }
+
+        String id() {
+            return id;
+        }
+
+        State state() {
+            return state;
+        }
+
+        /** The project name and fingerprint once the job has succeeded, otherwise {@code null}. */
+        Result result() {
+            return result;
+        }
+
+        long archiveBytes() {
+            return archiveBytes;
+        }
+
+        /** Completes when the job has finished, successfully or not. */
+        CompletableFuture<Job> completion() {
+            return completion;
+        }
+
+        @Override
+        public synchronized void pluginsPlanned(List<String> names) {
+            for (String name : names) {
+                plugins.putIfAbsent(name, new PluginProgress());
+            }
+        }
+
+        @Override
+        public synchronized void pluginStarted(String plugin) {
+            PluginProgress progress = plugins.computeIfAbsent(plugin, ignored -> new PluginProgress());
+            if (progress.runs++ == 0) {
+                progress.status = "running";
+            }
+        }
+
+        @Override
+        public synchronized void pluginFinished(String plugin, long nanos) {
+            PluginProgress progress = plugins.computeIfAbsent(plugin, ignored -> new PluginProgress());
+            progress.nanos += nanos;
+            if (--progress.runs <= 0) {
+                progress.runs = 0;
+                progress.status = "done";
+            }
+        }
+
+        synchronized Status status(long ttlMillis) {
+            List<PluginStatus> progress = new ArrayList<>(plugins.size());
+            int completed = 0;
+            for (Map.Entry<String, PluginProgress> entry : plugins.entrySet()) {
+                PluginProgress plugin = entry.getValue();
+                completed += plugin.status.equals("done") ? 1 : 0;
+                progress.add(new PluginStatus(entry.getKey(), plugin.status, Math.round(plugin.nanos / 1e4) / 100.0));
+            }
+            Result finished = result;
+            return new Status(id, state.name().toLowerCase(Locale.ROOT), instant(createdAt), instant(startedAt),
+                    instant(finishedAt), finishedAt == 0 ? null : instant(finishedAt + ttlMillis),
+                    completed, plugins.size(), progress,
+                    finished == null ? null : finished.projectName(),
+                    finished == null ? null : finished.fingerprint(),
+                    finished == null ? null : archiveBytes, code, message);
+        }
+
+        private void started(long now) {
+            startedAt = now;
+            state = State.RUNNING;
+        }
+
+        private void succeeded(Result result, long bytes, long now) {
+            this.result = result;
+            this.archiveBytes = bytes;
+            finish(State.SUCCEEDED, now);
+        }
+
+        private void failed(String code, String message, long now) {
+            this.code = code;
+            this.message = message;
+            finish(State.FAILED, now);
+        }
+
+        private void finish(State finalState, long now) {
+            finishedAt = now;
+            state = finalState;
+            completion.complete(this);
+        }
+
+        private boolean expiredAt(long now, long ttlMillis) {
+            return finishedAt != 0 && finishedAt + ttlMillis <= now;
+        }
+
+        private static String instant(long millis) {
+            return millis == 0 ? null : Instant.ofEpochMilli(millis).toString();
+        }
+    }
+
+    private static final class PluginProgress {
+        String status = "pending";
+        int runs;
+        long nanos;
+    }
+
+    record PluginStatus(String name, String status, double millis) {
+    }
+
+    /** A job as reported to clients; timestamps are ISO-8601 instants. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record Status(String id, String status, String createdAt, String startedAt, String finishedAt, String expiresAt,
+                  int pluginsCompleted, int pluginsTotal, List<PluginStatus> plugins, String projectName,
+                  String fingerprint, Long archiveBytes, String code, String message) {
+    }
+
+    /** {@code queued} to {@code failed} count the jobs currently known, {@code spoolBytes} their archives. */
+    record Stats(int workers, int queueCapacity, int queued, int running, int succeeded, int failed, long rejected,
+                 long expired, long spoolBytes) {
+    }
+}
@@ -0,0 +1,150 @@
+package io.restapigen.server;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Availability of the configured LLM providers, checked in the background. Each provider is
+ * probed every interval with a non-blocking call; readers get the last result from a
+ * volatile field, so {@code /about} never waits on a provider. A probe still running when the
+ * next one is due is not started again.
+ */
+final class LlmHealth implements AutoCloseable {
+
+    /** Starts one availability check; completes with whether the provider answered. */
+    @FunctionalInterface
+    interface Probe {
+        CompletableFuture<Boolean> check();
+    }
+
+    private final Map<String, Provider> providers = new LinkedHashMap<>();
+    private final long intervalMillis;
+    private final LongSupplier nanoTime;
+    private ScheduledExecutorService scheduler;
+
+    LlmHealth(Map<String, Probe> probes, long intervalMillis) {
+        this(probes, intervalMillis, System::nanoTime);
+    }
+
+    LlmHealth(Map<String, Probe> probes, long intervalMillis, LongSupplier nanoTime) {
+        probes.forEach((name, probe) -> providers.put(name, new Provider(name, probe)));
+        this.intervalMillis = intervalMillis;
+        this.nanoTime = nanoTime;
+    }
+
+    static LlmHealth none() {
+        return new LlmHealth(Map.of(), 0);
+    }
+
+    /** Probes every provider now and then every interval; an interval of 0 never probes. */
+    synchronized LlmHealth start() {
+        if (scheduler == null && intervalMillis > 0 && !providers.isEmpty()) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "llm-health");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::probeAll, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    /** Starts a check of every provider that has none in flight; completes when they have all answered. */
+    CompletableFuture<Void> probeAll() {
+        List<CompletableFuture<Void>> checks = new ArrayList<>(providers.size());
+        for (Provider provider : providers.values()) {
+            checks.add(provider.probe());
+        }
+        return CompletableFuture.allOf(checks.toArray(CompletableFuture[]::new));
+    }
+
+    /** The last known status of {@code provider}, or {@code null} when it is not probed here. */
+    Status status(String provider) {
+        Provider probed = providers.get(provider);
+        return probed == null ? null : probed.status;
+    }
+
+    /** {@code true} only when the last check of {@code provider} succeeded. */
+    boolean available(String provider) {
+        Status status = status(provider);
+        return status != null && status.up();
+    }
+
+    /** {@code true} only when the last check of {@code provider} failed; unknown is not down. */
+    boolean down(String provider) {
+        Status status = status(provider);
+        return status != null && status.status().equals("down");
+    }
+
+    List<Status> statuses() {
+        List<Status> statuses = new ArrayList<>(providers.size());
+        for (Provider provider : providers.values()) {
+            statuses.add(provider.status);
+        }
+        return statuses;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private final class Provider {
+        private final String name;
+        private final Probe probe;
+        private final AtomicBoolean inFlight = new AtomicBoolean();
+        private volatile Status status;
+
+        Provider(String name, Probe probe) {
+            this.name = name;
+            this.probe = probe;
+            this.status = new Status(name, "unknown", null, null, 0, 0);
+        }
+
+        CompletableFuture<Void> probe() {
+            if (!inFlight.compareAndSet(false, true)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            long started = nanoTime.getAsLong();
+            CompletableFuture<Boolean> check;
+            try {
+                check = probe.check();
+            } catch (RuntimeException e) {
+                check = CompletableFuture.completedFuture(false);
+            }
+            return check.handle((up, error) -> {
+                record(error == null && Boolean.TRUE.equals(up), nanoTime.getAsLong() - started);
+                inFlight.set(false);
+                return null;
+            });
+        }
+
+        private void record(boolean up, long nanos) {
+            Status previous = status;
+            status = new Status(name, up ? "up" : "down", Math.round(nanos / 1e4) / 100.0,
+                    Instant.now().toString(), previous.checks() + 1, up ? 0 : previous.consecutiveFailures() + 1);
+        }
+    }
+
+    /**
+     * What the last check found: {@code unknown} until the first one has answered. A failed
+     * check's latency is the time until it failed, often the probe's timeout.
+     */
+    record Status(String provider, String status, Double latencyMillis, String checkedAt, long checks,
+                  int consecutiveFailures) {
+        boolean up() {
+            return status.equals("up");
+        }
+    }
+}
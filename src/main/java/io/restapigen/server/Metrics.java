@@ -0,0 +1,266 @@
+package io.restapigen.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A minimal metrics registry rendered in the Prometheus text exposition format.
+ *
+ * <p>Recording never takes a lock: each labelled series is a set of {@link LongAdder}s and
+ * {@link DoubleAdder}s, which stripe updates across cells under contention, and series are
+ * looked up in a {@link ConcurrentHashMap} whose reads are lock-free. Only the first update of
+ * a new label combination inserts into the map. Label values must come from small, fixed sets
+ * (endpoint paths, plugin names, models), never from request content.
+ */
+final class Metrics {
+    private final List<Family> families = new CopyOnWriteArrayList<>();
+
+    Counter counter(String name, String help, String... labelNames) {
+        return register(new Counter(name, help, labelNames));
+    }
+
+    Histogram histogram(String name, String help, double[] buckets, String... labelNames) {
+        return register(new Histogram(name, help, buckets, labelNames));
+    }
+
+    Gauge gauge(String name, String help, String... labelNames) {
+        return register(new Gauge(name, help, labelNames));
+    }
+
+    /** All families in registration order, series sorted by label values. */
+    String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Family family : families) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type()).append('\n');
+            family.write(out);
+        }
+        return out.toString();
+    }
+
+    private <F extends Family> F register(F family) {
+        for (Family existing : families) {
+            if (existing.name.equals(family.name)) {
+                throw new IllegalArgumentException("Duplicate metric " + family.name);
+            }
+        }
+        families.add(family);
+        return family;
+    }
+
+    private abstract static class Family {
+        final String name;
+        final String help;
+        final String[] labelNames;
+
+        Family(String name, String help, String[] labelNames) {
+            this.name = name;
+            this.help = help;
+            this.labelNames = labelNames.clone();
+        }
+
+        abstract String type();
+
+        abstract void write(StringBuilder out);
+
+        List<String> key(String[] labelValues) {
+            if (labelValues.length != labelNames.length) {
+                throw new IllegalArgumentException(name + " expects labels " + Arrays.toString(labelNames));
+            }
+            return List.of(labelValues);
+        }
+
+        <S> List<Map.Entry<List<String>, S>> sorted(ConcurrentMap<List<String>, S> series) {
+            List<Map.Entry<List<String>, S>> entries = new ArrayList<>(series.entrySet());
+            entries.sort((a, b) -> String.join("\u0000", a.getKey()).compareTo(String.join("\u0000", b.getKey())));
+            return entries;
+        }
+
+        void writeSample(StringBuilder out, String sampleName, List<String> labelValues, String extraLabel,
+                         String extraValue, String value) {
+            out.append(sampleName);
+            if (!labelValues.isEmpty() || extraLabel != null) {
+                out.append('{');
+                for (int i = 0; i < labelValues.size(); i++) {
+                    if (i > 0) {
+                        out.append(',');
+                    }
+                    appendLabel(out, labelNames[i], labelValues.get(i));
+                }
+                if (extraLabel != null) {
+                    if (!labelValues.isEmpty()) {
+                        out.append(',');
+                    }
+                    appendLabel(out, extraLabel, extraValue);
+                }
+                out.append('}');
+            }
+            out.append(' ').append(value).append('\n');
+        }
+
+        private static void appendLabel(StringBuilder out, String label, String value) {
+            out.append(label).append("=\"");
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '\\' -> out.append("\\\\");
+                    case '"' -> out.append("\\\"");
+                    case '\n' -> out.append("\\n");
+                    default -> out.append(c);
+                }
+            }
+            out.append('"');
+        }
+    }
+
+    /** A monotonically increasing count per label combination. */
+    static final class Counter extends Family {
+        private final ConcurrentMap<List<String>, LongAdder> series = new ConcurrentHashMap<>();
+
+        private Counter(String name, String help, String[] labelNames) {
+            super(name, help, labelNames);
+        }
+
+        void increment(String... labelValues) {
+            add(1, labelValues);
+        }
+
+        void add(long amount, String... labelValues) {
+            List<String> key = key(labelValues);
+            LongAdder adder = series.get(key);
+            if (adder == null) {
+                adder = series.computeIfAbsent(key, ignored -> new LongAdder());
+            }
+            adder.add(amount);
+        }
+
+        long value(String... labelValues) {
+            LongAdder adder = series.get(key(labelValues));
+            return adder == null ? 0 : adder.sum();
+        }
+
+        @Override
+        String type() {
+            return "counter";
+        }
+
+        @Override
+        void write(StringBuilder out) {
+            for (Map.Entry<List<String>, LongAdder> entry : sorted(series)) {
+                writeSample(out, name, entry.getKey(), null, null, Long.toString(entry.getValue().sum()));
+            }
+        }
+    }
+
+    /** Observations counted into fixed cumulative buckets, with their sum and count. */
+    static final class Histogram extends Family {
+        private final double[] buckets;
+        private final ConcurrentMap<List<String>, Series> series = new ConcurrentHashMap<>();
+
+        private Histogram(String name, String help, double[] buckets, String[] labelNames) {
+            super(name, help, labelNames);
+            this.buckets = buckets.clone();
+            Arrays.sort(this.buckets);
+        }
+
+        void observe(double value, String... labelValues) {
+            List<String> key = key(labelValues);
+            Series target = series.get(key);
+            if (target == null) {
+                target = series.computeIfAbsent(key, ignored -> new Series(buckets.length));
+            }
+            int bucket = Arrays.binarySearch(buckets, value);
+            target.counts[bucket >= 0 ? bucket : -bucket - 1].increment();
+            target.sum.add(value);
+        }
+
+        long count(String... labelValues) {
+            Series target = series.get(key(labelValues));
+            if (target == null) {
+                return 0;
+            }
+            long count = 0;
+            for (LongAdder adder : target.counts) {
+                count += adder.sum();
+            }
+            return count;
+        }
+
+        @Override
+        String type() {
+            return "histogram";
+        }
+
+        @Override
+        void write(StringBuilder out) {
+            for (Map.Entry<List<String>, Series> entry : sorted(series)) {
+                Series values = entry.getValue();
+                long cumulative = 0;
+                for (int i = 0; i <= buckets.length; i++) {
+                    cumulative += values.counts[i].sum();
+                    String bound = i < buckets.length ? format(buckets[i]) : "+Inf";
+                    writeSample(out, name + "_bucket", entry.getKey(), "le", bound, Long.toString(cumulative));
+                }
+                writeSample(out, name + "_sum", entry.getKey(), null, null, format(values.sum.sum()));
+                writeSample(out, name + "_count", entry.getKey(), null, null, Long.toString(cumulative));
+            }
+        }
+
+        /** Bucket {@code i} counts observations in {@code (buckets[i-1], buckets[i]]}; the last one is +Inf. */
+        private static final class Series {
+            final LongAdder[] counts;
+            final DoubleAdder sum = new DoubleAdder();
+
+            Series(int buckets) {
+                counts = new LongAdder[buckets + 1];
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = new LongAdder();
+                }
+            }
+        }
+    }
+
+    /** Values read at scrape time from suppliers registered per label combination. */
+    static final class Gauge extends Family {
+        private final ConcurrentMap<List<String>, DoubleSupplier> series = new ConcurrentHashMap<>();
+
+        private Gauge(String name, String help, String[] labelNames) {
+            super(name, help, labelNames);
+        }
+
+        Gauge register(DoubleSupplier value, String... labelValues) {
+            series.put(key(labelValues), value);
+            return this;
+        }
+
+        @Override
+        String type() {
+            return "gauge";
+        }
+
+        @Override
+        void write(StringBuilder out) {
+            for (Map.Entry<List<String>, DoubleSupplier> entry : sorted(series)) {
+                writeSample(out, name, entry.getKey(), null, null, format(entry.getValue().getAsDouble()));
+            }
+        }
+    }
+
+    static String format(double value) {
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
@@ -0,0 +1,204 @@
+package io.restapigen.server;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client token buckets, one set per endpoint. Each bucket holds {@code burst} tokens and
+ * refills at {@code perMinute}; a request takes one token or is refused with the time until
+ * one is available.
+ *
+ * <p>A bucket is a single {@link AtomicLong}: the instant at which it will be full again.
+ * Taking a token pushes that instant one refill interval later with a compare-and-set, so
+ * admission never blocks and never allocates once a client is known. A bucket that is full
+ * is indistinguishable from no bucket, which is what lets idle clients be swept away.
+ *
+ * <p>LLM-bound requests may not take the last {@code llmReserve} share of a bucket, so a
+ * client that has spent most of its budget on prompts can still validate and generate.
+ */
+final class RateLimiter {
+    private static final int SWEEP_THRESHOLD = 4096;
+    private static final long SWEEP_INTERVAL_NANOS = 10_000_000_000L;
+
+    enum Priority {
+        DETERMINISTIC,
+        LLM
+    }
+
+    /** {@code perMinute <= 0} means unlimited. */
+    record Limit(double perMinute, int burst) {
+        Limit {
+            burst = Math.max(1, burst);
+        }
+    }
+
+    record Stats(int clients, long admitted, long rejected) {
+    }
+
+    private final Map<String, Buckets> endpoints = new LinkedHashMap<>();
+    private final LongSupplier clock;
+    private final AtomicLong nextSweep = new AtomicLong();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    RateLimiter(Map<String, Limit> limits, double llmReserve) {
+        this(limits, llmReserve, System::nanoTime);
+    }
+
+    RateLimiter(Map<String, Limit> limits, double llmReserve, LongSupplier clock) {
+        double reserve = Math.min(Math.max(llmReserve, 0), 1);
+        limits.forEach((endpoint, limit) -> {
+            if (limit.perMinute() > 0) {
+                endpoints.put(endpoint, new Buckets(limit, reserve));
+            }
+        });
+        this.clock = clock;
+        this.nextSweep.set(clock.getAsLong() + SWEEP_INTERVAL_NANOS);
+    }
+
+    static RateLimiter disabled() {
+        return new RateLimiter(Map.of(), 0);
+    }
+
+    /**
+     * Parses {@code /path=perMinute[:burst],...}, e.g. {@code /generator/spec=30:10}. Without a
+     * burst a client may send a tenth of a minute's allowance at once. {@code off} or an empty
+     * value disables limiting.
+     */
+    static Map<String, Limit> parse(String value) {
+        Map<String, Limit> limits = new LinkedHashMap<>();
+        if (value == null || value.isBlank() || "off".equals(value.trim().toLowerCase(Locale.ROOT))) {
+            return limits;
+        }
+        for (String entry : value.split(",")) {
+            if (entry.isBlank()) continue;
+            int equals = entry.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Rate limit '" + entry.trim() + "' must look like /path=perMinute[:burst]");
+            }
+            String endpoint = entry.substring(0, equals).trim();
+            String[] rate = entry.substring(equals + 1).trim().split(":");
+            double perMinute = Double.parseDouble(rate[0].trim());
+            int burst = rate.length > 1 ? Integer.parseInt(rate[1].trim()) : (int) Math.ceil(perMinute / 10);
+            limits.put(endpoint, new Limit(perMinute, burst));
+        }
+        return limits;
+    }
+
+    /** {@code 0} if the request is admitted, otherwise the nanoseconds until it would be. */
+    long tryAcquire(String endpoint, String client, Priority priority) {
+        Buckets buckets = endpoints.get(endpoint);
+        if (buckets == null) {
+            return 0;
+        }
+        long now = clock.getAsLong();
+        long wait = buckets.tryAcquire(client, priority, now);
+        if (wait == 0) {
+            admitted.increment();
+        } else {
+            rejected.increment();
+        }
+        sweepIfDue(now);
+        return wait;
+    }
+
+    /**
+     * Holds a request already admitted at {@link Priority#DETERMINISTIC} to {@code priority}'s
+     * share of the bucket, once its body has shown what it is. Over that share, the token is
+     * given back and the result is as if {@link #tryAcquire} had been called with
+     * {@code priority} in the first place.
+     */
+    long escalate(String endpoint, String client, Priority priority) {
+        Buckets buckets = endpoints.get(endpoint);
+        if (buckets == null || priority == Priority.DETERMINISTIC) {
+            return 0;
+        }
+        long wait = buckets.escalate(client, clock.getAsLong());
+        if (wait != 0) {
+            admitted.decrement();
+            rejected.increment();
+        }
+        return wait;
+    }
+
+    Stats stats() {
+        int clients = 0;
+        for (Buckets buckets : endpoints.values()) {
+            clients += buckets.full.size();
+        }
+        return new Stats(clients, admitted.sum(), rejected.sum());
+    }
+
+    /**
+     * Drops full buckets once the table has grown, at most every ten seconds. A request racing
+     * with the sweep may update a bucket that was just dropped; the client then starts over
+     * with a full bucket, which is what it would have had a moment later anyway.
+     */
+    private void sweepIfDue(long now) {
+        long due = nextSweep.get();
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + SWEEP_INTERVAL_NANOS)) {
+            return;
+        }
+        for (Buckets buckets : endpoints.values()) {
+            if (buckets.full.size() > SWEEP_THRESHOLD) {
+                buckets.full.values().removeIf(fullAt -> fullAt.get() - now <= 0);
+            }
+        }
+    }
+
+    private static final class Buckets {
+        final ConcurrentMap<String, AtomicLong> full = new ConcurrentHashMap<>();
+        final long interval;
+        final long capacity;
+        final long llmCapacity;
+
+        Buckets(Limit limit, double llmReserve) {
+            this.interval = Math.max(1, Math.round(60_000_000_000d / limit.perMinute()));
+            this.capacity = limit.burst() * interval;
+            long reserved = Math.min(limit.burst() - 1, (long) Math.floor(limit.burst() * llmReserve));
+            this.llmCapacity = (limit.burst() - reserved) * interval;
+        }
+
+        long tryAcquire(String client, Priority priority, long now) {
+            AtomicLong fullAt = full.get(client);
+            if (fullAt == null) {
+                fullAt = full.computeIfAbsent(client, ignored -> new AtomicLong(now));
+            }
+            long allowed = priority == Priority.LLM ? llmCapacity : capacity;
+            while (true) {
+                long current = fullAt.get();
+                long next = (current - now > 0 ? current : now) + interval;
+                long used = next - now;
+                if (used > allowed) {
+                    return used - allowed;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        long escalate(String client, long now) {
+            AtomicLong fullAt = full.get(client);
+            if (fullAt == null) {
+                return 0;
+            }
+            while (true) {
+                long current = fullAt.get();
+                long used = current - now;
+                if (used <= llmCapacity) {
+                    return 0;
+                }
+                if (fullAt.compareAndSet(current, current - interval)) {
+                    return used - llmCapacity;
+                }
+            }
+        }
+    }
+}
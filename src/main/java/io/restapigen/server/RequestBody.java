@@ -0,0 +1,283 @@
+package io.restapigen.server;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A request body decoded in one pass straight from the exchange's stream. The byte limit is
+ * enforced as bytes arrive, and before that against {@code Content-Length}, so an oversized
+ * body is refused without being buffered. Time spent blocked on the socket is tracked
+ * separately from decoding, for {@code Server-Timing}.
+ */
+final class RequestBody extends InputStream {
+    private final InputStream in;
+    private final long maxBytes;
+    private long bytes;
+    private long readNanos;
+    private int peeked = -2;
+    private ByteArrayOutputStream seen;
+
+    RequestBody(InputStream in, long maxBytes) {
+        this.in = in;
+        this.maxBytes = maxBytes;
+    }
+
+    /** The exchange's body, limited to {@code maxBytes}; refused at once when its declared length is larger. */
+    static RequestBody of(HttpExchange exchange, long maxBytes) throws TooLargeException {
+        String declared = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (declared != null) {
+            try {
+                if (Long.parseLong(declared.trim()) > maxBytes) {
+                    throw new TooLargeException(maxBytes);
+                }
+            } catch (NumberFormatException ignored) {
+                // The server rejects malformed lengths itself; the running count still applies.
+            }
+        }
+        return new RequestBody(exchange.getRequestBody(), maxBytes);
+    }
+
+    /** A body that is too large; {@code limit} is the number of bytes allowed. */
+    static class TooLargeException extends IOException {
+        private final long limit;
+
+        TooLargeException(long limit) {
+            this("Request body exceeds " + limit + " bytes", limit);
+        }
+
+        TooLargeException(String message, long limit) {
+            super(message);
+            this.limit = limit;
+        }
+
+        long limit() {
+            return limit;
+        }
+    }
+
+    /** One line of a line-delimited body that is too long; the rest of the body can still be read. */
+    static final class LineTooLongException extends TooLargeException {
+        LineTooLongException(long limit) {
+            super("Line exceeds " + limit + " bytes", limit);
+        }
+    }
+
+    /**
+     * A decoded body: nothing, a prompt-only object (a {@code prompt} field and no
+     * {@code projectName}), or a value of the requested type.
+     */
+    record Decoded<T>(String prompt, T value) {
+        boolean isEmpty() {
+            return prompt == null && value == null;
+        }
+
+        boolean isPrompt() {
+            return prompt != null;
+        }
+    }
+
+    /** Decodes a value of {@code type}; {@code null} for an empty body. */
+    <T> T read(ObjectMapper mapper, Class<T> type) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(this)) {
+            return parser.nextToken() == null ? null : mapper.readValue(parser, type);
+        }
+    }
+
+    /**
+     * Decodes a prompt-only object or a value of {@code type}. The top-level fields are
+     * looked at while the object is copied into a token buffer, and the value is bound from
+     * that buffer, so the bytes are parsed once whichever it turns out to be.
+     */
+    <T> Decoded<T> decode(ObjectMapper mapper, Class<T> type) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(this)) {
+            JsonToken first = parser.nextToken();
+            if (first == null) {
+                return new Decoded<>(null, null);
+            }
+            if (first != JsonToken.START_OBJECT) {
+                return new Decoded<>(null, mapper.readValue(parser, type));
+            }
+            TokenBuffer buffer = new TokenBuffer(parser);
+            buffer.writeStartObject();
+            String prompt = null;
+            boolean named = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("prompt") && value.isScalarValue()) {
+                    prompt = parser.getValueAsString("null");
+                } else if (field.equals("projectName")) {
+                    named = true;
+                }
+                buffer.writeFieldName(field);
+                buffer.copyCurrentStructure(parser);
+            }
+            buffer.writeEndObject();
+            if (prompt != null && !named) {
+                return new Decoded<>(prompt, null);
+            }
+            try (JsonParser buffered = buffer.asParser(parser.getCodec())) {
+                return new Decoded<>(null, mapper.readValue(buffered, type));
+            }
+        }
+    }
+
+    /**
+     * The {@code prompt} field of a JSON object body. Any other body, including one that only
+     * looks like JSON, has no usable {@code prompt} or does not parse, is a plain-text prompt
+     * and returned whole, trimmed. Other fields are skipped without being decoded.
+     */
+    String prompt(ObjectMapper mapper) throws IOException {
+        if (peek() != '{') {
+            return new String(readAllBytes(), StandardCharsets.UTF_8).trim();
+        }
+        // Keeps what the parser consumes, so the body can still be taken as text.
+        seen = new ByteArrayOutputStream();
+        String prompt = null;
+        try (JsonParser parser = mapper.getFactory().createParser(this)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("prompt") && value == JsonToken.VALUE_STRING) {
+                    prompt = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            prompt = null;
+        }
+        if (prompt != null && !prompt.isBlank()) {
+            seen = null;
+            return prompt;
+        }
+        readAllBytes();
+        String text = seen.toString(StandardCharsets.UTF_8).trim();
+        seen = null;
+        return text;
+    }
+
+    /** Reads the body as UTF-8 lines of at most {@code maxLineBytes} bytes each. */
+    Lines lines(int maxLineBytes) {
+        return new Lines(new BufferedInputStream(this), maxLineBytes);
+    }
+
+    /**
+     * Line-at-a-time reading that never holds more than one line's limit. A longer line is
+     * skipped to its end without being kept, then reported, so reading can go on after it.
+     */
+    static final class Lines {
+        private final InputStream in;
+        private final int maxLineBytes;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        private Lines(InputStream in, int maxLineBytes) {
+            this.in = in;
+            this.maxLineBytes = maxLineBytes;
+        }
+
+        /**
+         * The next line without its {@code \n} or {@code \r\n}, or {@code null} at the end.
+         *
+         * @throws LineTooLongException if the line is longer than the limit; it has been skipped
+         * @throws TooLargeException    if the body as a whole is over its limit
+         */
+        String next() throws IOException {
+            line.reset();
+            boolean tooLong = false;
+            int b;
+            while ((b = in.read()) >= 0 && b != '\n') {
+                if (line.size() < maxLineBytes) {
+                    line.write(b);
+                } else {
+                    tooLong = true;
+                }
+            }
+            if (tooLong) {
+                throw new LineTooLongException(maxLineBytes);
+            }
+            if (b < 0 && line.size() == 0) {
+                return null;
+            }
+            String text = line.toString(StandardCharsets.UTF_8);
+            return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+        }
+    }
+
+    /** Bytes received so far. */
+    long bytes() {
+        return bytes;
+    }
+
+    /** Time spent waiting for the client's bytes, as opposed to decoding them. */
+    long readNanos() {
+        return readNanos;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (peeked >= 0) {
+            b[off] = (byte) peeked;
+            peeked = -2;
+            if (seen != null) {
+                seen.write(b[off]);
+            }
+            return 1;
+        }
+        if (peeked == -1) {
+            return -1;
+        }
+        // Never asks for more than one byte past the limit, so an endless body costs nothing extra.
+        long started = System.nanoTime();
+        int n = in.read(b, off, (int) Math.min(len, maxBytes - bytes + 1));
+        readNanos += System.nanoTime() - started;
+        if (n > 0) {
+            bytes += n;
+            if (bytes > maxBytes) {
+                throw new TooLargeException(maxBytes);
+            }
+            if (seen != null) {
+                seen.write(b, off, n);
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /** Skips leading whitespace and returns the first byte without consuming it, or -1 at the end. */
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            int next;
+            do {
+                next = read();
+            } while (next == ' ' || next == '\t' || next == '\r' || next == '\n');
+            peeked = next;
+        }
+        return peeked;
+    }
+}
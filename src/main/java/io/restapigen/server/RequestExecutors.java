@@ -0,0 +1,80 @@
+package io.restapigen.server;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * Executors for the HTTP server's request handlers.
+ *
+ * <p>{@link Mode#VIRTUAL} runs every request on its own virtual thread, so requests blocked on
+ * an LLM no longer hold one of a few platform threads. The project still compiles for Java 17,
+ * so the virtual-thread factory is looked up at runtime; on a Java 17 runtime {@code auto}
+ * selects the fixed platform pool and an explicit {@code virtual} falls back to it with a
+ * warning.
+ */
+final class RequestExecutors {
+    private static final Logger LOG = Logger.getLogger(RequestExecutors.class.getName());
+    private static final MethodHandle NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+
+    enum Mode {
+        VIRTUAL,
+        PLATFORM
+    }
+
+    private RequestExecutors() {
+    }
+
+    static boolean virtualThreadsAvailable() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /** Resolves {@code auto}, {@code virtual} or {@code platform} (case-insensitive; blank means auto). */
+    static Mode select(String requested) {
+        String mode = requested == null || requested.isBlank() ? "auto" : requested.trim().toLowerCase(Locale.ROOT);
+        switch (mode) {
+            case "platform":
+                return Mode.PLATFORM;
+            case "virtual":
+                if (!virtualThreadsAvailable()) {
+                    LOG.warning("Virtual threads need Java 21 or newer (running " + Runtime.version().feature()
+                            + "); using a platform thread pool");
+                    return Mode.PLATFORM;
+                }
+                return Mode.VIRTUAL;
+            case "auto":
+                return virtualThreadsAvailable() ? Mode.VIRTUAL : Mode.PLATFORM;
+            default:
+                LOG.warning("Ignoring unknown executor mode '" + requested + "' (expected auto, virtual or platform)");
+                return virtualThreadsAvailable() ? Mode.VIRTUAL : Mode.PLATFORM;
+        }
+    }
+
+    static ExecutorService create(Mode mode, int platformThreads) {
+        if (mode == Mode.VIRTUAL) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke();
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot create virtual-thread executor", e);
+            }
+        }
+        return Executors.newFixedThreadPool(Math.max(1, platformThreads));
+    }
+
+    private static MethodHandle findVirtualThreadExecutor() {
+        // Java 19 and 20 have the method too, but only behind --enable-preview.
+        if (Runtime.version().feature() < 21) {
+            return null;
+        }
+        try {
+            return MethodHandles.publicLookup().findStatic(
+                    Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
@@ -1,44 +1,152 @@
 package io.restapigen.server;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import io.restapigen.codegen.ArchiveCache;
 import io.restapigen.codegen.CodeGenerator;
 import io.restapigen.core.config.GenerationConfig;
+import io.restapigen.core.orchestrator.GenerationListener;
+import io.restapigen.core.orchestrator.GenerationTrace;
 import io.restapigen.core.parser.CloudLlmPromptParser;
+import io.restapigen.core.parser.CoalescingPromptParser;
+import io.restapigen.core.parser.HedgedPromptParser;
+import io.restapigen.core.parser.LlmCallLimiter;
+import io.restapigen.core.parser.LlmCircuitBreaker;
+import io.restapigen.core.parser.LlmOverloadedException;
+import io.restapigen.core.parser.LlmPromptParser;
 import io.restapigen.core.parser.NaturalLanguagePromptParser;
 import io.restapigen.core.parser.OllamaPromptParser;
+import io.restapigen.core.parser.PromptCache;
 import io.restapigen.core.parser.PromptParser;
+import io.restapigen.core.plugin.GeneratedFile;
+import io.restapigen.core.plugin.PluginRegistry;
 import io.restapigen.core.validator.SpecDiagnosticsValidator;
 import io.restapigen.core.validator.SpecValidator;
 import io.restapigen.domain.ApiSpecification;
 import io.restapigen.generator.parser.SpecInputExtractor;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.InetSocketAddress;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public final class RestApiGeneratorServer implements AutoCloseable {
 
     private static final Logger LOG = Logger.getLogger(RestApiGeneratorServer.class.getName());
     private static final int DEFAULT_THREAD_POOL = 8;
+    private static final int RECENT_SPEC_LIMIT = 256;
+    /** Below this, gzip saves less than its header and the CPU costs more than the bytes. */
+    private static final int GZIP_MIN_BYTES = 1024;
+    private static final int MAX_PROMPT_CHARS = 32_000;
+    /** Room for a prompt of {@link #MAX_PROMPT_CHARS} even if every character is a six-byte JSON escape. */
+    private static final long PROMPT_MAX_BODY_BYTES = 6L * MAX_PROMPT_CHARS + 4096;
+    /** Last entry of a {@code /generator/code?debug=true} archive, with that request's timings. */
+    static final String DEBUG_ENTRY_PATH = "__debug.json";
+    /** The spec's fingerprint, for {@code previousFingerprint}; unlike the ETag it also comes with a delta. */
+    static final String SPEC_FINGERPRINT_HEADER = "X-Spec-Fingerprint";
+    private static final String FALLBACK_INDEX = "<html><body><h2>REST API Generator</h2>"
+            + "<p>Server is running. See <a href='/about'>/about</a> for API details.</p>"
+            + "<p>Deploy the Web UI by placing index.html in src/main/resources/static/</p></body></html>";
     private static final String APP_VERSION = loadAppVersion();
     static final String ENV_RUNTIME_PROFILE = "REST_API_GENERATOR_ENV";
     static final String ENV_APP_ENV = "APP_ENV";
+    static final String ENV_ARCHIVE_CACHE_MAX_BYTES = "ARCHIVE_CACHE_MAX_BYTES";
+    static final String ENV_ARCHIVE_CACHE_DIR = "ARCHIVE_CACHE_DIR";
+    static final String ENV_ARCHIVE_CACHE_DISK_MAX_BYTES = "ARCHIVE_CACHE_DISK_MAX_BYTES";
+    static final String ENV_PROMPT_CACHE_MAX_ENTRIES = "PROMPT_CACHE_MAX_ENTRIES";
+    static final String ENV_PROMPT_CACHE_TTL_SECONDS = "PROMPT_CACHE_TTL_SECONDS";
+    static final String ENV_PROMPT_CACHE_FILE = "PROMPT_CACHE_FILE";
+    static final String ENV_PROMPT_CACHE_FILE_MAX_BYTES = "PROMPT_CACHE_FILE_MAX_BYTES";
+    static final String ENV_SERVER_EXECUTOR = "SERVER_EXECUTOR";
+    static final String ENV_SERVER_THREADS = "SERVER_THREADS";
+    static final String ENV_GENERATION_MAX_CONCURRENCY = "GENERATION_MAX_CONCURRENCY";
+    static final String ENV_REQUEST_MAX_BYTES = "REQUEST_MAX_BYTES";
+    static final String ENV_BATCH_MAX_CONCURRENCY = "BATCH_MAX_CONCURRENCY";
+    static final String ENV_BATCH_MAX_ITEMS = "BATCH_MAX_ITEMS";
+    static final String ENV_BATCH_MAX_BYTES = "BATCH_MAX_BYTES";
+    static final String ENV_JOB_SPOOL_DIR = "JOB_SPOOL_DIR";
+    static final String ENV_JOB_TTL_SECONDS = "JOB_TTL_SECONDS";
+    static final String ENV_JOB_WORKERS = "JOB_WORKERS";
+    static final String ENV_JOB_QUEUE_CAPACITY = "JOB_QUEUE_CAPACITY";
+    static final String ENV_LLM_HEALTH_INTERVAL_SECONDS = "LLM_HEALTH_INTERVAL_SECONDS";
+    static final String ENV_LLM_LATENCY_BUDGET_MS = "LLM_LATENCY_BUDGET_MS";
+    static final String ENV_LLM_HEDGE = "LLM_HEDGE";
+    /** Bounds for a latency budget; anything shorter than the minimum is raised to it. */
+    static final long MIN_LATENCY_BUDGET_MS = 250;
+    private static final long MAX_LATENCY_BUDGET_MS = 120_000;
+    static final String ENV_RATE_LIMITS = "RATE_LIMITS";
+    static final String ENV_RATE_LIMIT_LLM_RESERVE = "RATE_LIMIT_LLM_RESERVE";
+    static final String ENV_RATE_LIMIT_TRUST_PROXY = "RATE_LIMIT_TRUST_PROXY";
+    static final String DEFAULT_RATE_LIMITS = "/generator/spec=30:10,/generator/spec/stream=30:10,/generator/code=120:30,"
+            + "/generator/code/delta=120:30,/generator/confidence=300:60,/generator/batch=6:2,/generator/jobs=60:20";
 
     private final HttpServer           server;
+    private final ExecutorService      executor;
+    private final ExecutorService      batchExecutor;
+    private final int                  batchMaxConcurrency;
+    private final int                  batchMaxItems;
+    private final long                 batchMaxBytes;
+    private final long                 requestMaxBytes;
+    private final RequestExecutors.Mode executorMode;
+    private final ConcurrencyLimit     generationLimit;
     private final PromptParser         parser;
     private final OllamaPromptParser   ollamaParser;    // non-null when OLLAMA_URL is set
     private final CloudLlmPromptParser cloudLlmParser;  // non-null when LLM_API_KEY is set
+    private final LlmPromptParser      hedgeParser;     // the other provider, non-null when LLM_HEDGE=true and it is set
+    private final HedgedPromptParser   hedgedParser;    // budget and hedging around whichever LLM parser is active
+    private final CoalescingPromptParser coalescingParser; // wraps hedgedParser
+    private final PromptCache          promptCache;
+    private final LlmHealth            llmHealth;       // probes whichever LLM parser is active
+    private final List<LlmCircuitBreaker> llmCircuits;  // the active LLM parser's breaker, then the hedge's
+    private final PluginRegistry       pluginRegistry;
     private final CodeGenerator        codeGenerator;
+    private final ArchiveCache         archiveCache;
+    private final GenerationJobs       jobs;
+    private final RateLimiter          rateLimiter;
+    private final boolean              trustForwardedFor;
+    private final ServerMetrics        metrics = new ServerMetrics();
+    private final StaticAsset          indexPage = StaticAsset.load("/static/index.html", "text/html; charset=utf-8", FALLBACK_INDEX);
+    private final Map<String, ApiSpecification> recentSpecs = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ApiSpecification> eldest) {
+                    return size() > RECENT_SPEC_LIMIT;
+                }
+            });
     private final GenerationConfig     config;
     private final ObjectMapper         mapper;
     private final SpecDiagnosticsValidator diagnosticsValidator;
@@ -50,33 +158,63 @@ public final class RestApiGeneratorServer implements AutoCloseable {
     }
 
     public RestApiGeneratorServer(int port, GenerationConfig config) throws IOException {
+        Map<String, String> env = System.getenv();
         this.server        = HttpServer.create(new InetSocketAddress(port), 0);
-        this.server.setExecutor(Executors.newFixedThreadPool(DEFAULT_THREAD_POOL));
+        this.executorMode  = RequestExecutors.select(env.get(ENV_SERVER_EXECUTOR));
+        this.executor      = RequestExecutors.create(executorMode,
+                (int) parseLong(env.get(ENV_SERVER_THREADS), DEFAULT_THREAD_POOL));
+        this.server.setExecutor(executor);
+        // Batch items get their own workers: handlers waiting on items never hold the threads
+        // those items need.
+        this.batchMaxConcurrency = (int) Math.max(1, parseLong(env.get(ENV_BATCH_MAX_CONCURRENCY), 4));
+        this.batchMaxItems = (int) Math.max(1, parseLong(env.get(ENV_BATCH_MAX_ITEMS), 1000));
+        this.batchMaxBytes = Math.max(1, parseLong(env.get(ENV_BATCH_MAX_BYTES), 64L * 1024 * 1024));
+        this.batchExecutor = RequestExecutors.create(executorMode, batchMaxConcurrency);
+        this.requestMaxBytes = Math.max(1, parseLong(env.get(ENV_REQUEST_MAX_BYTES), 8L * 1024 * 1024));
+        this.generationLimit = new ConcurrencyLimit((int) parseLong(env.get(ENV_GENERATION_MAX_CONCURRENCY),
+                Runtime.getRuntime().availableProcessors()));
         this.config        = config == null ? GenerationConfig.defaults() : config;
         this.mapper        = new ObjectMapper().findAndRegisterModules();
-        this.codeGenerator = new CodeGenerator();
+        this.pluginRegistry = new PluginRegistry();
+        this.codeGenerator = new CodeGenerator(pluginRegistry, metrics);
+        this.archiveCache  = createArchiveCache(System.getenv());
+        this.jobs          = createGenerationJobs(env);
         this.diagnosticsValidator = new SpecDiagnosticsValidator();
         this.specValidator = new SpecValidator();
-        this.confidenceFailPolicyEnabled = Boolean.parseBoolean(System.getenv().getOrDefault("CONFIDENCE_FAIL_POLICY", "false"));
+        this.confidenceFailPolicyEnabled = Boolean.parseBoolean(env.getOrDefault("CONFIDENCE_FAIL_POLICY", "false"));
+        this.rateLimiter   = createRateLimiter(env);
+        this.trustForwardedFor = Boolean.parseBoolean(env.getOrDefault(ENV_RATE_LIMIT_TRUST_PROXY, "false"));
 
-        Map<String, String> env = System.getenv();
         PromptParserMode parserMode = selectPromptParser(env);
+        long latencyBudgetMillis = clampLatencyBudget(parseLong(env.get(ENV_LLM_LATENCY_BUDGET_MS), 0));
+        boolean hedgingRequested = Boolean.parseBoolean(env.getOrDefault(ENV_LLM_HEDGE, "false"));
+        this.promptCache = parserMode == PromptParserMode.DETERMINISTIC ? PromptCache.disabled() : createPromptCache(env);
 
         if (parserMode == PromptParserMode.CLOUD) {
             // Cloud LLM — Groq (default), OpenAI, or any OpenAI-compatible endpoint.
             // Activate in production by setting APP_ENV=production and LLM_API_KEY=<your-groq-key>
             this.ollamaParser   = null;
-            this.cloudLlmParser = new CloudLlmPromptParser();
-            this.parser         = this.cloudLlmParser;
+            this.cloudLlmParser = new CloudLlmPromptParser(promptCache, metrics);
+            this.hedgeParser    = hedgingRequested && hasText(env.get(OllamaPromptParser.ENV_OLLAMA_URL))
+                    ? new OllamaPromptParser(promptCache, metrics) : null;
+            this.hedgedParser   = new HedgedPromptParser(this.cloudLlmParser, this.hedgeParser, latencyBudgetMillis, metrics,
+                    this::llmDown);
+            this.coalescingParser = new CoalescingPromptParser(this.hedgedParser, this.cloudLlmParser.getModel());
+            this.parser         = this.coalescingParser;
             LOG.info("Prompt parser: cloud LLM at " + this.cloudLlmParser.getBaseUrl()
                     + " model=" + this.cloudLlmParser.getModel()
                     + " profile=" + runtimeProfile(env)
                     + " (fallback: deterministic)");
         } else if (parserMode == PromptParserMode.OLLAMA) {
             // Local Ollama — preferred when APP_ENV=local and OLLAMA_URL is set
-            this.ollamaParser   = new OllamaPromptParser();
+            this.ollamaParser   = new OllamaPromptParser(promptCache, metrics);
             this.cloudLlmParser = null;
-            this.parser         = this.ollamaParser;
+            this.hedgeParser    = hedgingRequested && hasText(env.get(CloudLlmPromptParser.ENV_LLM_API_KEY))
+                    ? new CloudLlmPromptParser(promptCache, metrics) : null;
+            this.hedgedParser   = new HedgedPromptParser(this.ollamaParser, this.hedgeParser, latencyBudgetMillis, metrics,
+                    this::llmDown);
+            this.coalescingParser = new CoalescingPromptParser(this.hedgedParser, this.ollamaParser.getModel());
+            this.parser         = this.coalescingParser;
             LOG.info("Prompt parser: Ollama at " + this.ollamaParser.getBaseUrl()
                     + " model=" + this.ollamaParser.getModel()
                     + " profile=" + runtimeProfile(env)
@@ -85,13 +223,137 @@ public final class RestApiGeneratorServer implements AutoCloseable {
             // Fully deterministic — no LLM required
             this.ollamaParser   = null;
             this.cloudLlmParser = null;
+            this.hedgeParser    = null;
+            this.hedgedParser   = null;
+            this.coalescingParser = null;
             this.parser         = new NaturalLanguagePromptParser();
             LOG.info("Prompt parser: deterministic (set APP_ENV=local with OLLAMA_URL for local Ollama, or APP_ENV=production with LLM_API_KEY for Groq/cloud)");
         }
 
+        if (hedgeParser != null) {
+            LOG.info("Hedging slow prompts to " + hedgeParser.provider()
+                    + (latencyBudgetMillis > 0 ? ", latency budget " + latencyBudgetMillis + " ms" : ""));
+        } else if (latencyBudgetMillis > 0) {
+            LOG.info("LLM latency budget: " + latencyBudgetMillis + " ms (then deterministic)");
+        }
+
+        // The primary provider first, then the hedge, in /about and metrics alike.
+        long healthIntervalMillis = Math.max(0, parseLong(env.get(ENV_LLM_HEALTH_INTERVAL_SECONDS), 30)) * 1000;
+        Map<String, LlmHealth.Probe> probes = new LinkedHashMap<>();
+        List<LlmCircuitBreaker> circuits = new ArrayList<>(2);
+        if (ollamaParser != null) {
+            probes.put(ollamaParser.provider(), ollamaParser::probeAvailability);
+            circuits.add(ollamaParser.circuitBreaker());
+        }
+        if (cloudLlmParser != null) {
+            probes.put(cloudLlmParser.provider(), cloudLlmParser::probeAvailability);
+            circuits.add(cloudLlmParser.circuitBreaker());
+        }
+        if (hedgeParser instanceof OllamaPromptParser ollamaHedge) {
+            probes.put(ollamaHedge.provider(), ollamaHedge::probeAvailability);
+            circuits.add(ollamaHedge.circuitBreaker());
+        } else if (hedgeParser instanceof CloudLlmPromptParser cloudHedge) {
+            probes.put(cloudHedge.provider(), cloudHedge::probeAvailability);
+            circuits.add(cloudHedge.circuitBreaker());
+        }
+        this.llmHealth = probes.isEmpty() ? LlmHealth.none() : new LlmHealth(probes, healthIntervalMillis);
+        this.llmCircuits = List.copyOf(circuits);
+
+        metrics.registerRequestExecutor(executor);
+        metrics.registerLlmHealth(llmHealth);
+        llmCircuits.forEach(metrics::registerLlmCircuits);
+        metrics.registerGenerationLimit(generationLimit);
+        metrics.registerJobs(jobs);
+        LOG.info("Request executor: " + executorMode.name().toLowerCase(Locale.ROOT)
+                + " (code generation limit " + generationLimit.stats().limit() + ")");
         registerContexts();
     }
 
+    /** Whether the background health check last found {@code provider} down; routing avoids it then. */
+    private boolean llmDown(String provider) {
+        return llmHealth.down(provider);
+    }
+
+    /**
+     * Memory tier sized by {@code ARCHIVE_CACHE_MAX_BYTES} (default 64 MiB, 0 disables it).
+     * Setting {@code ARCHIVE_CACHE_DIR} adds a disk tier bounded by
+     * {@code ARCHIVE_CACHE_DISK_MAX_BYTES} (default 1 GiB); archives live in a per-version
+     * subdirectory so an upgrade never serves output of the previous generator.
+     */
+    static ArchiveCache createArchiveCache(Map<String, String> env) {
+        long maxBytes = parseLong(env.get(ENV_ARCHIVE_CACHE_MAX_BYTES), 64L * 1024 * 1024);
+        String directory = trimToNull(env.get(ENV_ARCHIVE_CACHE_DIR));
+        if (directory == null) {
+            return new ArchiveCache(maxBytes);
+        }
+        long maxDiskBytes = parseLong(env.get(ENV_ARCHIVE_CACHE_DISK_MAX_BYTES), 1024L * 1024 * 1024);
+        return new ArchiveCache(maxBytes, Path.of(directory).resolve(APP_VERSION), maxDiskBytes);
+    }
+
+    /**
+     * {@code JOB_WORKERS} (default 2) run queued jobs, at most {@code JOB_QUEUE_CAPACITY}
+     * (default 32) wait; archives are spooled to {@code JOB_SPOOL_DIR} (default a directory
+     * under {@code java.io.tmpdir}) and kept {@code JOB_TTL_SECONDS} (default 1 hour).
+     */
+    static GenerationJobs createGenerationJobs(Map<String, String> env) throws IOException {
+        String directory = trimToNull(env.get(ENV_JOB_SPOOL_DIR));
+        Path spool = directory != null ? Path.of(directory)
+                : Path.of(System.getProperty("java.io.tmpdir"), "rest-api-generator-jobs");
+        return new GenerationJobs(spool,
+                (int) parseLong(env.get(ENV_JOB_WORKERS), 2),
+                (int) parseLong(env.get(ENV_JOB_QUEUE_CAPACITY), 32),
+                parseLong(env.get(ENV_JOB_TTL_SECONDS), 60L * 60));
+    }
+
+    static PromptCache createPromptCache(Map<String, String> env) {
+        int maxEntries = (int) parseLong(env.get(ENV_PROMPT_CACHE_MAX_ENTRIES), 1000);
+        long ttlSeconds = parseLong(env.get(ENV_PROMPT_CACHE_TTL_SECONDS), 7L * 24 * 60 * 60);
+        String file = trimToNull(env.get(ENV_PROMPT_CACHE_FILE));
+        if (file == null) {
+            return new PromptCache(maxEntries, ttlSeconds);
+        }
+        long maxFileBytes = parseLong(env.get(ENV_PROMPT_CACHE_FILE_MAX_BYTES), 16L * 1024 * 1024);
+        return new PromptCache(maxEntries, ttlSeconds, Path.of(file), maxFileBytes);
+    }
+
+    /**
+     * Per-client limits from {@code RATE_LIMITS} ({@code /path=perMinute[:burst],...}, or
+     * {@code off}); LLM-bound requests leave {@code RATE_LIMIT_LLM_RESERVE} of each bucket
+     * (default half) to deterministic ones.
+     */
+    static RateLimiter createRateLimiter(Map<String, String> env) {
+        Map<String, RateLimiter.Limit> limits;
+        try {
+            limits = RateLimiter.parse(env.getOrDefault(ENV_RATE_LIMITS, DEFAULT_RATE_LIMITS));
+        } catch (IllegalArgumentException e) {
+            LOG.warning("Ignoring invalid " + ENV_RATE_LIMITS + " (" + e.getMessage() + "), using " + DEFAULT_RATE_LIMITS);
+            limits = RateLimiter.parse(DEFAULT_RATE_LIMITS);
+        }
+        return new RateLimiter(limits, parseDouble(env.get(ENV_RATE_LIMIT_LLM_RESERVE), 0.5));
+    }
+
+    private static long parseLong(String value, long fallback) {
+        String trimmed = trimToNull(value);
+        if (trimmed == null) return fallback;
+        try {
+            return Long.parseLong(trimmed);
+        } catch (NumberFormatException e) {
+            LOG.warning("Ignoring invalid number '" + trimmed + "', using " + fallback);
+            return fallback;
+        }
+    }
+
+    private static double parseDouble(String value, double fallback) {
+        String trimmed = trimToNull(value);
+        if (trimmed == null) return fallback;
+        try {
+            return Double.parseDouble(trimmed);
+        } catch (NumberFormatException e) {
+            LOG.warning("Ignoring invalid number '" + trimmed + "', using " + fallback);
+            return fallback;
+        }
+    }
+
     static PromptParserMode selectPromptParser(Map<String, String> env) {
         boolean hasCloud  = hasText(env.get(CloudLlmPromptParser.ENV_LLM_API_KEY));
         boolean hasOllama = hasText(env.get(OllamaPromptParser.ENV_OLLAMA_URL));
@@ -148,18 +410,36 @@ public final class RestApiGeneratorServer implements AutoCloseable {
         DETERMINISTIC
     }
 
-    public void start()  { server.start(); }
+    public void start()  {
+        server.start();
+        llmHealth.start();
+    }
 
     @Override
-    public void close()  { server.stop(0); }
+    public void close()  {
+        server.stop(0);
+        executor.shutdownNow();
+        batchExecutor.shutdownNow();
+        jobs.close();
+        llmHealth.close();
+        pluginRegistry.close();
+        promptCache.close();
+    }
 
     private void registerContexts() {
-        server.createContext("/generator/spec", new SpecHandler());
-        server.createContext("/generator/confidence", new ConfidenceHandler());
-        server.createContext("/generator/code", new CodeHandler());
-        server.createContext("/about",           new AboutHandler());
-        server.createContext("/health",          new HealthHandler());
-        server.createContext("/",                new StaticFileHandler());
+        Map<String, HttpHandler> handlers = new LinkedHashMap<>();
+        handlers.put("/generator/spec",       new SpecHandler());
+        handlers.put("/generator/spec/stream", new SpecStreamHandler());
+        handlers.put("/generator/confidence", new ConfidenceHandler());
+        handlers.put("/generator/code",       new CodeHandler());
+        handlers.put("/generator/code/delta", new CodeDeltaHandler());
+        handlers.put("/generator/batch",      new BatchHandler());
+        handlers.put("/generator/jobs",       new JobsHandler());
+        handlers.put("/about",                new AboutHandler());
+        handlers.put("/health",               new HealthHandler());
+        handlers.put("/metrics",              new MetricsHandler());
+        handlers.put("/",                     new StaticFileHandler());
+        handlers.forEach((path, handler) -> server.createContext(path, handler).getFilters().add(metrics.requestFilter()));
     }
 
     // ── CORS helper ───────────────────────────────────────────────────────────
@@ -167,7 +447,9 @@ public final class RestApiGeneratorServer implements AutoCloseable {
     private static void addCorsHeaders(HttpExchange exchange) {
         exchange.getResponseHeaders().set("Access-Control-Allow-Origin",  "*");
         exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, OPTIONS");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type, Accept");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type, Accept, If-None-Match");
+        exchange.getResponseHeaders().set("Access-Control-Expose-Headers", "ETag, Content-Disposition, Location, Retry-After, Server-Timing, " + SPEC_FINGERPRINT_HEADER);
+        exchange.getResponseHeaders().set("Timing-Allow-Origin", "*");
     }
 
     /** Returns true if this was a preflight OPTIONS request (already handled). */
@@ -191,37 +473,317 @@ public final class RestApiGeneratorServer implements AutoCloseable {
                 respond(exchange, 405, jsonError("METHOD_NOT_ALLOWED", "Only POST is supported"), "application/json");
                 return;
             }
-            String requestBody = readBody(exchange);
-            String prompt = extractPrompt(requestBody);
-            if (prompt.isBlank()) {
-                respond(exchange, 400, jsonError("MISSING_PROMPT", "Field 'prompt' is required and must not be blank"), "application/json");
-                return;
+            if (!admit(exchange, promptPriority())) return;
+            GenerationTrace trace = new GenerationTrace();
+            boolean debug = debugRequested(exchange);
+            String prompt = readPrompt(exchange, trace);
+            if (prompt == null) return;
+            // The exchange is completed by whichever thread finishes the parse; this one returns now.
+            CompletableFuture<HedgedPromptParser.Result> parsed;
+            long parseStarted = System.nanoTime();
+            try {
+                String userRequest = SpecInputExtractor.extractUserRequestOrWholeInput(prompt);
+                trace.since("extract", parseStarted);
+                parseStarted = System.nanoTime();
+                parsed = parseReportingSource(userRequest, latencyBudget(exchange));
+            } catch (RuntimeException e) {
+                parsed = CompletableFuture.failedFuture(e);
             }
-            // Basic length guard — prevents abuse
-            if (prompt.length() > 32_000) {
-                respond(exchange, 400, jsonError("PROMPT_TOO_LONG", "Prompt must be 32 000 characters or fewer"), "application/json");
+            long parseFrom = parseStarted;
+            parsed.whenComplete((result, error) -> {
+                try {
+                    trace.since("parse", parseFrom);
+                    if (error != null) {
+                        exchange.getResponseHeaders().set("Server-Timing", trace.serverTiming());
+                        respondParseFailure(exchange, error);
+                        return;
+                    }
+                    long validateStarted = System.nanoTime();
+                    SpecDiagnosticsValidator.ValidationReport report = diagnosticsValidator.validate(result.spec(), config);
+                    trace.since("validate", validateStarted);
+                    SpecResponse response = new SpecResponse(result.spec(), report.warnings(), report.errors(),
+                            report.fixSuggestions(), result.parsedBy(), result.fallbackReason(), debug ? Debug.of(trace) : null);
+                    byte[] payload = mapper.writeValueAsBytes(response);
+                    exchange.getResponseHeaders().set("Server-Timing", trace.serverTiming());
+                    respondCompressible(exchange, 200, payload, "application/json");
+                } catch (Exception e) {
+                    respondParseFailure(exchange, e);
+                } finally {
+                    metrics.requestCompleted(exchange);
+                }
+            });
+        }
+    }
+
+    /**
+     * Parses like {@link #parser}, also saying which parser produced the result when an LLM is
+     * configured. Identical prompts with the same budget share one parse.
+     */
+    private CompletableFuture<HedgedPromptParser.Result> parseReportingSource(String userRequest, long budgetMillis) {
+        if (hedgedParser == null) {
+            return parser.parseAsync(userRequest, config).thenApply(spec -> new HedgedPromptParser.Result(spec, null, null));
+        }
+        return coalescingParser.share(userRequest, config, "budget=" + budgetMillis,
+                () -> hedgedParser.parseHedged(userRequest, config, budgetMillis));
+    }
+
+    /** {@code ?budgetMs=} if given, otherwise {@value #ENV_LLM_LATENCY_BUDGET_MS}; 0 waits for the LLM. */
+    private long latencyBudget(HttpExchange exchange) {
+        long fallback = hedgedParser != null ? hedgedParser.budgetMillis() : 0;
+        return clampLatencyBudget(parseLong(queryParameters(exchange).get("budgetMs"), fallback));
+    }
+
+    /** 0 or less means no budget; otherwise between {@value #MIN_LATENCY_BUDGET_MS} and {@value #MAX_LATENCY_BUDGET_MS} ms. */
+    static long clampLatencyBudget(long millis) {
+        return millis <= 0 ? 0 : Math.max(MIN_LATENCY_BUDGET_MS, Math.min(MAX_LATENCY_BUDGET_MS, millis));
+    }
+
+    /** 503 when the LLM is at its in-flight limit, otherwise 500 with the parse error. */
+    private void respondParseFailure(HttpExchange exchange, Throwable error) {
+        Throwable cause = cause(error);
+        try {
+            if (cause instanceof LlmOverloadedException overloaded) {
+                respondOverloaded(exchange, overloaded);
+            } else {
+                respond(exchange, 500, jsonError("PARSE_ERROR", "Failed to parse prompt: " + sanitize(cause.getMessage())), "application/json");
+            }
+        } catch (IOException e) {
+            LOG.fine(() -> "Could not send parse failure: " + e.getMessage());
+            exchange.close();
+        }
+    }
+
+    private static Throwable cause(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * The prompt of a prompt request: the {@code prompt} field of a JSON object, or else the
+     * body as plain text. Answers 413 or 400 and returns {@code null} when the body is too
+     * large or the prompt is blank or too long.
+     */
+    private String readPrompt(HttpExchange exchange, GenerationTrace trace) throws IOException {
+        long started = System.nanoTime();
+        String prompt;
+        try {
+            RequestBody body = RequestBody.of(exchange, PROMPT_MAX_BODY_BYTES);
+            prompt = body.prompt(mapper);
+            trace.phaseFinished("read", body.readNanos());
+            trace.phaseFinished("decode", System.nanoTime() - started - body.readNanos());
+        } catch (RequestBody.TooLargeException e) {
+            respondTooLarge(exchange, e);
+            return null;
+        }
+        if (prompt.isBlank()) {
+            respond(exchange, 400, jsonError("MISSING_PROMPT", "Field 'prompt' is required and must not be blank"), "application/json");
+            return null;
+        }
+        // Basic length guard — prevents abuse
+        if (prompt.length() > MAX_PROMPT_CHARS) {
+            respond(exchange, 400, jsonError("PROMPT_TOO_LONG", "Prompt must be 32 000 characters or fewer"), "application/json");
+            return null;
+        }
+        return prompt;
+    }
+
+    /**
+     * Decodes a JSON body in one pass, recording read and decode time in {@code trace}. With
+     * {@code promptAllowed}, a prompt-only object comes back as a prompt. Answers 413 or 400
+     * and returns {@code null} when the body is too large or cannot be decoded.
+     */
+    private <T> RequestBody.Decoded<T> decodeBody(HttpExchange exchange, Class<T> type, boolean promptAllowed,
+                                                  GenerationTrace trace, String payload) throws IOException {
+        long started = System.nanoTime();
+        try {
+            RequestBody body = RequestBody.of(exchange, requestMaxBytes);
+            RequestBody.Decoded<T> decoded = promptAllowed
+                    ? body.decode(mapper, type)
+                    : new RequestBody.Decoded<>(null, body.read(mapper, type));
+            trace.phaseFinished("read", body.readNanos());
+            trace.phaseFinished("decode", System.nanoTime() - started - body.readNanos());
+            return decoded;
+        } catch (RequestBody.TooLargeException e) {
+            respondTooLarge(exchange, e);
+        } catch (JsonProcessingException e) {
+            respond(exchange, 400, jsonError("INVALID_SPEC", "invalid " + payload + " payload: " + sanitize(e.getOriginalMessage())), "application/json");
+        }
+        return null;
+    }
+
+    private void respondTooLarge(HttpExchange exchange, RequestBody.TooLargeException e) throws IOException {
+        // The rest of the body is never read, so the connection cannot be reused.
+        exchange.getResponseHeaders().set("Connection", "close");
+        respond(exchange, 413, jsonError("BODY_TOO_LARGE", e.getMessage()), "application/json");
+    }
+
+    // ── POST /generator/spec/stream ───────────────────────────────────────────
+
+    /**
+     * Same input as {@code /generator/spec}, answered as Server-Sent Events: an {@code entity}
+     * event per entity as soon as the LLM has finished describing it, then one {@code spec}
+     * event with the full {@link SpecResponse}, or an {@code error} event. Entity events are
+     * provisional; the {@code spec} event is authoritative.
+     */
+    private final class SpecStreamHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (handlePreflight(exchange)) return;
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                respond(exchange, 405, jsonError("METHOD_NOT_ALLOWED", "Only POST is supported"), "application/json");
                 return;
             }
+            if (!admit(exchange, promptPriority())) return;
+            String prompt = readPrompt(exchange, new GenerationTrace());
+            if (prompt == null) return;
+            EventStream events = new EventStream(exchange);
+            // Only Ollama streams; the other parsers report every entity when they finish.
+            PromptParser streaming = ollamaParser != null ? ollamaParser : parser;
+            CompletableFuture<ApiSpecification> parsed;
             try {
-                String userRequest = SpecInputExtractor.extractUserRequestOrWholeInput(prompt);
-                ApiSpecification spec = parser.parse(userRequest, config);
-                SpecDiagnosticsValidator.ValidationReport report = diagnosticsValidator.validate(spec, config);
-                SpecResponse response = new SpecResponse(spec, report.warnings(), report.errors(), report.fixSuggestions());
-                byte[] payload = mapper.writeValueAsBytes(response);
-                respond(exchange, 200, payload, "application/json");
-            } catch (Exception e) {
-                respond(exchange, 500, jsonError("PARSE_ERROR", "Failed to parse prompt: " + sanitize(e.getMessage())), "application/json");
+                parsed = streaming.parseStreaming(SpecInputExtractor.extractUserRequestOrWholeInput(prompt), config,
+                        entity -> events.send("entity", entity));
+            } catch (RuntimeException e) {
+                parsed = CompletableFuture.failedFuture(e);
+            }
+            if (!parsed.isCompletedExceptionally()) {
+                events.open();
+            }
+            parsed.whenComplete((spec, error) -> {
+                try {
+                    if (error != null && !events.opened()) {
+                        respondParseFailure(exchange, error);
+                        return;
+                    }
+                    if (error != null) {
+                        Throwable cause = cause(error);
+                        events.send("error", cause instanceof LlmOverloadedException
+                                ? new ErrorEvent("LLM_BUSY", sanitize(cause.getMessage()))
+                                : new ErrorEvent("PARSE_ERROR", "Failed to parse prompt: " + sanitize(cause.getMessage())));
+                        return;
+                    }
+                    SpecDiagnosticsValidator.ValidationReport report = diagnosticsValidator.validate(spec, config);
+                    events.send("spec", new SpecResponse(spec, report.warnings(), report.errors(), report.fixSuggestions(), null));
+                } catch (RuntimeException e) {
+                    events.send("error", new ErrorEvent("PARSE_ERROR", sanitize(e.getMessage())));
+                } finally {
+                    events.close();
+                    metrics.requestCompleted(exchange);
+                }
+            });
+        }
+    }
+
+    /**
+     * A {@code text/event-stream} response. Events may be sent from any thread; each is one
+     * line of compact JSON, flushed immediately. A client that goes away turns later sends
+     * into no-ops.
+     */
+    private final class EventStream {
+        private final HttpExchange exchange;
+        private OutputStream       out;
+        private boolean            broken;
+
+        EventStream(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        synchronized boolean opened() {
+            return out != null;
+        }
+
+        /** Sends the headers and a comment, so the client sees the first byte right away. */
+        synchronized void open() {
+            if (out != null || broken) return;
+            try {
+                addCorsHeaders(exchange);
+                exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+                exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+                exchange.getResponseHeaders().set("X-Accel-Buffering", "no");
+                exchange.sendResponseHeaders(200, 0);
+                out = exchange.getResponseBody();
+                write(": parsing\n\n");
+            } catch (IOException e) {
+                broken = true;
             }
         }
 
-        private String extractPrompt(String body) {
-            if (body.isEmpty()) return "";
+        synchronized void send(String event, Object data) {
+            open();
+            if (broken) return;
             try {
-                SpecRequest req = mapper.readValue(body, SpecRequest.class);
-                if (req.prompt() != null && !req.prompt().isBlank()) return req.prompt();
-            } catch (JsonProcessingException ignored) {}
-            return body;
+                write("event: " + event + "\ndata: " + mapper.writeValueAsString(data) + "\n\n");
+            } catch (IOException e) {
+                LOG.fine(() -> "Event stream closed by client: " + e.getMessage());
+                broken = true;
+            }
+        }
+
+        synchronized void close() {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    LOG.fine(() -> "Could not close event stream: " + e.getMessage());
+                }
+            }
+            exchange.close();
+        }
+
+        private void write(String text) throws IOException {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+    }
+
+    /**
+     * Takes a token from the client's bucket for this endpoint. Over the limit, answers
+     * {@code 429} with the whole seconds until a token is free and returns {@code false}.
+     */
+    private boolean admit(HttpExchange exchange, RateLimiter.Priority priority) throws IOException {
+        return admitted(exchange, rateLimiter.tryAcquire(exchange.getHttpContext().getPath(), clientAddress(exchange), priority));
+    }
+
+    /**
+     * For a body admitted by {@link #admit} at deterministic priority before it was read: a
+     * prompt must also fit the LLM share of the bucket, otherwise it is refused as above.
+     */
+    private boolean admitPrompt(HttpExchange exchange) throws IOException {
+        return admitted(exchange, rateLimiter.escalate(exchange.getHttpContext().getPath(), clientAddress(exchange), promptPriority()));
+    }
+
+    private boolean admitted(HttpExchange exchange, long waitNanos) throws IOException {
+        if (waitNanos == 0) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Retry-After", String.valueOf(Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L)));
+        respond(exchange, 429, jsonError("RATE_LIMITED", "Too many requests from this client; retry later"), "application/json");
+        return false;
+    }
+
+    /** Requests whose prompt may go to an LLM; in deterministic mode nothing does. */
+    private RateLimiter.Priority promptPriority() {
+        return coalescingParser != null ? RateLimiter.Priority.LLM : RateLimiter.Priority.DETERMINISTIC;
+    }
+
+    /**
+     * The peer address, or behind a trusted reverse proxy ({@code RATE_LIMIT_TRUST_PROXY=true})
+     * the last {@code X-Forwarded-For} hop, which is the one that proxy added itself.
+     */
+    private String clientAddress(HttpExchange exchange) {
+        if (trustForwardedFor) {
+            String forwarded = exchange.getRequestHeaders().getFirst("X-Forwarded-For");
+            if (hasText(forwarded)) {
+                return forwarded.substring(forwarded.lastIndexOf(',') + 1).trim();
+            }
         }
+        return exchange.getRemoteAddress().getAddress().getHostAddress();
+    }
+
+    /** 503 with a {@code Retry-After} hint: the LLM provider is at its in-flight limit. */
+    private void respondOverloaded(HttpExchange exchange, LlmOverloadedException e) throws IOException {
+        metrics.llmRejected(e);
+        exchange.getResponseHeaders().set("Retry-After", String.valueOf(e.retryAfterSeconds()));
+        respond(exchange, 503, jsonError("LLM_BUSY", sanitize(e.getMessage()) + "; retry later"), "application/json");
     }
 
     // ── POST /generator/code ──────────────────────────────────────────────────
@@ -234,50 +796,592 @@ public final class RestApiGeneratorServer implements AutoCloseable {
                 respond(exchange, 405, jsonError("METHOD_NOT_ALLOWED", "Only POST is supported"), "application/json");
                 return;
             }
-            String requestBody = readBody(exchange);
-            if (requestBody.isEmpty()) {
+            GenerationConfig.ArchiveConfig compression = requestedArchive(exchange);
+            if (compression == null) return;
+            // Admitted before the body is read, so a client over its limit costs no decoding.
+            if (!admit(exchange, RateLimiter.Priority.DETERMINISTIC)) return;
+            GenerationTrace trace = new GenerationTrace();
+            RequestBody.Decoded<ApiSpecification> decoded = decodeBody(exchange, ApiSpecification.class, true, trace, "spec");
+            if (decoded == null) return;
+            if (decoded.isEmpty()) {
                 respond(exchange, 400, jsonError("MISSING_SPEC", "Request body (API spec JSON) is required"), "application/json");
                 return;
             }
             ApiSpecification spec;
-            try {
-                spec = mapper.readValue(requestBody, ApiSpecification.class);
-            } catch (JsonProcessingException e) {
-                // Fallback: try parsing as a prompt instead of a spec
+            long started;
+            if (decoded.isPrompt()) {
+                String prompt = decoded.prompt();
+                LOG.info("Detected prompt-only payload; auto-parsing: " + (prompt.length() > 50 ? prompt.substring(0, 50) + "..." : prompt));
+                if (!admitPrompt(exchange)) return;
                 try {
-                    var promptJson = mapper.readTree(requestBody);
-                    if (promptJson.has("prompt") && !promptJson.has("projectName")) {
-                        String prompt = promptJson.get("prompt").asText();
-                        LOG.info("Detected prompt-only payload; auto-parsing: " + (prompt.length() > 50 ? prompt.substring(0, 50) + "..." : prompt));
-                        spec = parser.parse(prompt, config);
-                    } else {
-                        throw e;
-                    }
-                } catch (Exception fallbackErr) {
-                    respond(exchange, 400, jsonError("INVALID_SPEC", "invalid spec payload: " + sanitize(e.getMessage())), "application/json");
+                    started = System.nanoTime();
+                    spec = parser.parse(prompt, config);
+                    trace.since("parse", started);
+                } catch (LlmOverloadedException overloaded) {
+                    respondOverloaded(exchange, overloaded);
+                    return;
+                } catch (Exception parseError) {
+                    respond(exchange, 400, jsonError("INVALID_SPEC", "invalid spec payload: " + sanitize(parseError.getMessage())), "application/json");
                     return;
                 }
+            } else {
+                spec = decoded.value();
             }
+            String filename = (spec.projectName != null && !spec.projectName.isBlank())
+                    ? spec.projectName + ".zip"
+                    : "scaffold.zip";
+            ChunkedResponseBody body = null;
             try {
+                started = System.nanoTime();
                 ConfidenceResponse confidence = evaluateConfidence(spec);
+                trace.since("validate", started);
                 if (confidenceFailPolicyEnabled && "fail".equals(confidence.confidenceStatus())) {
                     respond(exchange, 400, jsonError("CONFIDENCE_FAIL", confidence.reason()), "application/json");
                     return;
                 }
-                byte[] zip = codeGenerator.generateZip(spec, configWithSecurityHint(spec, config));
-                String filename = (spec.projectName != null && !spec.projectName.isBlank())
-                        ? spec.projectName + ".zip"
-                        : "scaffold.zip";
-                exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"" + filename + "\"");
-                respond(exchange, 200, zip, "application/zip");
+                GenerationConfig generationConfig = configWithSecurityHint(spec, config).withArchive(compression);
+                // Equal fingerprints mean equal archives, so the fingerprint doubles as a strong ETag.
+                started = System.nanoTime();
+                String fingerprint = codeGenerator.fingerprint(spec, generationConfig);
+                trace.since("fingerprint", started);
+                String etag = "\"" + fingerprint + "\"";
+                rememberSpec(fingerprint, spec);
+                // A debug archive carries one more entry, so it is neither the cached nor the tagged one.
+                boolean debug = debugRequested(exchange);
+                if (!debug && etagMatches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+                    exchange.getResponseHeaders().set("ETag", etag);
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+                String disposition = "attachment; filename=\"" + filename + "\"";
+                Map<String, String> headers = debug
+                        ? Map.of("Content-Disposition", disposition, SPEC_FINGERPRINT_HEADER, fingerprint)
+                        : Map.of("Content-Disposition", disposition, "ETag", etag, SPEC_FINGERPRINT_HEADER, fingerprint);
+                byte[] cached = debug ? null : archiveCache.get(fingerprint);
+                if (cached != null) {
+                    headers.forEach(exchange.getResponseHeaders()::set);
+                    exchange.getResponseHeaders().set("Server-Timing", trace.serverTiming());
+                    respond(exchange, 200, cached, "application/zip");
+                    metrics.archiveSent("/generator/code", cached.length);
+                    return;
+                }
+                // Streams straight into the chunked response body, keeping a copy only while
+                // the archive is small enough to cache. Headers go out with the first archive
+                // byte, so Server-Timing covers everything up to the start of zipping; with
+                // ?debug=true the full breakdown follows as the archive's last entry.
+                body = new ChunkedResponseBody(exchange, "application/zip", headers, trace);
+                CapturingOutputStream capture = debug ? null : new CapturingOutputStream(body, archiveCache.maxEntryBytes());
+                try (ConcurrencyLimit.Permit ignored = generationLimit.acquire()) {
+                    codeGenerator.generateZip(spec, generationConfig, capture != null ? capture : body, trace,
+                            debug ? () -> debugEntry(trace) : null);
+                }
+                body.close();
+                exchange.close();
+                metrics.archiveSent("/generator/code", body.written());
+                byte[] archive = capture != null ? capture.captured() : null;
+                if (archive != null) {
+                    archiveCache.put(fingerprint, archive);
+                }
             } catch (IllegalArgumentException e) {
-                respond(exchange, 400, jsonError("BAD_SPEC", sanitize(e.getMessage())), "application/json");
+                respondUnlessCommitted(exchange, body, 400, jsonError("BAD_SPEC", sanitize(e.getMessage())));
             } catch (Exception e) {
-                respond(exchange, 500, jsonError("GENERATION_ERROR", "Code generation failed"), "application/json");
+                respondUnlessCommitted(exchange, body, 500, jsonError("GENERATION_ERROR", "Code generation failed"));
             }
         }
     }
 
+    // ── POST /generator/code/delta ────────────────────────────────────────────
+
+    private final class CodeDeltaHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (handlePreflight(exchange)) return;
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                respond(exchange, 405, jsonError("METHOD_NOT_ALLOWED", "Only POST is supported"), "application/json");
+                return;
+            }
+            GenerationConfig.ArchiveConfig compression = requestedArchive(exchange);
+            if (compression == null) return;
+            if (!admit(exchange, RateLimiter.Priority.DETERMINISTIC)) return;
+            RequestBody.Decoded<DeltaRequest> decoded = decodeBody(exchange, DeltaRequest.class, false, new GenerationTrace(), "delta");
+            if (decoded == null) return;
+            DeltaRequest request = decoded.value();
+            if (request == null || request.spec() == null) {
+                respond(exchange, 400, jsonError("MISSING_SPEC", "Request body must contain 'spec'"), "application/json");
+                return;
+            }
+            ApiSpecification previous = request.previousSpec();
+            if (previous == null) {
+                String previousFingerprint = trimToNull(request.previousFingerprint());
+                if (previousFingerprint == null) {
+                    respond(exchange, 400, jsonError("MISSING_PREVIOUS_SPEC", "Provide 'previousSpec' or 'previousFingerprint'"), "application/json");
+                    return;
+                }
+                previous = recentSpecs.get(previousFingerprint.replace("\"", ""));
+                if (previous == null) {
+                    respond(exchange, 412, jsonError("UNKNOWN_PREVIOUS_FINGERPRINT",
+                            "No recent spec with that fingerprint; send 'previousSpec' instead"), "application/json");
+                    return;
+                }
+            }
+
+            ApiSpecification spec = request.spec();
+            String filename = (spec.projectName != null && !spec.projectName.isBlank())
+                    ? spec.projectName + "-delta.zip"
+                    : "scaffold-delta.zip";
+            ChunkedResponseBody body = null;
+            try {
+                ConfidenceResponse confidence = evaluateConfidence(spec);
+                if (confidenceFailPolicyEnabled && "fail".equals(confidence.confidenceStatus())) {
+                    respond(exchange, 400, jsonError("CONFIDENCE_FAIL", confidence.reason()), "application/json");
+                    return;
+                }
+                GenerationConfig generationConfig = configWithSecurityHint(spec, config).withArchive(compression);
+                // The delta is not the archive the fingerprint names, and depends on the previous
+                // spec as well, so the fingerprint goes out in its own header rather than as an ETag.
+                String fingerprint = codeGenerator.fingerprint(spec, generationConfig);
+                body = new ChunkedResponseBody(exchange, "application/zip", Map.of(
+                        "Content-Disposition", "attachment; filename=\"" + filename + "\"",
+                        SPEC_FINGERPRINT_HEADER, fingerprint));
+                try (ConcurrencyLimit.Permit ignored = generationLimit.acquire()) {
+                    codeGenerator.generateDeltaZip(previous, configWithSecurityHint(previous, config), spec, generationConfig, body);
+                }
+                body.close();
+                exchange.close();
+                metrics.archiveSent("/generator/code/delta", body.written());
+                rememberSpec(fingerprint, spec);
+            } catch (IllegalArgumentException e) {
+                respondUnlessCommitted(exchange, body, 400, jsonError("BAD_SPEC", sanitize(e.getMessage())));
+            } catch (Exception e) {
+                respondUnlessCommitted(exchange, body, 500, jsonError("GENERATION_ERROR", "Code generation failed"));
+            }
+        }
+    }
+
+    // ── POST /generator/batch ─────────────────────────────────────────────────
+
+    /**
+     * One prompt or specification per NDJSON line, processed {@code ?concurrency=} at a time
+     * (capped by {@code BATCH_MAX_CONCURRENCY}). A line may carry an {@code id} that is echoed
+     * back; a line with {@code prompt} and no {@code projectName} is parsed first, and a
+     * specification may also be wrapped as {@code {"spec": ...}}. A failing item becomes an
+     * error result and never affects the others.
+     *
+     * <p>{@code ?format=ndjson} (default) answers one result line per item in completion
+     * order, then a {@code summary} line; each generated archive is put in the archive cache,
+     * so fetching it from {@code /generator/code} with the returned spec is a cache hit.
+     * {@code ?format=zip} answers one archive with a folder per project and a
+     * {@code batch-summary.json} at the end.
+     */
+    private final class BatchHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (handlePreflight(exchange)) return;
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                respond(exchange, 405, jsonError("METHOD_NOT_ALLOWED", "Only POST is supported"), "application/json");
+                return;
+            }
+            Map<String, String> query = queryParameters(exchange);
+            String format = query.getOrDefault("format", "ndjson").toLowerCase(Locale.ROOT);
+            if (!format.equals("ndjson") && !format.equals("zip")) {
+                respond(exchange, 400, jsonError("INVALID_FORMAT", "'format' must be ndjson or zip"), "application/json");
+                return;
+            }
+            long requested = parseLong(query.get("concurrency"), batchMaxConcurrency);
+            int concurrency = (int) Math.min(Math.max(1, requested), batchMaxConcurrency);
+            GenerationConfig.ArchiveConfig compression = requestedArchive(exchange);
+            if (compression == null) return;
+            // The batch's own token pays for its first prompt; every further prompt is charged
+            // as it is decoded (see chargeBatchPrompt).
+            if (!admit(exchange, RateLimiter.Priority.DETERMINISTIC)) return;
+            String client = clientAddress(exchange);
+            AtomicBoolean admissionSpent = new AtomicBoolean();
+
+            boolean zip = format.equals("zip");
+            ChunkedResponseBody body = new ChunkedResponseBody(exchange, zip ? "application/zip" : "application/x-ndjson",
+                    zip ? Map.of("Content-Disposition", "attachment; filename=\"batch.zip\"") : Map.of());
+            BatchArchive archive = zip ? new BatchArchive(body, compression) : null;
+            List<BatchResult> results = Collections.synchronizedList(new ArrayList<>());
+            AtomicBoolean broken = new AtomicBoolean();
+            Semaphore permits = new Semaphore(concurrency);
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+            long started = System.nanoTime();
+            int items = 0;
+            // Why reading stopped early; it has no result line of its own until the end.
+            BatchResult stopped = null;
+            int maxLineBytes = (int) Math.min(requestMaxBytes, Integer.MAX_VALUE - 8);
+            try (RequestBody in = RequestBody.of(exchange, batchMaxBytes)) {
+                RequestBody.Lines lines = in.lines(maxLineBytes);
+                while (!broken.get()) {
+                    String line;
+                    BatchResult tooLong = null;
+                    try {
+                        line = lines.next();
+                    } catch (RequestBody.LineTooLongException e) {
+                        line = null;
+                        tooLong = BatchResult.failed(items, null, "BODY_TOO_LARGE", e.getMessage(), 0);
+                    }
+                    if (line == null && tooLong == null) break;
+                    if (tooLong == null && line.isBlank()) continue;
+                    int index = items++;
+                    if (index >= batchMaxItems) {
+                        stopped = BatchResult.failed(index, null, "TOO_MANY_ITEMS",
+                                "Batches are limited to " + batchMaxItems + " items; the rest was not read", 0);
+                        break;
+                    }
+                    if (tooLong != null) {
+                        deliver(BatchItem.failed(tooLong), results, archive, body, broken);
+                        continue;
+                    }
+                    String item = line;
+                    permits.acquireUninterruptibly();
+                    pending.add(CompletableFuture.runAsync(() -> {
+                        try {
+                            deliver(processBatchItem(index, item, compression, zip, client, admissionSpent), results, archive, body, broken);
+                        } finally {
+                            permits.release();
+                        }
+                    }, batchExecutor));
+                }
+            } catch (RequestBody.TooLargeException e) {
+                stopped = BatchResult.failed(items, null, "BODY_TOO_LARGE",
+                        "Batches are limited to " + e.limit() + " bytes; the rest was not read", 0);
+            } catch (IOException e) {
+                stopped = BatchResult.failed(items, null, "READ_ERROR", "Could not read the request body: " + sanitize(e.getMessage()), 0);
+            }
+            if (stopped != null) {
+                results.add(stopped);
+            }
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+
+            try {
+                BatchSummary summary = BatchSummary.of(results, concurrency, System.nanoTime() - started);
+                if (zip) {
+                    List<BatchResult> ordered = new ArrayList<>(results);
+                    ordered.sort(Comparator.comparingInt(BatchResult::index));
+                    archive.finish(mapper.writerWithDefaultPrettyPrinter()
+                            .writeValueAsBytes(Map.of("summary", summary, "items", ordered)));
+                } else {
+                    if (stopped != null) {
+                        writeLine(body, stopped);
+                    }
+                    writeLine(body, Map.of("summary", summary));
+                }
+                body.close();
+                exchange.close();
+                if (zip) {
+                    metrics.archiveSent("/generator/batch", body.written());
+                }
+            } catch (IOException e) {
+                LOG.fine(() -> "Batch response aborted: " + e.getMessage());
+                exchange.close();
+            }
+        }
+
+        /** Records an item's result and sends it; a failed write marks the response as broken. */
+        private void deliver(BatchItem processed, List<BatchResult> results, BatchArchive archive,
+                             ChunkedResponseBody body, AtomicBoolean broken) {
+            results.add(processed.result());
+            try {
+                if (archive != null) {
+                    archive.add(processed);
+                } else {
+                    writeLine(body, processed.result());
+                }
+            } catch (IOException e) {
+                broken.set(true);
+            }
+        }
+
+        private void writeLine(ChunkedResponseBody body, Object value) throws IOException {
+            byte[] line = mapper.writeValueAsBytes(value);
+            synchronized (body) {
+                body.write(line);
+                body.write('\n');
+                body.flush();
+            }
+        }
+    }
+
+    /**
+     * Runs one batch line through parsing, validation and generation; failures become its result.
+     * A prompt is rate limited like a request to {@code /generator/spec} would be.
+     */
+    private BatchItem processBatchItem(int index, String line, GenerationConfig.ArchiveConfig compression, boolean keepFiles,
+                                       String client, AtomicBoolean admissionSpent) {
+        long started = System.nanoTime();
+        String id = null;
+        try {
+            JsonNode node = mapper.readTree(line);
+            if (!(node instanceof ObjectNode item)) {
+                return BatchItem.failed(BatchResult.failed(index, null, "INVALID_ITEM", "Each line must be a JSON object", started));
+            }
+            JsonNode idNode = item.remove("id");
+            id = idNode == null || idNode.isNull() ? null : idNode.asText();
+            ApiSpecification spec;
+            if (item.has("prompt") && !item.has("projectName")) {
+                long waitNanos = chargeBatchPrompt(client, admissionSpent);
+                if (waitNanos != 0) {
+                    return BatchItem.failed(BatchResult.failed(index, id, "RATE_LIMITED", "Too many prompts from this client; retry in "
+                            + Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L) + "s", started));
+                }
+                spec = parser.parse(SpecInputExtractor.extractUserRequestOrWholeInput(item.get("prompt").asText()), config);
+            } else {
+                spec = mapper.treeToValue(item.has("spec") ? item.get("spec") : item, ApiSpecification.class);
+            }
+            ConfidenceResponse confidence = evaluateConfidence(spec);
+            if (confidenceFailPolicyEnabled && "fail".equals(confidence.confidenceStatus())) {
+                return BatchItem.failed(BatchResult.failed(index, id, "CONFIDENCE_FAIL", confidence.reason(), started));
+            }
+            GenerationConfig generationConfig = configWithSecurityHint(spec, config).withArchive(compression);
+            String fingerprint = codeGenerator.fingerprint(spec, generationConfig);
+            rememberSpec(fingerprint, spec);
+            try (ConcurrencyLimit.Permit ignored = generationLimit.acquire()) {
+                if (keepFiles) {
+                    List<GeneratedFile> files = codeGenerator.generateFiles(spec, generationConfig);
+                    return new BatchItem(BatchResult.succeeded(index, id, spec, fingerprint, files.size(), null, null, false, started), files);
+                }
+                byte[] archive = archiveCache.get(fingerprint);
+                boolean cached = archive != null;
+                if (archive == null) {
+                    archive = codeGenerator.generateZip(spec, generationConfig);
+                    cached = archiveCache.put(fingerprint, archive);
+                }
+                return new BatchItem(BatchResult.succeeded(index, id, spec, fingerprint, null, (long) archive.length, cached, true, started), null);
+            }
+        } catch (JsonProcessingException e) {
+            return BatchItem.failed(BatchResult.failed(index, id, "INVALID_ITEM", "invalid item: " + sanitize(e.getOriginalMessage()), started));
+        } catch (LlmOverloadedException e) {
+            return BatchItem.failed(BatchResult.failed(index, id, "LLM_BUSY", sanitize(e.getMessage()), started));
+        } catch (IllegalArgumentException e) {
+            return BatchItem.failed(BatchResult.failed(index, id, "BAD_SPEC", sanitize(e.getMessage()), started));
+        } catch (Exception e) {
+            LOG.warning("Batch item " + index + " failed: " + e);
+            return BatchItem.failed(BatchResult.failed(index, id, "GENERATION_ERROR", "Code generation failed", started));
+        }
+    }
+
+    /**
+     * Takes a prompt's token from the client's {@code /generator/batch} bucket. The first prompt
+     * holds the token that admitted the batch to the LLM share; each later one takes its own.
+     */
+    private long chargeBatchPrompt(String client, AtomicBoolean admissionSpent) {
+        RateLimiter.Priority priority = promptPriority();
+        return admissionSpent.compareAndSet(false, true)
+                ? rateLimiter.escalate("/generator/batch", client, priority)
+                : rateLimiter.tryAcquire("/generator/batch", client, priority);
+    }
+
+    // ── /generator/jobs ───────────────────────────────────────────────────────
+
+    /**
+     * {@code POST /generator/jobs} takes the same body as {@code /generator/code} and answers
+     * {@code 202} with the queued job's status and a {@code Location} to poll, or {@code 503}
+     * when the job queue is full. {@code GET /generator/jobs/{id}} reports the job's state and
+     * per-plugin progress; once it has succeeded, {@code GET /generator/jobs/{id}/archive}
+     * streams the spooled archive. Jobs are forgotten {@code JOB_TTL_SECONDS} after they finish.
+     */
+    private final class JobsHandler implements HttpHandler {
+        private static final String PREFIX = "/generator/jobs";
+        private static final int QUEUE_FULL_RETRY_SECONDS = 5;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (handlePreflight(exchange)) return;
+            String[] path = exchange.getRequestURI().getPath().substring(PREFIX.length()).replaceAll("^/+|/+$", "").split("/");
+            String method = exchange.getRequestMethod();
+            if (path[0].isEmpty()) {
+                if (!"POST".equalsIgnoreCase(method)) {
+                    respond(exchange, 405, jsonError("METHOD_NOT_ALLOWED", "Only POST is supported"), "application/json");
+                    return;
+                }
+                submit(exchange);
+                return;
+            }
+            if (path.length > 2 || (path.length == 2 && !path[1].equals("archive"))) {
+                respond(exchange, 404, jsonError("NOT_FOUND", "No resource at " + exchange.getRequestURI().getPath()), "application/json");
+                return;
+            }
+            if (!"GET".equalsIgnoreCase(method)) {
+                respond(exchange, 405, jsonError("METHOD_NOT_ALLOWED", "Only GET is supported"), "application/json");
+                return;
+            }
+            GenerationJobs.Job job = jobs.get(path[0]);
+            if (job == null) {
+                respond(exchange, 404, jsonError("UNKNOWN_JOB", "No job with that id; finished jobs expire"), "application/json");
+                return;
+            }
+            if (path.length == 1) {
+                exchange.getResponseHeaders().set("Cache-Control", "no-store");
+                respond(exchange, 200, mapper.writeValueAsBytes(jobs.status(job)), "application/json");
+            } else {
+                sendArchive(exchange, job);
+            }
+        }
+
+        private void submit(HttpExchange exchange) throws IOException {
+            GenerationConfig.ArchiveConfig compression = requestedArchive(exchange);
+            if (compression == null) return;
+            if (!admit(exchange, RateLimiter.Priority.DETERMINISTIC)) return;
+            RequestBody.Decoded<ApiSpecification> decoded = decodeBody(exchange, ApiSpecification.class, true, new GenerationTrace(), "spec");
+            if (decoded == null) return;
+            if (decoded.isEmpty()) {
+                respond(exchange, 400, jsonError("MISSING_SPEC", "Request body (API spec JSON) is required"), "application/json");
+                return;
+            }
+            if (decoded.isPrompt() && !admitPrompt(exchange)) return;
+
+            GenerationJobs.Job job;
+            try {
+                job = jobs.submit((progress, out) -> runJob(decoded.prompt(), decoded.value(), compression, progress, out));
+            } catch (RejectedExecutionException e) {
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(QUEUE_FULL_RETRY_SECONDS));
+                respond(exchange, 503, jsonError("JOBS_BUSY", "The job queue is full; retry later"), "application/json");
+                return;
+            }
+            exchange.getResponseHeaders().set("Location", PREFIX + "/" + job.id());
+            respond(exchange, 202, mapper.writeValueAsBytes(jobs.status(job)), "application/json");
+        }
+
+        private void sendArchive(HttpExchange exchange, GenerationJobs.Job job) throws IOException {
+            if (job.state() == GenerationJobs.State.FAILED) {
+                respond(exchange, 409, jsonError("JOB_FAILED", "The job failed; see its status for the reason"), "application/json");
+                return;
+            }
+            if (job.state() != GenerationJobs.State.SUCCEEDED) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 409, jsonError("JOB_NOT_FINISHED", "The job has not finished yet"), "application/json");
+                return;
+            }
+            GenerationJobs.Result result = job.result();
+            String etag = "\"" + result.fingerprint() + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etagMatches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+                addCorsHeaders(exchange);
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            // Opened before the headers go out: once open, the sweeper deleting the file no
+            // longer affects this response.
+            InputStream archive;
+            try {
+                archive = Files.newInputStream(jobs.archive(job));
+            } catch (NoSuchFileException e) {
+                respond(exchange, 410, jsonError("JOB_EXPIRED", "The job's archive has expired"), "application/json");
+                return;
+            }
+            String filename = hasText(result.projectName()) ? result.projectName() + ".zip" : "scaffold.zip";
+            try (archive) {
+                addCorsHeaders(exchange);
+                exchange.getResponseHeaders().set("Content-Type", "application/zip");
+                exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"" + filename + "\"");
+                exchange.sendResponseHeaders(200, job.archiveBytes());
+                try (OutputStream out = exchange.getResponseBody()) {
+                    archive.transferTo(out);
+                }
+            }
+            metrics.archiveSent(PREFIX, job.archiveBytes());
+        }
+    }
+
+    /** The work of one job: parse the prompt if there is one, check confidence, and write the archive. */
+    private GenerationJobs.Result runJob(String prompt, ApiSpecification decoded, GenerationConfig.ArchiveConfig compression,
+                                         GenerationListener progress, OutputStream out) throws Exception {
+        try {
+            ApiSpecification spec = prompt != null
+                    ? parser.parse(SpecInputExtractor.extractUserRequestOrWholeInput(prompt), config)
+                    : decoded;
+            ConfidenceResponse confidence = evaluateConfidence(spec);
+            if (confidenceFailPolicyEnabled && "fail".equals(confidence.confidenceStatus())) {
+                throw new GenerationJobs.JobFailedException("CONFIDENCE_FAIL", confidence.reason());
+            }
+            GenerationConfig generationConfig = configWithSecurityHint(spec, config).withArchive(compression);
+            String fingerprint = codeGenerator.fingerprint(spec, generationConfig);
+            rememberSpec(fingerprint, spec);
+            byte[] cached = archiveCache.get(fingerprint);
+            if (cached != null) {
+                out.write(cached);
+            } else {
+                try (ConcurrencyLimit.Permit ignored = generationLimit.acquire()) {
+                    codeGenerator.generateZip(spec, generationConfig, out, progress);
+                }
+            }
+            return new GenerationJobs.Result(spec.projectName, fingerprint);
+        } catch (LlmOverloadedException e) {
+            metrics.llmRejected(e);
+            throw new GenerationJobs.JobFailedException("LLM_BUSY", sanitize(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            throw new GenerationJobs.JobFailedException("BAD_SPEC", sanitize(e.getMessage()));
+        }
+    }
+
+    /**
+     * Archive settings for this request: the configured ones, overridden by {@code ?compression=}
+     * (a preset name or a deflate level 0-9) and {@code ?parallel=true|false}. Responds with
+     * 400 and returns {@code null} when a value is not recognised.
+     */
+    private GenerationConfig.ArchiveConfig requestedArchive(HttpExchange exchange) throws IOException {
+        GenerationConfig.ArchiveConfig base = config.archive();
+        try {
+            Map<String, String> query = queryParameters(exchange);
+            String compression = trimToNull(query.get("compression"));
+            String parallel = trimToNull(query.get("parallel"));
+            if (compression == null && parallel == null) {
+                return base;
+            }
+            String preset = base.compression();
+            Integer level = base.level();
+            if (compression != null) {
+                boolean isLevel = compression.length() == 1 && Character.isDigit(compression.charAt(0));
+                preset = isLevel ? "default" : compression;
+                level = isLevel ? Integer.valueOf(compression) : null;
+            }
+            if (parallel != null && !"true".equalsIgnoreCase(parallel) && !"false".equalsIgnoreCase(parallel)) {
+                throw new IllegalArgumentException("'parallel' must be true or false");
+            }
+            return new GenerationConfig.ArchiveConfig(preset, level, parallel == null ? base.parallel() : Boolean.parseBoolean(parallel));
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, jsonError("INVALID_COMPRESSION", sanitize(e.getMessage())), "application/json");
+            return null;
+        }
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        Map<String, String> parameters = new LinkedHashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            parameters.putIfAbsent(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    /** The {@link #DEBUG_ENTRY_PATH} entry of a debug archive: the request's timings up to its last entry. */
+    private GeneratedFile debugEntry(GenerationTrace trace) {
+        try {
+            return new GeneratedFile(DEBUG_ENTRY_PATH, mapper.writeValueAsString(Debug.of(trace)));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** {@code ?debug=true}: include per-phase timings in the response, not only in {@code Server-Timing}. */
+    private static boolean debugRequested(HttpExchange exchange) {
+        return "true".equalsIgnoreCase(queryParameters(exchange).get("debug"));
+    }
+
+    /** Keeps the spec behind an archive ETag so a later delta request can refer to it by fingerprint. */
+    private void rememberSpec(String fingerprint, ApiSpecification spec) {
+        recentSpecs.put(fingerprint, spec);
+    }
+
     // ── POST /generator/confidence ────────────────────────────────────────────
 
     private final class ConfidenceHandler implements HttpHandler {
@@ -288,19 +1392,23 @@ public final class RestApiGeneratorServer implements AutoCloseable {
                 respond(exchange, 405, jsonError("METHOD_NOT_ALLOWED", "Only POST is supported"), "application/json");
                 return;
             }
-            String requestBody = readBody(exchange);
-            if (requestBody.isEmpty()) {
+            if (!admit(exchange, RateLimiter.Priority.DETERMINISTIC)) return;
+            GenerationTrace trace = new GenerationTrace();
+            RequestBody.Decoded<ApiSpecification> decoded = decodeBody(exchange, ApiSpecification.class, false, trace, "spec");
+            if (decoded == null) return;
+            if (decoded.isEmpty()) {
                 respond(exchange, 400, jsonError("MISSING_SPEC", "Request body (API spec JSON) is required"), "application/json");
                 return;
             }
 
-            try {
-                ApiSpecification spec = mapper.readValue(requestBody, ApiSpecification.class);
-                ConfidenceResponse confidence = evaluateConfidence(spec);
-                respond(exchange, 200, mapper.writeValueAsBytes(confidence), "application/json");
-            } catch (JsonProcessingException e) {
-                respond(exchange, 400, jsonError("INVALID_SPEC", "invalid spec payload: " + sanitize(e.getMessage())), "application/json");
+            long started = System.nanoTime();
+            ConfidenceResponse confidence = evaluateConfidence(decoded.value());
+            trace.since("validate", started);
+            if (debugRequested(exchange)) {
+                confidence = confidence.withDebug(Debug.of(trace));
             }
+            exchange.getResponseHeaders().set("Server-Timing", trace.serverTiming());
+            respond(exchange, 200, mapper.writeValueAsBytes(confidence), "application/json");
         }
     }
 
@@ -319,13 +1427,14 @@ public final class RestApiGeneratorServer implements AutoCloseable {
             boolean llmAvailable;
             String  parserMode;
 
+            // Last result of the background probe; asking the provider here would block for seconds.
             if (ollamaParser != null) {
                 llmConfigured = true;
-                llmAvailable  = ollamaParser.isAvailable();
+                llmAvailable  = llmHealth.available(ollamaParser.callStats().provider());
                 parserMode    = llmAvailable ? "ollama" : "ollama-offline";
             } else if (cloudLlmParser != null) {
                 llmConfigured = true;
-                llmAvailable  = cloudLlmParser.isAvailable();
+                llmAvailable  = llmHealth.available(cloudLlmParser.callStats().provider());
                 String url    = cloudLlmParser.getBaseUrl();
                 String tag    = url.contains("groq.com")    ? "groq"
                               : url.contains("openai.com")  ? "openai"
@@ -337,7 +1446,17 @@ public final class RestApiGeneratorServer implements AutoCloseable {
                 parserMode    = "deterministic";
             }
 
-            String aboutJson = """
+            PluginRegistry.Stats plugins = pluginRegistry.stats();
+            ArchiveCache.Stats archives = archiveCache.stats();
+            PromptCache.Stats prompts = promptCache.stats();
+            LlmCallLimiter.Stats llmCalls = ollamaParser != null ? ollamaParser.callStats()
+                    : cloudLlmParser != null ? cloudLlmParser.callStats()
+                    : null;
+            CoalescingPromptParser.Stats sharedCalls = coalescingParser != null ? coalescingParser.stats() : null;
+            ConcurrencyLimit.Stats generation = generationLimit.stats();
+            RateLimiter.Stats rateLimits = rateLimiter.stats();
+            GenerationJobs.Stats jobStats = jobs.stats();
+            String aboutJson = String.format(Locale.ROOT, """
                     {
                       "name": "REST API Generator",
                       "version": "%s",
@@ -346,16 +1465,54 @@ public final class RestApiGeneratorServer implements AutoCloseable {
                       "llmConfigured": %s,
                       "llmAvailable": %s,
                       "confidenceFailPolicyEnabled": %s,
+                      "llmHealth": %s,
+                      "llmCircuits": %s,
+                      "pluginRegistry": {"loads": %d, "cacheHits": %d, "invalidations": %d, "lastLoadMillis": %.3f, "totalLoadMillis": %.3f},
+                      "archiveCache": {"hits": %d, "diskHits": %d, "misses": %d, "evictions": %d, "diskEvictions": %d, "entries": %d, "bytes": %d, "diskBytes": %d},
+                      "promptCache": {"hits": %d, "misses": %d, "expirations": %d, "evictions": %d, "entries": %d, "logBytes": %d},
+                      "execution": {
+                        "executor": "%s",
+                        "llmCalls": %s,
+                        "hedging": %s,
+                        "codeGeneration": {"limit": %d, "active": %d, "waiting": %d, "completed": %d},
+                        "rateLimits": {"clients": %d, "admitted": %d, "rejected": %d},
+                        "jobs": {"workers": %d, "queueCapacity": %d, "queued": %d, "running": %d, "succeeded": %d, "failed": %d, "rejected": %d, "expired": %d, "spoolBytes": %d}
+                      },
                       "endpoints": [
                         {"method": "GET",  "path": "/",                "description": "Web UI"},
                         {"method": "GET",  "path": "/about",           "description": "Project information"},
                         {"method": "GET",  "path": "/health",          "description": "Health check"},
+                        {"method": "GET",  "path": "/metrics",         "description": "Prometheus metrics"},
                         {"method": "POST", "path": "/generator/spec",  "description": "Parse a natural-language prompt into an API specification"},
+                        {"method": "POST", "path": "/generator/spec/stream", "description": "Same as /generator/spec, streamed as Server-Sent Events"},
                         {"method": "POST", "path": "/generator/confidence", "description": "Evaluate likely compile readiness for an API specification"},
-                        {"method": "POST", "path": "/generator/code",  "description": "Generate a runnable Spring Boot ZIP from an API specification"}
+                        {"method": "POST", "path": "/generator/code",  "description": "Generate a runnable Spring Boot ZIP from an API specification"},
+                        {"method": "POST", "path": "/generator/code/delta", "description": "Generate only the files that changed since a previous specification"},
+                        {"method": "POST", "path": "/generator/batch", "description": "Generate many projects from NDJSON prompts or specifications"},
+                        {"method": "POST", "path": "/generator/jobs",  "description": "Queue a code generation job; answers 202 with its id"},
+                        {"method": "GET",  "path": "/generator/jobs/{id}", "description": "Status and per-plugin progress of a generation job"},
+                        {"method": "GET",  "path": "/generator/jobs/{id}/archive", "description": "ZIP archive of a finished generation job"}
                       ],
                       "repository": "https://github.com/rrezartprebreza/rest-api-generator"
-                    }""".formatted(APP_VERSION, parserMode, llmConfigured, llmAvailable, confidenceFailPolicyEnabled);
+                    }""", APP_VERSION, parserMode, llmConfigured, llmAvailable, confidenceFailPolicyEnabled,
+                    mapper.writeValueAsString(llmHealth.statuses()),
+                    mapper.writeValueAsString(llmCircuits.stream().flatMap(breaker -> breaker.stats().stream()).toList()),
+                    plugins.loads(), plugins.cacheHits(), plugins.invalidations(),
+                    plugins.lastLoadMillis(), plugins.totalLoadMillis(),
+                    archives.hits(), archives.diskHits(), archives.misses(), archives.evictions(),
+                    archives.diskEvictions(), archives.entries(), archives.bytes(), archives.diskBytes(),
+                    prompts.hits(), prompts.misses(), prompts.expirations(), prompts.evictions(),
+                    prompts.entries(), prompts.logBytes(),
+                    executorMode.name().toLowerCase(Locale.ROOT),
+                    llmCalls == null ? "null" : String.format(Locale.ROOT,
+                            "{\"provider\": \"%s\", \"maxInFlight\": %d, \"inFlight\": %d, \"completed\": %d, \"rejected\": %d, \"meanMillis\": %.1f, \"coalesced\": %d}",
+                            llmCalls.provider(), llmCalls.maxInFlight(), llmCalls.inFlight(),
+                            llmCalls.completed(), llmCalls.rejected(), llmCalls.meanMillis(), sharedCalls.coalesced()),
+                    hedgedParser == null ? "null" : mapper.writeValueAsString(hedgedParser.stats()),
+                    generation.limit(), generation.active(), generation.waiting(), generation.completed(),
+                    rateLimits.clients(), rateLimits.admitted(), rateLimits.rejected(),
+                    jobStats.workers(), jobStats.queueCapacity(), jobStats.queued(), jobStats.running(),
+                    jobStats.succeeded(), jobStats.failed(), jobStats.rejected(), jobStats.expired(), jobStats.spoolBytes());
             respond(exchange, 200, aboutJson, "application/json");
         }
     }
@@ -370,6 +1527,20 @@ public final class RestApiGeneratorServer implements AutoCloseable {
         }
     }
 
+    // ── GET /metrics ──────────────────────────────────────────────────────────
+
+    private final class MetricsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (handlePreflight(exchange)) return;
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                respond(exchange, 405, jsonError("METHOD_NOT_ALLOWED", "Only GET is supported"), "application/json");
+                return;
+            }
+            respond(exchange, 200, metrics.scrape(), "text/plain; version=0.0.4; charset=utf-8");
+        }
+    }
+
     // ── GET / → serve index.html from classpath ───────────────────────────────
 
     private final class StaticFileHandler implements HttpHandler {
@@ -386,30 +1557,51 @@ public final class RestApiGeneratorServer implements AutoCloseable {
                 respond(exchange, 404, jsonError("NOT_FOUND", "No resource at " + path), "application/json");
                 return;
             }
-            try (InputStream in = getClass().getResourceAsStream("/static/index.html")) {
-                if (in == null) {
-                    String fallback = "<html><body><h2>REST API Generator</h2>"
-                            + "<p>Server is running. See <a href='/about'>/about</a> for API details.</p>"
-                            + "<p>Deploy the Web UI by placing index.html in src/main/resources/static/</p></body></html>";
-                    respond(exchange, 200, fallback, "text/html; charset=utf-8");
-                    return;
-                }
-                byte[] html = in.readAllBytes();
-                exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
-                exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            // Loaded and compressed once at startup; no-cache makes browsers revalidate, which
+            // costs a 304 until the server is upgraded.
+            boolean gzip = StaticAsset.acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            String etag = indexPage.etag(gzip);
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+            if (etagMatches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
                 addCorsHeaders(exchange);
-                exchange.sendResponseHeaders(200, html.length);
-                exchange.getResponseBody().write(html);
-            } finally {
+                exchange.sendResponseHeaders(304, -1);
                 exchange.close();
+                return;
+            }
+            if (indexPage.gzipped(gzip)) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
             }
+            respond(exchange, 200, indexPage.body(gzip), indexPage.contentType());
         }
     }
 
     // ── Utilities ─────────────────────────────────────────────────────────────
 
-    private static String readBody(HttpExchange exchange) throws IOException {
-        return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8).trim();
+    /**
+     * Sends a JSON error if nothing has been streamed yet. Once a chunked body is committed
+     * the status line is gone, so the exchange is closed and the truncated archive left for
+     * the client to reject.
+     */
+    private void respondUnlessCommitted(HttpExchange exchange, ChunkedResponseBody body, int status, String error) throws IOException {
+        if (body != null && body.committed()) {
+            LOG.warning("Streaming response failed after headers were sent: " + error);
+            exchange.close();
+            return;
+        }
+        respond(exchange, status, error, "application/json");
+    }
+
+    /** Weak comparison per RFC 9110: {@code W/} prefixes are ignored and {@code *} matches anything. */
+    static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag)) return true;
+        }
+        return false;
     }
 
     private static String jsonError(String code, String message) {
@@ -449,7 +1641,7 @@ public final class RestApiGeneratorServer implements AutoCloseable {
         var newPlugins = new GenerationConfig.PluginsConfig(
                 enabled, disabled, plugins.externalDirectories(), plugins.externalClassNames()
         );
-        return new GenerationConfig(base.project(), newStandards, base.features(), newPlugins);
+        return new GenerationConfig(base.project(), newStandards, base.features(), newPlugins, base.execution(), base.archive());
     }
 
     private ConfidenceResponse evaluateConfidence(ApiSpecification spec) {
@@ -501,14 +1693,257 @@ public final class RestApiGeneratorServer implements AutoCloseable {
         exchange.close();
     }
 
+    /** Gzips payloads of at least {@link #GZIP_MIN_BYTES} when the client accepts it. */
+    private void respondCompressible(HttpExchange exchange, int status, byte[] payload, String contentType) throws IOException {
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        if (payload.length >= GZIP_MIN_BYTES
+                && StaticAsset.acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            payload = StaticAsset.gzip(payload);
+        }
+        respond(exchange, status, payload, contentType);
+    }
+
     private void respond(HttpExchange exchange, int status, String message, String contentType) throws IOException {
         respond(exchange, status, message.getBytes(StandardCharsets.UTF_8), contentType);
     }
 
-    record SpecRequest(String prompt) {}
+    /**
+     * Response body that commits a {@code 200} chunked response on the first write. Until then
+     * the handler can still choose a different status, so failures that happen before any
+     * output (validation, plugin errors) are reported normally.
+     */
+    private static final class ChunkedResponseBody extends OutputStream {
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        private final HttpExchange        exchange;
+        private final String              contentType;
+        private final Map<String, String> headers;
+        private final GenerationTrace     trace;
+        private OutputStream              delegate;
+        private long                      written;
+
+        ChunkedResponseBody(HttpExchange exchange, String contentType, Map<String, String> headers) {
+            this(exchange, contentType, headers, null);
+        }
+
+        /** Also sends {@code trace} as {@code Server-Timing}, as it stands when the response commits. */
+        ChunkedResponseBody(HttpExchange exchange, String contentType, Map<String, String> headers, GenerationTrace trace) {
+            this.exchange    = exchange;
+            this.contentType = contentType;
+            this.headers     = headers;
+            this.trace       = trace;
+        }
+
+        boolean committed() {
+            return delegate != null;
+        }
+
+        long written() {
+            return written;
+        }
+
+        private OutputStream commit() throws IOException {
+            if (delegate == null) {
+                addCorsHeaders(exchange);
+                exchange.getResponseHeaders().set("Content-Type", contentType);
+                headers.forEach(exchange.getResponseHeaders()::set);
+                if (trace != null) {
+                    exchange.getResponseHeaders().set("Server-Timing", trace.serverTiming());
+                }
+                exchange.sendResponseHeaders(200, 0);
+                delegate = new BufferedOutputStream(exchange.getResponseBody(), BUFFER_SIZE);
+            }
+            return delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            commit().write(b);
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            commit().write(b, off, len);
+            written += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (delegate != null) {
+                delegate.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            commit().close();
+        }
+    }
+
+    /**
+     * One ZIP with a folder per batch item, named after its project; repeated names get a
+     * {@code -2}, {@code -3}... suffix. Items are added from worker threads as they finish.
+     */
+    private static final class BatchArchive {
+        private final ZipOutputStream zip;
+        private final Set<String> folders = new HashSet<>();
+        private final byte[] buffer = new byte[8 * 1024];
+
+        BatchArchive(OutputStream out, GenerationConfig.ArchiveConfig archive) {
+            this.zip = new ZipOutputStream(out);
+            zip.setLevel(archive.stored() ? Deflater.NO_COMPRESSION : archive.deflateLevel());
+        }
+
+        synchronized void add(BatchItem item) throws IOException {
+            if (item.files() == null) return;
+            String base = item.result().projectName().replaceAll("[^A-Za-z0-9._-]", "-");
+            String folder = base;
+            for (int n = 2; !folders.add(folder); n++) {
+                folder = base + "-" + n;
+            }
+            for (GeneratedFile file : item.files()) {
+                zip.putNextEntry(new ZipEntry(folder + "/" + file.path()));
+                file.writeTo(zip, buffer);
+                zip.closeEntry();
+            }
+            zip.flush();
+        }
+
+        synchronized void finish(byte[] summary) throws IOException {
+            zip.putNextEntry(new ZipEntry("batch-summary.json"));
+            zip.write(summary);
+            zip.closeEntry();
+            zip.finish();
+        }
+    }
+
+    /**
+     * Passes bytes through while keeping a copy, up to {@code limit} bytes. Past the limit
+     * the copy is dropped and {@link #captured()} returns {@code null}.
+     */
+    private static final class CapturingOutputStream extends OutputStream {
+        private final OutputStream          target;
+        private final long                  limit;
+        private ByteArrayOutputStream       copy = new ByteArrayOutputStream();
+
+        CapturingOutputStream(OutputStream target, long limit) {
+            this.target = target;
+            this.limit  = limit;
+        }
+
+        byte[] captured() {
+            return copy == null ? null : copy.toByteArray();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+            if (copy == null) return;
+            if (copy.size() + 1L > limit) {
+                copy = null;
+                return;
+            }
+            copy.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+            keep(b, off, len);
+        }
+
+        private void keep(byte[] b, int off, int len) {
+            if (copy == null) return;
+            if (copy.size() + (long) len > limit) {
+                copy = null;
+                return;
+            }
+            copy.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+    }
+
+    record ErrorEvent(String code, String message) {}
+
+    /** A processed batch line; {@code files} only when they are still to be archived. */
+    record BatchItem(BatchResult result, List<GeneratedFile> files) {
+        static BatchItem failed(BatchResult result) {
+            return new BatchItem(result, null);
+        }
+    }
+
+    /** {@code cached} is whether the item's archive is in the archive cache, for ndjson batches. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record BatchResult(int index, String id, String status, String projectName, String fingerprint, Integer files,
+                       Long archiveBytes, Boolean cached, double millis, String code, String message,
+                       ApiSpecification spec) {
+        static BatchResult succeeded(int index, String id, ApiSpecification spec, String fingerprint, Integer files,
+                                     Long archiveBytes, Boolean cached, boolean includeSpec, long startedNanos) {
+            return new BatchResult(index, id, "ok", spec.projectName, fingerprint, files, archiveBytes,
+                    cached, millisSince(startedNanos), null, null, includeSpec ? spec : null);
+        }
+
+        static BatchResult failed(int index, String id, String code, String message, long startedNanos) {
+            return new BatchResult(index, id, "error", null, null, null, null, null,
+                    startedNanos == 0 ? 0 : millisSince(startedNanos), code, message, null);
+        }
+
+        private static double millisSince(long startedNanos) {
+            return Math.round((System.nanoTime() - startedNanos) / 1e4) / 100.0;
+        }
+    }
+
+    record BatchSummary(int items, int succeeded, int failed, int concurrency, double elapsedMillis,
+                        double itemsPerSecond, double meanItemMillis) {
+        static BatchSummary of(List<BatchResult> results, int concurrency, long elapsedNanos) {
+            synchronized (results) {
+                int succeeded = (int) results.stream().filter(result -> result.status().equals("ok")).count();
+                double itemMillis = results.stream().mapToDouble(BatchResult::millis).sum();
+                double elapsedMillis = Math.round(elapsedNanos / 1e4) / 100.0;
+                return new BatchSummary(results.size(), succeeded, results.size() - succeeded, concurrency, elapsedMillis,
+                        elapsedNanos == 0 ? 0 : Math.round(results.size() * 1e11 / elapsedNanos) / 100.0,
+                        results.isEmpty() ? 0 : Math.round(itemMillis * 100 / results.size()) / 100.0);
+            }
+        }
+    }
+    record DeltaRequest(ApiSpecification spec, ApiSpecification previousSpec, String previousFingerprint) {}
+    /**
+     * {@code parsedBy} is the provider whose output was used, or {@code deterministic} with a
+     * {@code fallbackReason}; both are left out when no LLM is configured.
+     */
     record SpecResponse(ApiSpecification spec, java.util.List<SpecDiagnosticsValidator.ValidationIssue> warnings,
                         java.util.List<SpecDiagnosticsValidator.ValidationIssue> errors,
-                        java.util.List<SpecDiagnosticsValidator.FixSuggestion> fixSuggestions) {}
+                        java.util.List<SpecDiagnosticsValidator.FixSuggestion> fixSuggestions,
+                        @JsonInclude(JsonInclude.Include.NON_NULL) String parsedBy,
+                        @JsonInclude(JsonInclude.Include.NON_NULL) String fallbackReason,
+                        @JsonInclude(JsonInclude.Include.NON_NULL) Debug debug) {
+        SpecResponse(ApiSpecification spec, java.util.List<SpecDiagnosticsValidator.ValidationIssue> warnings,
+                     java.util.List<SpecDiagnosticsValidator.ValidationIssue> errors,
+                     java.util.List<SpecDiagnosticsValidator.FixSuggestion> fixSuggestions, Debug debug) {
+            this(spec, warnings, errors, fixSuggestions, null, null, debug);
+        }
+    }
     record ConfidenceResponse(String confidenceStatus, String reason, boolean failPolicyEnabled,
-                              int warningCount, int errorCount) {}
+                              int warningCount, int errorCount,
+                              @JsonInclude(JsonInclude.Include.NON_NULL) Debug debug) {
+        ConfidenceResponse(String confidenceStatus, String reason, boolean failPolicyEnabled, int warningCount, int errorCount) {
+            this(confidenceStatus, reason, failPolicyEnabled, warningCount, errorCount, null);
+        }
+
+        ConfidenceResponse withDebug(Debug debug) {
+            return new ConfidenceResponse(confidenceStatus, reason, failPolicyEnabled, warningCount, errorCount, debug);
+        }
+    }
+    /** The {@code ?debug=true} block: where this request's time went, in milliseconds. */
+    record Debug(Map<String, Double> timingsMillis, Map<String, Double> pluginsMillis, double totalMillis) {
+        static Debug of(GenerationTrace trace) {
+            return new Debug(trace.phaseMillis(), trace.pluginMillis(), trace.totalMillis());
+        }
+    }
 }
@@ -0,0 +1,207 @@
+package io.restapigen.server;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import io.restapigen.core.orchestrator.GenerationListener;
+import io.restapigen.core.parser.LlmCallListener;
+import io.restapigen.core.parser.LlmCircuitBreaker;
+import io.restapigen.core.parser.LlmOverloadedException;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The server's metrics, exposed at {@code /metrics}. HTTP requests are measured by
+ * {@link #requestFilter()} on every context; LLM calls and plugin runs are reported through the
+ * listener interfaces the parsers and the orchestrator call back into.
+ */
+final class ServerMetrics implements GenerationListener, LlmCallListener {
+    private static final String REQUEST_TIMER = ServerMetrics.class.getName() + ".timer";
+    private static final double[] REQUEST_SECONDS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120};
+    private static final double[] LLM_SECONDS = {0.25, 0.5, 1, 2.5, 5, 10, 20, 30, 60, 90, 120};
+    private static final double[] PLUGIN_SECONDS = {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 5};
+    private static final double[] ARCHIVE_BYTES = {4 << 10, 16 << 10, 64 << 10, 256 << 10, 1 << 20, 4 << 20, 16 << 20, 64 << 20, 256 << 20};
+
+    private final Metrics metrics = new Metrics();
+    private final LongAdder inFlight = new LongAdder();
+    private final Metrics.Counter requests = metrics.counter("restapigen_http_requests_total",
+            "HTTP requests completed, by context path, method and status.", "endpoint", "method", "status");
+    private final Metrics.Histogram requestSeconds = metrics.histogram("restapigen_http_request_duration_seconds",
+            "Time from receiving a request to completing its response.", REQUEST_SECONDS, "endpoint");
+    private final Metrics.Histogram llmSeconds = metrics.histogram("restapigen_llm_call_duration_seconds",
+            "Duration of individual LLM API calls, successful or not.", LLM_SECONDS, "provider", "model");
+    private final Metrics.Counter llmErrors = metrics.counter("restapigen_llm_call_errors_total",
+            "LLM API calls that failed, by cause.", "provider", "model", "reason");
+    private final Metrics.Counter llmRejected = metrics.counter("restapigen_llm_calls_rejected_total",
+            "Prompts refused with 503 because the provider was at its in-flight limit.", "provider");
+    private final Metrics.Counter fallbacks = metrics.counter("restapigen_llm_fallbacks_total",
+            "Prompts parsed deterministically because LLM output was unavailable.", "provider", "reason");
+    private final Metrics.Counter circuitTransitions = metrics.counter("restapigen_llm_circuit_transitions_total",
+            "Circuit breaker state changes, per model.", "provider", "model", "from", "to");
+    private final Metrics.Histogram archiveBytes = metrics.histogram("restapigen_archive_bytes",
+            "Size of ZIP archives sent, including cache hits.", ARCHIVE_BYTES, "endpoint");
+    private final Metrics.Histogram pluginSeconds = metrics.histogram("restapigen_plugin_duration_seconds",
+            "Time each plugin spent generating files for one archive.", PLUGIN_SECONDS, "plugin");
+    private final Metrics.Gauge llmUp = metrics.gauge("restapigen_llm_up",
+            "1 if the last background check of the LLM provider succeeded, otherwise 0.", "provider");
+    private final Metrics.Gauge llmProbeSeconds = metrics.gauge("restapigen_llm_probe_duration_seconds",
+            "Duration of the last background check of the LLM provider.", "provider");
+    private final Metrics.Gauge circuitState = metrics.gauge("restapigen_llm_circuit_state",
+            "1 for the state each model's circuit breaker is in, 0 for the others.", "provider", "model", "state");
+    private final Metrics.Gauge activeThreads = metrics.gauge("restapigen_executor_active_threads",
+            "Threads currently running work, per executor.", "executor");
+    private final Metrics.Gauge queueDepth = metrics.gauge("restapigen_executor_queue_depth",
+            "Tasks waiting for a thread or permit, per executor.", "executor");
+
+    ServerMetrics() {
+        metrics.gauge("restapigen_http_requests_in_flight", "Requests received but not yet completed.")
+                .register(inFlight::sum);
+    }
+
+    /**
+     * Reports the request executor's load. A platform pool reports its busy threads and queue;
+     * with virtual threads there is no queue and every in-flight request has its own thread.
+     */
+    void registerRequestExecutor(ExecutorService executor) {
+        if (executor instanceof ThreadPoolExecutor pool) {
+            activeThreads.register(pool::getActiveCount, "requests");
+            queueDepth.register(() -> pool.getQueue().size(), "requests");
+        } else {
+            activeThreads.register(inFlight::sum, "requests");
+            queueDepth.register(() -> 0, "requests");
+        }
+    }
+
+    void registerGenerationLimit(ConcurrencyLimit limit) {
+        activeThreads.register(() -> limit.stats().active(), "generation");
+        queueDepth.register(() -> limit.stats().waiting(), "generation");
+    }
+
+    void registerLlmHealth(LlmHealth health) {
+        for (LlmHealth.Status status : health.statuses()) {
+            String provider = status.provider();
+            llmUp.register(() -> health.available(provider) ? 1 : 0, provider);
+            llmProbeSeconds.register(() -> {
+                Double millis = health.status(provider).latencyMillis();
+                return millis == null ? 0 : millis / 1000;
+            }, provider);
+        }
+    }
+
+    void registerLlmCircuits(LlmCircuitBreaker breaker) {
+        for (LlmCircuitBreaker.Stats circuit : breaker.stats()) {
+            String model = circuit.model();
+            for (LlmCircuitBreaker.State state : LlmCircuitBreaker.State.values()) {
+                circuitState.register(() -> breaker.state(model) == state ? 1 : 0, circuit.provider(), model, state.label());
+            }
+        }
+    }
+
+    void registerJobs(GenerationJobs jobs) {
+        activeThreads.register(() -> jobs.stats().running(), "jobs");
+        queueDepth.register(() -> jobs.stats().queued(), "jobs");
+    }
+
+    String scrape() {
+        return metrics.scrape();
+    }
+
+    /** Times each exchange from the moment its handler is called until the response completes. */
+    Filter requestFilter() {
+        return new Filter() {
+            @Override
+            public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+                RequestTimer timer = new RequestTimer(System.nanoTime());
+                exchange.setAttribute(REQUEST_TIMER, timer);
+                inFlight.increment();
+                boolean failed = true;
+                try {
+                    chain.doFilter(exchange);
+                    failed = false;
+                } finally {
+                    // A handler that returns without responding completes the exchange later
+                    // and reports it through requestCompleted.
+                    if (failed || exchange.getResponseCode() != -1) {
+                        finish(exchange, timer, failed);
+                    }
+                }
+            }
+
+            @Override
+            public String description() {
+                return "request metrics";
+            }
+        };
+    }
+
+    /** Records an exchange that was answered after its handler returned. */
+    void requestCompleted(HttpExchange exchange) {
+        if (exchange.getAttribute(REQUEST_TIMER) instanceof RequestTimer timer) {
+            finish(exchange, timer, false);
+        }
+    }
+
+    void archiveSent(String endpoint, long bytes) {
+        archiveBytes.observe(bytes, endpoint);
+    }
+
+    void llmRejected(LlmOverloadedException e) {
+        llmRejected.increment(e.provider());
+    }
+
+    @Override
+    public void pluginFinished(String plugin, long nanos) {
+        pluginSeconds.observe(nanos / 1e9, plugin);
+    }
+
+    @Override
+    public void callCompleted(String provider, String model, long nanos, String failure) {
+        llmSeconds.observe(nanos / 1e9, provider, model);
+        if (failure != null) {
+            llmErrors.increment(provider, model, failure);
+        }
+    }
+
+    @Override
+    public void fallback(String provider, String reason) {
+        fallbacks.increment(provider, reason);
+    }
+
+    @Override
+    public void circuitTransition(String provider, String model, String from, String to) {
+        circuitTransitions.increment(provider, model, from, to);
+    }
+
+    private void finish(HttpExchange exchange, RequestTimer timer, boolean failed) {
+        if (!timer.finished.compareAndSet(false, true)) {
+            return;
+        }
+        inFlight.decrement();
+        String endpoint = exchange.getHttpContext().getPath();
+        int status = exchange.getResponseCode() == -1 && failed ? 500 : exchange.getResponseCode();
+        requests.increment(endpoint, method(exchange.getRequestMethod()), Integer.toString(status));
+        requestSeconds.observe((System.nanoTime() - timer.started) / 1e9, endpoint);
+    }
+
+    /** Clients can send any method name; keep the label to the ones the server knows. */
+    private static String method(String requested) {
+        String method = requested.toUpperCase(Locale.ROOT);
+        return switch (method) {
+            case "GET", "HEAD", "POST", "OPTIONS" -> method;
+            default -> "OTHER";
+        };
+    }
+
+    private static final class RequestTimer {
+        final long started;
+        final AtomicBoolean finished = new AtomicBoolean();
+
+        RequestTimer(long started) {
+            this.started = started;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package io.restapigen.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A static resource held in memory in identity and gzip encodings, each with its own strong
+ * {@code ETag}. Built once at startup, so serving it is a header check and a single write.
+ * The gzip variant is kept only when it is actually smaller.
+ */
+final class StaticAsset {
+    private final String contentType;
+    private final byte[] identity;
+    private final byte[] gzip;
+    private final String etag;
+
+    private StaticAsset(String contentType, byte[] identity) {
+        this.contentType = contentType;
+        this.identity = identity;
+        byte[] compressed = gzip(identity);
+        this.gzip = compressed.length < identity.length ? compressed : null;
+        this.etag = HexFormat.of().formatHex(sha256(identity), 0, 16);
+    }
+
+    /** The classpath resource, or {@code fallback} when it is not packaged. */
+    static StaticAsset load(String resource, String contentType, String fallback) {
+        try (InputStream in = StaticAsset.class.getResourceAsStream(resource)) {
+            byte[] content = in == null ? fallback.getBytes(StandardCharsets.UTF_8) : in.readAllBytes();
+            return new StaticAsset(contentType, content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load " + resource, e);
+        }
+    }
+
+    String contentType() {
+        return contentType;
+    }
+
+    /** The encoding to send for this {@code Accept-Encoding}: gzip bytes when accepted and available. */
+    byte[] body(boolean gzipAccepted) {
+        return gzipAccepted && gzip != null ? gzip : identity;
+    }
+
+    boolean gzipped(boolean gzipAccepted) {
+        return gzipAccepted && gzip != null;
+    }
+
+    /** Each encoding is a different representation, so each gets its own strong validator. */
+    String etag(boolean gzipAccepted) {
+        return gzipped(gzipAccepted) ? "\"" + etag + "-gzip\"" : "\"" + etag + "\"";
+    }
+
+    /**
+     * Whether an {@code Accept-Encoding} header allows gzip: listed (or {@code *}) with a
+     * non-zero quality. An explicit {@code gzip;q=0} wins over {@code *}.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        Boolean wildcard = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] pieces = part.split(";");
+            String coding = pieces[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = true;
+            for (int i = 1; i < pieces.length; i++) {
+                String parameter = pieces[i].trim().toLowerCase(Locale.ROOT);
+                if (parameter.startsWith("q=")) {
+                    try {
+                        accepted = Double.parseDouble(parameter.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        accepted = false;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                return accepted;
+            }
+            if (coding.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package io.restapigen.codegen;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchiveCacheTest {
+
+    private static final String A = "a".repeat(64);
+    private static final String B = "b".repeat(64);
+    private static final String C = "c".repeat(64);
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    void evictsLeastRecentlyUsedArchivesPastByteBudget() {
+        ArchiveCache cache = new ArchiveCache(250);
+        cache.put(A, new byte[100]);
+        cache.put(B, new byte[100]);
+        cache.get(A);
+        cache.put(C, new byte[100]);
+
+        assertArrayEquals(new byte[100], cache.get(A));
+        assertNull(cache.get(B));
+        assertArrayEquals(new byte[100], cache.get(C));
+        ArchiveCache.Stats stats = cache.stats();
+        assertEquals(1, stats.evictions());
+        assertEquals(3, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(200, stats.bytes());
+    }
+
+    @Test
+    void skipsArchivesLargerThanMemoryBudget() {
+        ArchiveCache cache = new ArchiveCache(50);
+
+        assertFalse(cache.put(A, new byte[100]));
+        assertTrue(cache.put(B, new byte[10]));
+        assertNull(cache.get(A));
+        assertEquals(1, cache.stats().entries());
+    }
+
+    @Test
+    void diskTierSurvivesRestartAndPromotesToMemory() {
+        byte[] archive = {1, 2, 3};
+        new ArchiveCache(1024, cacheDir, 1024).put(A, archive);
+
+        ArchiveCache restarted = new ArchiveCache(1024, cacheDir, 1024);
+
+        assertArrayEquals(archive, restarted.get(A));
+        assertArrayEquals(archive, restarted.get(A));
+        assertEquals(1, restarted.stats().diskHits());
+        assertEquals(1, restarted.stats().hits());
+    }
+
+    @Test
+    void evictsOldestDiskArchivesPastDiskBudget() {
+        ArchiveCache cache = new ArchiveCache(0, cacheDir, 250);
+        cache.put(A, new byte[100]);
+        cache.put(B, new byte[100]);
+        cache.put(C, new byte[100]);
+
+        assertFalse(Files.exists(cacheDir.resolve(A + ".zip")));
+        assertTrue(Files.exists(cacheDir.resolve(C + ".zip")));
+        assertEquals(1, cache.stats().diskEvictions());
+        assertEquals(200, cache.stats().diskBytes());
+    }
+}
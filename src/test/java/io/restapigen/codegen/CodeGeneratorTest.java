@@ -670,6 +670,35 @@ class CodeGeneratorTest {
                 () -> "Mapper must @Mapping(target=\"id\",ignore=true) toEntity and updateEntityFromDto; got:\n" + mapper);
     }
 
+    @Test
+    void streamingZipMatchesBufferedZipAndLeavesStreamOpen() throws IOException {
+        ApiSpecification spec = new ApiSpecification(
+                "products-api",
+                "com.example.generated",
+                List.of(new EntityDefinition(
+                        new EntitySpec("Product", "products", "Long", List.of(
+                                new FieldSpec("name", "String", List.of(), true, false, null, null, null, false, List.of(), null, null)
+                        )),
+                        new ApiSpec("/api/products", true, true, true),
+                        List.of()
+                )),
+                List.of()
+        );
+
+        CodeGenerator generator = new CodeGenerator();
+        boolean[] closed = {false};
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        generator.generateZip(spec, GenerationConfig.defaults(), streamed);
+
+        assertFalse(closed[0]);
+        assertEquals(readZipFiles(generator.generateZip(spec)), readZipFiles(streamed.toByteArray()));
+    }
+
     private String readAll(ZipInputStream zis) throws IOException {
         ByteArrayOutputStream buffer = new ByteArrayOutputStream();
         byte[] tmp = new byte[512];
@@ -0,0 +1,481 @@
+package io.restapigen.core.orchestrator;
+
+import io.restapigen.core.config.GenerationConfig;
+import io.restapigen.core.plugin.GeneratedFile;
+import io.restapigen.core.plugin.GeneratorPlugin;
+import io.restapigen.core.plugin.PluginContext;
+import io.restapigen.core.template.TemplateEngine;
+import io.restapigen.core.template.TemplatePack;
+import io.restapigen.core.validator.SpecValidator;
+import io.restapigen.domain.ApiSpec;
+import io.restapigen.domain.ApiSpecification;
+import io.restapigen.domain.EntityDefinition;
+import io.restapigen.domain.EntitySpec;
+import io.restapigen.domain.FieldSpec;
+import io.restapigen.plugins.BuiltInPlugins;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GenerationOrchestratorTest {
+
+    @Test
+    void concurrentModeProducesSameFilesInSameOrderAsSequential() {
+        List<GeneratedFile> sequential = new GenerationOrchestrator(new SpecValidator(), BuiltInPlugins.all())
+                .generate(spec(), config(new GenerationConfig.ExecutionConfig(true, 0), GenerationConfig.defaults().plugins().enabled()));
+        List<GeneratedFile> concurrent = new GenerationOrchestrator(new SpecValidator(), BuiltInPlugins.all())
+                .generate(spec(), config(new GenerationConfig.ExecutionConfig(false, 4), GenerationConfig.defaults().plugins().enabled()));
+
+        assertEquals(sequential, concurrent);
+    }
+
+    @Test
+    void runsIndependentPluginsConcurrently() {
+        // Each plugin waits for the other to start; sequential execution would time out.
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Supplier<List<GeneratedFile>> rendezvous = () -> {
+            bothStarted.countDown();
+            try {
+                assertTrue(bothStarted.await(5, TimeUnit.SECONDS), "plugins did not overlap");
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return List.of();
+        };
+        List<GeneratorPlugin> plugins = List.of(
+                new StubPlugin("a", List.of(), rendezvous),
+                new StubPlugin("b", List.of(), rendezvous)
+        );
+
+        new GenerationOrchestrator(new SpecValidator(), plugins)
+                .generate(spec(), config(new GenerationConfig.ExecutionConfig(false, 2), List.of("a", "b")));
+
+        assertEquals(0, bothStarted.getCount());
+    }
+
+    @Test
+    void startsPluginOnlyAfterItsDependenciesComplete() {
+        Set<String> finished = ConcurrentHashMap.newKeySet();
+        List<GeneratorPlugin> plugins = List.of(
+                new StubPlugin("base", List.of(), () -> {
+                    sleep(100);
+                    finished.add("base");
+                    return List.of(new GeneratedFile("base.txt", "base"));
+                }),
+                new StubPlugin("dependent", List.of("base"), () -> {
+                    assertTrue(finished.contains("base"), "dependent started before base finished");
+                    return List.of(new GeneratedFile("dependent.txt", "dependent"));
+                })
+        );
+
+        List<GeneratedFile> files = new GenerationOrchestrator(new SpecValidator(), plugins)
+                .generate(spec(), config(new GenerationConfig.ExecutionConfig(false, 4), List.of("base", "dependent")));
+
+        assertEquals(List.of("base.txt", "dependent.txt"), files.stream().map(GeneratedFile::path).toList());
+    }
+
+    @Test
+    void rethrowsOriginalPluginFailure() {
+        List<GeneratorPlugin> plugins = List.of(
+                new StubPlugin("ok", List.of(), List::of),
+                new StubPlugin("broken", List.of(), () -> {
+                    throw new IllegalArgumentException("broken spec");
+                })
+        );
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () ->
+                new GenerationOrchestrator(new SpecValidator(), plugins)
+                        .generate(spec(), config(new GenerationConfig.ExecutionConfig(false, 4), List.of("ok", "broken"))));
+
+        assertEquals("broken spec", error.getMessage());
+    }
+
+    @Test
+    void fansEntitiesOutAcrossWorkersAndKeepsSpecOrder() {
+        // Two entities that wait for each other; serial per-entity generation would time out.
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        GeneratorPlugin plugin = new FanOutPlugin(definition -> {
+            if (definition.entity.name.startsWith("Rendezvous")) {
+                bothStarted.countDown();
+                try {
+                    assertTrue(bothStarted.await(5, TimeUnit.SECONDS), "entities did not overlap");
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return List.of(new GeneratedFile(definition.entity.name + ".txt", definition.entity.name));
+        });
+        List<String> names = List.of("Rendezvous1", "Rendezvous2", "Order", "Invoice", "Customer", "Shipment");
+
+        List<GeneratedFile> files = new GenerationOrchestrator(new SpecValidator(), List.of(plugin))
+                .generate(spec(names), config(new GenerationConfig.ExecutionConfig(false, 4), List.of("fan-out")));
+
+        assertEquals(names.stream().map(name -> name + ".txt").toList(), files.stream().map(GeneratedFile::path).toList());
+        assertEquals(0, bothStarted.getCount());
+    }
+
+    @Test
+    void rethrowsFailureOfEarliestEntity() {
+        GeneratorPlugin plugin = new FanOutPlugin(definition -> {
+            if (!definition.entity.name.equals("Product")) {
+                throw new IllegalStateException("cannot generate " + definition.entity.name);
+            }
+            return List.of();
+        });
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () ->
+                new GenerationOrchestrator(new SpecValidator(), List.of(plugin))
+                        .generate(spec(List.of("Product", "Order", "Invoice", "Customer")),
+                                config(new GenerationConfig.ExecutionConfig(false, 4), List.of("fan-out"))));
+
+        assertEquals("cannot generate Order", error.getMessage());
+    }
+
+    @Test
+    void fingerprintDependsOnOutputInputsOnly() {
+        GenerationOrchestrator orchestrator = new GenerationOrchestrator(new SpecValidator(), BuiltInPlugins.all());
+        List<String> enabled = GenerationConfig.defaults().plugins().enabled();
+        String sequential = orchestrator.fingerprint(spec(), config(new GenerationConfig.ExecutionConfig(true, 0), enabled));
+
+        assertEquals(sequential, orchestrator.fingerprint(spec(), config(new GenerationConfig.ExecutionConfig(false, 4), enabled)));
+        assertNotEquals(sequential, orchestrator.fingerprint(spec(List.of("Product", "Order")),
+                config(new GenerationConfig.ExecutionConfig(true, 0), enabled)));
+        assertNotEquals(sequential, orchestrator.fingerprint(spec(),
+                config(new GenerationConfig.ExecutionConfig(true, 0), enabled.subList(1, enabled.size()))));
+        // Compression changes the archive bytes, so it is part of the fingerprint; parallelism is not.
+        GenerationConfig config = config(new GenerationConfig.ExecutionConfig(true, 0), enabled);
+        assertEquals(sequential, orchestrator.fingerprint(spec(), config.withArchive(new GenerationConfig.ArchiveConfig("default", null, true))));
+        assertNotEquals(sequential, orchestrator.fingerprint(spec(), config.withArchive(new GenerationConfig.ArchiveConfig("stored", null, false))));
+    }
+
+    @Test
+    void everyArchiveModeWritesTheSameFiles(@TempDir Path directory) throws IOException {
+        GenerationOrchestrator orchestrator = new GenerationOrchestrator(new SpecValidator(), BuiltInPlugins.all());
+        ApiSpecification spec = spec(List.of("Product", "Order", "Invoice", "Customer"));
+        GenerationConfig config = config(new GenerationConfig.ExecutionConfig(false, 4), GenerationConfig.defaults().plugins().enabled());
+        Map<String, String> expected = contents(orchestrator.generate(spec, config));
+        List<GenerationConfig.ArchiveConfig> modes = List.of(
+                new GenerationConfig.ArchiveConfig("default", null, false),
+                new GenerationConfig.ArchiveConfig("stored", null, false),
+                new GenerationConfig.ArchiveConfig("fast", null, true),
+                new GenerationConfig.ArchiveConfig("best", null, true),
+                new GenerationConfig.ArchiveConfig("default", 0, true)
+        );
+
+        for (GenerationConfig.ArchiveConfig mode : modes) {
+            byte[] archive = orchestrator.generateZip(spec, config.withArchive(mode));
+
+            // ZipInputStream checks each entry's CRC; ZipFile reads the central directory and offsets.
+            Map<String, String> streamed = new HashMap<>();
+            try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    streamed.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+            Path file = Files.write(directory.resolve("archive.zip"), archive);
+            Map<String, String> indexed = new HashMap<>();
+            try (ZipFile zip = new ZipFile(file.toFile())) {
+                for (ZipEntry entry : Collections.list(zip.entries())) {
+                    assertEquals(mode.stored() ? ZipEntry.STORED : ZipEntry.DEFLATED, entry.getMethod(), mode.toString());
+                    indexed.put(entry.getName(), new String(zip.getInputStream(entry).readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+            assertEquals(expected, streamed, mode.toString());
+            assertEquals(expected, indexed, mode.toString());
+        }
+    }
+
+    @Test
+    void equalFingerprintsMeanEqualArchiveBytesWhicheverWriterRuns() throws IOException {
+        GenerationOrchestrator orchestrator = new GenerationOrchestrator(new SpecValidator(), BuiltInPlugins.all());
+        ApiSpecification spec = spec(List.of("Product", "Order", "Invoice"));
+        GenerationConfig config = config(new GenerationConfig.ExecutionConfig(false, 4), GenerationConfig.defaults().plugins().enabled());
+        GenerationConfig sequential = config.withArchive(new GenerationConfig.ArchiveConfig("default", null, false));
+        GenerationConfig parallel = config.withArchive(new GenerationConfig.ArchiveConfig("default", null, true));
+
+        assertEquals(orchestrator.fingerprint(spec, sequential), orchestrator.fingerprint(spec, parallel));
+        assertArrayEquals(orchestrator.generateZip(spec, sequential), orchestrator.generateZip(spec, parallel));
+    }
+
+    @Test
+    void everyArchiveModeStampsEntriesWithTheSameFixedTime() throws IOException {
+        GenerationOrchestrator orchestrator = new GenerationOrchestrator(new SpecValidator(), BuiltInPlugins.all());
+        GenerationConfig config = config(new GenerationConfig.ExecutionConfig(false, 4), GenerationConfig.defaults().plugins().enabled());
+
+        for (boolean parallel : List.of(false, true)) {
+            byte[] archive = orchestrator.generateZip(spec(), config.withArchive(new GenerationConfig.ArchiveConfig("default", null, parallel)));
+            try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    assertEquals(ZipArchiveWriter.ENTRY_TIME, entry.getTimeLocal(), entry.getName());
+                }
+            }
+        }
+    }
+
+    @Test
+    void everyArchiveModeEndsWithTheLastEntryOnceZippingIsTimed() throws IOException {
+        for (boolean parallel : List.of(false, true)) {
+            GenerationTrace trace = new GenerationTrace();
+            GenerationConfig config = config(new GenerationConfig.ExecutionConfig(false, 4), GenerationConfig.defaults().plugins().enabled())
+                    .withArchive(new GenerationConfig.ArchiveConfig("default", null, parallel));
+            java.io.ByteArrayOutputStream archive = new java.io.ByteArrayOutputStream();
+
+            new GenerationOrchestrator(new SpecValidator(), BuiltInPlugins.all(), trace).generateZip(spec(), config, archive,
+                    () -> new GeneratedFile("timings.txt", String.join(",", trace.phaseMillis().keySet())));
+
+            List<String> names = new ArrayList<>();
+            String last = null;
+            try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive.toByteArray()))) {
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    names.add(entry.getName());
+                    last = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            }
+            assertEquals("timings.txt", names.get(names.size() - 1));
+            assertEquals("validate,generate,zip", last);
+            assertTrue(names.size() > 2, names.toString());
+        }
+    }
+
+    @Test
+    void everyArchiveModeRefusesDuplicateEntries() {
+        List<GeneratorPlugin> plugins = List.of(new StubPlugin("a", List.of(),
+                () -> List.of(new GeneratedFile("a.txt", "a"), new GeneratedFile("b.txt", "b"), new GeneratedFile("a.txt", "again"))));
+        GenerationOrchestrator orchestrator = new GenerationOrchestrator(new SpecValidator(), plugins);
+        GenerationConfig config = config(new GenerationConfig.ExecutionConfig(false, 4), List.of("a"));
+
+        for (boolean parallel : List.of(false, true)) {
+            ZipException error = assertThrows(ZipException.class,
+                    () -> orchestrator.generateZip(spec(), config.withArchive(new GenerationConfig.ArchiveConfig("default", null, parallel))));
+            assertEquals("duplicate entry: a.txt", error.getMessage());
+        }
+    }
+
+    @Test
+    void deltaAppliedToPreviousOutputReproducesCurrentOutput() {
+        GenerationOrchestrator orchestrator = new GenerationOrchestrator(new SpecValidator(), BuiltInPlugins.all());
+        GenerationConfig config = GenerationConfig.defaults();
+        ApiSpecification previous = spec(List.of("Product", "Order", "Invoice"));
+        ApiSpecification current = spec(List.of("Product", "Customer", "Invoice"), "Invoice", "total");
+
+        GenerationDelta delta = orchestrator.generateDelta(previous, config, current, config);
+
+        Map<String, String> patched = contents(orchestrator.generate(previous, config));
+        delta.removed().forEach(patched::remove);
+        delta.files().forEach(file -> patched.put(file.path(), file.content()));
+        assertEquals(contents(orchestrator.generate(current, config)), patched);
+        assertEquals(orchestrator.fingerprint(current, config), delta.fingerprint());
+        assertTrue(delta.removed().stream().anyMatch(path -> path.endsWith("/OrderController.java")));
+        assertTrue(delta.added().stream().anyMatch(file -> file.path().endsWith("/CustomerController.java")));
+        assertTrue(delta.changed().stream().anyMatch(file -> file.path().endsWith("/Invoice.java")));
+        assertTrue(delta.files().stream().noneMatch(file -> file.path().contains("Product")), "untouched entity regenerated");
+    }
+
+    @Test
+    void deltaKeepsAFileThatAnUnchangedEntityStillProduces() {
+        GeneratorPlugin plugin = new FanOutPlugin(definition -> List.of(
+                new GeneratedFile(definition.entity.name + ".txt", definition.entity.name),
+                new GeneratedFile("catalog.txt", "catalog")));
+        GenerationOrchestrator orchestrator = new GenerationOrchestrator(new SpecValidator(), List.of(plugin));
+        GenerationConfig config = config(new GenerationConfig.ExecutionConfig(true, 0), List.of("fan-out"));
+
+        GenerationDelta delta = orchestrator.generateDelta(spec(List.of("Product", "Order")), config, spec(List.of("Product")), config);
+
+        assertEquals(List.of("Order.txt"), delta.removed());
+        assertEquals(List.of(), delta.files());
+    }
+
+    @Test
+    void builtInPluginsNameTheirEntityFilesWithoutRenderingThem() {
+        GenerationConfig defaults = GenerationConfig.defaults();
+        GenerationConfig.StandardsConfig trimmed = new GenerationConfig.StandardsConfig(
+                new GenerationConfig.NamingConfig("Entity", "Dto", "Repo", "Svc", "Api"),
+                new GenerationConfig.LayeringConfig("layered", false, false), null, null, null,
+                new GenerationConfig.TestingConfig(true, false, null, null), null, null, null);
+        EntityDefinition withEnum = new EntityDefinition(
+                new EntitySpec("Order", "orders", "Long", List.of(
+                        new FieldSpec("name", "String", List.of(), true, false, null, null, null, false, List.of(), null, null),
+                        new FieldSpec("status", "OrderStatus", List.of(), false, false, null, null, null, false,
+                                List.of("OPEN", "PAID"), null, null))),
+                new ApiSpec("/api/orders", true, true, true),
+                List.of());
+
+        for (GenerationConfig config : List.of(defaults,
+                new GenerationConfig(defaults.project(), trimmed, defaults.features(), defaults.plugins()))) {
+            PluginContext context = new PluginContext(config, config.project().basePackage().replace('.', '/'),
+                    new TemplateEngine(), TemplatePack.fromName(config.project().templatePack()));
+            ApiSpecification spec = spec(List.of("Order"));
+            for (GeneratorPlugin plugin : BuiltInPlugins.all()) {
+                if (plugin.supportsEntityFanOut()) {
+                    assertEquals(plugin.generateForEntity(withEnum, spec, context).stream().map(GeneratedFile::path).toList(),
+                            plugin.pathsForEntity(withEnum, spec, context), plugin.getName());
+                }
+            }
+        }
+    }
+
+    @Test
+    void deltaIsEmptyForIdenticalSpecs() {
+        GenerationOrchestrator orchestrator = new GenerationOrchestrator(new SpecValidator(), BuiltInPlugins.all());
+        GenerationConfig config = GenerationConfig.defaults();
+
+        GenerationDelta delta = orchestrator.generateDelta(spec(List.of("Product", "Order")), config, spec(List.of("Product", "Order")), config);
+
+        assertEquals(List.of(), delta.files());
+        assertEquals(List.of(), delta.removed());
+        assertEquals(delta.baseFingerprint(), delta.fingerprint());
+    }
+
+    @Test
+    void traceRecordsPhasesAndPluginsAsServerTiming() throws IOException {
+        GenerationTrace trace = new GenerationTrace();
+        trace.since("read", System.nanoTime());
+        List<GeneratorPlugin> plugins = List.of(new StubPlugin("a", List.of(), () -> {
+            sleep(5);
+            return List.of(new GeneratedFile("a.txt", "a"));
+        }));
+
+        new GenerationOrchestrator(new SpecValidator(), plugins, trace)
+                .generateZip(spec(), config(new GenerationConfig.ExecutionConfig(true, 0), List.of("a")), new java.io.ByteArrayOutputStream());
+
+        assertEquals(List.of("read", "validate", "generate", "zip"), List.copyOf(trace.phaseMillis().keySet()));
+        assertEquals(Set.of("a"), trace.pluginMillis().keySet());
+        assertTrue(trace.phaseMillis().get("generate") >= 5, trace.phaseMillis().toString());
+        assertTrue(trace.serverTiming().matches("read;dur=\\d+\\.\\d{3}, validate;dur=\\d+\\.\\d{3}, generate;dur=\\d+\\.\\d{3}, "
+                + "zip;dur=\\d+\\.\\d{3}, total;dur=\\d+\\.\\d{3}"), trace.serverTiming());
+    }
+
+    private static Map<String, String> contents(List<GeneratedFile> files) {
+        Map<String, String> byPath = new HashMap<>();
+        files.forEach(file -> byPath.put(file.path(), file.content()));
+        return byPath;
+    }
+
+    private static GenerationConfig config(GenerationConfig.ExecutionConfig execution, List<String> enabled) {
+        GenerationConfig defaults = GenerationConfig.defaults();
+        return new GenerationConfig(
+                defaults.project(),
+                defaults.standards(),
+                defaults.features(),
+                new GenerationConfig.PluginsConfig(enabled, List.of(), List.of(), List.of()),
+                execution
+        );
+    }
+
+    private static ApiSpecification spec() {
+        return spec(List.of("Product"));
+    }
+
+    private static ApiSpecification spec(List<String> entityNames) {
+        return spec(entityNames, null, null);
+    }
+
+    /** Entities with a {@code name} field; {@code extendedEntity} also gets {@code extraField}. */
+    private static ApiSpecification spec(List<String> entityNames, String extendedEntity, String extraField) {
+        return new ApiSpecification(
+                "products-api",
+                "com.example.generated",
+                entityNames.stream().map(name -> {
+                    String plural = name.toLowerCase() + "s";
+                    List<FieldSpec> fields = new ArrayList<>();
+                    fields.add(new FieldSpec("name", "String", List.of(), true, false, null, null, null, false, List.of(), null, null));
+                    if (name.equals(extendedEntity)) {
+                        fields.add(new FieldSpec(extraField, "BigDecimal", List.of(), true, false, null, null, null, false, List.of(), null, null));
+                    }
+                    return new EntityDefinition(
+                            new EntitySpec(name, plural, "Long", fields),
+                            new ApiSpec("/api/" + plural, true, true, true),
+                            List.of()
+                    );
+                }).toList(),
+                List.of()
+        );
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record StubPlugin(String name, List<String> dependencies, Supplier<List<GeneratedFile>> body)
+            implements GeneratorPlugin {
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getVersion() {
+            return "1.0.0";
+        }
+
+        @Override
+        public List<String> getDependencies() {
+            return dependencies;
+        }
+
+        @Override
+        public List<GeneratedFile> generate(ApiSpecification specification, PluginContext context) {
+            return body.get();
+        }
+    }
+
+    private record FanOutPlugin(Function<EntityDefinition, List<GeneratedFile>> perEntity) implements GeneratorPlugin {
+        @Override
+        public String getName() {
+            return "fan-out";
+        }
+
+        @Override
+        public String getVersion() {
+            return "1.0.0";
+        }
+
+        @Override
+        public boolean supportsEntityFanOut() {
+            return true;
+        }
+
+        @Override
+        public List<GeneratedFile> generate(ApiSpecification specification, PluginContext context) {
+            return generateForEachEntity(specification, context);
+        }
+
+        @Override
+        public List<GeneratedFile> generateForEntity(EntityDefinition definition, ApiSpecification specification, PluginContext context) {
+            return perEntity.apply(definition);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package io.restapigen.core.parser;
+
+import io.restapigen.core.config.GenerationConfig;
+import io.restapigen.domain.ApiSpecification;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CoalescingPromptParserTest {
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private volatile CompletableFuture<ApiSpecification> pending = new CompletableFuture<>();
+    private final PromptParser upstream = new PromptParser() {
+        @Override
+        public ApiSpecification parse(String prompt, GenerationConfig config) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<ApiSpecification> parseAsync(String prompt, GenerationConfig config) {
+            upstreamCalls.incrementAndGet();
+            return pending;
+        }
+    };
+
+    @Test
+    void concurrentIdenticalPromptsShareOneUpstreamCall() throws Exception {
+        CoalescingPromptParser parser = new CoalescingPromptParser(upstream, "test-model");
+        ApiSpecification spec = new ApiSpecification("library", "io.example", List.of(), List.of());
+
+        CompletableFuture<ApiSpecification> first = parser.parseAsync("a library  with books", GenerationConfig.defaults());
+        CompletableFuture<ApiSpecification> second = parser.parseAsync("  a library\twith books\r\n", GenerationConfig.defaults());
+        assertFalse(second.isDone());
+        pending.complete(spec);
+
+        assertSame(spec, first.get(1, TimeUnit.SECONDS));
+        assertSame(spec, second.get(1, TimeUnit.SECONDS));
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(new CoalescingPromptParser.Stats(1, 1, 0), parser.stats());
+
+        pending = CompletableFuture.completedFuture(spec);
+        parser.parse("a library with books", GenerationConfig.defaults());
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void differentConfigsOrModelsDoNotShareCalls() {
+        CoalescingPromptParser parser = new CoalescingPromptParser(upstream, "test-model");
+        CoalescingPromptParser otherModel = new CoalescingPromptParser(upstream, "other-model");
+        GenerationConfig renamed = GenerationConfig.defaults().withProjectIdentity("shop", "io.shop");
+
+        parser.parseAsync("a library with books", GenerationConfig.defaults());
+        parser.parseAsync("a library with books", renamed);
+        parser.parseAsync("a library\n\nwith books", GenerationConfig.defaults());
+        otherModel.parseAsync("a library with books", GenerationConfig.defaults());
+
+        assertEquals(4, upstreamCalls.get());
+        assertEquals(0, parser.stats().coalesced());
+    }
+
+    @Test
+    void failureReachesEveryWaiterAndIsNotRemembered() {
+        CoalescingPromptParser parser = new CoalescingPromptParser(upstream, "test-model");
+        CompletableFuture<ApiSpecification> first = parser.parseAsync("a library with books", GenerationConfig.defaults());
+        CompletableFuture<ApiSpecification> second = parser.parseAsync("a library with books", GenerationConfig.defaults());
+
+        pending.completeExceptionally(new LlmOverloadedException("ollama", 1, 3));
+
+        ExecutionException firstError = assertThrows(ExecutionException.class, () -> first.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(LlmOverloadedException.class, firstError.getCause());
+        assertThrows(LlmOverloadedException.class, () -> parser.parse("a library with books", GenerationConfig.defaults()));
+        assertInstanceOf(LlmOverloadedException.class,
+                assertThrows(ExecutionException.class, second::get).getCause());
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(0, parser.stats().inFlight());
+    }
+}
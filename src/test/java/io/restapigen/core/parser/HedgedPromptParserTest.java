@@ -0,0 +1,196 @@
+package io.restapigen.core.parser;
+
+import io.restapigen.core.config.GenerationConfig;
+import io.restapigen.domain.ApiSpecification;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgedPromptParserTest {
+
+    private static final String PROMPT = "Create an API for Author with name";
+    private static final ApiSpecification LLM_SPEC = new NaturalLanguagePromptParser()
+            .parse("Create an API for Book with title", GenerationConfig.defaults());
+
+    private final List<String> fallbacks = new CopyOnWriteArrayList<>();
+    private final LlmCallListener listener = new LlmCallListener() {
+        @Override
+        public void fallback(String provider, String reason) {
+            fallbacks.add(provider + " " + reason);
+        }
+    };
+
+    @Test
+    void answersDeterministicallyWhenTheBudgetRunsOutAndLetsTheCallFinish() throws Exception {
+        FakeLlm ollama = new FakeLlm("ollama");
+        HedgedPromptParser parser = new HedgedPromptParser(ollama, null, 0, listener);
+
+        HedgedPromptParser.Result result = parser.parseHedged(PROMPT, GenerationConfig.defaults(), 50).get(5, TimeUnit.SECONDS);
+
+        assertEquals("Author", result.spec().entities.get(0).entity.name);
+        assertEquals(HedgedPromptParser.DETERMINISTIC, result.parsedBy());
+        assertEquals("latency_budget", result.fallbackReason());
+        assertFalse(ollama.calls.get(0).isDone());
+        assertEquals(List.of("ollama latency_budget"), fallbacks);
+        assertEquals(1, parser.stats().budgetFallbacks());
+    }
+
+    @Test
+    void llmAnswerWithinTheBudgetWins() throws Exception {
+        FakeLlm ollama = new FakeLlm("ollama");
+        HedgedPromptParser parser = new HedgedPromptParser(ollama, null, 0, listener);
+
+        CompletableFuture<HedgedPromptParser.Result> parsed = parser.parseHedged(PROMPT, GenerationConfig.defaults(), 5_000);
+        ollama.calls.get(0).complete(LLM_SPEC);
+        HedgedPromptParser.Result result = parsed.get(5, TimeUnit.SECONDS);
+
+        assertEquals("Book", result.spec().entities.get(0).entity.name);
+        assertEquals("ollama", result.parsedBy());
+        assertNull(result.fallbackReason());
+        assertTrue(fallbacks.isEmpty());
+    }
+
+    @Test
+    void failedPrimaryHedgesAtOnceAndFallsBackOnlyWhenBothFail() throws Exception {
+        FakeLlm ollama = new FakeLlm("ollama");
+        FakeLlm cloud = new FakeLlm("cloud-llm");
+        HedgedPromptParser parser = new HedgedPromptParser(ollama, cloud, 0, listener);
+
+        CompletableFuture<HedgedPromptParser.Result> hedged = parser.parseHedged(PROMPT, GenerationConfig.defaults(), 0);
+        ollama.calls.get(0).completeExceptionally(new LlmUnavailableException("unreachable", "connection refused", null));
+        cloud.calls.get(0).complete(LLM_SPEC);
+        assertEquals("cloud-llm", hedged.get(5, TimeUnit.SECONDS).parsedBy());
+
+        CompletableFuture<HedgedPromptParser.Result> neither = parser.parseHedged(PROMPT, GenerationConfig.defaults(), 0);
+        ollama.calls.get(1).completeExceptionally(new LlmUnavailableException("timeout", "timed out", null));
+        cloud.calls.get(1).completeExceptionally(new LlmUnavailableException("rate_limited", "429", null));
+        HedgedPromptParser.Result result = neither.get(5, TimeUnit.SECONDS);
+
+        assertEquals(HedgedPromptParser.DETERMINISTIC, result.parsedBy());
+        assertEquals("timeout", result.fallbackReason());
+        assertEquals(List.of("ollama timeout"), fallbacks);
+        assertEquals(2, parser.stats().hedgesSent());
+    }
+
+    @Test
+    void hedgesASlowPrimaryAfterItsP95AndCancelsTheLoser() throws Exception {
+        FakeLlm ollama = new FakeLlm("ollama");
+        FakeLlm cloud = new FakeLlm("cloud-llm");
+        HedgedPromptParser parser = new HedgedPromptParser(ollama, cloud, 0, listener);
+        for (int i = 0; i < HedgedPromptParser.MIN_SAMPLES_TO_HEDGE; i++) {
+            CompletableFuture<HedgedPromptParser.Result> quick = parser.parseHedged(PROMPT, GenerationConfig.defaults(), 0);
+            ollama.calls.get(i).complete(LLM_SPEC);
+            quick.get(5, TimeUnit.SECONDS);
+        }
+        assertTrue(parser.stats().hedgeDelayMillis() != null);
+
+        CompletableFuture<HedgedPromptParser.Result> slow = parser.parseHedged(PROMPT, GenerationConfig.defaults(), 0);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cloud.calls.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        cloud.calls.get(0).complete(LLM_SPEC);
+
+        assertEquals("cloud-llm", slow.get(5, TimeUnit.SECONDS).parsedBy());
+        assertTrue(ollama.calls.get(HedgedPromptParser.MIN_SAMPLES_TO_HEDGE).isCancelled());
+        assertEquals(1, parser.stats().hedgeAnswers());
+    }
+
+    @Test
+    void budgetCancelsALosingHedgeButKeepsThePrimary() throws Exception {
+        FakeLlm ollama = new FakeLlm("ollama");
+        FakeLlm cloud = new FakeLlm("cloud-llm");
+        HedgedPromptParser parser = new HedgedPromptParser(ollama, cloud, 0, listener);
+        for (int i = 0; i < HedgedPromptParser.MIN_SAMPLES_TO_HEDGE; i++) {
+            CompletableFuture<HedgedPromptParser.Result> quick = parser.parseHedged(PROMPT, GenerationConfig.defaults(), 0);
+            ollama.calls.get(i).complete(LLM_SPEC);
+            quick.get(5, TimeUnit.SECONDS);
+        }
+
+        CompletableFuture<HedgedPromptParser.Result> slow = parser.parseHedged(PROMPT, GenerationConfig.defaults(), 200);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cloud.calls.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(HedgedPromptParser.DETERMINISTIC, slow.get(10, TimeUnit.SECONDS).parsedBy());
+        // get() can return before the thread completing the result has cancelled the hedge.
+        CompletableFuture<ApiSpecification> hedge = cloud.calls.get(0);
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!hedge.isDone() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(hedge.isCancelled());
+        assertFalse(ollama.calls.get(HedgedPromptParser.MIN_SAMPLES_TO_HEDGE).isDone());
+    }
+
+    @Test
+    void neverHedgesToAProviderReportedDown() throws Exception {
+        FakeLlm ollama = new FakeLlm("ollama");
+        FakeLlm cloud = new FakeLlm("cloud-llm");
+        HedgedPromptParser parser = new HedgedPromptParser(ollama, cloud, 0, listener, "cloud-llm"::equals);
+
+        CompletableFuture<HedgedPromptParser.Result> parsed = parser.parseHedged(PROMPT, GenerationConfig.defaults(), 0);
+        ollama.calls.get(0).completeExceptionally(new LlmUnavailableException("unreachable", "connection refused", null));
+
+        assertEquals(HedgedPromptParser.DETERMINISTIC, parsed.get(5, TimeUnit.SECONDS).parsedBy());
+        assertTrue(cloud.calls.isEmpty());
+        assertEquals(0, parser.stats().hedgesSent());
+        assertEquals(1, parser.stats().hedgesSkipped());
+    }
+
+    @Test
+    void sendsPromptsToTheHedgeFirstWhileThePrimaryIsDown() throws Exception {
+        FakeLlm ollama = new FakeLlm("ollama");
+        FakeLlm cloud = new FakeLlm("cloud-llm");
+        HedgedPromptParser parser = new HedgedPromptParser(ollama, cloud, 0, listener, "ollama"::equals);
+
+        CompletableFuture<HedgedPromptParser.Result> rerouted = parser.parseHedged(PROMPT, GenerationConfig.defaults(), 0);
+        assertTrue(ollama.calls.isEmpty());
+        cloud.calls.get(0).complete(LLM_SPEC);
+        assertEquals("cloud-llm", rerouted.get(5, TimeUnit.SECONDS).parsedBy());
+
+        // A failing hedge still falls back to the primary, whose health may have been stale.
+        CompletableFuture<HedgedPromptParser.Result> retried = parser.parseHedged(PROMPT, GenerationConfig.defaults(), 0);
+        cloud.calls.get(1).completeExceptionally(new LlmUnavailableException("rate_limited", "429", null));
+        ollama.calls.get(0).complete(LLM_SPEC);
+        assertEquals("ollama", retried.get(5, TimeUnit.SECONDS).parsedBy());
+        assertEquals(2, parser.stats().reroutes());
+        assertEquals(1, parser.stats().hedgesSent());
+    }
+
+    /** An LLM parser whose calls complete when the test says so. */
+    private static final class FakeLlm implements LlmPromptParser {
+        private final String provider;
+        private final List<CompletableFuture<ApiSpecification>> calls = new CopyOnWriteArrayList<>();
+
+        FakeLlm(String provider) {
+            this.provider = provider;
+        }
+
+        @Override
+        public String provider() {
+            return provider;
+        }
+
+        @Override
+        public CompletableFuture<ApiSpecification> parseWithLlm(String prompt, GenerationConfig config) {
+            CompletableFuture<ApiSpecification> call = new CompletableFuture<>();
+            calls.add(call);
+            return call;
+        }
+
+        @Override
+        public ApiSpecification parse(String prompt, GenerationConfig config) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.restapigen.core.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LlmCircuitBreakerTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<String> transitions = new CopyOnWriteArrayList<>();
+    private final LlmCallListener listener = new LlmCallListener() {
+        @Override
+        public void circuitTransition(String provider, String model, String from, String to) {
+            transitions.add(model + " " + from + "->" + to);
+        }
+    };
+
+    @Test
+    void opensOnErrorRateThenClosesAfterSuccessfulTrials() {
+        LlmCircuitBreaker breaker = breaker(new LlmCircuitBreaker.Settings(4, 4, 0.5, 1_000, 1, 30_000, 2));
+
+        record(breaker, "fast", false, false, true);
+        assertEquals(LlmCircuitBreaker.State.CLOSED, breaker.state("fast"));
+        record(breaker, "fast", true);
+        assertEquals(LlmCircuitBreaker.State.OPEN, breaker.state("fast"));
+        assertFalse(breaker.tryAcquire("fast"));
+        assertTrue(breaker.tryAcquire("slow"));
+
+        now.addAndGet(30_000 * MILLIS);
+        assertTrue(breaker.tryAcquire("fast"));
+        assertTrue(breaker.tryAcquire("fast"));
+        assertFalse(breaker.tryAcquire("fast"));
+        breaker.record("fast", 10 * MILLIS, false);
+        assertEquals(LlmCircuitBreaker.State.HALF_OPEN, breaker.state("fast"));
+        breaker.record("fast", 10 * MILLIS, false);
+
+        assertEquals(LlmCircuitBreaker.State.CLOSED, breaker.state("fast"));
+        assertEquals(List.of("fast closed->open", "fast open->half_open", "fast half_open->closed"), transitions);
+        LlmCircuitBreaker.Stats stats = breaker.stats().get(0);
+        assertEquals(3, stats.transitions());
+        assertEquals(2, stats.shortCircuited());
+        assertEquals(0, stats.calls());
+    }
+
+    @Test
+    void slowCallsOpenTheCircuitAndAFailedTrialReopensIt() {
+        LlmCircuitBreaker breaker = breaker(new LlmCircuitBreaker.Settings(10, 3, 0.5, 1_000, 0.6, 5_000, 1));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire("slow"));
+            breaker.record("slow", (i == 0 ? 100 : 2_000) * MILLIS, false);
+        }
+        assertEquals(LlmCircuitBreaker.State.OPEN, breaker.state("slow"));
+
+        now.addAndGet(5_000 * MILLIS);
+        assertTrue(breaker.tryAcquire("slow"));
+        breaker.record("slow", 10 * MILLIS, true);
+
+        assertEquals(LlmCircuitBreaker.State.OPEN, breaker.state("slow"));
+        assertFalse(breaker.tryAcquire("slow"));
+        assertEquals(List.of("slow closed->open", "slow open->half_open", "slow half_open->open"), transitions);
+    }
+
+    @Test
+    void windowOfZeroNeverOpens() {
+        LlmCircuitBreaker breaker = breaker(new LlmCircuitBreaker.Settings(0, 1, 0.5, 1_000, 1, 30_000, 1));
+
+        record(breaker, "fast", true, true, true, true);
+
+        assertTrue(breaker.tryAcquire("fast"));
+        assertEquals(LlmCircuitBreaker.State.CLOSED, breaker.state("fast"));
+        assertTrue(transitions.isEmpty());
+    }
+
+    private LlmCircuitBreaker breaker(LlmCircuitBreaker.Settings settings) {
+        return new LlmCircuitBreaker("cloud-llm", List.of("fast", "slow"), settings, listener, now::get);
+    }
+
+    private static void record(LlmCircuitBreaker breaker, String model, boolean... failures) {
+        for (boolean failed : failures) {
+            assertTrue(breaker.tryAcquire(model));
+            breaker.record(model, 10 * MILLIS, failed);
+        }
+    }
+}
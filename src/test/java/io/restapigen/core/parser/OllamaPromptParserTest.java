@@ -0,0 +1,271 @@
+package io.restapigen.core.parser;
+
+import com.sun.net.httpserver.HttpServer;
+import io.restapigen.core.config.GenerationConfig;
+import io.restapigen.domain.ApiSpecification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OllamaPromptParserTest {
+
+    private static final String STRUCTURED = "Create an API for Book with:\\n- title (string, required)";
+
+    private HttpServer ollama;
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean holdResponses;
+    private final CountDownLatch firstEntityReported = new CountDownLatch(1);
+    private volatile boolean streamEnded;
+
+    @BeforeEach
+    void startFakeOllama() throws IOException {
+        ollama = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        ollama.setExecutor(Executors.newCachedThreadPool());
+        ollama.createContext("/api/generate", exchange -> {
+            String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            requests.incrementAndGet();
+            if (request.contains("\"stream\":true")) {
+                streamBlocks(exchange);
+                return;
+            }
+            if (holdResponses) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            byte[] body = ("{\"response\": \"" + STRUCTURED + "\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status.get(), body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        ollama.start();
+    }
+
+    /** Two blocks, pausing after the first until the parser has reported it. */
+    private void streamBlocks(com.sun.net.httpserver.HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(200, 0);
+        var out = exchange.getResponseBody();
+        for (String token : List.of("Create an API for Book with:\\n", "- title (string, required)\\n\\n", "Create an API ")) {
+            out.write(("{\"response\": \"" + token + "\", \"done\": false}\n").getBytes(StandardCharsets.UTF_8));
+        }
+        out.write("{\"response\": \"for Author with:\\n- name (string)\", \"done\": false}\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        try {
+            firstEntityReported.await(15, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        streamEnded = true;
+        out.write("{\"response\": \"\", \"done\": true}\n".getBytes(StandardCharsets.UTF_8));
+        exchange.close();
+    }
+
+    @AfterEach
+    void stopFakeOllama() {
+        release.countDown();
+        ollama.stop(0);
+    }
+
+    @Test
+    void usesLlmOutputAndFallsBackToDeterministicParserOnErrors() throws Exception {
+        OllamaPromptParser parser = parser(4);
+
+        ApiSpecification structured = parser.parseAsync("a library with books", GenerationConfig.defaults()).get(5, TimeUnit.SECONDS);
+        status.set(500);
+        ApiSpecification fallback = parser.parse("Create an API for Author with name", GenerationConfig.defaults());
+
+        assertEquals("Book", structured.entities.get(0).entity.name);
+        assertEquals("Author", fallback.entities.get(0).entity.name);
+        assertEquals(2, parser.callStats().completed());
+    }
+
+    @Test
+    void rejectsCallsBeyondInFlightLimitWithoutWaiting() throws Exception {
+        holdResponses = true;
+        OllamaPromptParser parser = parser(1);
+
+        CompletableFuture<ApiSpecification> first = parser.parseAsync("a library with books", GenerationConfig.defaults());
+        CompletableFuture<ApiSpecification> second = parser.parseAsync("a library with books", GenerationConfig.defaults());
+
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> second.get(1, TimeUnit.SECONDS));
+        LlmOverloadedException overloaded = assertInstanceOf(LlmOverloadedException.class, rejected.getCause());
+        assertTrue(overloaded.retryAfterSeconds() >= 1);
+        assertThrows(LlmOverloadedException.class, () -> parser.parse("a library with books", GenerationConfig.defaults()));
+
+        release.countDown();
+        assertEquals("Book", first.get(5, TimeUnit.SECONDS).entities.get(0).entity.name);
+        LlmCallLimiter.Stats stats = parser.callStats();
+        assertEquals(2, stats.rejected());
+        assertEquals(0, stats.inFlight());
+    }
+
+    @Test
+    void servesRepeatedPromptsFromCacheWithoutCallingOllama() {
+        PromptCache cache = new PromptCache(10, 60);
+        OllamaPromptParser parser = parser(4, cache);
+
+        ApiSpecification first = parser.parse("a library with books", GenerationConfig.defaults());
+        ApiSpecification second = parser.parse("a library  with books ", GenerationConfig.defaults().withProjectIdentity("library", "io.library"));
+
+        assertEquals("Book", first.entities.get(0).entity.name);
+        assertEquals("Book", second.entities.get(0).entity.name);
+        assertEquals("io.library", second.basePackage);
+        assertEquals(1, requests.get());
+        assertEquals(1, cache.stats().hits());
+    }
+
+    @Test
+    void promptThatMissedTheLatencyBudgetIsServedFromCacheNextTime() throws Exception {
+        holdResponses = true;
+        PromptCache cache = new PromptCache(10, 60);
+        HedgedPromptParser hedged = new HedgedPromptParser(parser(4, cache), null, 0, LlmCallListener.NONE);
+
+        HedgedPromptParser.Result first = hedged.parseHedged("a library with books", GenerationConfig.defaults(), 50)
+                .get(5, TimeUnit.SECONDS);
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.stats().entries() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        HedgedPromptParser.Result second = hedged.parseHedged("a library with books", GenerationConfig.defaults(), 50)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(HedgedPromptParser.DETERMINISTIC, first.parsedBy());
+        assertEquals("ollama", second.parsedBy());
+        assertEquals("Book", second.spec().entities.get(0).entity.name);
+        assertEquals(1, requests.get());
+        assertEquals(1, cache.stats().hits());
+    }
+
+    @Test
+    void doesNotCacheDeterministicFallbacks() {
+        status.set(500);
+        PromptCache cache = new PromptCache(10, 60);
+        OllamaPromptParser parser = parser(4, cache);
+
+        parser.parse("Create an API for Author with name", GenerationConfig.defaults());
+        parser.parse("Create an API for Author with name", GenerationConfig.defaults());
+
+        assertEquals(2, requests.get());
+        assertEquals(0, cache.stats().entries());
+    }
+
+    @Test
+    void reportsCallsAndFallbackReasonsToListener() {
+        List<String> events = new CopyOnWriteArrayList<>();
+        LlmCallListener listener = new LlmCallListener() {
+            @Override
+            public void callCompleted(String provider, String model, long nanos, String failure) {
+                events.add("call " + provider + " " + model + " " + failure);
+            }
+
+            @Override
+            public void fallback(String provider, String reason) {
+                events.add("fallback " + provider + " " + reason);
+            }
+        };
+        OllamaPromptParser parser = new OllamaPromptParser("http://localhost:" + ollama.getAddress().getPort(), "test-model", 10,
+                new LlmCallLimiter("ollama", 4), PromptCache.disabled(), listener);
+
+        parser.parse("a library with books", GenerationConfig.defaults());
+        status.set(500);
+        parser.parse("a library with books", GenerationConfig.defaults());
+
+        assertEquals(List.of("call ollama test-model null", "call ollama test-model error", "fallback ollama error"), events);
+    }
+
+    @Test
+    void openCircuitFallsBackWithoutCallingOllama() {
+        status.set(500);
+        List<String> fallbacks = new CopyOnWriteArrayList<>();
+        LlmCallListener listener = new LlmCallListener() {
+            @Override
+            public void fallback(String provider, String reason) {
+                fallbacks.add(reason);
+            }
+        };
+        OllamaPromptParser parser = new OllamaPromptParser("http://localhost:" + ollama.getAddress().getPort(), "test-model", 10,
+                new LlmCallLimiter("ollama", 4), PromptCache.disabled(), listener,
+                new LlmCircuitBreaker.Settings(4, 2, 0.5, 5_000, 1, 60_000, 1));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Author", parser.parse("Create an API for Author with name", GenerationConfig.defaults())
+                    .entities.get(0).entity.name);
+        }
+
+        assertEquals(2, requests.get());
+        assertEquals(List.of("error", "error", "circuit_open"), fallbacks);
+        assertEquals(LlmCircuitBreaker.State.OPEN, parser.circuitBreaker().state("test-model"));
+    }
+
+    @Test
+    void streamingReportsEachEntityBeforeTheResponseEnds() throws Exception {
+        PromptCache cache = new PromptCache(10, 60);
+        OllamaPromptParser parser = parser(4, cache);
+        List<String> reported = new CopyOnWriteArrayList<>();
+
+        ApiSpecification spec = parser.parseStreaming("a library", GenerationConfig.defaults(), entity -> {
+            reported.add(entity.entity.name + (streamEnded ? "" : " (mid-stream)"));
+            firstEntityReported.countDown();
+        }).get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of("Book (mid-stream)", "Author"), reported);
+        assertEquals(List.of("Book", "Author"), spec.entities.stream().map(definition -> definition.entity.name).toList());
+        assertEquals(1, cache.stats().entries());
+    }
+
+    @Test
+    void streamingTimeoutCutsTheStreamOffBeforeFreeingTheSlot() throws Exception {
+        List<String> fallbacks = new CopyOnWriteArrayList<>();
+        LlmCallListener listener = new LlmCallListener() {
+            @Override
+            public void fallback(String provider, String reason) {
+                fallbacks.add(reason);
+            }
+        };
+        // The shortest timeout the parser allows; the fake stream stalls after its first block for longer.
+        OllamaPromptParser parser = new OllamaPromptParser("http://localhost:" + ollama.getAddress().getPort(), "test-model", 5,
+                new LlmCallLimiter("ollama", 1), PromptCache.disabled(), listener);
+        List<String> reported = new CopyOnWriteArrayList<>();
+
+        ApiSpecification spec = parser.parseStreaming("Create an API for Author with name", GenerationConfig.defaults(),
+                entity -> reported.add(entity.entity.name)).get(10, TimeUnit.SECONDS);
+        firstEntityReported.countDown();
+        Thread.sleep(200);
+
+        assertEquals("Author", spec.entities.get(0).entity.name);
+        assertEquals(List.of("timeout"), fallbacks);
+        assertEquals(List.of("Book"), reported);
+        assertEquals(0, parser.callStats().inFlight());
+    }
+
+    private OllamaPromptParser parser(int maxInFlight) {
+        return parser(maxInFlight, PromptCache.disabled());
+    }
+
+    private OllamaPromptParser parser(int maxInFlight, PromptCache cache) {
+        return new OllamaPromptParser("http://localhost:" + ollama.getAddress().getPort(), "test-model", 10,
+                new LlmCallLimiter("ollama", maxInFlight), cache);
+    }
+}
@@ -0,0 +1,118 @@
+package io.restapigen.core.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PromptCacheTest {
+
+    private static final String A = PromptCache.key("llama3.2", "v1", "a library with books");
+    private static final String B = PromptCache.key("llama3.2", "v1", "a shop with products");
+    private static final String C = PromptCache.key("llama3.2", "v1", "a clinic with patients");
+
+    @TempDir
+    Path directory;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    void evictsLeastRecentlyUsedAndExpiresAfterTtl() {
+        PromptCache cache = new PromptCache(2, 60, null, 0, now::get);
+        cache.put(A, "Create an API for Book");
+        cache.put(B, "Create an API for Product");
+        cache.get(A);
+        cache.put(C, "Create an API for Patient");
+
+        assertEquals("Create an API for Book", cache.get(A));
+        assertNull(cache.get(B));
+        now.addAndGet(60_000);
+        assertNull(cache.get(C));
+
+        PromptCache.Stats stats = cache.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(1, stats.evictions());
+        assertEquals(1, stats.expirations());
+        assertEquals(1, stats.entries());
+    }
+
+    @Test
+    void keysIgnoreWhitespaceButNotModelOrSystemPrompt() {
+        assertEquals(A, PromptCache.key("llama3.2", "v1", "  a library\twith  books\r\n"));
+        assertNotEquals(A, PromptCache.key("mistral", "v1", "a library with books"));
+        assertNotEquals(A, PromptCache.key("llama3.2", "v2", "a library with books"));
+        assertNotEquals(PromptCache.version("You are a helpful assistant."), PromptCache.version("You are terse."));
+    }
+
+    @Test
+    void logIsReplayedAfterRestartWithoutExpiredEntries() {
+        Path log = directory.resolve("prompts.log");
+        try (PromptCache cache = new PromptCache(10, 60, log, 1 << 20, now::get)) {
+            cache.put(A, "Create an API for Book");
+            now.addAndGet(30_000);
+            cache.put(B, "Create an API for Product — ünïcode");
+        }
+        now.addAndGet(40_000);
+
+        try (PromptCache restarted = new PromptCache(10, 60, log, 1 << 20, now::get)) {
+            assertNull(restarted.get(A));
+            assertEquals("Create an API for Product — ünïcode", restarted.get(B));
+            assertEquals(1, restarted.stats().entries());
+        }
+    }
+
+    @Test
+    void replayStopsAtTornRecordAndLaterAppendsOverwriteIt() throws IOException {
+        Path log = directory.resolve("prompts.log");
+        long intact;
+        try (PromptCache cache = new PromptCache(10, 0, log, 1 << 20, now::get)) {
+            cache.put(A, "Create an API for Book");
+            intact = cache.stats().logBytes();
+            cache.put(B, "Create an API for Product");
+        }
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0x7f}), intact + 20);
+        }
+
+        try (PromptCache restarted = new PromptCache(10, 0, log, 1 << 20, now::get)) {
+            assertEquals("Create an API for Book", restarted.get(A));
+            assertNull(restarted.get(B));
+            restarted.put(C, "Create an API for Patient");
+        }
+        try (PromptCache again = new PromptCache(10, 0, log, 1 << 20, now::get)) {
+            assertEquals("Create an API for Book", again.get(A));
+            assertEquals("Create an API for Patient", again.get(C));
+        }
+    }
+
+    @Test
+    void compactsLogWhenItOutgrowsItsBudget() throws IOException {
+        Path log = directory.resolve("prompts.log");
+        String structured = "Create an API for Book with:\n- title (string, required)\n".repeat(200);
+        try (PromptCache cache = new PromptCache(3, 0, log, 64 * 1024, now::get)) {
+            for (int i = 0; i < 20; i++) {
+                cache.put(PromptCache.key("llama3.2", "v1", "prompt " + i), structured);
+            }
+            assertTrue(cache.stats().logBytes() <= 64 * 1024);
+        }
+        assertTrue(Files.size(log) <= 64 * 1024);
+
+        try (PromptCache restarted = new PromptCache(3, 0, log, 64 * 1024, now::get)) {
+            assertEquals(structured, restarted.get(PromptCache.key("llama3.2", "v1", "prompt 19")));
+            assertNull(restarted.get(PromptCache.key("llama3.2", "v1", "prompt 0")));
+            assertEquals(3, restarted.stats().entries());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package io.restapigen.core.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StructuredBlockSplitterTest {
+
+    @Test
+    void emitsEachBlockOnceTheNextOneStartsAndTheLastOneAtTheEnd() {
+        List<String> blocks = new ArrayList<>();
+        StructuredBlockSplitter splitter = new StructuredBlockSplitter(blocks::add);
+
+        splitter.append("Sure! Here you go:\nCreate an API for Bo");
+        splitter.append("ok with:\n- title (string, required)\n\n");
+        assertEquals(List.of(), blocks);
+        splitter.append("create an API for Author with:\n- name (string)");
+        assertEquals(List.of("Create an API for Book with:\n- title (string, required)"), blocks);
+        splitter.finish();
+
+        assertEquals(List.of(
+                "Create an API for Book with:\n- title (string, required)",
+                "create an API for Author with:\n- name (string)"), blocks);
+        assertEquals("Sure! Here you go:\nCreate an API for Book with:\n- title (string, required)\n\n"
+                + "create an API for Author with:\n- name (string)", splitter.text());
+    }
+
+    @Test
+    void headerOnTheUnterminatedLastLineStartsItsOwnBlock() {
+        List<String> blocks = new ArrayList<>();
+        StructuredBlockSplitter splitter = new StructuredBlockSplitter(blocks::add);
+
+        splitter.append("Create an API for Book with:\n- title (string)\nCreate an API for Tag");
+        splitter.finish();
+
+        assertEquals(List.of("Create an API for Book with:\n- title (string)", "Create an API for Tag"), blocks);
+    }
+}
@@ -0,0 +1,59 @@
+package io.restapigen.core.plugin;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class GeneratedFileTest {
+
+    // ASCII, 2- and 3-byte characters, a surrogate pair and two unpaired surrogates.
+    private static final String MIXED = "class Café { String s = \"€ 😀\"; } \uD800 x \uDC00";
+
+    @Test
+    void streamsSameBytesAsStringEncodingAcrossBufferBoundaries() throws IOException {
+        String content = MIXED.repeat(50);
+        for (int bufferSize : new int[] {4, 5, 7, 64, 8192}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new GeneratedFile("A.java", new StringBuilder(content)).writeTo(out, new byte[bufferSize]);
+
+            assertArrayEquals(content.getBytes(StandardCharsets.UTF_8), out.toByteArray(), "buffer size " + bufferSize);
+        }
+    }
+
+    @Test
+    void writesPreEncodedBytesUnchanged() throws IOException {
+        byte[] utf8 = "héllo".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        GeneratedFile.ofUtf8("a.txt", utf8).writeTo(out, new byte[16]);
+
+        assertArrayEquals(utf8, out.toByteArray());
+        assertEquals("héllo", GeneratedFile.ofUtf8("a.txt", utf8).content());
+    }
+
+    @Test
+    void keepsTheStringConstructorPluginsWereCompiledAgainst() throws ReflectiveOperationException {
+        GeneratedFile file = GeneratedFile.class.getConstructor(String.class, String.class).newInstance("a.txt", "héllo");
+
+        assertEquals("héllo", file.content());
+    }
+
+    @Test
+    void equalityIgnoresHowContentIsStored() {
+        GeneratedFile string = new GeneratedFile("a.txt", "héllo");
+        GeneratedFile builder = new GeneratedFile("a.txt", new StringBuilder("héllo"));
+        GeneratedFile bytes = GeneratedFile.ofUtf8("a.txt", "héllo".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(string, builder);
+        assertEquals(builder, bytes);
+        assertEquals(string.hashCode(), bytes.hashCode());
+        assertNotEquals(string, new GeneratedFile("b.txt", "héllo"));
+        assertNotEquals(string, new GeneratedFile("a.txt", "hello"));
+    }
+}
@@ -0,0 +1,147 @@
+package io.restapigen.core.plugin;
+
+import io.restapigen.core.config.GenerationConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PluginRegistryTest {
+
+    @TempDir
+    Path pluginDir;
+
+    @Test
+    void reusesLoadedPluginsForSamePluginsSectionWithFreshInstancesPerLease() {
+        try (PluginRegistry registry = new PluginRegistry()) {
+            List<GeneratorPlugin> first;
+            try (PluginRegistry.Lease lease = registry.acquire(config(List.of(), List.of()))) {
+                first = lease.plugins();
+                assertSame(first, lease.plugins());
+            }
+            try (PluginRegistry.Lease lease = registry.acquire(config(List.of(), List.of()))) {
+                List<GeneratorPlugin> second = lease.plugins();
+                assertEquals(first.stream().map(Object::getClass).toList(), second.stream().map(Object::getClass).toList());
+                for (int i = 0; i < first.size(); i++) {
+                    assertNotSame(first.get(i), second.get(i));
+                }
+            }
+
+            assertEquals(1, registry.stats().loads());
+            assertEquals(1, registry.stats().cacheHits());
+        }
+    }
+
+    @Test
+    void loadsSeparatelyForDifferentExternalClassNames() {
+        try (PluginRegistry registry = new PluginRegistry();
+             PluginRegistry.Lease plain = registry.acquire(config(List.of(), List.of()));
+             PluginRegistry.Lease withFixture = registry.acquire(config(List.of(),
+                     List.of("io.restapigen.core.plugin.fixtures.ClassNameLoadedTestPlugin")))) {
+
+            assertNotSame(plain.plugins(), withFixture.plugins());
+            assertTrue(names(withFixture).contains("fixture-plugin"));
+            assertEquals(2, registry.stats().loads());
+        }
+    }
+
+    @Test
+    void reloadsWhenJarChangesAndClosesOldClassLoaderAfterRelease() throws Exception {
+        writeServiceJar(pluginDir.resolve("fixture.jar"));
+        GenerationConfig config = config(List.of(pluginDir.toString()), List.of());
+
+        try (PluginRegistry registry = new PluginRegistry()) {
+            PluginRegistry.Lease old = registry.acquire(config);
+            assertTrue(names(old).contains("fixture-plugin"));
+
+            writeServiceJar(pluginDir.resolve("fixture-2.jar"));
+            awaitTrue(() -> registry.stats().invalidations() > 0);
+            assertEquals(0, registry.stats().classLoadersClosed(), "class loader closed while still leased");
+
+            old.close();
+            assertEquals(1, registry.stats().classLoadersClosed());
+
+            try (PluginRegistry.Lease reloaded = registry.acquire(config)) {
+                assertNotSame(old.plugins(), reloaded.plugins());
+                assertTrue(names(reloaded).contains("fixture-plugin"));
+            }
+            assertEquals(2, registry.stats().loads());
+        }
+    }
+
+    @Test
+    void picksUpADirectoryCreatedAfterTheFirstLoad() throws Exception {
+        Path later = pluginDir.resolve("later");
+        GenerationConfig config = config(List.of(later.toString()), List.of());
+
+        try (PluginRegistry registry = new PluginRegistry()) {
+            try (PluginRegistry.Lease lease = registry.acquire(config)) {
+                assertFalse(names(lease).contains("fixture-plugin"));
+            }
+
+            Files.createDirectories(later);
+            writeServiceJar(later.resolve("fixture.jar"));
+
+            try (PluginRegistry.Lease lease = registry.acquire(config)) {
+                assertTrue(names(lease).contains("fixture-plugin"));
+            }
+            assertEquals(2, registry.stats().loads());
+        }
+    }
+
+    private static List<String> names(PluginRegistry.Lease lease) {
+        return lease.plugins().stream().map(GeneratorPlugin::getName).toList();
+    }
+
+    /**
+     * A jar with only a service descriptor; the fixture class itself resolves from the test classpath.
+     * It is written under another name and moved into place, so the watcher sees one change.
+     */
+    private static void writeServiceJar(Path jar) throws IOException {
+        Path partial = jar.resolveSibling(jar.getFileName() + ".part");
+        try (OutputStream file = Files.newOutputStream(partial); ZipOutputStream zip = new ZipOutputStream(file)) {
+            zip.putNextEntry(new ZipEntry("META-INF/services/" + GeneratorPlugin.class.getName()));
+            zip.write("io.restapigen.core.plugin.fixtures.ClassNameLoadedTestPlugin\n".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        Files.move(partial, jar, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 20_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(20);
+        }
+    }
+
+    private static GenerationConfig config(List<String> externalDirectories, List<String> externalClassNames) {
+        GenerationConfig defaults = GenerationConfig.defaults();
+        return new GenerationConfig(
+                defaults.project(),
+                defaults.standards(),
+                defaults.features(),
+                new GenerationConfig.PluginsConfig(
+                        defaults.plugins().enabled(),
+                        defaults.plugins().disabled(),
+                        externalDirectories,
+                        externalClassNames
+                )
+        );
+    }
+}
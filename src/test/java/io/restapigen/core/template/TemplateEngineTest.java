@@ -0,0 +1,84 @@
+package io.restapigen.core.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TemplateEngineTest {
+
+    private static final String MAPPER = "templates/spring-boot-3-standard/mapper.java.tpl";
+
+    @Test
+    void rendersEveryPlaceholderOccurrence() {
+        String rendered = new TemplateEngine().render(MAPPER, Map.of(
+                "basePackage", "com.example",
+                "dtoClass", "ProductDTO",
+                "entityName", "Product",
+                "className", "ProductMapper"
+        ));
+
+        assertTrue(rendered.startsWith("package com.example.mapper;\n"));
+        assertTrue(rendered.contains("public interface ProductMapper {"));
+        assertTrue(rendered.contains("Product toEntity(ProductDTO dto);"));
+        assertFalse(rendered.contains("${"));
+    }
+
+    @Test
+    void reportsPlaceholdersKnownAtCompileTime() {
+        TemplateEngine.CompiledTemplate template = new TemplateEngine().compile(MAPPER);
+
+        assertEquals(Set.of("basePackage", "dtoClass", "entityName", "className"), template.placeholderNames());
+    }
+
+    @Test
+    void cachesCompiledTemplatesAcrossEngineInstances() {
+        assertSame(new TemplateEngine().compile(MAPPER), new TemplateEngine().compile(MAPPER));
+    }
+
+    @Test
+    void failsOnMissingValue() {
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> new TemplateEngine().render(MAPPER, Map.of(
+                "basePackage", "com.example",
+                "dtoClass", "ProductDTO",
+                "entityName", "Product"
+        )));
+
+        assertTrue(error.getMessage().contains("${className}"));
+    }
+
+    @Test
+    void insertsValuesVerbatimWithoutRescanning() {
+        String rendered = new TemplateEngine().render(MAPPER, Map.of(
+                "basePackage", "com.example",
+                "dtoClass", "ProductDTO",
+                "entityName", "Product",
+                "className", "${notAPlaceholder}"
+        ));
+
+        assertTrue(rendered.contains("public interface ${notAPlaceholder} {"));
+    }
+
+    @Test
+    void fallsBackToStandardPackForMissingTemplates() {
+        String standard = new TemplateEngine().render(MAPPER, Map.of(
+                "basePackage", "a", "dtoClass", "B", "entityName", "C", "className", "D"));
+        String fallback = new TemplateEngine().render("templates/ddd-layered/mapper.java.tpl", Map.of(
+                "basePackage", "a", "dtoClass", "B", "entityName", "C", "className", "D"));
+
+        assertEquals(standard, fallback);
+    }
+
+    @Test
+    void parsesAdjacentAndTrailingPlaceholders() {
+        TemplateEngine.CompiledTemplate template = TemplateEngine.CompiledTemplate.parse("${a}${b}-${a}");
+
+        assertEquals("xy-x", template.render("inline", Map.of("a", "x", "b", "y")));
+    }
+}
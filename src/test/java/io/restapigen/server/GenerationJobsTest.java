@@ -0,0 +1,152 @@
+package io.restapigen.server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GenerationJobsTest {
+
+    @TempDir
+    Path spool;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    void reportsPluginProgressAndSpoolsTheArchive() throws Exception {
+        CountDownLatch midway = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        try (GenerationJobs jobs = new GenerationJobs(spool, 1, 4, 60, now::get)) {
+            GenerationJobs.Job job = jobs.submit((progress, out) -> {
+                progress.pluginsPlanned(List.of("entity-generator", "controller-generator"));
+                progress.pluginStarted("entity-generator");
+                progress.pluginFinished("entity-generator", 2_000_000);
+                progress.pluginStarted("controller-generator");
+                midway.countDown();
+                resume.await();
+                progress.pluginFinished("controller-generator", 1_000_000);
+                out.write("zip".getBytes(StandardCharsets.UTF_8));
+                return new GenerationJobs.Result("demo-api", "abc123");
+            });
+            assertTrue(midway.await(5, TimeUnit.SECONDS));
+
+            GenerationJobs.Status running = jobs.status(job);
+            assertEquals("running", running.status());
+            assertEquals(1, running.pluginsCompleted());
+            assertEquals(2, running.pluginsTotal());
+            assertEquals(new GenerationJobs.PluginStatus("entity-generator", "done", 2.0), running.plugins().get(0));
+            assertEquals("running", running.plugins().get(1).status());
+            assertNull(running.archiveBytes());
+
+            resume.countDown();
+            job.completion().get(5, TimeUnit.SECONDS);
+            GenerationJobs.Status done = jobs.status(job);
+            assertEquals("succeeded", done.status());
+            assertEquals(2, done.pluginsCompleted());
+            assertEquals("abc123", done.fingerprint());
+            assertEquals(Long.valueOf(3), done.archiveBytes());
+            assertArrayEquals("zip".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(jobs.archive(job)));
+            assertFalse(Files.exists(spool.resolve(job.id() + ".part")));
+        }
+    }
+
+    @Test
+    void failuresKeepTheirCodeAndUnexpectedOnesAreGenerationErrors() throws Exception {
+        try (GenerationJobs jobs = new GenerationJobs(spool, 1, 4, 60, now::get)) {
+            GenerationJobs.Job rejected = jobs.submit((progress, out) -> {
+                throw new GenerationJobs.JobFailedException("CONFIDENCE_FAIL", "no entities");
+            });
+            GenerationJobs.Job broken = jobs.submit((progress, out) -> {
+                throw new IllegalStateException("boom");
+            });
+            rejected.completion().get(5, TimeUnit.SECONDS);
+            broken.completion().get(5, TimeUnit.SECONDS);
+
+            assertEquals("CONFIDENCE_FAIL", jobs.status(rejected).code());
+            assertEquals("no entities", jobs.status(rejected).message());
+            assertEquals("GENERATION_ERROR", jobs.status(broken).code());
+            assertEquals(2, jobs.stats().failed());
+            assertFalse(Files.exists(jobs.archive(broken)));
+        }
+    }
+
+    @Test
+    void rejectsJobsOnceTheQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        GenerationJobs.Work blocking = (progress, out) -> {
+            started.countDown();
+            release.await();
+            return new GenerationJobs.Result("demo-api", "abc123");
+        };
+        try (GenerationJobs jobs = new GenerationJobs(spool, 1, 1, 60, now::get)) {
+            GenerationJobs.Job first = jobs.submit(blocking);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            GenerationJobs.Job queued = jobs.submit(blocking);
+            assertThrows(RejectedExecutionException.class, () -> jobs.submit(blocking));
+
+            GenerationJobs.Stats stats = jobs.stats();
+            assertEquals(1, stats.running());
+            assertEquals(1, stats.queued());
+            assertEquals(1, stats.rejected());
+            assertEquals("queued", jobs.status(queued).status());
+
+            release.countDown();
+            first.completion().get(5, TimeUnit.SECONDS);
+            queued.completion().get(5, TimeUnit.SECONDS);
+            assertEquals(2, jobs.stats().succeeded());
+        }
+    }
+
+    @Test
+    void sweepExpiresFinishedJobsAndStaleSpoolFiles() throws Exception {
+        Path leftover = spool.resolve("0f1e2d3c-4b5a-4978-8695-a4b3c2d1e0f9.zip");
+        Files.writeString(leftover, "from an earlier run");
+        Files.setLastModifiedTime(leftover, FileTime.fromMillis(now.get() - 120_000));
+        Path unrelated = spool.resolve("report.zip");
+        Files.writeString(unrelated, "not a job archive");
+        Files.setLastModifiedTime(unrelated, FileTime.fromMillis(now.get() - 120_000));
+        Path recent = spool.resolve("4b5a6978-0f1e-4d3c-9a8b-7c6d5e4f3a2b.part");
+        Files.writeString(recent, "another instance's archive");
+        Files.setLastModifiedTime(recent, FileTime.fromMillis(now.get()));
+
+        try (GenerationJobs jobs = new GenerationJobs(spool, 1, 4, 60, now::get)) {
+            GenerationJobs.Job job = jobs.submit((progress, out) -> {
+                out.write(1);
+                return new GenerationJobs.Result("demo-api", "abc123");
+            });
+            job.completion().get(5, TimeUnit.SECONDS);
+            Path archive = jobs.archive(job);
+            Files.setLastModifiedTime(archive, FileTime.fromMillis(now.get()));
+
+            now.addAndGet(59_000);
+            jobs.sweep();
+            assertEquals(job, jobs.get(job.id()));
+            assertFalse(Files.exists(leftover));
+            assertTrue(Files.exists(recent));
+            assertTrue(Files.exists(unrelated));
+
+            now.addAndGet(1_000);
+            jobs.sweep();
+            assertNull(jobs.get(job.id()));
+            assertFalse(Files.exists(archive));
+            assertFalse(Files.exists(recent));
+            assertEquals(1, jobs.stats().expired());
+        }
+    }
+}
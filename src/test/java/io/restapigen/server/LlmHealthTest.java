@@ -0,0 +1,72 @@
+package io.restapigen.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LlmHealthTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Test
+    void cachesEachCheckWithItsLatencyUntilTheNextOne() {
+        AtomicReference<CompletableFuture<Boolean>> answer = new AtomicReference<>(CompletableFuture.completedFuture(true));
+        LlmHealth health = new LlmHealth(Map.of("ollama", () -> {
+            nanos.addAndGet(12_500_000);
+            return answer.get();
+        }), 0, nanos::get);
+
+        assertEquals("unknown", health.status("ollama").status());
+        assertFalse(health.available("ollama"));
+        assertFalse(health.down("ollama"));
+
+        health.probeAll().join();
+        LlmHealth.Status up = health.status("ollama");
+        assertTrue(health.available("ollama"));
+        assertEquals(Double.valueOf(12.5), up.latencyMillis());
+        assertEquals(1, up.checks());
+
+        answer.set(CompletableFuture.failedFuture(new IOException("connection refused")));
+        health.probeAll().join();
+        answer.set(CompletableFuture.completedFuture(false));
+        health.probeAll().join();
+        LlmHealth.Status down = health.status("ollama");
+        assertFalse(health.available("ollama"));
+        assertTrue(health.down("ollama"));
+        assertEquals("down", down.status());
+        assertEquals(2, down.consecutiveFailures());
+        assertEquals(3, down.checks());
+        assertNull(health.status("cloud-llm"));
+    }
+
+    @Test
+    void doesNotStartASecondCheckWhileOneIsInFlight() {
+        AtomicInteger started = new AtomicInteger();
+        CompletableFuture<Boolean> pending = new CompletableFuture<>();
+        LlmHealth health = new LlmHealth(Map.of("cloud-llm", () -> {
+            started.incrementAndGet();
+            return pending;
+        }), 0, nanos::get);
+
+        CompletableFuture<Void> first = health.probeAll();
+        health.probeAll();
+        assertEquals(1, started.get());
+        assertFalse(first.isDone());
+
+        pending.complete(true);
+        assertTrue(first.isDone());
+        assertTrue(health.available("cloud-llm"));
+        health.probeAll();
+        assertEquals(2, started.get());
+    }
+}
@@ -0,0 +1,83 @@
+package io.restapigen.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsTest {
+
+    @Test
+    void rendersCountersHistogramsAndGaugesInPrometheusTextFormat() {
+        Metrics metrics = new Metrics();
+        Metrics.Counter requests = metrics.counter("demo_requests_total", "Requests.", "endpoint", "status");
+        Metrics.Histogram seconds = metrics.histogram("demo_seconds", "Latency.", new double[] {0.125, 1}, "endpoint");
+        metrics.gauge("demo_queue", "Queue.").register(() -> 3);
+
+        requests.increment("/b", "200");
+        requests.add(2, "/a", "200");
+        seconds.observe(0.0625, "/a");
+        seconds.observe(0.125, "/a");
+        seconds.observe(7, "/a");
+
+        assertEquals("""
+                # HELP demo_requests_total Requests.
+                # TYPE demo_requests_total counter
+                demo_requests_total{endpoint="/a",status="200"} 2
+                demo_requests_total{endpoint="/b",status="200"} 1
+                # HELP demo_seconds Latency.
+                # TYPE demo_seconds histogram
+                demo_seconds_bucket{endpoint="/a",le="0.125"} 2
+                demo_seconds_bucket{endpoint="/a",le="1"} 2
+                demo_seconds_bucket{endpoint="/a",le="+Inf"} 3
+                demo_seconds_sum{endpoint="/a"} 7.1875
+                demo_seconds_count{endpoint="/a"} 3
+                # HELP demo_queue Queue.
+                # TYPE demo_queue gauge
+                demo_queue 3
+                """, metrics.scrape());
+    }
+
+    @Test
+    void escapesLabelValuesAndRejectsWrongLabelCounts() {
+        Metrics metrics = new Metrics();
+        Metrics.Counter counter = metrics.counter("demo_total", "Demo.", "model");
+        counter.increment("say \"hi\"\\\n");
+
+        assertTrue(metrics.scrape().contains("demo_total{model=\"say \\\"hi\\\"\\\\\\n\"} 1\n"));
+        assertThrows(IllegalArgumentException.class, () -> counter.increment("a", "b"));
+        assertThrows(IllegalArgumentException.class, () -> metrics.counter("demo_total", "Again."));
+    }
+
+    @Test
+    void concurrentUpdatesAreNotLost() throws InterruptedException {
+        Metrics metrics = new Metrics();
+        Metrics.Counter counter = metrics.counter("demo_total", "Demo.", "plugin");
+        Metrics.Histogram histogram = metrics.histogram("demo_seconds", "Demo.", new double[] {1}, "plugin");
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counter.increment("plugin-" + (i % 4));
+                    histogram.observe(0.5, "plugin-" + (i % 4));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long total = 0;
+        for (int p = 0; p < 4; p++) {
+            total += counter.value("plugin-" + p);
+            assertEquals(20_000, histogram.count("plugin-" + p));
+        }
+        assertEquals(80_000, total);
+    }
+}
@@ -0,0 +1,106 @@
+package io.restapigen.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+    private static final String SPEC = "/generator/spec";
+
+    private final AtomicLong now = new AtomicLong(42 * SECOND);
+
+    @Test
+    void admitsBurstThenRefillsAtConfiguredRate() {
+        RateLimiter limiter = new RateLimiter(Map.of(SPEC, new RateLimiter.Limit(60, 3)), 0, now::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire(SPEC, "10.0.0.1", RateLimiter.Priority.DETERMINISTIC));
+        }
+        assertEquals(SECOND, limiter.tryAcquire(SPEC, "10.0.0.1", RateLimiter.Priority.DETERMINISTIC));
+        assertEquals(0, limiter.tryAcquire(SPEC, "10.0.0.2", RateLimiter.Priority.DETERMINISTIC));
+        assertEquals(0, limiter.tryAcquire("/generator/code", "10.0.0.1", RateLimiter.Priority.DETERMINISTIC));
+
+        now.addAndGet(SECOND);
+        assertEquals(0, limiter.tryAcquire(SPEC, "10.0.0.1", RateLimiter.Priority.DETERMINISTIC));
+        assertEquals(SECOND, limiter.tryAcquire(SPEC, "10.0.0.1", RateLimiter.Priority.DETERMINISTIC));
+
+        RateLimiter.Stats stats = limiter.stats();
+        assertEquals(2, stats.clients());
+        assertEquals(5, stats.admitted());
+        assertEquals(2, stats.rejected());
+    }
+
+    @Test
+    void llmRequestsLeaveReserveForDeterministicOnes() {
+        RateLimiter limiter = new RateLimiter(Map.of(SPEC, new RateLimiter.Limit(60, 4)), 0.5, now::get);
+
+        assertEquals(0, limiter.tryAcquire(SPEC, "client", RateLimiter.Priority.LLM));
+        assertEquals(0, limiter.tryAcquire(SPEC, "client", RateLimiter.Priority.LLM));
+        assertEquals(SECOND, limiter.tryAcquire(SPEC, "client", RateLimiter.Priority.LLM));
+        assertEquals(0, limiter.tryAcquire(SPEC, "client", RateLimiter.Priority.DETERMINISTIC));
+        assertEquals(0, limiter.tryAcquire(SPEC, "client", RateLimiter.Priority.DETERMINISTIC));
+        assertEquals(SECOND, limiter.tryAcquire(SPEC, "client", RateLimiter.Priority.DETERMINISTIC));
+    }
+
+    @Test
+    void escalatingToLlmAfterAdmissionRefundsTheTokenWhenOverTheShare() {
+        RateLimiter limiter = new RateLimiter(Map.of(SPEC, new RateLimiter.Limit(60, 4)), 0.5, now::get);
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(0, limiter.tryAcquire(SPEC, "client", RateLimiter.Priority.DETERMINISTIC));
+            assertEquals(0, limiter.escalate(SPEC, "client", RateLimiter.Priority.LLM));
+        }
+        assertEquals(0, limiter.tryAcquire(SPEC, "client", RateLimiter.Priority.DETERMINISTIC));
+        assertEquals(SECOND, limiter.escalate(SPEC, "client", RateLimiter.Priority.LLM));
+        assertEquals(0, limiter.tryAcquire(SPEC, "client", RateLimiter.Priority.DETERMINISTIC));
+        assertEquals(0, limiter.tryAcquire(SPEC, "client", RateLimiter.Priority.DETERMINISTIC));
+        assertEquals(SECOND, limiter.tryAcquire(SPEC, "client", RateLimiter.Priority.DETERMINISTIC));
+
+        RateLimiter.Stats stats = limiter.stats();
+        assertEquals(4, stats.admitted());
+        assertEquals(2, stats.rejected());
+    }
+
+    @Test
+    void concurrentClientsNeverExceedTheBurst() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(Map.of(SPEC, new RateLimiter.Limit(1, 50)), 0, now::get);
+        AtomicInteger admitted = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    if (limiter.tryAcquire(SPEC, "client", RateLimiter.Priority.DETERMINISTIC) == 0) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(50, admitted.get());
+    }
+
+    @Test
+    void parsesPerEndpointLimits() {
+        Map<String, RateLimiter.Limit> limits = RateLimiter.parse(" /generator/spec=30:10, /generator/code=120 ");
+
+        assertEquals(new RateLimiter.Limit(30, 10), limits.get("/generator/spec"));
+        assertEquals(new RateLimiter.Limit(120, 12), limits.get("/generator/code"));
+        assertEquals(Map.of(), RateLimiter.parse("off"));
+        assertThrows(IllegalArgumentException.class, () -> RateLimiter.parse("/generator/spec"));
+        assertThrows(IllegalArgumentException.class, () -> RateLimiter.parse("/generator/spec=fast"));
+    }
+}
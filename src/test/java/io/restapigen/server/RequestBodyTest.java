@@ -0,0 +1,102 @@
+package io.restapigen.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.restapigen.domain.ApiSpecification;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestBodyTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void decodeTellsPromptOnlyPayloadsFromSpecsInOnePass() throws IOException {
+        RequestBody.Decoded<ApiSpecification> prompt = body("{\"options\": {\"x\": [1, 2]}, \"prompt\": \"Create an API for Book\"}")
+                .decode(mapper, ApiSpecification.class);
+        RequestBody.Decoded<ApiSpecification> spec = body("{\"projectName\": \"demo-api\", "
+                + "\"basePackage\": \"com.example\", \"entities\": [], \"suggestions\": []}")
+                .decode(mapper, ApiSpecification.class);
+
+        assertEquals("Create an API for Book", prompt.prompt());
+        assertNull(prompt.value());
+        assertTrue(spec.value() != null && spec.prompt() == null);
+        assertEquals("demo-api", spec.value().projectName);
+        assertTrue(body(" \n").decode(mapper, ApiSpecification.class).isEmpty());
+        assertThrows(IOException.class, () -> body("{\"prompt\": \"Create an API for Book\", \"projectName\": \"demo-api\"}")
+                .decode(mapper, ApiSpecification.class));
+    }
+
+    @Test
+    void promptIsTheJsonFieldOrTheWholePlainTextBody() throws IOException {
+        assertEquals("Create an API for Book", body("{\"model\": {\"a\": 1}, \"prompt\": \"Create an API for Book\"}").prompt(mapper));
+        assertEquals("Create an API for Book", body("\n  Create an API for Book \n").prompt(mapper));
+        assertEquals("{\"model\": \"x\"}", body("{\"model\": \"x\"}").prompt(mapper));
+        assertEquals("", body("").prompt(mapper));
+    }
+
+    @Test
+    void bodyThatOnlyLooksLikeJsonIsTakenAsPlainText() throws IOException {
+        assertEquals("{Book} with title and {Author}", body("  {Book} with title and {Author}\n").prompt(mapper));
+        assertEquals("{\"prompt\": \"  \", \"note\": 1}", body("{\"prompt\": \"  \", \"note\": 1}").prompt(mapper));
+        assertEquals("{\"prompt\": \"Create an API for Book\"", body("{\"prompt\": \"Create an API for Book\"").prompt(mapper));
+    }
+
+    @Test
+    void limitIsEnforcedWhileReading() {
+        InputStream endless = new InputStream() {
+            private boolean started;
+
+            @Override
+            public int read() {
+                if (!started) {
+                    started = true;
+                    return '"';
+                }
+                return 'a';
+            }
+        };
+        RequestBody body = new RequestBody(endless, 1000);
+
+        RequestBody.TooLargeException e = assertThrows(RequestBody.TooLargeException.class, () -> body.read(mapper, String.class));
+        assertEquals(1000, e.limit());
+        assertEquals(1001, body.bytes());
+    }
+
+    @Test
+    void linesSkipsAnOverlongLineAndKeepsReading() throws IOException {
+        RequestBody.Lines lines = new RequestBody(new ByteArrayInputStream(
+                ("first\r\n" + "x".repeat(100) + "\nlast").getBytes(StandardCharsets.UTF_8)), 1 << 20).lines(10);
+
+        assertEquals("first", lines.next());
+        RequestBody.LineTooLongException e = assertThrows(RequestBody.LineTooLongException.class, lines::next);
+        assertEquals(10, e.limit());
+        assertEquals("last", lines.next());
+        assertNull(lines.next());
+    }
+
+    @Test
+    void linesStillEnforceTheBodyLimit() {
+        RequestBody.Lines lines = new RequestBody(new ByteArrayInputStream(
+                "a\n".repeat(100).getBytes(StandardCharsets.UTF_8)), 50).lines(10);
+
+        RequestBody.TooLargeException e = assertThrows(RequestBody.TooLargeException.class, () -> {
+            while (lines.next() != null) {
+                // keep reading
+            }
+        });
+        assertEquals(50, e.limit());
+    }
+
+    private static RequestBody body(String json) {
+        return new RequestBody(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), 1 << 20);
+    }
+}
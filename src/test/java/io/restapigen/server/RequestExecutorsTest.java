@@ -0,0 +1,54 @@
+package io.restapigen.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestExecutorsTest {
+
+    @Test
+    void autoAndVirtualUseVirtualThreadsOnlyWhenTheRuntimeHasThem() {
+        RequestExecutors.Mode expected = Runtime.version().feature() >= 21
+                ? RequestExecutors.Mode.VIRTUAL
+                : RequestExecutors.Mode.PLATFORM;
+
+        assertEquals(expected, RequestExecutors.select(null));
+        assertEquals(expected, RequestExecutors.select("auto"));
+        assertEquals(expected, RequestExecutors.select(" Virtual "));
+        assertEquals(expected, RequestExecutors.select("fibers"));
+        assertEquals(RequestExecutors.Mode.PLATFORM, RequestExecutors.select("platform"));
+    }
+
+    @Test
+    void selectedExecutorRunsTasks() throws Exception {
+        ExecutorService executor = RequestExecutors.create(RequestExecutors.select("auto"), 2);
+        try {
+            Future<String> result = executor.submit(() -> "done");
+            assertEquals("done", result.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void concurrencyLimitTracksActivePermits() {
+        ConcurrencyLimit limit = new ConcurrencyLimit(2);
+        ConcurrencyLimit.Permit first = limit.acquire();
+        try (ConcurrencyLimit.Permit ignored = limit.acquire()) {
+            assertEquals(2, limit.stats().active());
+        }
+        first.close();
+        first.close();
+
+        ConcurrencyLimit.Stats stats = limit.stats();
+        assertEquals(2, stats.limit());
+        assertEquals(0, stats.active());
+        assertEquals(2, stats.completed());
+    }
+}
@@ -9,12 +9,49 @@ import java.net.HttpURLConnection;
 import java.net.ServerSocket;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class RestApiGeneratorServerAboutTest {
 
+    private static final String VALID_SPEC = """
+            {
+              "projectName": "demo-api",
+              "basePackage": "com.example.generated",
+              "entities": [
+                {
+                  "entity": {
+                    "name": "Product",
+                    "table": "products",
+                    "idType": "Long",
+                    "fields": [
+                      {"name": "name", "type": "String", "validation": [], "unique": false, "nullable": false, "encrypted": false, "enumValues": []}
+                    ]
+                  },
+                  "api": {
+                    "resourcePath": "/api/products",
+                    "crud": true,
+                    "pagination": true,
+                    "sorting": true
+                  },
+                  "relationships": []
+                }
+              ],
+              "suggestions": []
+            }
+            """;
+
     private RestApiGeneratorServer server;
     private int port;
 
@@ -47,6 +84,10 @@ class RestApiGeneratorServerAboutTest {
         assertTrue(body.contains("/generator/spec"));
         assertTrue(body.contains("/generator/confidence"));
         assertTrue(body.contains("/generator/code"));
+        assertTrue(body.contains("\"llmCalls\": null"), body);
+        assertTrue(body.contains("\"hedging\": null"), body);
+        assertTrue(body.contains("\"llmHealth\": []"), body);
+        assertTrue(body.contains("\"llmCircuits\": []"), body);
     }
 
     @Test
@@ -60,6 +101,254 @@ class RestApiGeneratorServerAboutTest {
         assertEquals(405, status);
     }
 
+    @Test
+    void specParsesPromptAndCompletesExchangeAsynchronously() throws IOException {
+        HttpURLConnection conn = post("/generator/spec", "{\"prompt\": \"Create an API for Book with title and isbn\"}");
+        int status = conn.getResponseCode();
+        String body = new String(conn.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        conn.disconnect();
+
+        assertEquals(200, status);
+        assertTrue(body.contains("\"name\":\"Book\""), body);
+    }
+
+    @Test
+    void specRefusesOversizedBodiesWith413() throws IOException {
+        HttpURLConnection conn = post("/generator/spec", "{\"prompt\": \"" + "a".repeat(200_000) + "\"}");
+        int status = conn.getResponseCode();
+        String body = new String(conn.getErrorStream().readAllBytes(), StandardCharsets.UTF_8);
+        conn.disconnect();
+
+        assertEquals(413, status);
+        assertTrue(body.contains("\"code\":\"BODY_TOO_LARGE\""), body);
+    }
+
+    @Test
+    void reportsPhaseTimingsInServerTimingHeaderAndOptionallyInBody() throws IOException {
+        HttpURLConnection spec = post("/generator/spec?debug=true", "{\"prompt\": \"Create an API for Book with title\"}");
+        assertEquals(200, spec.getResponseCode());
+        String specBody = new String(spec.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        spec.disconnect();
+        HttpURLConnection confidence = post("/generator/confidence", VALID_SPEC);
+        assertEquals(200, confidence.getResponseCode());
+        String confidenceBody = new String(confidence.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        confidence.disconnect();
+        HttpURLConnection code = post("/generator/code?debug=true", VALID_SPEC);
+        assertEquals(200, code.getResponseCode());
+        String lastName = null;
+        String lastEntry = null;
+        try (ZipInputStream zip = new ZipInputStream(code.getInputStream())) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                lastName = entry.getName();
+                lastEntry = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+        code.disconnect();
+
+        assertTrue(spec.getHeaderField("Server-Timing").matches(
+                "read;dur=[\\d.]+, decode;dur=[\\d.]+, extract;dur=[\\d.]+, parse;dur=[\\d.]+, validate;dur=[\\d.]+, total;dur=[\\d.]+"),
+                spec.getHeaderField("Server-Timing"));
+        assertTrue(specBody.contains("\"debug\":{\"timingsMillis\":{\"read\":"), specBody);
+        assertTrue(confidence.getHeaderField("Server-Timing").startsWith("read;dur="), confidence.getHeaderField("Server-Timing"));
+        assertFalse(confidenceBody.contains("\"debug\""), confidenceBody);
+        assertTrue(code.getHeaderField("Server-Timing").contains("generate;dur="), code.getHeaderField("Server-Timing"));
+        // The archive streams, so zipping is timed in its last entry rather than the header.
+        assertNull(code.getHeaderField("ETag"));
+        assertEquals(RestApiGeneratorServer.DEBUG_ENTRY_PATH, lastName);
+        assertTrue(lastEntry.matches("\\{\"timingsMillis\":\\{.*\"generate\":[\\d.]+,\"zip\":[\\d.]+}.*"), lastEntry);
+    }
+
+    @Test
+    void servesIndexPrecompressedAndRevalidatesWithEtag() throws IOException {
+        HttpURLConnection plain = (HttpURLConnection) URI.create("http://localhost:" + port + "/").toURL().openConnection();
+        byte[] html = plain.getInputStream().readAllBytes();
+        plain.disconnect();
+        HttpURLConnection gzipped = (HttpURLConnection) URI.create("http://localhost:" + port + "/").toURL().openConnection();
+        gzipped.setRequestProperty("Accept-Encoding", "gzip");
+        byte[] unzipped = new GZIPInputStream(gzipped.getInputStream()).readAllBytes();
+        gzipped.disconnect();
+        HttpURLConnection revalidated = (HttpURLConnection) URI.create("http://localhost:" + port + "/").toURL().openConnection();
+        revalidated.setRequestProperty("If-None-Match", plain.getHeaderField("ETag"));
+        int revalidatedStatus = revalidated.getResponseCode();
+        revalidated.disconnect();
+
+        assertEquals(200, plain.getResponseCode());
+        assertEquals("gzip", gzipped.getHeaderField("Content-Encoding"));
+        assertArrayEquals(html, unzipped);
+        assertNotEquals(plain.getHeaderField("ETag"), gzipped.getHeaderField("ETag"));
+        assertEquals(304, revalidatedStatus);
+    }
+
+    @Test
+    void specGzipsLargeJsonWhenAccepted() throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) URI.create("http://localhost:" + port + "/generator/spec").toURL().openConnection();
+        conn.setRequestMethod("POST");
+        conn.setRequestProperty("Content-Type", "application/json");
+        conn.setRequestProperty("Accept-Encoding", "gzip");
+        conn.setDoOutput(true);
+        conn.getOutputStream().write("{\"prompt\": \"Create an API for Book with title, isbn, author, price and published date\"}"
+                .getBytes(StandardCharsets.UTF_8));
+        assertEquals(200, conn.getResponseCode());
+        String body = new String(new GZIPInputStream(conn.getInputStream()).readAllBytes(), StandardCharsets.UTF_8);
+        conn.disconnect();
+
+        assertEquals("gzip", conn.getHeaderField("Content-Encoding"));
+        assertTrue(body.contains("\"name\":\"Book\""), body);
+    }
+
+    @Test
+    void specAnswers429WithRetryAfterOnceClientExhaustsItsBurst() throws IOException {
+        int status = 200;
+        HttpURLConnection conn = null;
+        for (int attempt = 0; attempt < 20 && status == 200; attempt++) {
+            conn = post("/generator/spec", "{\"prompt\": \"Create an API for Book with title\"}");
+            status = conn.getResponseCode();
+            conn.disconnect();
+        }
+
+        assertEquals(429, status);
+        assertTrue(Integer.parseInt(conn.getHeaderField("Retry-After")) >= 1);
+        HttpURLConnection confidence = post("/generator/confidence", VALID_SPEC);
+        assertEquals(200, confidence.getResponseCode());
+        confidence.disconnect();
+    }
+
+    @Test
+    void specStreamSendsEntityEventsThenTheFullSpec() throws IOException {
+        HttpURLConnection conn = post("/generator/spec/stream", "{\"prompt\": \"Create an API for Book with title\\n\\nCreate an API for Author with name\"}");
+        assertEquals(200, conn.getResponseCode());
+        String events = new String(conn.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        conn.disconnect();
+
+        assertTrue(conn.getContentType().startsWith("text/event-stream"), conn.getContentType());
+        int book = events.indexOf("event: entity\ndata: {\"entity\":{\"name\":\"Book\"");
+        int author = events.indexOf("event: entity\ndata: {\"entity\":{\"name\":\"Author\"");
+        int spec = events.indexOf("event: spec\ndata: {\"spec\":");
+        assertTrue(book >= 0 && author > book && spec > author, events);
+        assertTrue(events.endsWith("\n\n"), events);
+    }
+
+    @Test
+    void batchIsolatesFailuresAndReportsThroughput() throws IOException {
+        String ndjson = VALID_SPEC.replace("\n", "") + "\n"
+                + "{\"id\": \"team-a\", \"prompt\": \"Create an API for Book with title\"}\n"
+                + "\n"
+                + "not json\n";
+        HttpURLConnection conn = post("/generator/batch?concurrency=2", ndjson);
+        assertEquals(200, conn.getResponseCode());
+        List<String> lines = new String(conn.getInputStream().readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        conn.disconnect();
+
+        assertEquals(4, lines.size(), lines.toString());
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"index\":0,") && line.contains("\"status\":\"ok\"")
+                && line.contains("\"projectName\":\"demo-api\"") && line.contains("\"cached\":true")), lines.toString());
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"id\":\"team-a\"") && line.contains("\"status\":\"ok\"")
+                && line.contains("\"name\":\"Book\"")), lines.toString());
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"index\":2,") && line.contains("\"code\":\"INVALID_ITEM\"")),
+                lines.toString());
+        String summary = lines.get(3);
+        assertTrue(summary.startsWith("{\"summary\":{\"items\":3,\"succeeded\":2,\"failed\":1,\"concurrency\":2,"), summary);
+        assertTrue(summary.contains("\"itemsPerSecond\":"), summary);
+    }
+
+    @Test
+    void batchReportsAnOverlongLineAsOneFailedItem() throws IOException {
+        String ndjson = "{\"prompt\": \"" + "a".repeat(8 * 1024 * 1024) + "\"}\n"
+                + "{\"id\": \"after\", \"prompt\": \"Create an API for Book with title\"}\n";
+        HttpURLConnection conn = post("/generator/batch", ndjson);
+        assertEquals(200, conn.getResponseCode());
+        List<String> lines = new String(conn.getInputStream().readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        conn.disconnect();
+
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"index\":0,") && line.contains("\"code\":\"BODY_TOO_LARGE\"")),
+                lines.toString());
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"id\":\"after\"") && line.contains("\"status\":\"ok\"")),
+                lines.toString());
+        assertTrue(lines.get(lines.size() - 1).startsWith("{\"summary\":{\"items\":2,\"succeeded\":1,\"failed\":1,"),
+                lines.toString());
+    }
+
+    @Test
+    void batchChargesEachPromptAgainstTheClientsRateLimit() throws IOException {
+        String prompt = "{\"prompt\": \"Create an API for Book with title\"}\n";
+        String ndjson = prompt + prompt + prompt + VALID_SPEC.replace("\n", "") + "\n";
+        HttpURLConnection conn = post("/generator/batch?concurrency=1", ndjson);
+        assertEquals(200, conn.getResponseCode());
+        List<String> lines = new String(conn.getInputStream().readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        conn.disconnect();
+
+        // The default burst of 2: the batch's token covers one prompt, the second takes the other.
+        assertEquals(1, lines.stream().filter(line -> line.contains("\"code\":\"RATE_LIMITED\"")).count(), lines.toString());
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"index\":3,") && line.contains("\"status\":\"ok\"")),
+                lines.toString());
+        assertTrue(lines.get(lines.size() - 1).startsWith("{\"summary\":{\"items\":4,\"succeeded\":3,\"failed\":1,"),
+                lines.toString());
+    }
+
+    @Test
+    void batchZipHasOneFolderPerProjectAndASummary() throws IOException {
+        String ndjson = VALID_SPEC.replace("\n", "") + "\n" + VALID_SPEC.replace("\n", "") + "\n";
+        HttpURLConnection conn = post("/generator/batch?format=zip", ndjson);
+        Set<String> folders = new HashSet<>();
+        String summary = null;
+        try (ZipInputStream zip = new ZipInputStream(conn.getInputStream())) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.getName().equals("batch-summary.json")) {
+                    summary = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+                } else {
+                    folders.add(entry.getName().substring(0, entry.getName().indexOf('/')));
+                }
+            }
+        }
+        conn.disconnect();
+
+        assertEquals(200, conn.getResponseCode());
+        assertEquals(Set.of("demo-api", "demo-api-2"), folders);
+        assertTrue(summary != null && summary.contains("\"succeeded\" : 2"), summary);
+    }
+
+    @Test
+    void jobsQueueGenerationReportPluginProgressAndServeTheSpooledArchive() throws Exception {
+        HttpURLConnection submitted = post("/generator/jobs", VALID_SPEC);
+        assertEquals(202, submitted.getResponseCode());
+        String location = submitted.getHeaderField("Location");
+        submitted.disconnect();
+        assertTrue(location.startsWith("/generator/jobs/"), location);
+
+        String status = "";
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (!status.contains("\"status\":\"succeeded\"") && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            HttpURLConnection poll = (HttpURLConnection) URI.create("http://localhost:" + port + location).toURL().openConnection();
+            assertEquals(200, poll.getResponseCode());
+            status = new String(poll.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            poll.disconnect();
+        }
+        assertTrue(status.contains("\"status\":\"succeeded\""), status);
+        assertTrue(status.contains("{\"name\":\"controller-generator\",\"status\":\"done\""), status);
+        int total = Integer.parseInt(status.replaceAll(".*\"pluginsTotal\":(\\d+).*", "$1"));
+        assertTrue(total > 1 && status.contains("\"pluginsCompleted\":" + total + ","), status);
+
+        HttpURLConnection archive = (HttpURLConnection) URI.create("http://localhost:" + port + location + "/archive").toURL().openConnection();
+        Set<String> entries = new HashSet<>();
+        try (ZipInputStream zip = new ZipInputStream(archive.getInputStream())) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.add(entry.getName());
+            }
+        }
+        assertEquals(200, archive.getResponseCode());
+        assertTrue(archive.getHeaderField("Content-Disposition").contains("demo-api.zip"));
+        assertTrue(entries.contains("src/main/java/com/example/generated/controller/ProductController.java"));
+        archive.disconnect();
+
+        HttpURLConnection unknown = (HttpURLConnection) URI.create("http://localhost:" + port + "/generator/jobs/nope").toURL().openConnection();
+        assertEquals(404, unknown.getResponseCode());
+        unknown.disconnect();
+    }
+
     @Test
     void codeReturns400ForInvalidSpecJson() throws IOException {
         HttpURLConnection conn = (HttpURLConnection) URI.create("http://localhost:" + port + "/generator/code").toURL().openConnection();
@@ -121,6 +410,172 @@ class RestApiGeneratorServerAboutTest {
         assertTrue(body.contains("Unknown relationship target"));
     }
 
+    @Test
+    void codeStreamsZipArchiveForValidSpec() throws IOException {
+        String validSpec = VALID_SPEC;
+
+        HttpURLConnection conn = (HttpURLConnection) URI.create("http://localhost:" + port + "/generator/code").toURL().openConnection();
+        conn.setRequestMethod("POST");
+        conn.setRequestProperty("Content-Type", "application/json");
+        conn.setDoOutput(true);
+        conn.getOutputStream().write(validSpec.getBytes(StandardCharsets.UTF_8));
+        int status = conn.getResponseCode();
+        Set<String> entries = new HashSet<>();
+        try (ZipInputStream zip = new ZipInputStream(conn.getInputStream())) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.add(entry.getName());
+            }
+        }
+        conn.disconnect();
+
+        assertEquals(200, status);
+        assertEquals("application/zip", conn.getContentType());
+        assertEquals("chunked", conn.getHeaderField("Transfer-Encoding"));
+        assertTrue(conn.getHeaderField("Content-Disposition").contains("demo-api.zip"));
+        assertTrue(entries.contains("src/main/java/com/example/generated/controller/ProductController.java"));
+    }
+
+    @Test
+    void codeAnswersMatchingIfNoneMatchWith304AndServesRepeatsFromCache() throws IOException {
+        HttpURLConnection first = postCode(null);
+        byte[] firstArchive = first.getInputStream().readAllBytes();
+        String etag = first.getHeaderField("ETag");
+        first.disconnect();
+
+        HttpURLConnection revalidated = postCode(etag);
+        int revalidatedStatus = revalidated.getResponseCode();
+        revalidated.disconnect();
+
+        HttpURLConnection repeat = postCode("\"some-other-tag\"");
+        byte[] repeatArchive = repeat.getInputStream().readAllBytes();
+        repeat.disconnect();
+
+        assertEquals(200, first.getResponseCode());
+        assertTrue(etag.matches("\"[0-9a-f]{64}\""), etag);
+        assertEquals(304, revalidatedStatus);
+        assertEquals(etag, revalidated.getHeaderField("ETag"));
+        assertEquals(200, repeat.getResponseCode());
+        assertEquals(etag, repeat.getHeaderField("ETag"));
+        assertEquals(String.valueOf(firstArchive.length), repeat.getHeaderField("Content-Length"));
+        assertArrayEquals(firstArchive, repeatArchive);
+    }
+
+    @Test
+    void codeDeltaResolvesPreviousSpecByFingerprint() throws IOException {
+        HttpURLConnection full = postCode(null);
+        full.getInputStream().readAllBytes();
+        String etag = full.getHeaderField("ETag");
+        full.disconnect();
+        String changedSpec = VALID_SPEC.replace("\"name\": \"name\"", "\"name\": \"title\"");
+
+        HttpURLConnection delta = post("/generator/code/delta",
+                "{\"previousFingerprint\": \"" + etag.replace("\"", "") + "\", \"spec\": " + changedSpec + "}");
+        Set<String> entries = new HashSet<>();
+        try (ZipInputStream zip = new ZipInputStream(delta.getInputStream())) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.add(entry.getName());
+            }
+        }
+        delta.disconnect();
+        HttpURLConnection next = post("/generator/code/delta", "{\"previousFingerprint\": \""
+                + delta.getHeaderField(RestApiGeneratorServer.SPEC_FINGERPRINT_HEADER) + "\", \"spec\": " + VALID_SPEC + "}");
+        int nextStatus = next.getResponseCode();
+        next.disconnect();
+
+        HttpURLConnection unknown = post("/generator/code/delta",
+                "{\"previousFingerprint\": \"" + "0".repeat(64) + "\", \"spec\": " + changedSpec + "}");
+        int unknownStatus = unknown.getResponseCode();
+        unknown.disconnect();
+
+        assertEquals(200, delta.getResponseCode());
+        assertEquals(etag.replace("\"", ""), full.getHeaderField(RestApiGeneratorServer.SPEC_FINGERPRINT_HEADER));
+        assertNull(delta.getHeaderField("ETag"));
+        assertEquals(200, nextStatus);
+        assertTrue(entries.contains("delta-manifest.json"));
+        assertTrue(entries.contains("src/main/java/com/example/generated/entity/Product.java"), entries.toString());
+        assertFalse(entries.contains("settings.gradle"), "unchanged file shipped in delta");
+        assertEquals(412, unknownStatus);
+    }
+
+    @Test
+    void codeHonoursCompressionQueryParameter() throws IOException {
+        HttpURLConnection deflated = postCode(null);
+        deflated.getInputStream().readAllBytes();
+        deflated.disconnect();
+
+        HttpURLConnection stored = post("/generator/code?compression=stored", VALID_SPEC);
+        Set<Integer> methods = new HashSet<>();
+        try (ZipInputStream zip = new ZipInputStream(stored.getInputStream())) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                methods.add(entry.getMethod());
+            }
+        }
+        stored.disconnect();
+
+        HttpURLConnection invalid = post("/generator/code?compression=ultra", VALID_SPEC);
+        int invalidStatus = invalid.getResponseCode();
+        invalid.disconnect();
+
+        assertEquals(200, stored.getResponseCode());
+        assertEquals(Set.of(ZipEntry.STORED), methods);
+        assertNotEquals(deflated.getHeaderField("ETag"), stored.getHeaderField("ETag"));
+        assertEquals(400, invalidStatus);
+    }
+
+    @Test
+    void metricsReportRequestsArchiveSizesAndPluginTimes() throws Exception {
+        HttpURLConnection health = (HttpURLConnection) URI.create("http://localhost:" + port + "/health").toURL().openConnection();
+        assertEquals(200, health.getResponseCode());
+        health.disconnect();
+        HttpURLConnection code = postCode(null);
+        assertEquals(200, code.getResponseCode());
+        code.getInputStream().readAllBytes();
+        code.disconnect();
+
+        // Requests are recorded just after their response is sent, so allow a moment.
+        String metrics = "";
+        for (int attempt = 0; attempt < 50 && !metrics.contains("endpoint=\"/generator/code\",method=\"POST\",status=\"200\""); attempt++) {
+            Thread.sleep(attempt == 0 ? 0 : 20);
+            HttpURLConnection conn = (HttpURLConnection) URI.create("http://localhost:" + port + "/metrics").toURL().openConnection();
+            assertEquals(200, conn.getResponseCode());
+            assertTrue(conn.getContentType().startsWith("text/plain; version=0.0.4"));
+            metrics = new String(conn.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            conn.disconnect();
+        }
+
+        assertTrue(metrics.contains("restapigen_http_requests_total{endpoint=\"/health\",method=\"GET\",status=\"200\"} 1\n"), metrics);
+        assertTrue(metrics.contains("restapigen_http_requests_total{endpoint=\"/generator/code\",method=\"POST\",status=\"200\"} 1\n"), metrics);
+        assertTrue(metrics.contains("restapigen_http_request_duration_seconds_count{endpoint=\"/health\"} 1\n"), metrics);
+        assertTrue(metrics.contains("restapigen_archive_bytes_count{endpoint=\"/generator/code\"} 1\n"), metrics);
+        assertTrue(metrics.contains("restapigen_plugin_duration_seconds_count{plugin=\"entity-generator\"} 1\n"), metrics);
+        assertTrue(metrics.contains("restapigen_executor_queue_depth{executor=\"generation\"} 0\n"), metrics);
+        assertTrue(metrics.contains("# TYPE restapigen_llm_fallbacks_total counter\n"), metrics);
+    }
+
+    private HttpURLConnection post(String path, String json) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) URI.create("http://localhost:" + port + path).toURL().openConnection();
+        conn.setRequestMethod("POST");
+        conn.setRequestProperty("Content-Type", "application/json");
+        conn.setDoOutput(true);
+        conn.getOutputStream().write(json.getBytes(StandardCharsets.UTF_8));
+        return conn;
+    }
+
+    private HttpURLConnection postCode(String ifNoneMatch) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) URI.create("http://localhost:" + port + "/generator/code").toURL().openConnection();
+        conn.setRequestMethod("POST");
+        conn.setRequestProperty("Content-Type", "application/json");
+        if (ifNoneMatch != null) {
+            conn.setRequestProperty("If-None-Match", ifNoneMatch);
+        }
+        conn.setDoOutput(true);
+        conn.getOutputStream().write(VALID_SPEC.getBytes(StandardCharsets.UTF_8));
+        return conn;
+    }
+
     @Test
     void confidenceReturnsFailWithReasonForInvalidSpec() throws IOException {
         String invalidSpec = """
@@ -0,0 +1,40 @@
+package io.restapigen.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StaticAssetTest {
+
+    @Test
+    void servesGzipOnlyWhenAcceptedAndSmallerWithDistinctEtags() throws IOException {
+        StaticAsset page = StaticAsset.load("/static/missing.html", "text/html", "<p>repeat</p>".repeat(100));
+        StaticAsset tiny = StaticAsset.load("/static/missing.html", "text/html", "<p/>");
+
+        assertTrue(page.gzipped(true));
+        assertFalse(page.gzipped(false));
+        assertArrayEquals(page.body(false), new GZIPInputStream(new ByteArrayInputStream(page.body(true))).readAllBytes());
+        assertNotEquals(page.etag(true), page.etag(false));
+        assertTrue(page.etag(false).matches("\"[0-9a-f]{32}\""), page.etag(false));
+        assertFalse(tiny.gzipped(true));
+        assertArrayEquals(tiny.body(false), tiny.body(true));
+    }
+
+    @Test
+    void parsesAcceptEncodingQualities() {
+        assertTrue(StaticAsset.acceptsGzip("gzip, deflate, br"));
+        assertTrue(StaticAsset.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(StaticAsset.acceptsGzip("*"));
+        assertFalse(StaticAsset.acceptsGzip(null));
+        assertFalse(StaticAsset.acceptsGzip("identity"));
+        assertFalse(StaticAsset.acceptsGzip("gzip;q=0"));
+        assertFalse(StaticAsset.acceptsGzip("*, gzip;q=0.000"));
+    }
+}